@@ -41,6 +41,7 @@ import mil.arl.gift.common.aar.util.ApplyPatchRequest;
 import mil.arl.gift.common.aar.util.ApplyPatchResult;
 import mil.arl.gift.common.aar.util.LogFilePlaybackMessageManager;
 import mil.arl.gift.common.aar.util.MessageManager;
+import mil.arl.gift.common.aar.util.PlaybackKeyframes;
 import mil.arl.gift.common.course.dkf.session.AbstractKnowledgeSession.ObserverControls;
 import mil.arl.gift.common.course.dkf.session.SessionScenarioInfo;
 import mil.arl.gift.common.course.strategy.AuthorizeStrategiesRequest;
@@ -87,6 +88,13 @@ public class LogFilePlaybackService {
                     MessageTypeEnum.APPLY_STRATEGIES             // to help populate the game master strategy history panel
                     )
             );
+
+    /** the message types whose latest message before the play head is sent after seeking */
+    private static final Set<MessageTypeEnum> SEEK_LATEST_MESSAGE_TYPES = new HashSet<MessageTypeEnum>(Arrays.asList(
+            MessageTypeEnum.AUTHORIZE_STRATEGIES_REQUEST,
+            MessageTypeEnum.APPLY_STRATEGIES,
+            MessageTypeEnum.LEARNER_STATE)
+            );
     
     /** white list for message types to ignore timestamps of when calculating the amount of time until the next message, i.e. send as fast as possible */
     private static final Set<MessageTypeEnum> IGNORE_MSG_TIMESTAMP_WHITELIST = new HashSet<MessageTypeEnum>(Arrays.asList(
@@ -145,6 +153,13 @@ public class LogFilePlaybackService {
      * This will be null if the log being processed does not have a DKF saved 
      * alongside it that can be used to extrapolate assessment rules. */
     private AbstractAarAssessmentManager assessmentManager; 
+
+    /**
+     * The keyframes of the playback messages used to seek to a time without
+     * visiting every earlier message. Set to null whenever the messages are
+     * changed (e.g. patched) so they are rebuilt on the next seek.
+     */
+    private volatile PlaybackKeyframes keyframes = null;
     
     /**
      * Constructs a new {@link LogFilePlaybackService} that plays messages
@@ -235,6 +250,32 @@ public class LogFilePlaybackService {
                 entityIdToLastEntityMsg.put(es.getEntityID(), synMsg);
             }
         }
+
+        /* Build the keyframes while loading so the first seek doesn't have to */
+        getKeyframes();
+    }
+
+    /**
+     * Return the keyframes of the current playback messages, building them if
+     * they don't exist yet or the messages have changed since they were built.
+     *
+     * @return the keyframes of the playback messages. Won't be null.
+     */
+    private synchronized PlaybackKeyframes getKeyframes() {
+
+        PlaybackKeyframes current = keyframes;
+        final List<MessageManager> messages = messageManager.getMessages();
+        if (current == null || current.getMessageCount() != messages.size()) {
+            current = new PlaybackKeyframes(messages, PlaybackKeyframes.DEFAULT_INTERVAL,
+                    FAST_FORWARD_MESSAGE_TYPE_WHITELIST, SEEK_LATEST_MESSAGE_TYPES);
+            keyframes = current;
+
+            if (logger.isDebugEnabled()) {
+                logger.debug("Built playback keyframes " + current);
+            }
+        }
+
+        return current;
     }
     
     /**
@@ -310,7 +351,10 @@ public class LogFilePlaybackService {
             throw new UnsupportedOperationException("The time specified must be 0 or greater");
         }
 
-        seek(msg -> {
+        /* Every message before the keyframe is earlier than the time, so the
+         * search can start at the keyframe instead of the first message */
+        final PlaybackKeyframes currentKeyframes = getKeyframes();
+        seek(currentKeyframes, currentKeyframes.getSeekStartIndex(time), msg -> {
             return msg.getTimeStamp() >= time;
         });
     }
@@ -322,6 +366,22 @@ public class LogFilePlaybackService {
      *        Can't be null.
      */
     private synchronized void seek(final Predicate<MessageManager> msgFilter) {
+        seek(getKeyframes(), 0, msgFilter);
+    }
+
+    /**
+     * Move the play head to a different position within the message log.
+     *
+     * @param currentKeyframes the keyframes of the current playback messages.
+     *        Can't be null.
+     * @param startIndex the index of the first message to test against the
+     *        filter, must be the start of a keyframe. All messages before this
+     *        index are assumed to fail the filter.
+     * @param msgFilter the filter used to determine where to fast forward to.
+     *        Can't be null.
+     */
+    private synchronized void seek(final PlaybackKeyframes currentKeyframes, int startIndex,
+            final Predicate<MessageManager> msgFilter) {
         if (msgFilter == null) {
             throw new IllegalArgumentException("The parameter 'msgFilter' cannot be null.");
         }
@@ -331,10 +391,18 @@ public class LogFilePlaybackService {
 
         DomainSessionMessageEntry currentMessage = messageManager.getCurrentMessage();
 
-        /* Start from the beginning and find the first message that comes after
-         * the specified time stamp and matches the filter provided at
-         * construction */
-        messageManager.resetMessageIndexToIndex(0);
+        /* Replay the white listed messages that come before the keyframe
+         * without visiting the rest of the messages before it */
+        currentKeyframes.forEachReplayIndexBefore(startIndex, index -> {
+            sendMessage(messageManager.getMessage(index));
+        });
+
+        /* Find the first message at or after the keyframe that comes after the
+         * specified time stamp and matches the filter provided at construction.
+         * The index is placed just before the keyframe since fast forwarding
+         * advances it before testing a message, unless it is the first
+         * message. */
+        messageManager.resetMessageIndexToIndex(startIndex - 1);
 
         /* Fast forward to the first message after or at the message specified
          * by the filter */
@@ -351,8 +419,7 @@ public class LogFilePlaybackService {
         
         /* Send whatever the last learner state was from the new playhead
          * position */
-        Map<MessageTypeEnum, DomainSessionMessageEntry> latestMessages = messageManager
-                .getLatestMessagesOfType(MessageTypeEnum.AUTHORIZE_STRATEGIES_REQUEST, MessageTypeEnum.APPLY_STRATEGIES, MessageTypeEnum.LEARNER_STATE);
+        Map<MessageTypeEnum, DomainSessionMessageEntry> latestMessages = getLatestMessagesOfType(currentKeyframes);
         DomainSessionMessageEntry learnerStateMsg = latestMessages.get(MessageTypeEnum.LEARNER_STATE);
         DomainSessionMessageEntry authorizeStrategyMsg = latestMessages
                 .get(MessageTypeEnum.AUTHORIZE_STRATEGIES_REQUEST);
@@ -404,6 +471,37 @@ public class LogFilePlaybackService {
         }
     }
 
+    /**
+     * Searches for the latest messages of the {@link #SEEK_LATEST_MESSAGE_TYPES}
+     * at or before the current message. Only the messages since the start of the
+     * current keyframe are searched, the keyframe provides the latest messages
+     * before that.
+     *
+     * @param currentKeyframes the keyframes of the current playback messages.
+     *        Can't be null.
+     * @return A mapping between the {@link MessageTypeEnum} and the latest
+     *         message of that type. No mapping will exist for a type if no
+     *         message of that type was found.
+     */
+    private Map<MessageTypeEnum, DomainSessionMessageEntry> getLatestMessagesOfType(PlaybackKeyframes currentKeyframes) {
+
+        final int keyframeStart = currentKeyframes.getKeyframeStartIndex(messageManager.getCurrentMessageIndex());
+        final Map<MessageTypeEnum, DomainSessionMessageEntry> latestMessages = messageManager.getLatestMessagesOfType(
+                keyframeStart, SEEK_LATEST_MESSAGE_TYPES.toArray(new MessageTypeEnum[SEEK_LATEST_MESSAGE_TYPES.size()]));
+
+        for (MessageTypeEnum type : SEEK_LATEST_MESSAGE_TYPES) {
+            if (!latestMessages.containsKey(type)) {
+                final DomainSessionMessageEntry msg = messageManager
+                        .getMessage(currentKeyframes.getLatestIndexBefore(type, keyframeStart));
+                if (msg != null) {
+                    latestMessages.put(type, msg);
+                }
+            }
+        }
+
+        return latestMessages;
+    }
+
     /**
      * Move the play head to a different position within the message log.
      *
@@ -684,6 +782,7 @@ public class LogFilePlaybackService {
         threadPool.shutdown();
 
         messageManager.clearAll();
+        keyframes = null;
     }
     
     /**
@@ -850,6 +949,7 @@ public class LogFilePlaybackService {
 
         try {
             messageManager.readLogFile();
+            keyframes = null;
             seek(prevMsgIndexTimestamp);
         } catch (Exception e) {
             throw new DetailedException("Unable to parse the log file.",
@@ -875,6 +975,7 @@ public class LogFilePlaybackService {
         
         ApplyPatchRequest request = new ApplyPatchRequest(requestPatches, timestamp);
         final ApplyPatchResult results = messageManager.editPatch(request);
+        keyframes = null;
 
         /* Resend the current message in case it changed */
         if (messageManager.getCurrentMessage() != null) {
@@ -1009,6 +1110,7 @@ public class LogFilePlaybackService {
                 final ApplyPatchRequest patchRequest = new ApplyPatchRequest(changdAttributes, patchTime);
                 patchRequest.setUpdateEntireSpan(updateEntireSpan);
                 final ApplyPatchResult results = messageManager.applyPatchToMessages(patchRequest);
+                keyframes = null;
         
                 /* Send this message because evaluator updates are always at 'now'
                  * time */
@@ -1039,6 +1141,7 @@ public class LogFilePlaybackService {
                 final ApplyPatchRequest patchRequest = new ApplyPatchRequest(requestPatches, patchTime);
                 patchRequest.setUpdateEntireSpan(updateEntireSpan);
                 final ApplyPatchResult results = messageManager.applyPatchToMessages(patchRequest);
+                keyframes = null;
         
                 /* Send this message because evaluator updates are always at 'now'
                  * time */
@@ -1065,6 +1168,7 @@ public class LogFilePlaybackService {
      */
     public ApplyPatchResult removeLogPatchForAttribute(long timestamp, PerformanceStateAttribute performanceState) {
         final ApplyPatchResult results = messageManager.removeLogPatchForAttribute(timestamp, performanceState);
+        keyframes = null;
         
         /* Resend the current message in case it changed */
         if (messageManager.getCurrentMessage() != null) {
@@ -1239,6 +1343,7 @@ public class LogFilePlaybackService {
                 
             /* Apply a patch for each performance state attribute that was modified*/
             final ApplyPatchResult results = messageManager.applyPatchToMessages(scoreNode);
+            keyframes = null;
     
             /* Send this message because evaluator updates are always at 'now'
              * time */
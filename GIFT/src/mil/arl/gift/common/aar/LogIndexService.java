@@ -7,17 +7,29 @@
  */
 package mil.arl.gift.common.aar;
 import java.io.BufferedReader;
+import java.io.BufferedInputStream;
 import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.FilenameFilter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
 import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -27,6 +39,12 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
 import org.json.simple.JSONArray;
@@ -106,9 +124,44 @@ public class LogIndexService {
     /** The JSON Key for {@link LogMetadata#getDkf()} */
     private static final String DKF_KEY = "dkf";
 
+    /**
+     * The JSON Key of the reserved entry in the log index file that maps each
+     * log file name to the last modified time of the log file when its metadata
+     * was extracted. Its value is not an array so it is never read as a log file
+     * entry.
+     */
+    private static final String LOG_MODIFIED_KEY = "_logModified";
+
+    /** The JSON Key of a log index journal record for the log file name */
+    private static final String JOURNAL_FILE_NAME_KEY = "logFile";
+
+    /** The JSON Key of a log index journal record for the metadatas of the log file */
+    private static final String JOURNAL_METADATAS_KEY = "metadatas";
+
+    /** The JSON Key of a log index journal record for the last modified time of the log file */
+    private static final String JOURNAL_MODIFIED_KEY = "modified";
+
+    /** The JSON Key of a log index journal record that removes the log file from the index */
+    private static final String JOURNAL_REMOVED_KEY = "removed";
+
     /** the cache file name */
     private static final String FILE_NAME = "logIndex.json";
 
+    /**
+     * the name of the append-only journal of the changes made to the cache file
+     * since it was last written
+     */
+    private static final String JOURNAL_FILE_NAME = "logIndex.journal";
+
+    /**
+     * the size in bytes the journal can grow to before it is compacted into the
+     * cache file, unless the cache file is larger
+     */
+    private static final long JOURNAL_COMPACTION_SIZE = 1024 * 1024;
+
+    /** the number of log files whose metadata is extracted at the same time */
+    private static final int EXTRACTION_PARALLELISM = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
     /** the progress indicator task description for parsing the cache file */
     private static final String PARSING_CACHE_TASK_DESC = "Parsing cache...";
 
@@ -158,6 +211,15 @@ public class LogIndexService {
      */
     private final File LOG_INDEX;
 
+    /**
+     * The append-only journal of the changes made to the {@link #LOG_INDEX}
+     * since it was last written. Each line is a complete JSON record that
+     * replaces or removes the entry of a single log file, so updating the index
+     * only writes the entries that changed. A partially written last line (e.g.
+     * from a crash) is removed when the journal is read.
+     */
+    private final File LOG_INDEX_JOURNAL;
+
     /**
      * The folder that contains the index file as well as the individual log
      * files that are being indexed.
@@ -189,6 +251,7 @@ public class LogIndexService {
   
         LOG_OUTPUT_FOLDER = new File(PackageUtil.getDomainSessions());
         LOG_INDEX = Paths.get(PackageUtil.getDomainSessions(), FILE_NAME).toFile();
+        LOG_INDEX_JOURNAL = Paths.get(PackageUtil.getDomainSessions(), JOURNAL_FILE_NAME).toFile();
     }
 
     /**
@@ -327,6 +390,28 @@ public class LogIndexService {
      */
     private synchronized Map<String, Set<LogMetadata>> getAllSessions(ProgressIndicator progressIndicator)
             throws DetailedException {
+        return getAllSessions(progressIndicator, new HashMap<String, Long>());
+    }
+
+    /**
+     * Gets the {@link Collection} of {@link AbstractKnowledgeSession} objects
+     * that are available for AAR playback along with the last modified time of
+     * each indexed log file.
+     *
+     * @param progressIndicator used to update the caller on progress made fetching the sessions.
+     *         Can be null.
+     * @param logModifiedTimes populated with the last modified time of each
+     *        indexed log file. Can't be null.
+     * @return a {@link Map} of {@link AbstractKnowledgeSession}
+     *         objects that are available for playback, grouped by the
+     *         names of the log files they were obtained from. Can't
+     *         be null. Can be empty.
+     * @throws DetailedException if there was a problem getting the previously
+     *         indexed files from the disk or writing the new index file to the
+     *         disk.
+     */
+    private synchronized Map<String, Set<LogMetadata>> getAllSessions(ProgressIndicator progressIndicator,
+            Map<String, Long> logModifiedTimes) throws DetailedException {
         if (logger.isTraceEnabled()) {
             logger.trace("getSessions()");
         }
@@ -337,7 +422,7 @@ public class LogIndexService {
                 progressIndicator.setTaskDescription(PARSING_CACHE_TASK_DESC);
                 progressIndicator.setPercentComplete(PARSING_CACHE_TASK_PERC);
             }
-            Map<String, Set<LogMetadata>> indexedFiles = parseLogIndex();
+            Map<String, Set<LogMetadata>> indexedFiles = parseLogIndex(logModifiedTimes);
 
             /* Determine if any of the log files are newer than the current log
              * index or do not have mappings in the log index*/
@@ -361,7 +446,13 @@ public class LogIndexService {
                     if (ProtobufMessageLogReader.isProtobufLogFile(file1.getName())
                             || file1.getName().endsWith(".log")) {
                         String fileName = file.getName() + File.separator + file1.getName();
-                        if(file1.lastModified() > LOG_INDEX.lastModified() || !indexedFiles.containsKey(fileName)) {
+
+                        /* Entries written before the modified times were recorded
+                         * are compared against the log index file instead */
+                        Long indexedModified = logModifiedTimes.get(fileName);
+                        boolean isModified = indexedModified != null ? file1.lastModified() != indexedModified
+                                : file1.lastModified() > LOG_INDEX.lastModified();
+                        if(isModified || !indexedFiles.containsKey(fileName)) {
 
                             //need to extract metadata since this file is either newer than the log index or not mapped by it
                             modifiedFiles.add(file1);
@@ -378,10 +469,12 @@ public class LogIndexService {
 
             //remove mappings in the log index for files that no longer exist
             indexedFiles.keySet().removeAll(fileIndexesToRemove);
+            logModifiedTimes.keySet().removeAll(fileIndexesToRemove);
 
             /* Extract the metadata from any new/modified files */
+            Set<String> updatedFiles = new HashSet<>();
             if (!modifiedFiles.isEmpty()) {
-                parseModifiedFiles(progressIndicator, modifiedFiles, indexedFiles);
+                updatedFiles = parseModifiedFiles(progressIndicator, modifiedFiles, indexedFiles, logModifiedTimes);
             }
 
             /* Update all sessions with a patch file check. This should always
@@ -414,14 +507,14 @@ public class LogIndexService {
                 }
             }
 
-            /* Write the updated version of the index to disk IFF a new/modified
-             * file exists */
-            if (!modifiedFiles.isEmpty()) {
+            /* Record the entries of the new/modified and removed files IFF any
+             * exist */
+            if (!updatedFiles.isEmpty() || !fileIndexesToRemove.isEmpty()) {
                 if (progressIndicator != null) {
                     progressIndicator.setTaskDescription(UPDATING_CACHE_TASK_DESC);
                     progressIndicator.setPercentComplete(UPDATING_CACHE_TASK_PERC);
                 }
-                writeLogIndex(indexedFiles);
+                updateLogIndex(indexedFiles, logModifiedTimes, updatedFiles, fileIndexesToRemove);
             }
 
             if(progressIndicator != null){
@@ -442,6 +535,8 @@ public class LogIndexService {
 
     /**
      * Parse the modified files and populate the indexed files with the result.
+     * The metadata of up to {@link #EXTRACTION_PARALLELISM} files is extracted at
+     * the same time.
      * 
      * @param progressIndicator used to update the caller on progress made
      *        fetching the sessions. Can be null.
@@ -450,31 +545,73 @@ public class LogIndexService {
      * @param indexedFiles the collection of log metadata objects for each file.
      *        This will be populated with the result from parsing the modified
      *        files. Can't be null.
+     * @param logModifiedTimes the last modified time of each indexed log file.
+     *        This will be populated with the modified times of the files that
+     *        were parsed. Can't be null.
+     * @return the names of the log files whose entries in the indexed files
+     *         were updated. Won't be null.
      */
-    private void parseModifiedFiles(ProgressIndicator progressIndicator, List<File> modifiedFiles,
-            Map<String, Set<LogMetadata>> indexedFiles) {
+    private Set<String> parseModifiedFiles(ProgressIndicator progressIndicator, List<File> modifiedFiles,
+            Map<String, Set<LogMetadata>> indexedFiles, Map<String, Long> logModifiedTimes) {
+        Set<String> updatedFiles = new HashSet<>();
         if (CollectionUtils.isEmpty(modifiedFiles)) {
-            return;
+            return updatedFiles;
         } else if (indexedFiles == null) {
             throw new IllegalArgumentException("The parameter 'indexedFiles' cannot be null.");
-            }
+        } else if (logModifiedTimes == null) {
+            throw new IllegalArgumentException("The parameter 'logModifiedTimes' cannot be null.");
+        }
 
-            if(progressIndicator != null){
-                progressIndicator.setTaskDescription(PARSING_LOG_FILES_TASK_DESC);
-                progressIndicator.setPercentComplete(PARSING_LOG_FILES_TASK_PERC);
+        if(progressIndicator != null){
+            progressIndicator.setTaskDescription(PARSING_LOG_FILES_TASK_DESC);
+            progressIndicator.setPercentComplete(PARSING_LOG_FILES_TASK_PERC);
+        }
+
+        final AtomicInteger threadCount = new AtomicInteger();
+        final ExecutorService extractionPool = Executors.newFixedThreadPool(
+                Math.min(EXTRACTION_PARALLELISM, modifiedFiles.size()), runnable -> {
+                    final Thread thread = new Thread(runnable, "LogIndexService - extract metadata " + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        try {
+            /* Extract the metadata from the new files in parallel, the results
+             * are merged into the index on this thread as they complete */
+            CompletionService<ExtractedLogFile> extractions = new ExecutorCompletionService<>(extractionPool);
+            for (File file : modifiedFiles) {
+                extractions.submit(() -> {
+                    /* read the modified time first so a change made while
+                     * extracting is found the next time */
+                    long lastModified = file.lastModified();
+                    try {
+                        return new ExtractedLogFile(file, lastModified, extractMetadata(new FileProxy(file)), null);
+                    } catch (Throwable t) {
+                        return new ExtractedLogFile(file, lastModified, null, t);
+                    }
+                });
             }
 
-            /* Extract the metadata from the new files */
             int delta = UPDATING_CACHE_TASK_PERC - PARSING_LOG_FILES_TASK_PERC;
             StringBuilder failedSb = null;
-            int index = 1;
-            for (File file : modifiedFiles) {
+            for (int index = 1; index <= modifiedFiles.size(); index++) {
                 try{
-                    List<LogMetadata> sessionsToAdd = extractMetadata(new FileProxy(file));
+                    ExtractedLogFile extracted = extractions.take().get();
+                    File file = extracted.file;
+                    if (extracted.failure != null) {
+                        if (failedSb == null) {
+                            failedSb = new StringBuilder("Message folder files that failed to parse:\n");
+                        }
 
-                    final Set<LogMetadata> mappedSessions = indexedFiles.computeIfAbsent(file.getParentFile().getName() + File.separator + file.getName(),
+                        failedSb.append(file.getName()).append(" : ").append(extracted.failure).append("\n");
+                        continue;
+                    }
+
+                    final String fileName = file.getParentFile().getName() + File.separator + file.getName();
+
+                    final Set<LogMetadata> mappedSessions = indexedFiles.computeIfAbsent(fileName,
                             key -> new HashSet<>());
-                    for(LogMetadata session : sessionsToAdd) {
+                    for(LogMetadata session : extracted.metadatas) {
 
                         if(mappedSessions.contains(session)) {
                             Iterator<LogMetadata> existingSessionItr = mappedSessions.iterator();
@@ -499,29 +636,44 @@ public class LogIndexService {
                         mappedSessions.add(session);
                     }
 
-                } catch (Throwable t) {
-                    if (failedSb == null) {
-                        failedSb = new StringBuilder("Message folder files that failed to parse:\n");
-                    }
+                    logModifiedTimes.put(fileName, extracted.lastModified);
+                    updatedFiles.add(fileName);
 
-                    failedSb.append(file.getName()).append(" : ").append(t).append("\n");
-                }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    logger.warn("Interrupted while extracting the metadata of the modified log files.", e);
+                    break;
 
-                if(progressIndicator != null){
-                progressIndicator.setPercentComplete((int)(PARSING_LOG_FILES_TASK_PERC + index * (delta/(double)modifiedFiles.size())));
+                } catch (ExecutionException e) {
+                    /* the extraction task catches its own failures */
+                    logger.error("Failed to extract the metadata of a modified log file.", e.getCause());
+
+                } finally {
+                    if(progressIndicator != null){
+                        progressIndicator.setPercentComplete((int)(PARSING_LOG_FILES_TASK_PERC + index * (delta/(double)modifiedFiles.size())));
+                    }
                 }
-                
-                index++;
             }
 
             if(failedSb != null){
                 logger.warn(failedSb.toString());
             }
+
+        } finally {
+            extractionPool.shutdownNow();
+        }
+
+        return updatedFiles;
     }
 
     /**
-     * Parses the existing index file if it exists.
+     * Parses the existing index file if it exists and applies the changes
+     * recorded in the index journal since the index file was written.
      *
+     * @param logModifiedTimes populated with the last modified time of each
+     *        indexed log file when its metadata was extracted. Log files indexed
+     *        before the modified times were recorded won't have a mapping.
+     *        Can't be null.
      * @return The {@link Map} of previously extracted {@link AbstractKnowledgeSession}
      *         metadata, grouped by the names of the log files it was obtained from.
      *         Can't be null.
@@ -530,161 +682,285 @@ public class LogIndexService {
      * @throws IOException if there was an error reading the content of file.
      */
     @SuppressWarnings("unchecked")
-    private Map<String, Set<LogMetadata>> parseLogIndex() throws DetailedException, IOException {
+    private Map<String, Set<LogMetadata>> parseLogIndex(Map<String, Long> logModifiedTimes) throws DetailedException, IOException {
         if (logger.isTraceEnabled()) {
             logger.trace("parseLogIndex()");
         }
 
-        /* If the file does not already exist, return an empty list. */
-        if (!LOG_INDEX.exists()) {
-            return new HashMap<>();
-        }
+        Map<String, Set<LogMetadata>> extractedMetadata = new HashMap<>();
 
-        try (BufferedReader fileReader = new BufferedReader(new FileReader(LOG_INDEX))) {
-            final JSONParser jsonParser = new JSONParser();
-            Object parsedObject = jsonParser.parse(fileReader);
-            Map<String, Set<LogMetadata>> extractedMetadata = new HashMap<>();
-            JSONObject logFileMap = null;
+        /* If the file does not already exist, start with an empty index. */
+        if (LOG_INDEX.exists()) {
+            try (BufferedReader fileReader = new BufferedReader(new FileReader(LOG_INDEX))) {
+                final JSONParser jsonParser = new JSONParser();
+                Object parsedObject = jsonParser.parse(fileReader);
+                JSONObject logFileMap = null;
 
-            if(parsedObject instanceof JSONArray) {
+                if(parsedObject instanceof JSONArray) {
 
-                //if an array is found, this is an old log index file, so convert it to the newer map structure
-                logFileMap = new JSONObject();
+                    //if an array is found, this is an old log index file, so convert it to the newer map structure
+                    logFileMap = new JSONObject();
 
-                JSONArray logIndexArray = (JSONArray) parsedObject;
-                for (Object object : logIndexArray) {
-                    if (object instanceof JSONObject) {
-                        JSONObject jsonMetadata = (JSONObject) object;
+                    JSONArray logIndexArray = (JSONArray) parsedObject;
+                    for (Object object : logIndexArray) {
+                        if (object instanceof JSONObject) {
+                            JSONObject jsonMetadata = (JSONObject) object;
 
-                        /* Determine the path of the log file */
-                        String logFile = (String) jsonMetadata.get(FILE_NAME_KEY);
-                        if(logFile != null) {
+                            /* Determine the path of the log file */
+                            String logFile = (String) jsonMetadata.get(FILE_NAME_KEY);
+                            if(logFile != null) {
 
-                            Object logFileMetas = logFileMap.get(logFile);
-                            if(!(logFileMetas instanceof JSONArray)) {
+                                Object logFileMetas = logFileMap.get(logFile);
+                                if(!(logFileMetas instanceof JSONArray)) {
+
+                                    //if no mapping exists for this log file yet, add one
+                                    logFileMetas = new JSONArray();
+                                    logFileMap.put(logFile, logFileMetas);
+                                }
 
-                                //if no mapping exists for this log file yet, add one
-                                logFileMetas = new JSONArray();
-                                logFileMap.put(logFile, logFileMetas);
+                                //add this metadata to the mapping's list of associated metadatas
+                                ((JSONArray) logFileMetas).add(jsonMetadata);
                             }
 
-                            //add this metadata to the mapping's list of associated metadatas
-                            ((JSONArray) logFileMetas).add(jsonMetadata);
+                        } else {
+                            throw new DetailedException("Log Index Parse Error",
+                                    "Expected a JSON Object but instead found a " + object.getClass().getName(), null);
                         }
-
-                    } else {
-                        throw new DetailedException("Log Index Parse Error",
-                                "Expected a JSON Object but instead found a " + object.getClass().getName(), null);
                     }
+
+                } else if(parsedObject instanceof JSONObject) {
+                    logFileMap = (JSONObject) parsedObject;
                 }
 
-            } else if(parsedObject instanceof JSONObject) {
-                logFileMap = (JSONObject) parsedObject;
-            }
+                if (logFileMap != null) {
 
-            if (logFileMap != null) {
+                    //the modified time of each log file when it was indexed
+                    Object modifiedTimes = logFileMap.get(LOG_MODIFIED_KEY);
+                    if(modifiedTimes instanceof JSONObject) {
+                        for(Object entry : ((JSONObject) modifiedTimes).entrySet()) {
+                            Entry<Object, Object> modifiedTime = (Entry<Object, Object>) entry;
+                            if(modifiedTime.getKey() instanceof String && modifiedTime.getValue() instanceof Long) {
+                                logModifiedTimes.put((String) modifiedTime.getKey(), (Long) modifiedTime.getValue());
+                            }
+                        }
+                    }
 
-                //iterate through each log file mapping in the log index file to gather its metadata
-                for(Object key : logFileMap.keySet()) {
+                    //iterate through each log file mapping in the log index file to gather its metadata
+                    for(Object key : logFileMap.keySet()) {
 
-                    if(!(key instanceof String)) {
-                        continue;
-                    }
+                        if(!(key instanceof String)) {
+                            continue;
+                        }
 
-                    //obtain the log file's name from its key
-                    String logFile = (String) key;
+                        //obtain the log file's name from its key
+                        String logFile = (String) key;
 
-                    Object value = logFileMap.get(key);
-                    if(!(value instanceof JSONArray)) {
-                        continue;
+                        Object value = logFileMap.get(key);
+                        if(!(value instanceof JSONArray)) {
+                            continue;
+                        }
+
+                        extractedMetadata.put(logFile, decodeMetadatas((JSONArray) value, logFile));
                     }
 
-                    Set<LogMetadata> associatedMetadatas = extractedMetadata.get(logFile);
-                    if (associatedMetadatas == null) {
-                        // if no mapping exists for this log file, create one
-                        associatedMetadatas = new HashSet<>();
-                        extractedMetadata.put(logFile, associatedMetadatas);
+                } else {
+                    throw new DetailedException("Log Index Parse Error",
+                            "Expected the root object to be a JSON Array but instead it was a "
+                                    + parsedObject.getClass().getName(),
+                            null);
+                }
+            } catch (ParseException parseEx) {
+                String msg = String.format("There was a problem parsing the JSON within the log index file '%s'",
+                        LOG_INDEX.getAbsoluteFile());
+                throw new DetailedException("Log Index Parse Error", msg, parseEx);
+            }
+        }
+
+        replayLogIndexJournal(extractedMetadata, logModifiedTimes);
+
+        return extractedMetadata;
+    }
+
+    /**
+     * Applies the records of the index journal, in the order they were written,
+     * to the index parsed from the index file. Every record is appended as a
+     * single line ending with a new line, so a last line without one was only
+     * partially written (e.g. the process stopped while appending it). That
+     * line is removed from the journal so that the next record appended starts
+     * on its own line. A complete line that can't be parsed is skipped.
+     *
+     * @param extractedMetadata the metadata parsed from the index file, grouped
+     *        by the names of the log files it was obtained from. Can't be null.
+     * @param logModifiedTimes the last modified time of each indexed log file.
+     *        Can't be null.
+     * @throws DetailedException if a record of the journal contains metadata that
+     *         can't be converted to a log metadata
+     * @throws IOException if there was an error reading the content of the journal
+     */
+    private void replayLogIndexJournal(Map<String, Set<LogMetadata>> extractedMetadata,
+            Map<String, Long> logModifiedTimes) throws DetailedException, IOException {
+
+        if (!LOG_INDEX_JOURNAL.exists()) {
+            return;
+        }
+
+        int recordCount = 0;
+        int lineNumber = 0;
+
+        /* the length of the journal up to the end of the last complete line */
+        long completeLength = 0;
+        long journalLength = 0;
+
+        try (InputStream journalStream = new BufferedInputStream(new FileInputStream(LOG_INDEX_JOURNAL))) {
+            final JSONParser jsonParser = new JSONParser();
+            final ByteArrayOutputStream lineBytes = new ByteArrayOutputStream();
+            int next;
+            while ((next = journalStream.read()) != -1) {
+
+                journalLength++;
+                if (next != '\n') {
+                    lineBytes.write(next);
+                    continue;
+                }
+
+                completeLength = journalLength;
+                lineNumber++;
+                String line = new String(lineBytes.toByteArray(), StandardCharsets.UTF_8);
+                lineBytes.reset();
+
+                if (line.isEmpty()) {
+                    continue;
+                }
+
+                JSONObject record;
+                try {
+                    record = (JSONObject) jsonParser.parse(line);
+                } catch (ParseException | ClassCastException e) {
+                    logger.warn("Skipping the unreadable record on line " + lineNumber + " of the log index journal '"
+                            + LOG_INDEX_JOURNAL.getAbsolutePath() + "'.", e);
+                    continue;
+                }
+
+                String logFile = (String) record.get(JOURNAL_FILE_NAME_KEY);
+                if (logFile == null) {
+                    continue;
+                }
+
+                if (Boolean.TRUE.equals(record.get(JOURNAL_REMOVED_KEY))) {
+                    extractedMetadata.remove(logFile);
+                    logModifiedTimes.remove(logFile);
+                } else {
+                    extractedMetadata.put(logFile, decodeMetadatas((JSONArray) record.get(JOURNAL_METADATAS_KEY), logFile));
+
+                    Long modified = (Long) record.get(JOURNAL_MODIFIED_KEY);
+                    if (modified != null) {
+                        logModifiedTimes.put(logFile, modified);
                     }
+                }
 
-                    try {
-                        // iterate through all of the metadatas associated with this
-                        // log file name
-                        for(Object metadataEntry : (JSONArray) value) {
-    
-                            if(!(metadataEntry instanceof JSONObject)) {
-                                continue;
-                            }
-    
-                            JSONObject jsonMetadata = (JSONObject) metadataEntry;
-    
-                            /* Get the session details from the log */
-                            JSONObject jsonSession = (JSONObject) jsonMetadata.get(SESSION_KEY);
-                            AbstractKnowledgeSession session = (AbstractKnowledgeSession) SESSION_CODEC.decode(jsonSession);
-    
-                            /* Get the index values of the start and end messages */
-                            Long firstMsgIndex = (Long) jsonMetadata.get(FIRST_MSG_INDEX_KEY);
-                            Long lastMsgIndex = (Long) jsonMetadata.get(LAST_MSG_INDEX_KEY);
-    
-                            /* Get the time values of the start and end messages */
-                            Long firstMsgTime = (Long) jsonMetadata.get(FIRST_MSG_TIME_KEY);
-                            Long lastMsgTime = (Long) jsonMetadata.get(LAST_MSG_TIME_KEY);
-    
-                            if (firstMsgIndex == null || lastMsgIndex == null) {
-                                final String msg = "The index entry " + jsonMetadata.toJSONString()
-                                        + " does not contain both a start and end index for its log span";
-                                logger.error(msg);
-                                throw new DetailedException("Log Index Parse Exception", msg, null);
-                            }
-    
-                            session.setInPastSessionMode(true);
-                            session.setSessionEndTime(lastMsgTime);
-                            session.setDomainSessionLogFileName(logFile);
-    
-                            final LogSpan logSpan = new LogSpan(firstMsgIndex.intValue(), lastMsgIndex.intValue());
-                            final LogMetadata logMetadata = new LogMetadata(session, logFile, logSpan, firstMsgTime,
-                                    lastMsgTime);
-    
-                            if(jsonMetadata.containsKey(USERS_FAVORITE)){
-                                JSONArray usersArray = (JSONArray) jsonMetadata.get(USERS_FAVORITE);
-                                for(Object username : usersArray){
-                                    logMetadata.addUserToFavorites((String) username);
-                                }
-                            }
-    
-                            final Path logFilePath = Paths.get(logFile);
-                            logMetadata.getVideoFiles().addAll(
-                                    findVideoMetaFiles(new File(LOG_OUTPUT_FOLDER, logFilePath.getParent().toString())));
-    
-                            if(jsonMetadata.containsKey(DKF_KEY)){
-                                String dkf = (String) jsonMetadata.get(DKF_KEY);
-                                logMetadata.setDkf(dkf);
-                            }
-                            
-                            // #5089 - updating observer controls audio path for Game Master playback
-                            LogFilePlaybackService.prepareSessionOutputAudioFileName(session.getObserverControls());
-    
-                            //add this metadata to the log file's mapping
-                            associatedMetadatas.add(logMetadata);
-                        }
-                    }catch(Throwable t) {
-                        throw new DetailedException("Failed to parse the metadata for the log file entry mapped to '"+logFile+"'.", 
-                                "There was a server side error when creating the objects with the data found for that entry in '"+LOG_INDEX.getAbsolutePath()+"'.", t);
+                recordCount++;
+            }
+        }
+
+        if (completeLength < journalLength) {
+            logger.warn("Removing the incomplete record at the end of the log index journal '"
+                    + LOG_INDEX_JOURNAL.getAbsolutePath() + "' after " + recordCount + " records.");
+
+            try (FileChannel journalChannel = FileChannel.open(LOG_INDEX_JOURNAL.toPath(), StandardOpenOption.WRITE)) {
+                journalChannel.truncate(completeLength);
+                journalChannel.force(true);
+            }
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Applied " + recordCount + " records from the log index journal.");
+        }
+    }
+
+    /**
+     * Converts the JSON metadatas of a log file entry of the index to log
+     * metadata.
+     *
+     * @param jsonMetadatas the JSON metadata of each session in the log file.
+     *        Can be null.
+     * @param logFile the name of the log file, relative to the log output folder.
+     *        Can't be null.
+     * @return the log metadata of each session in the log file. Won't be null.
+     * @throws DetailedException if any of the metadata couldn't be converted
+     */
+    private Set<LogMetadata> decodeMetadatas(JSONArray jsonMetadatas, String logFile) throws DetailedException {
+
+        Set<LogMetadata> associatedMetadatas = new HashSet<>();
+        if (jsonMetadatas == null) {
+            return associatedMetadatas;
+        }
+
+        try {
+            // iterate through all of the metadatas associated with this
+            // log file name
+            for(Object metadataEntry : jsonMetadatas) {
+
+                if(!(metadataEntry instanceof JSONObject)) {
+                    continue;
+                }
+
+                JSONObject jsonMetadata = (JSONObject) metadataEntry;
+
+                /* Get the session details from the log */
+                JSONObject jsonSession = (JSONObject) jsonMetadata.get(SESSION_KEY);
+                AbstractKnowledgeSession session = (AbstractKnowledgeSession) SESSION_CODEC.decode(jsonSession);
+
+                /* Get the index values of the start and end messages */
+                Long firstMsgIndex = (Long) jsonMetadata.get(FIRST_MSG_INDEX_KEY);
+                Long lastMsgIndex = (Long) jsonMetadata.get(LAST_MSG_INDEX_KEY);
+
+                /* Get the time values of the start and end messages */
+                Long firstMsgTime = (Long) jsonMetadata.get(FIRST_MSG_TIME_KEY);
+                Long lastMsgTime = (Long) jsonMetadata.get(LAST_MSG_TIME_KEY);
+
+                if (firstMsgIndex == null || lastMsgIndex == null) {
+                    final String msg = "The index entry " + jsonMetadata.toJSONString()
+                            + " does not contain both a start and end index for its log span";
+                    logger.error(msg);
+                    throw new DetailedException("Log Index Parse Exception", msg, null);
+                }
+
+                session.setInPastSessionMode(true);
+                session.setSessionEndTime(lastMsgTime);
+                session.setDomainSessionLogFileName(logFile);
+
+                final LogSpan logSpan = new LogSpan(firstMsgIndex.intValue(), lastMsgIndex.intValue());
+                final LogMetadata logMetadata = new LogMetadata(session, logFile, logSpan, firstMsgTime,
+                        lastMsgTime);
+
+                if(jsonMetadata.containsKey(USERS_FAVORITE)){
+                    JSONArray usersArray = (JSONArray) jsonMetadata.get(USERS_FAVORITE);
+                    for(Object username : usersArray){
+                        logMetadata.addUserToFavorites((String) username);
                     }
                 }
 
-                return extractedMetadata;
+                final Path logFilePath = Paths.get(logFile);
+                logMetadata.getVideoFiles().addAll(
+                        findVideoMetaFiles(new File(LOG_OUTPUT_FOLDER, logFilePath.getParent().toString())));
+
+                if(jsonMetadata.containsKey(DKF_KEY)){
+                    String dkf = (String) jsonMetadata.get(DKF_KEY);
+                    logMetadata.setDkf(dkf);
+                }
+                
+                // #5089 - updating observer controls audio path for Game Master playback
+                LogFilePlaybackService.prepareSessionOutputAudioFileName(session.getObserverControls());
 
-            } else {
-                throw new DetailedException("Log Index Parse Error",
-                        "Expected the root object to be a JSON Array but instead it was a "
-                                + parsedObject.getClass().getName(),
-                        null);
+                //add this metadata to the log file's mapping
+                associatedMetadatas.add(logMetadata);
             }
-        } catch (ParseException parseEx) {
-            String msg = String.format("There was a problem parsing the JSON within the log index file '%s'",
-                    LOG_INDEX.getAbsoluteFile());
-            throw new DetailedException("Log Index Parse Error", msg, parseEx);
+        }catch(Throwable t) {
+            throw new DetailedException("Failed to parse the metadata for the log file entry mapped to '"+logFile+"'.", 
+                    "There was a server side error when creating the objects with the data found for that entry in '"+LOG_INDEX.getAbsolutePath()+"'.", t);
         }
+
+        return associatedMetadatas;
     }
 
     /**
@@ -725,14 +1001,15 @@ public class LogIndexService {
      * @param progressIndicator optional progress indicator used updating progress on updating the log index file.  Can be null.
      * @throws IOException if there is a problem updating the log index file
      */
-    public void updateLogMetadata(LogMetadata updatedLogMetadata, ProgressIndicator progressIndicator) throws IOException{
+    public synchronized void updateLogMetadata(LogMetadata updatedLogMetadata, ProgressIndicator progressIndicator) throws IOException{
         
         /* remove the playback ID associated with the session in the log metadata being updated, since playback IDs are 
          * tied to live browser sessions and shouldn't be written to the log index */
         updatedLogMetadata.getSession().setPlaybackId(null);
 
         // get current info from file
-        Map<String, Set<LogMetadata>> logMetadatas = getAllSessions(progressIndicator);
+        Map<String, Long> logModifiedTimes = new HashMap<>();
+        Map<String, Set<LogMetadata>> logMetadatas = getAllSessions(progressIndicator, logModifiedTimes);
 
         if(progressIndicator != null){
             progressIndicator.setTaskDescription(FINDING_METADATA_LOG_INDEX_DESC);
@@ -751,25 +1028,192 @@ public class LogIndexService {
                 if(progressIndicator != null){
                     progressIndicator.setTaskDescription(UPDATING_METADATA_LOG_INDEX_DESC);
                 }
-                writeLogIndex(logMetadatas);
+
+                /* only the entry of this log file is written */
+                String logFile = updatedLogMetadata.getLogFile();
+                long lastModified = new File(LOG_OUTPUT_FOLDER, logFile).lastModified();
+                appendLogIndexJournal(Collections.singletonList(createJournalRecord(logFile, logFileMetadatas, lastModified)));
+
+                logModifiedTimes.put(logFile, lastModified);
+                compactLogIndexJournalIfDue(logMetadatas, logModifiedTimes);
             }
         }
     }
 
     /**
-     * Writes the {@link Map} of {@link AbstractKnowledgeSession} to the
-     * {@link #LOG_INDEX}. Be aware, the provided {@link Map} will overwrite
-     * the the content of the {@link #LOG_INDEX} file. It will not append to the
+     * Records the entries of the log files that were updated or removed in the
+     * index journal. The journal is compacted into the {@link #LOG_INDEX} file
+     * once it grows past the size of that file or {@link #JOURNAL_COMPACTION_SIZE},
+     * whichever is larger.
+     *
+     * @param metadatas the complete index, grouped by the names of the log files
+     *        the metadata was obtained from. Can't be null.
+     * @param logModifiedTimes the last modified time of each indexed log file.
+     *        Can't be null.
+     * @param updatedFiles the names of the log files whose entries were added
+     *        or replaced. Can't be null.
+     * @param removedFiles the names of the log files whose entries were removed.
+     *        Can't be null.
+     * @throws IOException if there was a problem writing the journal or the
+     *         index file.
+     */
+    private void updateLogIndex(Map<String, Set<LogMetadata>> metadatas, Map<String, Long> logModifiedTimes,
+            Set<String> updatedFiles, Set<String> removedFiles) throws IOException {
+
+        List<JSONObject> records = new ArrayList<>(updatedFiles.size() + removedFiles.size());
+        for (String logFile : updatedFiles) {
+            records.add(createJournalRecord(logFile, metadatas.get(logFile), logModifiedTimes.get(logFile)));
+        }
+
+        for (String logFile : removedFiles) {
+            records.add(createRemovedJournalRecord(logFile));
+        }
+
+        appendLogIndexJournal(records);
+        compactLogIndexJournalIfDue(metadatas, logModifiedTimes);
+    }
+
+    /**
+     * Compacts the index journal into the {@link #LOG_INDEX} file once the
+     * journal has grown past the size of that file or
+     * {@link #JOURNAL_COMPACTION_SIZE}, whichever is larger.
+     *
+     * @param metadatas the complete index, including the records in the
+     *        journal, grouped by the names of the log files the metadata was
+     *        obtained from. Can't be null.
+     * @param logModifiedTimes the last modified time of each indexed log file.
+     *        Can't be null.
+     * @throws IOException if there was a problem writing the index file.
+     */
+    private void compactLogIndexJournalIfDue(Map<String, Set<LogMetadata>> metadatas, Map<String, Long> logModifiedTimes)
+            throws IOException {
+
+        if (LOG_INDEX_JOURNAL.length() > Math.max(JOURNAL_COMPACTION_SIZE, LOG_INDEX.length())) {
+            writeLogIndex(metadatas, logModifiedTimes);
+        }
+    }
+
+    /**
+     * Creates the index journal record that adds or replaces the entry of a log
      * file.
      *
+     * @param logFile the name of the log file. Can't be null.
+     * @param metadatas the metadata of each session in the log file. Can be null.
+     * @param lastModified the last modified time of the log file when the
+     *        metadata was extracted. Can be null if not known.
+     * @return the journal record. Won't be null.
+     */
+    @SuppressWarnings("unchecked")
+    private JSONObject createJournalRecord(String logFile, Set<LogMetadata> metadatas, Long lastModified) {
+
+        JSONArray jsMetadatas = new JSONArray();
+        if (metadatas != null) {
+            for (LogMetadata metadata : metadatas) {
+                jsMetadatas.add(encodeMetadata(metadata));
+            }
+        }
+
+        JSONObject record = new JSONObject();
+        record.put(JOURNAL_FILE_NAME_KEY, logFile);
+        record.put(JOURNAL_METADATAS_KEY, jsMetadatas);
+        if (lastModified != null) {
+            record.put(JOURNAL_MODIFIED_KEY, lastModified);
+        }
+
+        return record;
+    }
+
+    /**
+     * Creates the index journal record that removes the entry of a log file.
+     *
+     * @param logFile the name of the log file. Can't be null.
+     * @return the journal record. Won't be null.
+     */
+    @SuppressWarnings("unchecked")
+    private JSONObject createRemovedJournalRecord(String logFile) {
+
+        JSONObject record = new JSONObject();
+        record.put(JOURNAL_FILE_NAME_KEY, logFile);
+        record.put(JOURNAL_REMOVED_KEY, Boolean.TRUE);
+        return record;
+    }
+
+    /**
+     * Appends the records to the end of the index journal, one per line, and
+     * forces them to the disk before returning so that a record is never lost
+     * once the index has been updated.
+     *
+     * @param records the journal records to append. Can't be null.
+     * @throws IOException if there was a problem writing to the journal.
+     */
+    private void appendLogIndexJournal(List<JSONObject> records) throws IOException {
+
+        if (records.isEmpty()) {
+            return;
+        }
+
+        try (FileOutputStream journalStream = new FileOutputStream(LOG_INDEX_JOURNAL, true)) {
+            Writer journalWriter = new BufferedWriter(new OutputStreamWriter(journalStream, StandardCharsets.UTF_8));
+            if (!endsWithNewLine(LOG_INDEX_JOURNAL)) {
+                /* never continue a partially written record (e.g. one that
+                 * couldn't be removed when the journal was read) */
+                journalWriter.write('\n');
+            }
+
+            for (JSONObject record : records) {
+                record.writeJSONString(journalWriter);
+                journalWriter.write('\n');
+            }
+
+            journalWriter.flush();
+            journalStream.getFD().sync();
+        } catch (IOException ioEx) {
+            String msg = String.format("There was a problem appending to the log index journal '%s'",
+                    LOG_INDEX_JOURNAL.getAbsolutePath());
+            logger.error(msg, ioEx);
+            throw ioEx;
+        }
+    }
+
+    /**
+     * Return whether the file is empty or its last byte is a new line.
+     *
+     * @param file the file to check. Can't be null.
+     * @return true if content appended to the file starts on a new line
+     * @throws IOException if there was a problem reading the file
+     */
+    private static boolean endsWithNewLine(File file) throws IOException {
+
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+            long length = randomAccessFile.length();
+            if (length == 0) {
+                return true;
+            }
+
+            randomAccessFile.seek(length - 1);
+            return randomAccessFile.read() == '\n';
+        }
+    }
+
+    /**
+     * Writes the {@link Map} of {@link AbstractKnowledgeSession} to the
+     * {@link #LOG_INDEX} and removes the index journal whose records are now part
+     * of it. Be aware, the provided {@link Map} will overwrite the the content of
+     * the {@link #LOG_INDEX} file. It will not append to the file. The new
+     * content is written to a temporary file that is forced to the disk and
+     * then replaces the index file so the index file is never left partially
+     * written, even if the system stops before the journal is removed.
+     *
      * @param metadatas The {@link Map} of {@link AbstractKnowledgeSession} to
      *        write to the file, grouped by the names of the log files they
      *        were obtained from. Can't be null. Can be empty.
+     * @param logModifiedTimes the last modified time of each indexed log file.
+     *        Can't be null.
      * @throws IOException if there was a problem writing the updated content to
      *         the index file.
      */
     @SuppressWarnings("unchecked")
-    private void writeLogIndex(Map<String, Set<LogMetadata>> metadatas) throws IOException {
+    private void writeLogIndex(Map<String, Set<LogMetadata>> metadatas, Map<String, Long> logModifiedTimes) throws IOException {
         if (logger.isTraceEnabled()) {
             logger.trace("writeLogIndex(" + metadatas + ")");
         }
@@ -788,43 +1232,30 @@ public class LogIndexService {
             for(LogMetadata metadata : entry.getValue()) {
 
                 /* populate the metadata for each log file name*/
-                JSONObject jsMetadata = new JSONObject();
-
-                /* Encode the session */
-                JSONObject jsonSession = new JSONObject();
-                SESSION_CODEC.encode(jsonSession, metadata.getSession());
-                jsMetadata.put(SESSION_KEY, jsonSession);
-
-                /* Encode the file name */
-                jsMetadata.put(FILE_NAME_KEY, metadata.getLogFile());
-
-                /* Encode the indices */
-                jsMetadata.put(FIRST_MSG_INDEX_KEY, metadata.getLogSpan().getStart());
-                jsMetadata.put(LAST_MSG_INDEX_KEY, metadata.getLogSpan().getEnd());
-
-                /* Encode the start/end times */
-                jsMetadata.put(FIRST_MSG_TIME_KEY, metadata.getStartTime());
-                jsMetadata.put(LAST_MSG_TIME_KEY, metadata.getEndTime());
-
-                /* Encode the DKF name */
-                jsMetadata.put(DKF_KEY, metadata.getDkf());
-
-                if(!metadata.getUsersFavorite().isEmpty()){
-                    JSONArray usernameArray = new JSONArray();
-                    usernameArray.addAll(metadata.getUsersFavorite());
-                    jsMetadata.put(USERS_FAVORITE, usernameArray);
-                }
-
-                jsMetadatas.add(jsMetadata);
+                jsMetadatas.add(encodeMetadata(metadata));
             }
 
             logFileMap.put(entry.getKey(), jsMetadatas);
         }
 
+        JSONObject jsModifiedTimes = new JSONObject();
+        jsModifiedTimes.putAll(logModifiedTimes);
+        logFileMap.put(LOG_MODIFIED_KEY, jsModifiedTimes);
+
+        File tempIndex = new File(LOG_INDEX.getParentFile(), FILE_NAME + ".tmp");
         try {
-            try (Writer fileWriter = new BufferedWriter(new FileWriter(LOG_INDEX))) {
+            try (FileOutputStream indexStream = new FileOutputStream(tempIndex)) {
+                Writer fileWriter = new BufferedWriter(new OutputStreamWriter(indexStream));
                 JSONObject.writeJSONString(logFileMap, fileWriter);
+                fileWriter.flush();
+                indexStream.getFD().sync();
             }
+
+            Files.move(tempIndex.toPath(), LOG_INDEX.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            syncDirectory(LOG_INDEX.getParentFile());
+
+            /* the index file now contains every record of the journal */
+            Files.deleteIfExists(LOG_INDEX_JOURNAL.toPath());
         } catch (IOException ioEx) {
             String msg = String.format("There was a problem writing the updated index to the log index file '%s'",
                     LOG_INDEX.getAbsolutePath());
@@ -833,6 +1264,63 @@ public class LogIndexService {
         }
     }
 
+    /**
+     * Forces the changes to the entries of the directory (e.g. a file moved into
+     * it) to the disk. Not every platform can open a directory (e.g. Windows),
+     * in which case nothing is done.
+     *
+     * @param directory the directory to sync. Can't be null.
+     */
+    private static void syncDirectory(File directory) {
+
+        try (FileChannel directoryChannel = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+            directoryChannel.force(true);
+        } catch (IOException | UnsupportedOperationException e) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Unable to sync the directory '" + directory.getAbsolutePath() + "'.", e);
+            }
+        }
+    }
+
+    /**
+     * Converts the log metadata to the JSON stored in the index.
+     *
+     * @param metadata the metadata of a session. Can't be null.
+     * @return the JSON of the metadata. Won't be null.
+     */
+    @SuppressWarnings("unchecked")
+    private JSONObject encodeMetadata(LogMetadata metadata) {
+
+        JSONObject jsMetadata = new JSONObject();
+
+        /* Encode the session */
+        JSONObject jsonSession = new JSONObject();
+        SESSION_CODEC.encode(jsonSession, metadata.getSession());
+        jsMetadata.put(SESSION_KEY, jsonSession);
+
+        /* Encode the file name */
+        jsMetadata.put(FILE_NAME_KEY, metadata.getLogFile());
+
+        /* Encode the indices */
+        jsMetadata.put(FIRST_MSG_INDEX_KEY, metadata.getLogSpan().getStart());
+        jsMetadata.put(LAST_MSG_INDEX_KEY, metadata.getLogSpan().getEnd());
+
+        /* Encode the start/end times */
+        jsMetadata.put(FIRST_MSG_TIME_KEY, metadata.getStartTime());
+        jsMetadata.put(LAST_MSG_TIME_KEY, metadata.getEndTime());
+
+        /* Encode the DKF name */
+        jsMetadata.put(DKF_KEY, metadata.getDkf());
+
+        if(!metadata.getUsersFavorite().isEmpty()){
+            JSONArray usernameArray = new JSONArray();
+            usernameArray.addAll(metadata.getUsersFavorite());
+            jsMetadata.put(USERS_FAVORITE, usernameArray);
+        }
+
+        return jsMetadata;
+    }
+
     /**
      * Extracts the {@link AbstractKnowledgeSession} metadata from a given
      * {@link File}.
@@ -1033,4 +1521,41 @@ public class LogIndexService {
             return toRet;
         }
     }
+
+    /**
+     * The metadata extracted from a log file and the last modified time of the
+     * log file when it was extracted.
+     *
+     * @author agent
+     *
+     */
+    private static class ExtractedLogFile {
+
+        /** the log file the metadata was extracted from */
+        private final File file;
+
+        /** the last modified time of the log file before the metadata was extracted */
+        private final long lastModified;
+
+        /** the metadata of each session in the log file, null if the extraction failed */
+        private final List<LogMetadata> metadatas;
+
+        /** the reason the extraction failed, null if it succeeded */
+        private final Throwable failure;
+
+        /**
+         * Set attributes
+         *
+         * @param file the log file the metadata was extracted from
+         * @param lastModified the last modified time of the log file before the metadata was extracted
+         * @param metadatas the metadata of each session in the log file, null if the extraction failed
+         * @param failure the reason the extraction failed, null if it succeeded
+         */
+        private ExtractedLogFile(File file, long lastModified, List<LogMetadata> metadatas, Throwable failure) {
+            this.file = file;
+            this.lastModified = lastModified;
+            this.metadatas = metadatas;
+            this.failure = failure;
+        }
+    }
 }
@@ -0,0 +1,269 @@
+/**
+ * Copyright Dignitas Technologies, LLC
+ *
+ * This file and its contents are governed by one or more distribution and
+ * copyright statements as described in the LICENSE.txt file distributed with
+ * this work.
+ */
+package mil.arl.gift.common.aar.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import mil.arl.gift.common.UserSession;
+import mil.arl.gift.common.aar.util.MessageManager;
+import mil.arl.gift.common.aar.util.PlaybackKeyframes;
+import mil.arl.gift.common.course.strategy.AuthorizeStrategiesRequest;
+import mil.arl.gift.common.enums.MessageTypeEnum;
+import mil.arl.gift.common.enums.ModuleTypeEnum;
+import mil.arl.gift.common.logger.DomainSessionMessageEntry;
+import mil.arl.gift.common.state.AffectiveState;
+import mil.arl.gift.common.state.CognitiveState;
+import mil.arl.gift.common.state.LearnerState;
+import mil.arl.gift.common.state.PerformanceState;
+import mil.arl.gift.common.test.TestChecker;
+import mil.arl.gift.net.api.message.DomainSessionMessage;
+
+/**
+ * This class tests that seeking with the playback keyframes (as done by the log file playback service)
+ * finds the same message, replays the same messages and finds the same latest messages as a plain
+ * linear replay from the first message.
+ *
+ * @author agent
+ *
+ */
+public class PlaybackKeyframesTest {
+
+    /** the types of messages replayed while seeking, the same as the playback service */
+    private static final Set<MessageTypeEnum> REPLAY_TYPES = new HashSet<>(Arrays.asList(
+            MessageTypeEnum.AUTHORIZE_STRATEGIES_REQUEST, MessageTypeEnum.APPLY_STRATEGIES));
+
+    /** the types of messages whose latest message is sent after seeking, the same as the playback service */
+    private static final Set<MessageTypeEnum> TRACKED_TYPES = new HashSet<>(Arrays.asList(
+            MessageTypeEnum.AUTHORIZE_STRATEGIES_REQUEST, MessageTypeEnum.APPLY_STRATEGIES, MessageTypeEnum.LEARNER_STATE));
+
+    /** the types of the generated messages */
+    private static final MessageTypeEnum[] MESSAGE_TYPES = {MessageTypeEnum.ENTITY_STATE, MessageTypeEnum.ENTITY_STATE,
+            MessageTypeEnum.ENTITY_STATE, MessageTypeEnum.LEARNER_STATE, MessageTypeEnum.AUTHORIZE_STRATEGIES_REQUEST,
+            MessageTypeEnum.APPLY_STRATEGIES};
+
+    /** keeps track of the checks of this test */
+    private static final TestChecker checker = new TestChecker("Playback keyframes");
+
+    public static void main(String args[]){
+
+        System.out.println("Starting test");
+
+        try{
+            List<MessageManager> messages = createMessages(1000, new Random(7));
+            for(int interval : new int[]{2, 7, 128, PlaybackKeyframes.DEFAULT_INTERVAL * 16}){
+                testSeekMatchesLinearReplay(messages, interval);
+            }
+
+            //the number of messages is a multiple of the interval
+            testSeekMatchesLinearReplay(createMessages(256, new Random(11)), 128);
+
+            testSeekMatchesLinearReplay(new ArrayList<MessageManager>(), 128);
+        }catch(Throwable t){
+            checker.error(t);
+        }
+
+        checker.finish();
+    }
+
+    /**
+     * Seek to times before, between and after every message, comparing the keyframe seek to a linear replay.
+     *
+     * @param messages the playback messages
+     * @param interval the number of messages between keyframes
+     */
+    private static void testSeekMatchesLinearReplay(List<MessageManager> messages, int interval){
+
+        PlaybackKeyframes keyframes = new PlaybackKeyframes(messages, interval, REPLAY_TYPES, TRACKED_TYPES);
+        checker.check("message count", messages.size(), keyframes.getMessageCount());
+
+        List<Long> times = new ArrayList<>();
+        times.add(Long.MIN_VALUE);
+        times.add(0L);
+        for(MessageManager message : messages){
+            times.add(message.getTimeStamp() - 1);
+            times.add(message.getTimeStamp());
+            times.add(message.getTimeStamp() + 1);
+        }
+        times.add(Long.MAX_VALUE);
+
+        for(long time : times){
+
+            String description = "interval "+interval+", time "+time;
+            SeekResult linear = linearSeek(messages, time);
+            SeekResult keyframe = keyframeSeek(messages, keyframes, time, description);
+
+            checker.check(description+", message found", linear.messageIndex, keyframe.messageIndex);
+            checker.check(description+", replayed messages", linear.replayed, keyframe.replayed);
+            checker.check(description+", latest messages", linear.latest, keyframe.latest);
+        }
+    }
+
+    /**
+     * Seek the way playback did before keyframes: fast forward from the first message, replaying
+     * the replay types, then search back from the message found for the latest tracked messages.
+     *
+     * @param messages the playback messages
+     * @param time the time to seek to
+     * @return what the seek found
+     */
+    private static SeekResult linearSeek(List<MessageManager> messages, long time){
+
+        SeekResult result = new SeekResult();
+        result.messageIndex = fastForward(messages, 0, time, result.replayed);
+        result.latest.putAll(findLatest(messages, result.messageIndex, 0));
+        return result;
+    }
+
+    /**
+     * Seek the way the playback service does: replay the replay types before the keyframe, fast forward
+     * from the keyframe, then search back to the start of the keyframe of the message found and take
+     * the other latest tracked messages from that keyframe.
+     *
+     * @param messages the playback messages
+     * @param keyframes the keyframes of the playback messages
+     * @param time the time to seek to
+     * @param description describes the seek when a check fails
+     * @return what the seek found
+     */
+    private static SeekResult keyframeSeek(List<MessageManager> messages, PlaybackKeyframes keyframes, long time, String description){
+
+        int startIndex = keyframes.getSeekStartIndex(time);
+        checker.check(description+", seek start is a keyframe", 0, startIndex % keyframes.getInterval());
+        for(int index = 0; index < startIndex; index++){
+            if(messages.get(index).getTimeStamp() >= time){
+                checker.check(description+", message "+index+" before the seek start is earlier", true, false);
+                break;
+            }
+        }
+
+        final SeekResult result = new SeekResult();
+        keyframes.forEachReplayIndexBefore(startIndex, index -> result.replayed.add(index));
+        result.messageIndex = fastForward(messages, startIndex, time, result.replayed);
+
+        int keyframeStart = keyframes.getKeyframeStartIndex(result.messageIndex);
+        Map<MessageTypeEnum, Integer> latest = findLatest(messages, result.messageIndex, keyframeStart);
+        for(MessageTypeEnum type : TRACKED_TYPES){
+            if(!latest.containsKey(type)){
+                int index = keyframes.getLatestIndexBefore(type, keyframeStart);
+                if(index >= 0){
+                    latest.put(type, index);
+                }
+            }
+        }
+        result.latest.putAll(latest);
+
+        return result;
+    }
+
+    /**
+     * Find the first message at or after the time, starting at the index provided.
+     *
+     * @param messages the playback messages
+     * @param startIndex the index of the first message to test
+     * @param time the time to seek to
+     * @param replayed where to add the indices of the messages of the replay types that are passed, including the message found
+     * @return the index of the message found, the number of messages if none was found
+     */
+    private static int fastForward(List<MessageManager> messages, int startIndex, long time, List<Integer> replayed){
+
+        for(int index = startIndex; index < messages.size(); index++){
+
+            MessageManager message = messages.get(index);
+            if(REPLAY_TYPES.contains(message.getMessageType())){
+                replayed.add(index);
+            }
+
+            if(message.getTimeStamp() >= time){
+                return index;
+            }
+        }
+
+        return messages.size();
+    }
+
+    /**
+     * Find the latest message of each tracked type at or before the message index, searching no further back
+     * than the lowest index.
+     *
+     * @param messages the playback messages
+     * @param messageIndex the index of the message found by the seek
+     * @param lowestIndex the index of the earliest message to search
+     * @return the index of the latest message of each tracked type found
+     */
+    private static Map<MessageTypeEnum, Integer> findLatest(List<MessageManager> messages, int messageIndex, int lowestIndex){
+
+        Map<MessageTypeEnum, Integer> latest = new HashMap<>();
+        for(int index = Math.min(messageIndex, messages.size() - 1); index >= lowestIndex; index--){
+
+            MessageTypeEnum type = messages.get(index).getMessageType();
+            if(TRACKED_TYPES.contains(type) && !latest.containsKey(type)){
+                latest.put(type, index);
+            }
+        }
+
+        return latest;
+    }
+
+    /**
+     * Create playback messages of random types whose time stamps mostly increase but sometimes go back a little,
+     * as can happen in a log.
+     *
+     * @param count the number of messages to create
+     * @param random the source of the types and time stamps
+     * @return the messages
+     */
+    private static List<MessageManager> createMessages(int count, Random random){
+
+        UserSession userSession = new UserSession(1);
+        List<MessageManager> messages = new ArrayList<>(count);
+        long time = 1000000;
+        for(int index = 0; index < count; index++){
+
+            time += random.nextInt(10) < 8 ? random.nextInt(50) : -random.nextInt(200);
+
+            MessageTypeEnum type = MESSAGE_TYPES[random.nextInt(MESSAGE_TYPES.length)];
+            Object payload = null;
+            if(type == MessageTypeEnum.LEARNER_STATE){
+                payload = new LearnerState(new PerformanceState(), new CognitiveState(), new AffectiveState());
+            }else if(type == MessageTypeEnum.AUTHORIZE_STRATEGIES_REQUEST){
+                payload = new AuthorizeStrategiesRequest(new HashMap<>(), null);
+            }
+
+            DomainSessionMessage message = new DomainSessionMessage(type, index, 0, time, null, null,
+                    ModuleTypeEnum.DOMAIN_MODULE, null, payload, userSession, 1, false);
+            messages.add(new MessageManager(new DomainSessionMessageEntry(0, 1, userSession, 0, time, message)));
+        }
+
+        return messages;
+    }
+
+    /**
+     * What a seek found.
+     *
+     * @author agent
+     *
+     */
+    private static class SeekResult {
+
+        /** the index of the message the play head was moved to, the number of messages if none */
+        private int messageIndex;
+
+        /** the indices of the messages replayed while seeking, in the order they were sent */
+        private final List<Integer> replayed = new ArrayList<>();
+
+        /** the index of the latest message of each tracked type at the play head */
+        private final Map<MessageTypeEnum, Integer> latest = new HashMap<>();
+    }
+}
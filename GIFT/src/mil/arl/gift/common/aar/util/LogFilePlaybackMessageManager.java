@@ -594,12 +594,31 @@ public class LogFilePlaybackMessageManager {
      *         {@link #currentMessageIndex} value.
      */
     public Map<MessageTypeEnum, DomainSessionMessageEntry> getLatestMessagesOfType(MessageTypeEnum... types) {
+        return getLatestMessagesOfType(0, types);
+    }
+
+    /**
+     * Searches for the latest messages of provided types that came at or before
+     * the messaged referenced by {@link #currentMessageIndex}, without looking
+     * at the messages before the lowest index provided.
+     *
+     * @param lowestIndex the index of the earliest message to search (e.g. the
+     *        start of a {@link PlaybackKeyframes keyframe}).
+     * @param types The {@link MessageTypeEnum} of the messages to search for.
+     *        Can't be empty or null.
+     * @return A mapping between the {@link MessageTypeEnum} of the desired
+     *         message and the {@link Message} that latest message that was
+     *         found. No mapping will exist for a {@link Message} if no message
+     *         of that type was found between the lowest index and the current
+     *         {@link #currentMessageIndex} value.
+     */
+    public Map<MessageTypeEnum, DomainSessionMessageEntry> getLatestMessagesOfType(int lowestIndex, MessageTypeEnum... types) {
         Map<MessageTypeEnum, DomainSessionMessageEntry> toRet = new HashMap<>();
 
         int remainingTypeCount = types.length;
         /* Search at the current index and earlier since the current index
          * points to a message that has already been sent */
-        for (int i = currentMessageIndex; i >= 0; i--) {
+        for (int i = Math.min(currentMessageIndex, messages.size() - 1); i >= lowestIndex; i--) {
             final DomainSessionMessageEntry currMsg = messages.get(i).getMessage();
 
             for (MessageTypeEnum type : types) {
@@ -614,14 +633,8 @@ public class LogFilePlaybackMessageManager {
                     /* Check if the learner state is a 'visual only' state (null
                      * assessment). If yes, do not count it as a true learner
                      * state. */
-                    if (type == MessageTypeEnum.LEARNER_STATE) {
-                        LearnerState learnerState = (LearnerState) currMsg.getPayload();
-                        boolean skipMsg = learnerState.getPerformance().getTasks().values().stream()
-                                .flatMap(task -> task.getConcepts().stream()).anyMatch(
-                                        concept -> concept.getState().getAssessedTeamOrgEntities().containsValue(null));
-                        if (skipMsg) {
-                            continue;
-                        }
+                    if (isVisualOnlyLearnerState(currMsg)) {
+                        continue;
                     }
 
                     toRet.put(type, currMsg);
@@ -665,14 +678,8 @@ public class LogFilePlaybackMessageManager {
                    /* Check if the learner state is a 'visual only' state (null
                     * assessment). If yes, do not count it as a true learner
                     * state. */
-                   if (type == MessageTypeEnum.LEARNER_STATE) {
-                       LearnerState learnerState = (LearnerState) currMsg.getPayload();
-                       boolean skipMsg = learnerState.getPerformance().getTasks().values().stream()
-                               .flatMap(task -> task.getConcepts().stream()).anyMatch(
-                                       concept -> concept.getState().getAssessedTeamOrgEntities().containsValue(null));
-                       if (skipMsg) {
-                           continue;
-                       }
+                   if (isVisualOnlyLearnerState(currMsg)) {
+                       continue;
                    }
                    
                    List<DomainSessionMessageEntry> typeMessages = toRet.get(type);
@@ -689,6 +696,25 @@ public class LogFilePlaybackMessageManager {
        return toRet;
    }
 
+    /**
+     * Checks if the message is a 'visual only' learner state, i.e. a learner state
+     * with a null assessment, which is not counted as a true learner state.
+     *
+     * @param msg the message to check. Can't be null.
+     * @return true if the message is a learner state with a concept whose assessed
+     *         team org entities contain a null assessment.
+     */
+    public static boolean isVisualOnlyLearnerState(DomainSessionMessageEntry msg) {
+        if (msg.getMessageType() != MessageTypeEnum.LEARNER_STATE) {
+            return false;
+        }
+
+        LearnerState learnerState = (LearnerState) msg.getPayload();
+        return learnerState.getPerformance().getTasks().values().stream()
+                .flatMap(task -> task.getConcepts().stream()).anyMatch(
+                        concept -> concept.getState().getAssessedTeamOrgEntities().containsValue(null));
+    }
+
     /**
      * Advances the {@link #currentMessageIndex} to the next {@link Message}. If
      * none of the next messages match the filter, the
@@ -0,0 +1,231 @@
+/**
+ * Copyright Dignitas Technologies, LLC
+ *
+ * This file and its contents are governed by one or more distribution and
+ * copyright statements as described in the LICENSE.txt file distributed with
+ * this work.
+ */
+package mil.arl.gift.common.aar.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+import mil.arl.gift.common.enums.MessageTypeEnum;
+import mil.arl.gift.common.logger.DomainSessionMessageEntry;
+
+/**
+ * Keyframes taken at a fixed interval of the playback messages of a
+ * {@link LogFilePlaybackMessageManager} that allow seeking to a time without
+ * visiting every message before it.<br/>
+ * <br/>
+ * Each keyframe starts at a message index that is a multiple of the interval and
+ * records the state of playback at that point: the latest timestamp of the
+ * messages before it and the index of the latest message of each tracked type
+ * (e.g. learner state) before it. The indices of the messages that must be
+ * replayed while seeking (e.g. strategies) are also kept in order so they can be
+ * sent without scanning the other messages.<br/>
+ * <br/>
+ * The keyframes are a snapshot of the messages they were built from and must be
+ * rebuilt whenever messages are added, removed or patched.
+ *
+ * @author agent
+ *
+ */
+public class PlaybackKeyframes {
+
+    /** the default number of messages between keyframes */
+    public static final int DEFAULT_INTERVAL = 128;
+
+    /** the number of messages between keyframes, always greater than 1 */
+    private final int interval;
+
+    /** the number of messages the keyframes were built from */
+    private final int messageCount;
+
+    /**
+     * for each keyframe, the latest timestamp of all the messages before the
+     * start of that keyframe. Never decreases from one keyframe to the next.
+     */
+    private final long[] latestTimeBefore;
+
+    /**
+     * for each tracked message type, the index of the latest message of that type
+     * before the start of each keyframe, -1 if there is no such message
+     */
+    private final Map<MessageTypeEnum, int[]> latestIndexBefore = new HashMap<>();
+
+    /** the indices of the messages that are replayed while seeking, in ascending order */
+    private final int[] replayIndices;
+
+    /**
+     * Build the keyframes for the messages provided.
+     *
+     * @param messages the playback messages in the order they are played.  Can't be null.
+     * @param interval the number of messages between keyframes.  Must be greater than 1.
+     * @param replayTypes the types of messages that are replayed while seeking.  Can't be null.
+     * @param trackedTypes the types of messages whose latest message before each keyframe is recorded.
+     * 'Visual only' learner states are not counted as learner states.  Can't be null.
+     */
+    public PlaybackKeyframes(List<MessageManager> messages, int interval, Set<MessageTypeEnum> replayTypes,
+            Set<MessageTypeEnum> trackedTypes) {
+
+        if (messages == null) {
+            throw new IllegalArgumentException("The messages can't be null.");
+        } else if (interval <= 1) {
+            throw new IllegalArgumentException("The interval of " + interval + " must be greater than 1.");
+        }
+
+        this.interval = interval;
+        this.messageCount = messages.size();
+
+        final int keyframeCount = messageCount / interval + 1;
+        latestTimeBefore = new long[keyframeCount];
+
+        final Map<MessageTypeEnum, Integer> latestIndex = new HashMap<>();
+        for (MessageTypeEnum type : trackedTypes) {
+            latestIndexBefore.put(type, new int[keyframeCount]);
+            latestIndex.put(type, -1);
+        }
+
+        int[] replay = new int[16];
+        int replayCount = 0;
+        long latestTime = Long.MIN_VALUE;
+
+        for (int index = 0; index <= messageCount; index++) {
+
+            if (index % interval == 0) {
+                final int keyframe = index / interval;
+                latestTimeBefore[keyframe] = latestTime;
+                for (Map.Entry<MessageTypeEnum, int[]> entry : latestIndexBefore.entrySet()) {
+                    entry.getValue()[keyframe] = latestIndex.get(entry.getKey());
+                }
+            }
+
+            if (index == messageCount) {
+                break;
+            }
+
+            final MessageManager msgManager = messages.get(index);
+            latestTime = Math.max(latestTime, msgManager.getTimeStamp());
+
+            final DomainSessionMessageEntry msg = msgManager.getMessage();
+            final MessageTypeEnum type = msg.getMessageType();
+            if (replayTypes.contains(type)) {
+                if (replayCount == replay.length) {
+                    replay = Arrays.copyOf(replay, replayCount * 2);
+                }
+                replay[replayCount++] = index;
+            }
+
+            if (latestIndex.containsKey(type) && !LogFilePlaybackMessageManager.isVisualOnlyLearnerState(msg)) {
+                latestIndex.put(type, index);
+            }
+        }
+
+        replayIndices = Arrays.copyOf(replay, replayCount);
+    }
+
+    /**
+     * Return the number of messages the keyframes were built from.
+     *
+     * @return the number of messages, used to detect that the keyframes are out of date
+     */
+    public int getMessageCount() {
+        return messageCount;
+    }
+
+    /**
+     * Return the number of messages between keyframes.
+     *
+     * @return the interval, always greater than 1
+     */
+    public int getInterval() {
+        return interval;
+    }
+
+    /**
+     * Return the start of the latest keyframe before which every message has a
+     * timestamp earlier than the time provided, i.e. the index from which a search
+     * for the first message at or after that time can begin.
+     *
+     * @param time the epoch time to seek to
+     * @return the message index of the keyframe, a multiple of the {@link #getInterval() interval}
+     */
+    public int getSeekStartIndex(long time) {
+
+        /* the latest times are non-decreasing, find the last keyframe whose
+         * latest time before it is earlier than the time */
+        int low = 0, high = latestTimeBefore.length - 1;
+        while (low < high) {
+            final int mid = (low + high + 1) >>> 1;
+            if (latestTimeBefore[mid] < time) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        return low * interval;
+    }
+
+    /**
+     * Return the start of the keyframe that contains the message index.
+     *
+     * @param messageIndex the index of a message
+     * @return the message index of the keyframe, a multiple of the {@link #getInterval() interval}
+     */
+    public int getKeyframeStartIndex(int messageIndex) {
+        return Math.min(Math.max(messageIndex, 0), messageCount) / interval * interval;
+    }
+
+    /**
+     * Return the index of the latest message of the type before the start of a keyframe.
+     *
+     * @param type one of the tracked message types
+     * @param keyframeStartIndex the message index of a keyframe (e.g. from {@link #getKeyframeStartIndex(int)})
+     * @return the index of the latest message of that type before the keyframe, -1 if there is
+     * no such message or the type isn't tracked
+     */
+    public int getLatestIndexBefore(MessageTypeEnum type, int keyframeStartIndex) {
+
+        final int[] indices = latestIndexBefore.get(type);
+        if (indices == null) {
+            return -1;
+        }
+
+        return indices[keyframeStartIndex / interval];
+    }
+
+    /**
+     * Visit, in ascending order, the indices of the messages to replay that come
+     * before the message index provided.
+     *
+     * @param messageIndex the index of the first message that is not visited
+     * @param consumer accepts each index of a message to replay.  Can't be null.
+     */
+    public void forEachReplayIndexBefore(int messageIndex, IntConsumer consumer) {
+
+        for (int replayIndex : replayIndices) {
+            if (replayIndex >= messageIndex) {
+                break;
+            }
+
+            consumer.accept(replayIndex);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("[PlaybackKeyframes: interval = ").append(interval);
+        sb.append(", messageCount = ").append(messageCount);
+        sb.append(", keyframes = ").append(latestTimeBefore.length);
+        sb.append(", replayMessages = ").append(replayIndices.length);
+        sb.append("]");
+        return sb.toString();
+    }
+}
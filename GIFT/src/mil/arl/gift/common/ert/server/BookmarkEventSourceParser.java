@@ -50,12 +50,9 @@ public class BookmarkEventSourceParser extends AbstractEventSourceParser {
     private static final String BOOKMARK_EVENT_NAME = "Bookmark";
     private static final String BOOKMARK_EVENT_DESCRIPTION = "An instructor/experimentor created bookmark (i.e. note) about an observed event of interest.";
     private static EventType bookmarkEventType = new EventType(BOOKMARK_EVENT_NAME, BOOKMARK_EVENT_NAME, BOOKMARK_EVENT_DESCRIPTION);
-    private static List<EventType> typesOfEvents;
     
-    static{
-        typesOfEvents = new ArrayList<EventType>(1);
-        typesOfEvents.add(bookmarkEventType);
-    }    
+    /** the bookmark event type, per instance since event sources can be parsed in parallel */
+    private List<EventType> typesOfEvents = new ArrayList<EventType>(1);
     
     /** the bookmark event source file */
     private File file;
@@ -70,6 +67,7 @@ public class BookmarkEventSourceParser extends AbstractEventSourceParser {
      */
     public BookmarkEventSourceParser(File file){
         this.file = file;
+        typesOfEvents.add(bookmarkEventType);
         
         init();
     }
@@ -0,0 +1,518 @@
+/**
+ * Copyright Dignitas Technologies, LLC
+ *
+ * This file and its contents are governed by one or more distribution and
+ * copyright statements as described in the LICENSE.txt file distributed with
+ * this work.
+ */
+package mil.arl.gift.common.ert.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import mil.arl.gift.common.enums.MessageTypeEnum;
+import mil.arl.gift.common.ert.ColumnProperties;
+import mil.arl.gift.common.ert.EventReportColumn;
+import mil.arl.gift.common.ert.EventType;
+import mil.arl.gift.common.ert.ReportProperties;
+import mil.arl.gift.common.ert.TimeProperties;
+import mil.arl.gift.common.logger.MessageLogReader;
+import mil.arl.gift.net.api.message.DomainSessionMessage;
+import mil.arl.gift.net.api.message.Message;
+import mil.arl.gift.net.api.message.UserSessionMessage;
+
+/**
+ * A compact summary of a message log file that contains what the ERT needs to present the log as an event source
+ * without parsing it: the histogram of message types, the time bounds of the messages, the user and domain
+ * session ids and the event types with their columns.<br/>
+ * <br/>
+ * The summary is saved in a sidecar file next to the log file (with the {@value #SUMMARY_FILE_EXTENSION} extension
+ * appended) the first time it is needed and is rebuilt whenever the log file's size or last modified time no longer
+ * match the summary.
+ *
+ * @author agent
+ *
+ */
+public class MessageLogSummary {
+
+    /** instance of the logger */
+    private static Logger logger = LoggerFactory.getLogger(MessageLogSummary.class);
+
+    /** the extension appended to the log file name to create the summary sidecar file name */
+    public static final String SUMMARY_FILE_EXTENSION = ".summary";
+
+    /** identifies a GIFT message log summary file */
+    private static final int MAGIC = 0x47534D59;
+
+    /** the version of the summary file format, version 1 used java serialization for the event columns */
+    private static final int VERSION = 2;
+
+    /** written before a column that has no properties */
+    private static final byte NO_COLUMN_PROPERTIES = 0;
+
+    /** written before the {@link TimeProperties} of a column */
+    private static final byte TIME_COLUMN_PROPERTIES = 1;
+
+    /** the size (bytes) of the log file when it was summarized */
+    private final long logLength;
+
+    /** the last modified time of the log file when it was summarized */
+    private final long logLastModified;
+
+    /** whether the log file is a domain session log */
+    private final boolean domainSessionLog;
+
+    /** the time stamp (epoch ms) of the earliest message, 0 if there are no messages */
+    private final long startTime;
+
+    /** the time stamp (epoch ms) of the latest message, 0 if there are no messages */
+    private final long endTime;
+
+    /** the number of messages of each type in the log */
+    private final Map<MessageTypeEnum, Integer> messageTypeCounts;
+
+    /** the unique user ids of the messages */
+    private final Set<Integer> userIds;
+
+    /** the unique domain session ids of the messages */
+    private final Set<Integer> domainSessionIds;
+
+    /** the types of events in the log, each with the columns found for that event type */
+    private final List<EventType> eventTypes;
+
+    /**
+     * Set attributes.
+     *
+     * @param logLength the size (bytes) of the log file when it was summarized
+     * @param logLastModified the last modified time of the log file when it was summarized
+     * @param domainSessionLog whether the log file is a domain session log
+     * @param startTime the time stamp (epoch ms) of the earliest message
+     * @param endTime the time stamp (epoch ms) of the latest message
+     * @param messageTypeCounts the number of messages of each type in the log
+     * @param userIds the unique user ids of the messages
+     * @param domainSessionIds the unique domain session ids of the messages
+     * @param eventTypes the types of events in the log, each with its columns
+     */
+    private MessageLogSummary(long logLength, long logLastModified, boolean domainSessionLog, long startTime, long endTime,
+            Map<MessageTypeEnum, Integer> messageTypeCounts, Set<Integer> userIds, Set<Integer> domainSessionIds,
+            List<EventType> eventTypes) {
+        this.logLength = logLength;
+        this.logLastModified = logLastModified;
+        this.domainSessionLog = domainSessionLog;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.messageTypeCounts = messageTypeCounts;
+        this.userIds = userIds;
+        this.domainSessionIds = domainSessionIds;
+        this.eventTypes = eventTypes;
+    }
+
+    /**
+     * Return the summary of the message log file, reading it from the sidecar file if it is up to date, otherwise
+     * parsing the log file and saving the summary to the sidecar file.
+     *
+     * @param logFile the message log file.  Can't be null and must exist.
+     * @return the summary of the log file
+     * @throws Exception if there was a severe problem parsing the message log file
+     */
+    public static MessageLogSummary getSummary(File logFile) throws Exception {
+
+        File summaryFile = getSummaryFile(logFile);
+        if(summaryFile.exists()){
+
+            try{
+                MessageLogSummary summary = read(summaryFile);
+                if(summary.logLength == logFile.length() && summary.logLastModified == logFile.lastModified()){
+                    return summary;
+                }
+
+                if(logger.isDebugEnabled()){
+                    logger.debug("The summary "+summaryFile+" is out of date, rebuilding it.");
+                }
+            }catch(IOException | RuntimeException e){
+                logger.warn("Unable to read the summary "+summaryFile+", rebuilding it.", e);
+            }
+        }
+
+        long logLastModified = logFile.lastModified();
+        long logLength = logFile.length();
+        MessageLogSummary summary = build(new MessageLogEventSourceParser(logFile, new ReportProperties()), logLength, logLastModified);
+
+        try{
+            summary.write(summaryFile);
+        }catch(IOException e){
+            //the summary will be rebuilt the next time
+            logger.warn("Unable to save the summary of "+logFile+" to "+summaryFile+".", e);
+        }
+
+        return summary;
+    }
+
+    /**
+     * Return the sidecar file the summary of the log file is saved to.
+     *
+     * @param logFile the message log file
+     * @return the summary file, may not exist
+     */
+    public static File getSummaryFile(File logFile) {
+        return new File(logFile.getParentFile(), logFile.getName() + SUMMARY_FILE_EXTENSION);
+    }
+
+    /**
+     * Build the summary from a parser that has already parsed the log file.
+     *
+     * @param parser the parser of the message log file.  Can't be null.
+     * @param logLength the size (bytes) of the log file before it was parsed
+     * @param logLastModified the last modified time of the log file before it was parsed
+     * @return the new summary
+     */
+    private static MessageLogSummary build(MessageLogEventSourceParser parser, long logLength, long logLastModified) {
+
+        MessageLogReader reader = parser.getMessageLogReader();
+
+        Map<MessageTypeEnum, Integer> messageTypeCounts = new HashMap<>();
+        for(MessageTypeEnum type : reader.getTypesOfMessages()){
+
+            List<Message> messages = reader.getMessagesByType(type);
+            messageTypeCounts.put(type, messages != null ? messages.size() : 0);
+        }
+
+        long startTime = Long.MAX_VALUE;
+        long endTime = Long.MIN_VALUE;
+        Set<Integer> userIds = new TreeSet<>();
+        Set<Integer> domainSessionIds = new TreeSet<>();
+        for(Message message : reader.getMessages()){
+
+            startTime = Math.min(startTime, message.getTimeStamp());
+            endTime = Math.max(endTime, message.getTimeStamp());
+
+            if(message instanceof UserSessionMessage){
+                userIds.add(((UserSessionMessage)message).getUserId());
+            }
+
+            if(message instanceof DomainSessionMessage){
+                domainSessionIds.add(((DomainSessionMessage)message).getDomainSessionId());
+            }
+        }
+
+        if(startTime > endTime){
+            //no messages
+            startTime = 0;
+            endTime = 0;
+        }
+
+        return new MessageLogSummary(logLength, logLastModified, parser.isDomainSessionLog(), startTime, endTime,
+                messageTypeCounts, userIds, domainSessionIds, parser.getTypesOfEvents());
+    }
+
+    /**
+     * Read a summary from the sidecar file.
+     *
+     * @param summaryFile the file to read
+     * @return the summary in the file
+     * @throws IOException if there was a problem reading the file or the file isn't a supported summary
+     */
+    private static MessageLogSummary read(File summaryFile) throws IOException {
+
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(summaryFile)))){
+
+            if(in.readInt() != MAGIC){
+                throw new IOException("The file is not a message log summary.");
+            }
+
+            int version = in.readInt();
+            if(version != VERSION){
+                throw new IOException("The message log summary version "+version+" is not supported.");
+            }
+
+            long logLength = in.readLong();
+            long logLastModified = in.readLong();
+            boolean domainSessionLog = in.readBoolean();
+            long startTime = in.readLong();
+            long endTime = in.readLong();
+
+            int typeCount = in.readInt();
+            Map<MessageTypeEnum, Integer> messageTypeCounts = new HashMap<>(typeCount);
+            for(int type = 0; type < typeCount; type++){
+                messageTypeCounts.put(MessageTypeEnum.valueOf(in.readUTF()), in.readInt());
+            }
+
+            Set<Integer> userIds = readIds(in);
+            Set<Integer> domainSessionIds = readIds(in);
+
+            int eventTypeCount = in.readInt();
+            List<EventType> eventTypes = new ArrayList<>(eventTypeCount);
+            for(int eventType = 0; eventType < eventTypeCount; eventType++){
+
+                String name = in.readUTF();
+                String displayName = in.readUTF();
+                String description = in.readBoolean() ? in.readUTF() : null;
+                List<EventReportColumn> columns = readColumns(in);
+
+                //create a new event type so that it gets a unique id in this ERT instance
+                eventTypes.add(new EventType(name, displayName, description, columns));
+            }
+
+            return new MessageLogSummary(logLength, logLastModified, domainSessionLog, startTime, endTime,
+                    messageTypeCounts, userIds, domainSessionIds, eventTypes);
+        }
+    }
+
+    /**
+     * Read a set of ids.
+     *
+     * @param in the stream positioned at the number of ids
+     * @return the ids read
+     * @throws IOException if there was a problem reading the ids
+     */
+    private static Set<Integer> readIds(DataInputStream in) throws IOException {
+
+        int count = in.readInt();
+        Set<Integer> ids = new TreeSet<>();
+        for(int index = 0; index < count; index++){
+            ids.add(in.readInt());
+        }
+
+        return ids;
+    }
+
+    /**
+     * Read the columns of an event type.
+     *
+     * @param in the stream positioned at the number of columns
+     * @return the columns read
+     * @throws IOException if there was a problem reading the columns or a column has unknown properties
+     */
+    private static List<EventReportColumn> readColumns(DataInputStream in) throws IOException {
+
+        int count = in.readInt();
+        List<EventReportColumn> columns = new ArrayList<>(count);
+        for(int index = 0; index < count; index++){
+
+            String columnName = in.readUTF();
+            String displayName = in.readUTF();
+            boolean enabled = in.readBoolean();
+
+            ColumnProperties properties;
+            byte propertiesType = in.readByte();
+            if(propertiesType == NO_COLUMN_PROPERTIES){
+                properties = null;
+            }else if(propertiesType == TIME_COLUMN_PROPERTIES){
+                Long filterBeforeTime = in.readBoolean() ? in.readLong() : null;
+                Long filterAfterTime = in.readBoolean() ? in.readLong() : null;
+                properties = new TimeProperties(filterBeforeTime, filterAfterTime);
+            }else{
+                throw new IOException("The column properties type "+propertiesType+" is not supported.");
+            }
+
+            EventReportColumn column = new EventReportColumn(displayName, columnName, properties);
+            column.setEnabled(enabled);
+            columns.add(column);
+        }
+
+        return columns;
+    }
+
+    /**
+     * Write the columns of an event type.
+     *
+     * @param out the stream to write to
+     * @param columns the columns to write
+     * @throws IOException if there was a problem writing the columns or a column has properties that can't be saved
+     */
+    private static void writeColumns(DataOutputStream out, List<EventReportColumn> columns) throws IOException {
+
+        out.writeInt(columns.size());
+        for(EventReportColumn column : columns){
+
+            out.writeUTF(column.getColumnName());
+            out.writeUTF(column.getDisplayName());
+            out.writeBoolean(column.isEnabled());
+
+            ColumnProperties properties = column.getProperties();
+            if(properties == null){
+                out.writeByte(NO_COLUMN_PROPERTIES);
+            }else if(properties instanceof TimeProperties){
+
+                TimeProperties timeProperties = (TimeProperties) properties;
+                out.writeByte(TIME_COLUMN_PROPERTIES);
+                writeOptionalLong(out, timeProperties.getFilterBeforeTime());
+                writeOptionalLong(out, timeProperties.getFilterAfterTime());
+            }else{
+                throw new IOException("The properties of the column "+column+" can't be saved.");
+            }
+        }
+    }
+
+    /**
+     * Write a value that may be null.
+     *
+     * @param out the stream to write to
+     * @param value the value to write, can be null
+     * @throws IOException if there was a problem writing the value
+     */
+    private static void writeOptionalLong(DataOutputStream out, Long value) throws IOException {
+
+        out.writeBoolean(value != null);
+        if(value != null){
+            out.writeLong(value);
+        }
+    }
+
+    /**
+     * Save this summary to the sidecar file.  The summary is written to a temporary file first so that a reader
+     * never sees a partially written summary.
+     *
+     * @param summaryFile the file to write
+     * @throws IOException if there was a problem writing the file
+     */
+    private void write(File summaryFile) throws IOException {
+
+        File tempFile = new File(summaryFile.getParentFile(), summaryFile.getName() + ".tmp");
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))){
+
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(logLength);
+            out.writeLong(logLastModified);
+            out.writeBoolean(domainSessionLog);
+            out.writeLong(startTime);
+            out.writeLong(endTime);
+
+            out.writeInt(messageTypeCounts.size());
+            for(Map.Entry<MessageTypeEnum, Integer> entry : messageTypeCounts.entrySet()){
+                out.writeUTF(entry.getKey().getName());
+                out.writeInt(entry.getValue());
+            }
+
+            out.writeInt(userIds.size());
+            for(Integer userId : userIds){
+                out.writeInt(userId);
+            }
+
+            out.writeInt(domainSessionIds.size());
+            for(Integer domainSessionId : domainSessionIds){
+                out.writeInt(domainSessionId);
+            }
+
+            out.writeInt(eventTypes.size());
+            for(EventType eventType : eventTypes){
+
+                out.writeUTF(eventType.getName());
+                out.writeUTF(eventType.getDisplayName());
+                out.writeBoolean(eventType.getDescription() != null);
+                if(eventType.getDescription() != null){
+                    out.writeUTF(eventType.getDescription());
+                }
+                writeColumns(out, eventType.getEventColumns());
+            }
+        }
+
+        Files.move(tempFile.toPath(), summaryFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Return whether the log file is a domain session log.
+     *
+     * @return true if the messages in the log are domain session messages
+     */
+    public boolean isDomainSessionLog() {
+        return domainSessionLog;
+    }
+
+    /**
+     * Return the time stamp of the earliest message in the log.
+     *
+     * @return epoch time (ms), 0 if there are no messages
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * Return the time stamp of the latest message in the log.
+     *
+     * @return epoch time (ms), 0 if there are no messages
+     */
+    public long getEndTime() {
+        return endTime;
+    }
+
+    /**
+     * Return the number of messages of each type in the log.
+     *
+     * @return unmodifiable mapping of message type to the number of messages of that type
+     */
+    public Map<MessageTypeEnum, Integer> getMessageTypeCounts() {
+        return Collections.unmodifiableMap(messageTypeCounts);
+    }
+
+    /**
+     * Return the unique user ids of the messages in the log.
+     *
+     * @return unmodifiable set of user ids, ascending
+     */
+    public Set<Integer> getUserIds() {
+        return Collections.unmodifiableSet(userIds);
+    }
+
+    /**
+     * Return the unique domain session ids of the messages in the log.
+     *
+     * @return unmodifiable set of domain session ids, ascending.  Empty if this isn't a domain session log.
+     */
+    public Set<Integer> getDomainSessionIds() {
+        return Collections.unmodifiableSet(domainSessionIds);
+    }
+
+    /**
+     * Return the types of events in the log, each with the columns found for that event type.
+     *
+     * @return the event types, same as {@link MessageLogEventSourceParser#getTypesOfEvents()} for the log file
+     */
+    public List<EventType> getTypesOfEvents() {
+        return eventTypes;
+    }
+
+    /**
+     * Return the default columns that should be in the report for this log.
+     *
+     * @return the default columns to include, same as {@link MessageLogEventSourceParser#getDefaultColumns()} for the log file
+     */
+    public List<EventReportColumn> getDefaultColumns() {
+        return domainSessionLog ? MessageLogEventSourceParser.domainSessionColumns : MessageLogEventSourceParser.systemColumns;
+    }
+
+    @Override
+    public String toString() {
+
+        StringBuilder sb = new StringBuilder("[MessageLogSummary: ");
+        sb.append("domainSessionLog = ").append(domainSessionLog);
+        sb.append(", startTime = ").append(startTime);
+        sb.append(", endTime = ").append(endTime);
+        sb.append(", messageTypes = ").append(messageTypeCounts.size());
+        sb.append(", userIds = ").append(userIds);
+        sb.append(", domainSessionIds = ").append(domainSessionIds);
+        sb.append(", eventTypes = ").append(eventTypes.size());
+        sb.append("]");
+        return sb.toString();
+    }
+}
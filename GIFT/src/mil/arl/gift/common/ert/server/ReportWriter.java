@@ -7,6 +7,8 @@
  */
 package mil.arl.gift.common.ert.server;
 
+import java.io.BufferedWriter;
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -15,7 +17,6 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -25,6 +26,7 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.UUID;
+import java.util.regex.Pattern;
 
 import javax.naming.OperationNotSupportedException;
 
@@ -92,6 +94,15 @@ public class ReportWriter {
      * the end of the column list
      */
     private static final String DUPLICATE_COLUMN_SPACER = "DUPLICATE_COL_SPACER";
+    
+    /** match a number with optional '-' and decimal */
+    private static final Pattern NUMERIC_PATTERN = Pattern.compile("-?\\d+(\\.\\d+)?");
+    
+    /** the size of the buffer (characters) in front of the report file */
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    
+    /** the number of rows kept in memory while collecting the report before they are written to the row spill file */
+    private static final int SPILL_ROW_THRESHOLD = 5000;
 
     /** There are four potential phases of report writing, so arbitrarily assume each one is 20 of the work
      *  The other 20 percent is in merging and sorting as defined below
@@ -111,9 +122,20 @@ public class ReportWriter {
     /** whether to include the header label values in the report */
     private boolean writeHeader;
     
-    /** the rows (i.e. contents) of the report */
+    /** 
+     * the rows (i.e. contents) of the report that are in memory, these follow the rows in the spill file 
+     */
     private List<Row> rows = new ArrayList<Row>(); 
     
+    /** 
+     * the rows collected before the rows in memory, null if the rows haven't exceeded {@link #SPILL_ROW_THRESHOLD}.
+     * The spilled rows are only read back into memory when they need to be merged or sorted.
+     */
+    private RowSpillFile spillFile = null;
+    
+    /** whether writing rows to the spill file failed, in which case the rest of the rows are kept in memory */
+    private boolean spillFailed = false;
+    
     /** name of the file being written too */
     private String outputFilename;
     
@@ -210,10 +232,13 @@ public class ReportWriter {
      */
     public void clearRows(){
         rows.clear();
+        deleteSpillFile();
+        spillFailed = false;
     }
     
     /**
-     * Add a single row to the collection of rows for the report being created
+     * Add a single row to the collection of rows for the report being created.
+     * Once enough rows are collected they are written to a temporary file instead of being kept in memory.
      * 
      * @param row a new row for the report
      */
@@ -223,6 +248,23 @@ public class ReportWriter {
             throw new IllegalArgumentException("The row can't be null.");
         }
         rows.add(row);
+        
+        if(rows.size() >= SPILL_ROW_THRESHOLD && !spillFailed){
+            
+            try{
+                if(spillFile == null){
+                    spillFile = new RowSpillFile();
+                }
+                
+                spillFile.append(rows);
+                rows.clear();
+                
+            }catch(IOException e){
+                //the rows not written stay in memory
+                logger.error("Failed to write the report rows to a temporary file, the rest of the rows will be kept in memory.", e);
+                spillFailed = true;
+            }
+        }
     }
     
     /**
@@ -231,34 +273,79 @@ public class ReportWriter {
      * @param rowsToAdd add a collection of rows to the report
      */
     public void addRows(Collection<Row> rowsToAdd){
-        rows.addAll(rowsToAdd);
+        
+        for(Row row : rowsToAdd){
+            addRow(row);
+        }
+    }
+    
+    /**
+     * Delete the spill file, if there is one, along with the rows in it.
+     */
+    private void deleteSpillFile(){
+        
+        if(spillFile != null){
+            spillFile.delete();
+            spillFile = null;
+        }
+    }
+    
+    /**
+     * Read the rows in the spill file back into memory, ahead of the rows already in memory, and delete the
+     * spill file.  Rows that violate the column properties are not read.
+     * 
+     * @return the number of rows that were not read because they violate the column properties
+     * @throws IOException if there was a problem reading the spill file
+     * @throws OperationNotSupportedException if there was a problem with the column properties of a cell
+     */
+    private int loadSpilledRows() throws IOException, OperationNotSupportedException{
+        
+        int numRowsRemoved = 0;
+        if(spillFile != null){
+            
+            List<Row> allRows = new ArrayList<>(spillFile.getRowCount() + rows.size());
+            try(RowSpillFile.Reader reader = spillFile.openReader()){
+                
+                Row row;
+                while((row = reader.next()) != null){
+                    
+                    if(violatesColumnProperties(row)){
+                        numRowsRemoved++;
+                    }else{
+                        allRows.add(row);
+                    }
+                }
+            }
+            
+            allRows.addAll(rows);
+            rows = allRows;
+            deleteSpillFile();
+        }
+        
+        return numRowsRemoved;
     }
     
     /**
      * Merge rows based on the values in the provided column.
      * 
      * Rules:
-     *  - grab two rows (row 1 and 2) at a time (DONE)
-     *  - if row 1 or 2 doesn't contain column, move on (DONE)
-     *  - if rows contain different values for column, move on (DONE)
+     *  - rows are grouped by the value of their merge-by column using a hash index, each row is merged into the 
+     *    first row (in the order the rows were added) with the same value
+     *  - if a row doesn't contain the column, it is not merged
      *  - if merge column is not time column, remove all time columns from resulting row
      *  - if merge column is time column, remove other time columns from resulting row
-     *  - add row 2 cells to resulting row (that weren't removed): (DONE)
-     *         - if there is a same column name, start counter suffix.  If counter suffix column name, increment counter and repeat check.  When done add cell. (DONE)
-     *         - if there is a different column name, just add it (DONE)
+     *  - add the merged row's cells to resulting row (that weren't removed)
+     *  - the resulting rows are sorted by the merge-by column
      *         
      * @param mergeByColumn - the column whose values to merge rows by
      */
     private void mergeRows(final EventReportColumn mergeByColumn){
         
         if(mergeByColumn != null){
-        	
-        	//sort rows before the merge to speed up the merging process
-        	sortRows(mergeByColumn);
             
-        	if(logger.isInfoEnabled()){
-        	    logger.info("Merging rows based on values in "+mergeByColumn);
-        	}
+            if(logger.isInfoEnabled()){
+                logger.info("Merging rows based on values in "+mergeByColumn);
+            }
             
             //flag to indicate if the merge-by column is a time based column
             boolean isTimeBasedColumn = false;
@@ -273,149 +360,78 @@ public class ReportWriter {
                 }
             }
             
-            int numRowsRemoved;
-            Set<Integer> dsIds = new HashSet<>();  //contains the domain session ids merged into a single row 
-            for(int i = 0; i < rows.size(); i++){
-                //grab root row to merge other rows into
-                Row row1 = rows.get(i);
-                
-                // reset for the current root row, row1, that other rows are being merged into
-                Cell dsIdCell = null;
-                dsIds.clear();
+            //the columns specified by the report properties (e.g. selected columns in the ERT), checked for every merged cell
+            Set<EventReportColumn> reportColumns = new HashSet<>(reportProperties.getReportColumns());
+            
+            //the root row for each merge-by value, other rows with the same value are merged into it
+            //and removed by moving the rows that are kept toward the start of the list
+            Map<String, MergedRow> rootRows = new HashMap<>();
+            int rowCount = rows.size();
+            int keptCount = 0;
+            for(int index = 0; index < rowCount; index++){
                 
-                //see if this row even has a cell with the merge column 
-                Cell cell1 = null;
-                for(Cell cell : row1.getCells()){
+                Row row = rows.get(index);
+                Cell mergeCell = findCell(row, mergeByColumn);
+                if(mergeCell != null){
                     
-                    // finding the merge-by column
-                    if(cell1 == null && cell.getColumn().equals(mergeByColumn)){
-                        cell1 = cell;
-                    }
-                    
-                    // finding the domain session id column in order to concatenate domain session ids
-                    if(dsIdCell == null && cell.getColumn().equals(EventReportColumn.DS_ID_COLUMN)){
-                        dsIdCell = cell;
-                        
-                        if(dsIds.isEmpty()){
-                            // need to populate the domain session ids already in this row
-                            
-                            String[] ids = cell.getValue().split(SEMI_COLON);
-                            for(String id : ids){
-                                dsIds.add(Integer.valueOf(id));    
-                            }
-                        }
+                    MergedRow rootRow = rootRows.get(mergeCell.getValue());
+                    if(rootRow != null){
+                        rootRow.merge(row, mergeByColumn, reportColumns);
+                        continue;
                     }
                     
-                    if(cell1 != null && dsIdCell != null){
-                        break;
-                    }
-                }
-                
-                if(cell1 == null){
-                    //nothing to do in this row
-                    continue;
+                    rootRows.put(mergeCell.getValue(), new MergedRow(row));
                 }
+                //else this row doesn't have the column in it, nothing to merge
                 
-                //reset
-                numRowsRemoved = 0;
-                
-                for(int j = i+1; j < rows.size(); j++){
-                    //grab row to merge into root row
-                    Row row2 = rows.get(j);
-                    
-                    //find the cell with the merge column 
-                    Cell cell2 = null;
-                    for(Cell cell : row2.getCells()){
-                        
-                        if(cell.getColumn().equals(mergeByColumn)){
-                            cell2 = cell;
-                            break;
-                        }
-                    }
-                    
-                    //case where this row doesn't have the column in it
-                    if(cell2 == null){
-                        continue;
-                    }
-                    
-                    //case where the values for the column are different - i.e. should only merge where values are the same
-                    if(!cell1.getValue().equals(cell2.getValue())){
-                        break; //since the rows were sorted, no need to check further
-                    }                
-                    
-                    //
-                    // Merge row 1 with row 2
-                    //
-                    for(Cell cell : row2.getCells()){
-                        
-                        if(!cell.getColumn().equals(mergeByColumn) && 
-                                reportProperties.getReportColumns().contains(cell.getColumn()) &&
-                                !MessageLogEventSourceParser.timeColumns.contains(cell.getColumn())){
-                            //don't need to merge 'merge-by' column
-                        	//add columns that are specified by the report properties (e.g. selected columns in the ERT)
-                            //don't add time based columns (they should never be more than 1 instance of each time based column)
-                            
-                            if(MessageLogEventSourceParser.domainSessionColumns.contains(cell.getColumn())){
-                                
-                                if(EventReportColumn.DS_ID_COLUMN.equals(cell.getColumn())){
-                                    // found a domain session id column in this row,
-                                    
-                                    if(dsIdCell == null){
-                                        // the row1 didn't contain a domain session id cell, but row2 does
-                                        dsIdCell = cell;
-                                        row1.addCell(cell);
-                                        dsIds.add(Integer.valueOf(cell.getValue()));
-                                    }else if(!dsIds.contains(Integer.valueOf(cell.getValue()))){
-                                        // concatenate ids
-                                        dsIdCell.setValue(dsIdCell.getValue() + SEMI_COLON + cell.getValue());
-                                        dsIds.add(Integer.valueOf(cell.getValue()));                                        
-                                    }
-                                }
-                            }else{                            
-                                row1.addCell(cell);
-                            }
-                        }
-                    }
-                    
-                    //delete row2 so its not analyzed again
-                    rows.remove(row2);
-                    j--;  //keep j at same value for next iteration since collection size changed
-                    numRowsRemoved++;
-
-                }//end for                
+                rows.set(keptCount++, row);
+            }
+            rows.subList(keptCount, rowCount).clear();
+            
+            if(!isTimeBasedColumn){
+                //remove appropriate time related columns from the updated merged rows (if any are still there) 
+                //because it doesn't make sense to show the timestamps for 1+ events that happened at 
+                //different times but are now in the same row
                 
-                if(numRowsRemoved > 0){
-                    //something was merged
-                    
-                    if(!isTimeBasedColumn){
-                        //remove appropriate time related columns from the updated merged row (if any are still there) 
-                        //because it doesn't make sense to show the timestamps for 1+ events that happened at 
-                        //different times but are now in the same row
-                        
-                        for(int k = 0; k < row1.cells.size(); k++){
-                            
-                            if(MessageLogEventSourceParser.timeColumns.contains(row1.cells.get(k).getColumn())){
-                                row1.cells.remove(k);
-                                k--;  //for next loop
-                            }
-                        }
-                    }
+                for(MergedRow rootRow : rootRows.values()){
                     
-                    if(i > numRowsRemoved){
-                        //don't want to go below zero upon next iteration
-                        i = i - numRowsRemoved - 1;
-                    }else{
-                        //start over at zero for next iteration
-                        i = -1;
+                    if(rootRow.merged){
+                        rootRow.row.cells.removeIf(cell -> MessageLogEventSourceParser.timeColumns.contains(cell.getColumn()));
                     }
                 }
-                
-            }//end for
+            }
+            
+            if(logger.isInfoEnabled()){
+                logger.info("Merged "+rowCount+" rows into "+rows.size()+" rows.");
+            }
+            
+            //order the merged rows by the merge-by column
+            sortRows(mergeByColumn);
         }//end if
     }
     
     /**
-     * Sort the order of the rows to be written 
+     * Return the first cell in the row for the column.
+     * 
+     * @param row the row to search
+     * @param column the column of the cell to find
+     * @return the cell, null if the row doesn't have a cell for the column
+     */
+    private static Cell findCell(Row row, EventReportColumn column){
+        
+        for(Cell cell : row.getCells()){
+            
+            if(cell.getColumn().equals(column)){
+                return cell;
+            }
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Sort the order of the rows to be written.  Rows without a cell for the column are placed
+     * before the rows with a cell for the column.
      * 
      * @param column - the column whose values to sort by
      */
@@ -426,63 +442,18 @@ public class ReportWriter {
             if(logger.isInfoEnabled()){
                 logger.info("Sorting rows based on values in "+column);
             }
+            
+            //find and parse each row's value once instead of on every comparison
+            List<SortKey> keys = new ArrayList<>(rows.size());
+            for(Row row : rows){
+                keys.add(new SortKey(row, findCell(row, column)));
+            }
         
-            Collections.sort(rows, new Comparator<Row>(){
-
-                @Override
-                public int compare(Row row1, Row row2) {
-                    
-                    //find the cells whose values need to be sorted by
-                    Cell cell1 = null, cell2 = null;
-                    
-                    for(Cell cell : row1.getCells()){
-                        
-                        if(cell.getColumn().equals(column)){
-                            //found cell to sort by
-                            cell1 = cell;
-                            break;
-                        }
-                    }
-                    
-                    for(Cell cell : row2.getCells()){
-                        
-                        if(cell.getColumn().equals(column)){
-                            //found cell to sort by
-                            cell2 = cell;
-                            break;
-                        }
-                    }
-                    
-                    if(cell1 != null && cell2 != null){
-                        //sort
-                        
-                        if(isNumeric(cell1.getValue()) && isNumeric(cell2.getValue())){
-                            
-                            double value1 = Double.parseDouble(cell1.getValue());
-                            double value2 = Double.parseDouble(cell2.getValue());
-                            if(value1 < value2){
-                                return -1;
-                            }else if(value1 == value2){
-                                return 0;
-                            }else{
-                                return 1;
-                            }
-                            
-                        }else{
-                            return cell1.getValue().compareTo(cell2.getValue());
-                        }
-                        
-                    }else if(cell2 != null){
-                        //row 2 doesn't have the column, place row 1 ahead of it. 
-                        return -1;                        
-                    }else{
-                        //row 1 doesn't have the column, place row 2 ahead of it.
-                        return 1;
-                    }
-
-                }
-                
-            });
+            Collections.sort(keys);
+            
+            for(int index = 0; index < keys.size(); index++){
+                rows.set(index, keys.get(index).row);
+            }
         }
     }
     
@@ -493,7 +464,7 @@ public class ReportWriter {
      * @return boolean - true if the string is a number
      */
     private static boolean isNumeric(String str){        
-      return str.matches("-?\\d+(\\.\\d+)?");  //match a number with optional '-' and decimal.
+      return NUMERIC_PATTERN.matcher(str).matches();
     }
     
     /**
@@ -621,7 +592,11 @@ public class ReportWriter {
     }
     
     /**
-     * Populate the provided file with the events and columns specified by the report properties.
+     * Populate the provided file with the events and columns specified by the report properties.<br/>
+     * The rows are read twice: once to find the columns of the header and once to write them.  When the rows don't
+     * need to be merged or sorted, the rows in the spill file are read from the file both times instead of being
+     * brought back into memory.
+     * 
      * @param reportFile the file to populate, can't be null, doesn't have to exist yet but should be able to create it.
      * @return true if the report file contains duplicated columns, i.e. columns that couldn't be merged
      * @throws IOException if there was a problem writing the file
@@ -629,7 +604,8 @@ public class ReportWriter {
      */
     private boolean writeReportFile(File reportFile) throws IOException, OperationNotSupportedException {
         
-        FileWriter fileWriter = new FileWriter(reportFile, false);
+        //rows are streamed to the file through a bounded buffer instead of a write per cell
+        BufferedWriter fileWriter = new BufferedWriter(new FileWriter(reportFile, false), WRITE_BUFFER_SIZE);
         ICsvMapWriter writer = new CsvMapWriter(fileWriter, CsvPreference.EXCEL_PREFERENCE);
         
         boolean createdDuplicateColumns = false;
@@ -648,88 +624,37 @@ public class ReportWriter {
                     logger.info("Replacing spaces w/ underscores for header: "+column);
                 }
                 if(column.isEnabled()){
-                    header.add(column.getDisplayName().replace(SPACE, UNDERSCORE));
+                    header.add(getColumnName(column));
                 }
             }
 
-            //Calculate an arbitrary percent to use to increase the progress by as each row is handled
-            //float percentProgressPerRow = PERCENT_CALCULATION_NUMERATOR/(float) rows.size();
-
+            //whether the rows in the spill file should be filtered while being read
+            boolean filterSpilledRows = false;
+            
             if (reportProperties != null) {
 
                 //
                 // Remove any rows that violate rules of column properties
                 //
-                boolean removeRow;
 
                 // Update progress bar from 0-PERCENT_CALCULATIONG_NUMERATOR within this section using below description
                 generateReportStatus.getProgress().setTaskDescription("Removing rows that violate any filters you provided.");
-                int rowsProcessed = 0;
+                
+                //the rows that are kept are moved toward the start of the list instead of removing rows from the middle of the list
                 int rowTotal = rows.size();
+                int keptCount = 0;
+                for (int index = 0; index < rowTotal; index++) {
 
-                int numRowsRemoved = 0;
-
-                for (int rowIndex = 0; rowIndex < rows.size(); rowIndex++) {
-                    rowsProcessed++;
-
-                    Row row = rows.get(rowIndex);
-                    removeRow = false;
-
-                    for (Cell cell : row.getCells()) {
-
-                        ColumnProperties properties = reportProperties.getColumnProperties().get(cell.getColumn());
-
-                        if (properties != null) {
-
-                            if (properties instanceof MinMaxProperty) {
-
-                                MinMaxProperty minMaxProperty = (MinMaxProperty) properties;
-                                Long min = minMaxProperty.getMinimum();
-                                Long max = minMaxProperty.getMaximum();
-                                
-                                Long value;
-                                
-                                if(cell.getValue().contains(Constants.PERIOD)) {
-                                    
-                                    Double val = Double.parseDouble(cell.getValue()) * 1000;
-                                    
-                                    value = val.longValue();
-                                    
-                                } else {
-                                    
-                                    value = Long.parseLong(cell.getValue());                                    
-                                }
-                                
-                                if (min != null && value < min) {
-                                    //value is less than min
-                                    removeRow = true;
-                                    break;
-                                } else if (max != null && value > max) {
-                                    //value is greater than max
-                                    removeRow = true;
-                                    break;
-                                }
-
-                            } else {
-                                throw new OperationNotSupportedException("Found unhandled column property of " + properties + " for cell of " + cell);
-                            }
-                        }
+                    Row row = rows.get(index);
+                    if (!violatesColumnProperties(row)) {
+                        rows.set(keptCount++, row);
                     }
-
-                    if (removeRow) {
-                        rows.remove(rowIndex);
-                        numRowsRemoved++;
-                        rowIndex--;
-                    }
-                    generateReportStatus.getProgress().setPercentComplete((PERCENT_CALCULATION_NUMERATOR * rowsProcessed)/rowTotal);
-                }
-
-                if(logger.isInfoEnabled()){
-                    logger.info("Removed " + numRowsRemoved + " row(s) from the report based on default column properties.");
+                    
+                    generateReportStatus.getProgress().setPercentComplete((PERCENT_CALCULATION_NUMERATOR * (index + 1))/rowTotal);
                 }
-
-                //merge rows based on user provided choice
-                generateReportStatus.getProgress().setTaskDescription("Merging rows");
+                rows.subList(keptCount, rowTotal).clear();
+                
+                int numRowsRemoved = rowTotal - keptCount;
                 
                 // when the merge by column is user id and there are participant ids found in the data set
                 // use participant id as the merge by column instead of user id since the user ids are most likely
@@ -738,6 +663,21 @@ public class ReportWriter {
                         reportProperties.isColumnEnabled(EventReportColumn.PARTICIPANT_ID_COL)){
                     reportProperties.setMergeByColumn(EventReportColumn.PARTICIPANT_ID_COL);
                 }
+                
+                if(reportProperties.getMergeByColumn() != null || reportProperties.getSortByColumn() != null){
+                    //merging and sorting need all of the rows in memory
+                    numRowsRemoved += loadSpilledRows();
+                }else{
+                    filterSpilledRows = true;
+                }
+
+                if(logger.isInfoEnabled()){
+                    logger.info("Removed " + numRowsRemoved + " row(s) "+(filterSpilledRows && spillFile != null ? "(not counting the rows in the spill file) " : "")+
+                            "from the report based on default column properties.");
+                }
+
+                //merge rows based on user provided choice
+                generateReportStatus.getProgress().setTaskDescription("Merging rows");
                 mergeRows(reportProperties.getMergeByColumn());
                 generateReportStatus.getProgress().setPercentComplete(PERCENT_CALCULATION_NUMERATOR+MERGE_ROW_PERCENT);
 
@@ -749,90 +689,66 @@ public class ReportWriter {
             }
 
             //
-            // pre-process merge to handle column name collisions and to write the full header before any data rows
+            // pre-process merge to handle column name collisions and to write the full header before any data rows,
+            // only the column names of each row are needed
             //
-            HashMap<String, ? super Object> colValueChecker = new HashMap<String, Object>();
-            HashMap<Cell, String> cellToColumn = new HashMap<Cell, String>();
-
-            //Calculate an arbitrary percent to use to increase the progress by as each row is handled
-            //percentProgressPerRow = PERCENT_CALCULATION_NUMERATOR/(float) rows.size();
+            Set<String> headerNames = new HashSet<String>(header);
+            
+            //the columns that have at least one cell with data
+            Set<String> columnsWithData = new HashSet<String>();
 
             // go update progress from progressStart to progresStart + PERCENT_CALCULATION_NUMERATOR in next section
             int progresStart = PERCENT_CALCULATION_NUMERATOR+MERGE_ROW_PERCENT+SORT_ROW_PERCENT;
             generateReportStatus.getProgress().setTaskDescription("Handling cell collisions");
             generateReportStatus.getProgress().setPercentComplete(progresStart);
             int rowsProcessed = 0;
-            int rowTotal = rows.size();
-            for(Row row : rows){
-                rowsProcessed++;
-
-                for(Cell cell : row.getCells()){
-
-                    String column = cell.getColumn().getDisplayName().replace(SPACE, UNDERSCORE);
-                    if(colValueChecker.containsKey(column)){
+            int rowTotal = getRowCount();
+            try(RowCursor cursor = new RowCursor(filterSpilledRows)){
+                
+                Row row;
+                while((row = cursor.next()) != null){
+                    rowsProcessed++;
+                    
+                    List<Cell> cells = row.getCells();
+                    String[] columnNames = getCellColumnNames(row);
+                    for(int cellIndex = 0; cellIndex < columnNames.length; cellIndex++){
                         
-                        String newColName;
-                        int suffixCnt = 2;
-                        while(true){
-                            
-                            newColName = column + DUPLICATE_COLUMN_PREFIX + suffixCnt+ DUPLICATE_COLUMN_SUFFIX;
-                            if(!colValueChecker.containsKey(newColName)){
-                                break;
-                            }
-                            
-                            suffixCnt++;
-                        }
+                        String newColName = columnNames[cellIndex];
+                        columnsWithData.add(newColName);
                         
-                        if(header.contains(newColName)){
-                            //a previous row already added this column name, so just use it
-                            
-                            //make sure to update the column value checker in case there is another instance of this column name
-                            colValueChecker.put(newColName, cell.getValue());
-                            
-                            cellToColumn.put(cell, newColName);
+                        String column = getColumnName(cells.get(cellIndex).getColumn());
+                        if(newColName.equals(column) || !headerNames.add(newColName)){
+                            //not a collision or a previous row already added this column name, so just use it
                             continue;
                         }
                         
+                        int suffixCnt = Integer.parseInt(newColName.substring(column.length() + DUPLICATE_COLUMN_PREFIX.length(), 
+                                newColName.length() - DUPLICATE_COLUMN_SUFFIX.length()));
+                        
                         //find collision column index to insert after
-                        boolean added = false;
-                        for(int i = 0; i < header.size(); i++){
-                            
-                            if(header.get(i).equals(column)){
-                                //found index to insert after
-                                
-                                if((i+(suffixCnt-1)) >= header.size()){
-                                    //add to end of column list
-                                    header.add(newColName);
-                                }else{
-                                    //insert after collision column plus the suffix offset
-                                    header.add(i+suffixCnt-1, newColName);
-                                }
-                                colValueChecker.put(newColName, cell.getValue());
-                                cellToColumn.put(cell, newColName);
-                                added = true;
-                                break;
-                            }
+                        int i = header.indexOf(column);
+                        if(i == -1){
+                            throw new OperationNotSupportedException("Unable to merge two cells trying to be placed in the same column in the same row.  The column name is "+column+".");
                         }
                         
-                        if(!added){
-                            throw new OperationNotSupportedException("Unable to merge two cells trying to be placed in the same column in the same row.  The column name is "+column+".");
+                        if((i+(suffixCnt-1)) >= header.size()){
+                            //add to end of column list
+                            header.add(newColName);
+                        }else{
+                            //insert after collision column plus the suffix offset
+                            header.add(i+suffixCnt-1, newColName);
                         }
                         
                         createdDuplicateColumns = true;
-                        
-                    }else{
-                        colValueChecker.put(column, cell.getValue());
-                        cellToColumn.put(cell, column);
-                    }
-                    
+                    }//end inner for
                     
-                }//end inner for
+                    generateReportStatus.getProgress().setPercentComplete(progresStart+(PERCENT_CALCULATION_NUMERATOR * Math.min(rowsProcessed, rowTotal))/Math.max(rowTotal, 1));
+                }//end outer while
                 
-                //reset for next row
-                colValueChecker.clear();
-
-                generateReportStatus.getProgress().setPercentComplete(progresStart+(PERCENT_CALCULATION_NUMERATOR * rowsProcessed)/rowTotal);
-            }//end outer for
+                if(filterSpilledRows && cursor.getFilteredCount() > 0 && logger.isInfoEnabled()){
+                    logger.info("Removed " + cursor.getFilteredCount() + " row(s) in the spill file from the report based on default column properties.");
+                }
+            }
             progresStart+= PERCENT_CALCULATION_NUMERATOR;
             generateReportStatus.getProgress().setPercentComplete(progresStart);
 
@@ -863,53 +779,25 @@ public class ReportWriter {
             //
             // Remove columns with no values
             //
-            //TODO: if the report writing becomes slow, try to cache the columns with data in a previous report writing step so we don't have to loop so much here.
-            
             if(reportProperties.shouldExcludeDatalessColumns()){
-                boolean empty;
 
                 generateReportStatus.getProgress().setTaskDescription("Removing dataless columns");
-                //float percentProgressPerHeader = PERCENT_CALCULATION_NUMERATOR/(float) header.size();
-                
-                //to improve performance keep list of other headers found to have data while dealing with the 
-                //current header
-                Set<String> otherColumnsWithData = new HashSet<String>();
-
-
 
                 int headersProcessed = 0;
                 int headerTotal = header.size();
-                for(int headerIndex = 0; headerIndex < header.size(); headerIndex++){
+                Iterator<String> headerNameItr = header.iterator();
+                while(headerNameItr.hasNext()){
                     headersProcessed++;
 
                     generateReportStatus.getProgress().setPercentComplete(progresStart+(PERCENT_CALCULATION_NUMERATOR * headersProcessed)/headerTotal);
                     
-                    String columnName = header.get(headerIndex);
-                    
-                    //check if column was already found to have at least one cell with data
-                    empty = !otherColumnsWithData.contains(columnName);
+                    String columnName = headerNameItr.next();
                     
-                    if(empty){
-                        //check every cell until you find one in the current column being checked
-                        
-                        for(String cellColumnName : cellToColumn.values()){
-                            
-                            if(columnName.equals(cellColumnName)){
-                                empty = false;
-                                break;
-                            }else if(!otherColumnsWithData.contains(cellColumnName)){
-                                //add to list for use in a future iteration of the outer for loop
-                                otherColumnsWithData.add(cellColumnName);
-                            }
-                        }
-                        
-                        //if still unable to find a single cell with a value under that column header, remove that column
-                        if(empty){
-                            header.remove(headerIndex);
-                            if(logger.isDebugEnabled()){
-                                logger.debug("Removed column with header: " + columnName);
-                            }
-                            headerIndex--;
+                    //if unable to find a single cell with a value under that column header, remove that column
+                    if(!columnsWithData.contains(columnName)){
+                        headerNameItr.remove();
+                        if(logger.isDebugEnabled()){
+                            logger.debug("Removed column with header: " + columnName);
                         }
                     }
                 }
@@ -967,47 +855,150 @@ public class ReportWriter {
                 processor.add(cellProcessor);
             }
             
+            String[] headerArray = header.toArray(new String[header.size()]);
+            CellProcessor[] processorArray = processor.toArray(new CellProcessor[processor.size()]);
+            
             //gather and write each row of data
             HashMap<String, ? super Object> data = new HashMap<String, Object>();
             generateReportStatus.getProgress().setTaskDescription("Writing data to the report file.");
 
             rowsProcessed = 0;
-            rowTotal = rows.size();
-            for(Row row : rows){
-                for(Cell cell : row.getCells()){
+            try(RowCursor cursor = new RowCursor(filterSpilledRows)){
+                
+                Row row;
+                while((row = cursor.next()) != null){
+                    rowsProcessed++;
                     
-                    if(!cellToColumn.containsKey(cell)){
-                        logger.error("Unable to find the appropriate column for cell = "+cell);
-                    }else{
-                        data.put(cellToColumn.get(cell), cell.getValue());
+                    //the same column names the cells were given when the header was created
+                    List<Cell> cells = row.getCells();
+                    String[] columnNames = getCellColumnNames(row);
+                    for(int cellIndex = 0; cellIndex < columnNames.length; cellIndex++){
+                        data.put(columnNames[cellIndex], cells.get(cellIndex).getValue());
                     }
-
-                }//end inner for
-                
-                try{
-                    writer.write(data, header.toArray(new String[header.size()]), processor.toArray(new CellProcessor[processor.size()]));
-                }catch(IOException ioe){
-                    //treat IO exception as a critical error, stop writing 
-                    logger.error("There was an exception while writing report for data = "+data+" and header = "+header+". Terminating report creation.", ioe);
-                    return createdDuplicateColumns;
-                }catch(Exception e){
-                    //possibly something wrong with the current data collection, continue writing
-                    logger.error("There was an exception while writing report for data = "+data+" and header = "+header+". Continuing report creation.", e);
-                }
-                
-                //reset for the next row of data
-                data.clear();
-                generateReportStatus.getProgress().setPercentComplete(progresStart+(PERCENT_CALCULATION_NUMERATOR * rowsProcessed)/rowTotal);
-            }//end for    
+                    
+                    try{
+                        writer.write(data, headerArray, processorArray);
+                    }catch(IOException ioe){
+                        //treat IO exception as a critical error, stop writing 
+                        logger.error("There was an exception while writing report for data = "+data+" and header = "+header+". Terminating report creation.", ioe);
+                        return createdDuplicateColumns;
+                    }catch(Exception e){
+                        //possibly something wrong with the current data collection, continue writing
+                        logger.error("There was an exception while writing report for data = "+data+" and header = "+header+". Continuing report creation.", e);
+                    }
+                    
+                    //reset for the next row of data
+                    data.clear();
+                    generateReportStatus.getProgress().setPercentComplete(progresStart+(PERCENT_CALCULATION_NUMERATOR * Math.min(rowsProcessed, rowTotal))/Math.max(rowTotal, 1));
+                }//end while
+            }
 
         } finally {
             writer.close();
             fileWriter.close();
+            deleteSpillFile();
         }
         
         return createdDuplicateColumns;
     }
     
+    /**
+     * Return the number of rows in the report, including the rows in the spill file.
+     * 
+     * @return the number of rows
+     */
+    private int getRowCount(){
+        return rows.size() + (spillFile != null ? spillFile.getRowCount() : 0);
+    }
+    
+    /**
+     * Return the name of the column as it appears in the header of the report.
+     * 
+     * @param column the column to get the name of
+     * @return the display name of the column with spaces replaced by underscores (SPSS compliant)
+     */
+    private static String getColumnName(EventReportColumn column){
+        return column.getDisplayName().replace(SPACE, UNDERSCORE);
+    }
+    
+    /**
+     * Return the name of the column each cell of the row is written under.  A cell for a column already used by an
+     * earlier cell in the same row (e.g. cells added to the row by merging) is given a duplicate column name, 
+     * i.e. the column name followed by the lowest unused suffix starting at {@value #DUPLICATE_COLUMN_PREFIX}2{@value #DUPLICATE_COLUMN_SUFFIX}.
+     * 
+     * @param row the row to name the cell columns of
+     * @return the column name of each cell, in the same order as the cells in the row
+     */
+    private static String[] getCellColumnNames(Row row){
+        
+        List<Cell> cells = row.getCells();
+        String[] columnNames = new String[cells.size()];
+        Set<String> rowColumns = new HashSet<String>();
+        for(int cellIndex = 0; cellIndex < columnNames.length; cellIndex++){
+            
+            String column = getColumnName(cells.get(cellIndex).getColumn());
+            String columnName = column;
+            for(int suffixCnt = 2; !rowColumns.add(columnName); suffixCnt++){
+                columnName = column + DUPLICATE_COLUMN_PREFIX + suffixCnt + DUPLICATE_COLUMN_SUFFIX;
+            }
+            
+            columnNames[cellIndex] = columnName;
+        }
+        
+        return columnNames;
+    }
+    
+    /**
+     * Return whether a cell of the row has a value outside of the range allowed by the column properties of the report.
+     * 
+     * @param row the row to check
+     * @return true if the row should be removed from the report
+     * @throws OperationNotSupportedException if a column has an unhandled column property
+     */
+    private boolean violatesColumnProperties(Row row) throws OperationNotSupportedException{
+        
+        for (Cell cell : row.getCells()) {
+
+            ColumnProperties properties = reportProperties.getColumnProperties().get(cell.getColumn());
+
+            if (properties != null) {
+
+                if (properties instanceof MinMaxProperty) {
+
+                    MinMaxProperty minMaxProperty = (MinMaxProperty) properties;
+                    Long min = minMaxProperty.getMinimum();
+                    Long max = minMaxProperty.getMaximum();
+                    
+                    Long value;
+                    
+                    if(cell.getValue().contains(Constants.PERIOD)) {
+                        
+                        Double val = Double.parseDouble(cell.getValue()) * 1000;
+                        
+                        value = val.longValue();
+                        
+                    } else {
+                        
+                        value = Long.parseLong(cell.getValue());                                    
+                    }
+                    
+                    if (min != null && value < min) {
+                        //value is less than min
+                        return true;
+                    } else if (max != null && value > max) {
+                        //value is greater than max
+                        return true;
+                    }
+
+                } else {
+                    throw new OperationNotSupportedException("Found unhandled column property of " + properties + " for cell of " + cell);
+                }
+            }
+        }
+        
+        return false;
+    }
+    
     /**
      * Return whether the column name provided represents a duplicate column name created
      * during the merge process to handle an event collision being represented on the same row.
@@ -1251,4 +1242,219 @@ public class ReportWriter {
 
         return reportProperties;
     }
+    
+    /**
+     * Reads the rows of the report in order: the rows in the spill file followed by the rows in memory.
+     * 
+     * @author agent
+     *
+     */
+    private class RowCursor implements Closeable {
+        
+        /** reads the spill file, null if there is no spill file or all of its rows have been read */
+        private RowSpillFile.Reader spillReader;
+        
+        /** whether to skip the rows in the spill file that violate the column properties */
+        private final boolean filterSpilledRows;
+        
+        /** the number of rows in the spill file that were skipped because they violate the column properties */
+        private int filteredCount = 0;
+        
+        /** the index of the next row in memory to return */
+        private int rowIndex = 0;
+        
+        /**
+         * Start reading at the first row.
+         * 
+         * @param filterSpilledRows whether to skip the rows in the spill file that violate the column properties,
+         * the rows in memory are filtered before being read
+         * @throws IOException if there was a problem opening the spill file
+         */
+        private RowCursor(boolean filterSpilledRows) throws IOException{
+            this.filterSpilledRows = filterSpilledRows;
+            this.spillReader = spillFile != null ? spillFile.openReader() : null;
+        }
+        
+        /**
+         * Return the next row.
+         * 
+         * @return the next row, null if all the rows have been read
+         * @throws IOException if there was a problem reading the spill file
+         * @throws OperationNotSupportedException if a column has an unhandled column property
+         */
+        private Row next() throws IOException, OperationNotSupportedException{
+            
+            while(spillReader != null){
+                
+                Row row = spillReader.next();
+                if(row == null){
+                    spillReader.close();
+                    spillReader = null;
+                }else if(filterSpilledRows && violatesColumnProperties(row)){
+                    filteredCount++;
+                }else{
+                    return row;
+                }
+            }
+            
+            return rowIndex < rows.size() ? rows.get(rowIndex++) : null;
+        }
+        
+        /**
+         * Return the number of rows in the spill file skipped because they violate the column properties.
+         * 
+         * @return the number of rows skipped so far
+         */
+        private int getFilteredCount(){
+            return filteredCount;
+        }
+
+        @Override
+        public void close() throws IOException {
+            
+            if(spillReader != null){
+                spillReader.close();
+            }
+        }
+    }
+    
+    /**
+     * A root row of a merge along with the domain session ids already in the root row.
+     * 
+     * @author agent
+     *
+     */
+    private static class MergedRow {
+        
+        /** the row other rows are merged into */
+        private final Row row;
+        
+        /** the root row's domain session id cell, null if the root row doesn't have one yet */
+        private Cell dsIdCell;
+        
+        /** contains the domain session ids merged into the root row */
+        private final Set<Integer> dsIds = new HashSet<>();
+        
+        /** whether any rows were merged into the root row */
+        private boolean merged = false;
+        
+        /**
+         * Set attributes.
+         * 
+         * @param row the row other rows are merged into
+         */
+        private MergedRow(Row row){
+            this.row = row;
+            
+            // finding the domain session id column in order to concatenate domain session ids
+            dsIdCell = findCell(row, EventReportColumn.DS_ID_COLUMN);
+            if(dsIdCell != null){
+                // need to populate the domain session ids already in this row
+                
+                String[] ids = dsIdCell.getValue().split(SEMI_COLON);
+                for(String id : ids){
+                    dsIds.add(Integer.valueOf(id));    
+                }
+            }
+        }
+        
+        /**
+         * Merge the cells of the row into the root row.
+         * 
+         * @param otherRow the row to merge, has the same merge-by value as the root row
+         * @param mergeByColumn the column whose values rows are merged by
+         * @param reportColumns the columns specified by the report properties
+         */
+        private void merge(Row otherRow, EventReportColumn mergeByColumn, Set<EventReportColumn> reportColumns){
+            
+            for(Cell cell : otherRow.getCells()){
+                
+                if(!cell.getColumn().equals(mergeByColumn) && 
+                        reportColumns.contains(cell.getColumn()) &&
+                        !MessageLogEventSourceParser.timeColumns.contains(cell.getColumn())){
+                    //don't need to merge 'merge-by' column
+                    //add columns that are specified by the report properties (e.g. selected columns in the ERT)
+                    //don't add time based columns (they should never be more than 1 instance of each time based column)
+                    
+                    if(MessageLogEventSourceParser.domainSessionColumns.contains(cell.getColumn())){
+                        
+                        if(EventReportColumn.DS_ID_COLUMN.equals(cell.getColumn())){
+                            // found a domain session id column in this row,
+                            
+                            if(dsIdCell == null){
+                                // the root row didn't contain a domain session id cell, but the other row does
+                                dsIdCell = cell;
+                                row.addCell(cell);
+                                dsIds.add(Integer.valueOf(cell.getValue()));
+                            }else if(!dsIds.contains(Integer.valueOf(cell.getValue()))){
+                                // concatenate ids
+                                dsIdCell.setValue(dsIdCell.getValue() + SEMI_COLON + cell.getValue());
+                                dsIds.add(Integer.valueOf(cell.getValue()));                                        
+                            }
+                        }
+                    }else{                            
+                        row.addCell(cell);
+                    }
+                }
+            }
+            
+            merged = true;
+        }
+    }
+    
+    /**
+     * The value a row is sorted by, found and parsed once before sorting.
+     * 
+     * @author agent
+     *
+     */
+    private static class SortKey implements Comparable<SortKey> {
+        
+        /** the row being sorted */
+        private final Row row;
+        
+        /** the value of the row's cell for the sort column, null if the row doesn't have the column */
+        private final String value;
+        
+        /** whether the value is a number */
+        private final boolean numeric;
+        
+        /** the value as a number, only used if numeric */
+        private final double number;
+        
+        /**
+         * Set attributes.
+         * 
+         * @param row the row being sorted
+         * @param cell the row's cell for the sort column, null if the row doesn't have the column
+         */
+        private SortKey(Row row, Cell cell){
+            this.row = row;
+            this.value = cell != null ? cell.getValue() : null;
+            this.numeric = value != null && isNumeric(value);
+            this.number = numeric ? Double.parseDouble(value) : 0;
+        }
+
+        @Override
+        public int compareTo(SortKey other) {
+            
+            if(value != null && other.value != null){
+                
+                if(numeric && other.numeric){
+                    return Double.compare(number, other.number);
+                }else{
+                    return value.compareTo(other.value);
+                }
+                
+            }else if(other.value != null){
+                //this row doesn't have the column, place it ahead of the other row
+                return -1;
+            }else if(value != null){
+                //the other row doesn't have the column, place it ahead of this row
+                return 1;
+            }else{
+                return 0;
+            }
+        }
+    }
 }
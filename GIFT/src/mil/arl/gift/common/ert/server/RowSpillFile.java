@@ -0,0 +1,234 @@
+/**
+ * Copyright Dignitas Technologies, LLC
+ *
+ * This file and its contents are governed by one or more distribution and
+ * copyright statements as described in the LICENSE.txt file distributed with
+ * this work.
+ */
+package mil.arl.gift.common.ert.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import mil.arl.gift.common.ert.EventReportColumn;
+import mil.arl.gift.common.io.Constants;
+
+/**
+ * A temporary file the rows of a report are written to while the report is being collected, so that the rows
+ * of a large report don't all have to be kept in memory.  The rows are read back in the order they were
+ * appended.<br/>
+ * <br/>
+ * Only the cell values are written to the file, each cell refers to its column by an index into the columns
+ * kept in memory (a report has a small number of distinct columns).
+ *
+ * @author agent
+ *
+ */
+class RowSpillFile {
+
+    /** instance of the logger */
+    private static Logger logger = LoggerFactory.getLogger(RowSpillFile.class);
+
+    /** the size of the buffer (bytes) in front of the file */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** the length written for a cell without a value */
+    private static final int NULL_VALUE_LENGTH = -1;
+
+    /** the temporary file */
+    private final File file;
+
+    /** writes the rows to the file */
+    private final DataOutputStream output;
+
+    /** the distinct columns of the cells written, the position of a column is the index written for a cell */
+    private final List<EventReportColumn> columns = new ArrayList<>();
+
+    /** the index of each column, keyed by the column's name and display name */
+    private final Map<String, Integer> columnIndexes = new HashMap<>();
+
+    /** the number of rows written to the file */
+    private int rowCount = 0;
+
+    /**
+     * Create the temporary file.
+     *
+     * @throws IOException if there was a problem creating the file
+     */
+    RowSpillFile() throws IOException{
+
+        file = File.createTempFile("ertReportRows", ".tmp");
+        file.deleteOnExit();
+        output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE));
+    }
+
+    /**
+     * Write the rows to the end of the file.  The rows are not kept in memory.<br/>
+     * The rows are only counted (i.e. read back) once all of them have been written, therefore if this fails
+     * none of the rows are in the file and the file shouldn't be appended to again.
+     *
+     * @param rowsToAppend the rows to write
+     * @throws IOException if there was a problem writing the file
+     */
+    void append(Collection<Row> rowsToAppend) throws IOException{
+
+        for(Row row : rowsToAppend){
+
+            List<Cell> cells = row.getCells();
+            output.writeInt(cells.size());
+            for(Cell cell : cells){
+
+                output.writeInt(getColumnIndex(cell.getColumn()));
+
+                if(cell.getValue() == null){
+                    output.writeInt(NULL_VALUE_LENGTH);
+                }else{
+                    byte[] value = cell.getValue().getBytes(StandardCharsets.UTF_8);
+                    output.writeInt(value.length);
+                    output.write(value);
+                }
+            }
+        }
+
+        rowCount += rowsToAppend.size();
+    }
+
+    /**
+     * Return the index written for the column, adding the column if it hasn't been written before.
+     *
+     * @param column the column of a cell
+     * @return the index of the column
+     */
+    private int getColumnIndex(EventReportColumn column){
+
+        String key = column.getColumnName() + Constants.NEWLINE + column.getDisplayName();
+        Integer index = columnIndexes.get(key);
+        if(index == null){
+            index = columns.size();
+            columns.add(column);
+            columnIndexes.put(key, index);
+        }
+
+        return index;
+    }
+
+    /**
+     * Return the number of rows written to the file.
+     *
+     * @return the row count
+     */
+    int getRowCount(){
+        return rowCount;
+    }
+
+    /**
+     * Open a reader of the rows written so far, starting with the first row.
+     *
+     * @return a new reader, must be closed when no longer needed
+     * @throws IOException if there was a problem writing the buffered rows or opening the file
+     */
+    Reader openReader() throws IOException{
+
+        output.flush();
+        return new Reader(rowCount);
+    }
+
+    /**
+     * Close and delete the file.  The file can't be used after this.
+     */
+    void delete(){
+
+        try{
+            output.close();
+        }catch(IOException e){
+            logger.warn("Failed to close the report row file "+file+".", e);
+        }
+
+        if(!file.delete()){
+            logger.warn("Failed to delete the report row file "+file+".");
+        }
+    }
+
+    /**
+     * Reads the rows of the file in the order they were written.
+     *
+     * @author agent
+     *
+     */
+    class Reader implements Closeable {
+
+        /** reads the file */
+        private final DataInputStream input;
+
+        /** the number of rows left to read, rows appended after the reader was opened are not read */
+        private int rowsLeft;
+
+        /**
+         * Open the file.
+         *
+         * @param rowCount the number of rows written to the file
+         * @throws IOException if there was a problem opening the file
+         */
+        private Reader(int rowCount) throws IOException{
+            this.rowsLeft = rowCount;
+            this.input = new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE));
+        }
+
+        /**
+         * Read the next row.
+         *
+         * @return the next row, null if all the rows have been read
+         * @throws IOException if there was a problem reading the file
+         */
+        Row next() throws IOException{
+
+            if(rowsLeft == 0){
+                return null;
+            }
+
+            int cellCount = input.readInt();
+            List<Cell> cells = new ArrayList<>(cellCount);
+            for(int cellIndex = 0; cellIndex < cellCount; cellIndex++){
+
+                EventReportColumn column = columns.get(input.readInt());
+
+                String value = null;
+                int length = input.readInt();
+                if(length > NULL_VALUE_LENGTH){
+                    byte[] bytes = new byte[length];
+                    input.readFully(bytes);
+                    value = new String(bytes, StandardCharsets.UTF_8);
+                }else if(length < NULL_VALUE_LENGTH){
+                    throw new EOFException("The report row file "+file+" is corrupt.");
+                }
+
+                cells.add(new Cell(value, column));
+            }
+
+            rowsLeft--;
+            return new Row(cells);
+        }
+
+        @Override
+        public void close() throws IOException {
+            input.close();
+        }
+    }
+}
@@ -54,7 +54,9 @@ public class SensorWriterEventSourceParser extends AbstractEventSourceParser {
     private static final String SENSOR_WRITER_EVENT_NAME = "SensorWriterData";
     private static final String SENSOR_WRITER_EVENT_DISPLAY_NAME = "Sensor Writer Data";
     private static final String SENSOR_WRITER_EVENT_DESCRIPTION = "Sensor Data (filtered or unfiltered) written to a file created by a sensor writer.";
-    private static List<EventType> typesOfEvents = new ArrayList<EventType>(1);
+    
+    /** the sensor writer event type of this file, per instance since event sources can be parsed in parallel */
+    private List<EventType> typesOfEvents = new ArrayList<EventType>(1);
     
     /** contains the list of sensor writer events from the input file */
     private List<AbstractEvent> events = new ArrayList<AbstractEvent>();
@@ -146,6 +146,34 @@ public class CommonProperties {
     /** Default timeout for the module status heartbeat */
     private static final int DEFAULT_MODULE_TIMEOUT_MS = 10000;
 
+    /** The property that contains the maximum number of received messages waiting to be dispatched per client/module */
+    public static final String MESSAGE_DISPATCH_QUEUE_CAPACITY = "MessageDispatchQueueCapacity";
+    /** Default maximum number of received messages waiting to be dispatched */
+    private static final int DEFAULT_MESSAGE_DISPATCH_QUEUE_CAPACITY = 100000;
+
+    /** The property that contains how long (ms) a full dispatch queue will hold up the receiving thread before dropping a message */
+    public static final String MESSAGE_DISPATCH_QUEUE_BACKPRESSURE_TIMEOUT_MS = "MessageDispatchQueueBackpressureTimeoutMs";
+    /** Default backpressure timeout for a full dispatch queue, wait until there is room (i.e. never drop a message) */
+    private static final int DEFAULT_MESSAGE_DISPATCH_QUEUE_BACKPRESSURE_TIMEOUT_MS = -1;
+
+    /** The property that contains the maximum number of received messages pulled from a dispatch queue at once */
+    public static final String MESSAGE_DISPATCH_BATCH_SIZE = "MessageDispatchBatchSize";
+    /** Default maximum number of received messages pulled from a dispatch queue at once */
+    private static final int DEFAULT_MESSAGE_DISPATCH_BATCH_SIZE = 64;
+
+    /** The property that contains the number of idle threads kept ready to notify message send callbacks */
+    public static final String MESSAGE_CALLBACK_THREADS = "MessageCallbackThreads";
+    /** Default number of idle threads kept ready to notify message send callbacks */
+    private static final int DEFAULT_MESSAGE_CALLBACK_THREADS = 16;
+
+    /** The property that contains the largest number of threads used to notify message send callbacks */
+    public static final String MESSAGE_CALLBACK_MAX_THREADS = "MessageCallbackMaxThreads";
+    /** Default largest number of threads used to notify message send callbacks */
+    private static final int DEFAULT_MESSAGE_CALLBACK_MAX_THREADS = 256;
+
+    /** The property that contains whether message send callbacks should be run on virtual threads when the JVM supports them */
+    public static final String MESSAGE_CALLBACK_USE_VIRTUAL_THREADS = "MessageCallbackUseVirtualThreads";
+
     private static final String DEFAULT_DOMAIN_DIRECTORY = "../Domain";
 
     /** The default path of the Training.Apps directory */
@@ -1195,6 +1223,66 @@ public class CommonProperties {
         return getPropertyIntValue(MESSAGE_ACK_TIMEOUT_MS, DEFAULT_ACK_TIMEOUT_MS);
     }
 
+    /**
+     * Get the maximum number of received messages that can be waiting to be dispatched by a single
+     * message client or module network session.
+     *
+     * @return the capacity of message dispatch queues.  (DEFAULT: 100000)
+     */
+    public int getMessageDispatchQueueCapacity(){
+        return getPropertyIntValue(MESSAGE_DISPATCH_QUEUE_CAPACITY, DEFAULT_MESSAGE_DISPATCH_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Get how long (in milliseconds) the thread receiving messages will wait for room in a full message
+     * dispatch queue before the message is dropped.  A negative value means wait until there is room
+     * and never drop a message, zero means drop the message right away.  ACK/NACK replies are never dropped.
+     *
+     * @return the backpressure timeout value (in milliseconds).  (DEFAULT: -1, never drop)
+     */
+    public int getMessageDispatchQueueBackpressureTimeoutMs(){
+        return getPropertyIntValue(MESSAGE_DISPATCH_QUEUE_BACKPRESSURE_TIMEOUT_MS, DEFAULT_MESSAGE_DISPATCH_QUEUE_BACKPRESSURE_TIMEOUT_MS);
+    }
+
+    /**
+     * Get the maximum number of received messages that are pulled from a message dispatch queue at once.
+     *
+     * @return the message dispatch batch size.  (DEFAULT: 64)
+     */
+    public int getMessageDispatchBatchSize(){
+        return Math.max(1, getPropertyIntValue(MESSAGE_DISPATCH_BATCH_SIZE, DEFAULT_MESSAGE_DISPATCH_BATCH_SIZE));
+    }
+
+    /**
+     * Get the number of threads kept ready to notify message send callbacks (e.g. message collection success and failure).
+     * More threads are started when all of them are busy, up to {@link #getMessageCallbackMaxThreads()}.
+     *
+     * @return the number of message callback threads.  (DEFAULT: 16)
+     */
+    public int getMessageCallbackThreads(){
+        return Math.max(1, getPropertyIntValue(MESSAGE_CALLBACK_THREADS, DEFAULT_MESSAGE_CALLBACK_THREADS));
+    }
+
+    /**
+     * Get the largest number of threads used to notify message send callbacks.  When that many callbacks are running
+     * a callback is run by the thread that submitted it.  Never less than {@link #getMessageCallbackThreads()}.
+     *
+     * @return the maximum number of message callback threads.  (DEFAULT: 256)
+     */
+    public int getMessageCallbackMaxThreads(){
+        return Math.max(getMessageCallbackThreads(), getPropertyIntValue(MESSAGE_CALLBACK_MAX_THREADS, DEFAULT_MESSAGE_CALLBACK_MAX_THREADS));
+    }
+
+    /**
+     * Return whether message send callbacks should be run on virtual threads instead of a thread pool.
+     * This is only honored when the JVM supports virtual threads.
+     *
+     * @return true if virtual threads should be used.  (DEFAULT: false)
+     */
+    public boolean getMessageCallbackUseVirtualThreads(){
+        return getPropertyBooleanValue(MESSAGE_CALLBACK_USE_VIRTUAL_THREADS, false);
+    }
+
     /**
      * The timeout value for the module status monitor (in milliseconds).  If a module status update is not received
      * within this time period, the module is considered 'timed out' and will be removed.
@@ -352,6 +352,15 @@ public class FileProxy implements Comparable<FileProxy>, ContentProxyInterface {
         return source instanceof java.io.File;
     }
 
+    /**
+     * Return the local disk file this proxy is for.
+     *
+     * @return the local disk file, null if the source is not a local disk file (e.g. a server file)
+     */
+    public File getLocalFile() {
+        return source instanceof File ? (File) source : null;
+    }
+
     @Override
     public String toString(){
 
@@ -0,0 +1,219 @@
+/**
+ * Copyright Dignitas Technologies, LLC
+ *
+ * This file and its contents are governed by one or more distribution and
+ * copyright statements as described in the LICENSE.txt file distributed with
+ * this work.
+ */
+package mil.arl.gift.common.logger;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+
+import generated.proto.common.ProtobufLogMessageProto.ProtobufLogMessage;
+import mil.arl.gift.common.io.FileProxy;
+
+/**
+ * Reads the length delimited {@link ProtobufLogMessage} records of a protobuf binary message log one
+ * at a time, keeping track of the byte offset of each record so that reading can later start at that record.<br/>
+ * <br/>
+ * Local files are read through a {@link FileChannel} with a small read buffer, so seeking to a record (in either
+ * direction) only repositions the channel and only the records actually read are ever brought into memory.  The
+ * channel is released when the cursor is closed.  Files that are not on the local disk are read from a buffered
+ * stream, which only supports moving forward.
+ *
+ * @author agent
+ *
+ */
+public class ProtobufLogFileCursor implements Closeable {
+
+    /** the size of the read buffer */
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    /** the channel of a local log file, null if the file is not on the local disk */
+    private final FileChannel channel;
+
+    /** reads the log file from the byte offset of the next record */
+    private InputStream stream;
+
+    /** the byte offset of the current record, -1 if there is no current record */
+    private long recordOffset = -1;
+
+    /** the byte offset of the next record to read */
+    private long nextOffset;
+
+    /** the current record, null if there is no current record */
+    private ProtobufLogMessage record;
+
+    /**
+     * Open the log file, positioned at the record starting at the byte offset provided.
+     *
+     * @param logFile the protobuf binary log file to read.  Can't be null.
+     * @param offset the byte offset of the first record to read (e.g. 0 or an offset from a {@link ProtobufMessageLogIndex}).
+     * @return the cursor, {@link #next()} must be called to read the first record
+     * @throws IOException if there was a problem opening the file
+     */
+    public static ProtobufLogFileCursor open(FileProxy logFile, long offset) throws IOException {
+
+        ProtobufLogFileCursor cursor;
+        File file = logFile.getLocalFile();
+        if(file != null){
+            cursor = new ProtobufLogFileCursor(FileChannel.open(file.toPath(), StandardOpenOption.READ), null);
+        }else{
+            cursor = new ProtobufLogFileCursor(null, new BufferedInputStream(logFile.getSingleUseInputStream(), STREAM_BUFFER_SIZE));
+        }
+
+        try{
+            cursor.seek(offset);
+        }catch(IOException e){
+            cursor.close();
+            throw e;
+        }
+
+        return cursor;
+    }
+
+    /**
+     * Set attributes.  Exactly one of the parameters must not be null.
+     *
+     * @param channel the channel of a local log file
+     * @param stream the stream of a log file that is not on the local disk
+     */
+    private ProtobufLogFileCursor(FileChannel channel, InputStream stream) {
+        this.channel = channel;
+        this.stream = stream;
+    }
+
+    /**
+     * Position the cursor so that the next call to {@link #next()} reads the record starting at the byte offset.
+     * When reading a file that is not on the local disk the cursor can only be moved forward.
+     *
+     * @param offset the byte offset of a record (e.g. from a {@link ProtobufMessageLogIndex}).
+     * @throws IOException if the offset is past the end of the file or is before the current
+     * position of a stream
+     */
+    public void seek(long offset) throws IOException {
+
+        if(channel != null){
+
+            if(offset < 0 || offset > channel.size()){
+                throw new IOException("The offset "+offset+" is outside of the log file of "+channel.size()+" bytes.");
+            }
+
+            //the buffer of the previous stream no longer matches the position, the channel remains open
+            channel.position(offset);
+            stream = new BufferedInputStream(Channels.newInputStream(channel), STREAM_BUFFER_SIZE);
+
+        }else{
+
+            long toSkip = offset - nextOffset;
+            if(toSkip < 0){
+                throw new IOException("Unable to move back to the offset "+offset+" from "+nextOffset+" while reading the log file from a stream.");
+            }
+
+            while(toSkip > 0){
+
+                long skipped = stream.skip(toSkip);
+                if(skipped <= 0){
+                    throw new EOFException("Reached the end of the log file while moving to the offset "+offset+".");
+                }
+                toSkip -= skipped;
+            }
+        }
+
+        nextOffset = offset;
+        recordOffset = -1;
+        record = null;
+    }
+
+    /**
+     * Read the next record.
+     *
+     * @return true if a record was read, false if the end of the file was reached
+     * @throws IOException if there was a problem reading or parsing the record
+     */
+    public boolean next() throws IOException {
+
+        recordOffset = nextOffset;
+
+        int firstByte = stream.read();
+        if(firstByte == -1){
+            return end();
+        }
+
+        int length = CodedInputStream.readRawVarint32(firstByte, stream);
+        byte[] recordBytes = new byte[length];
+        int read = 0;
+        while(read < length){
+
+            int count = stream.read(recordBytes, read, length - read);
+            if(count == -1){
+                throw new EOFException("The log file record at "+recordOffset+" is truncated.");
+            }
+            read += count;
+        }
+
+        record = ProtobufLogMessage.parseFrom(recordBytes);
+
+        nextOffset = recordOffset + CodedOutputStream.computeUInt32SizeNoTag(length) + length;
+        return true;
+    }
+
+    /**
+     * Clear the current record because the end of the file was reached.
+     *
+     * @return false
+     */
+    private boolean end() {
+        recordOffset = -1;
+        record = null;
+        return false;
+    }
+
+    /**
+     * Return the current record.
+     *
+     * @return the record read by the last call to {@link #next()}, null if the end of the file was reached
+     */
+    public ProtobufLogMessage getRecord() {
+        return record;
+    }
+
+    /**
+     * Return the byte offset of the current record.
+     *
+     * @return the offset of the record read by the last call to {@link #next()}, -1 if there is no current record
+     */
+    public long getRecordOffset() {
+        return recordOffset;
+    }
+
+    /**
+     * Return the byte offset of the record that will be read by the next call to {@link #next()}.
+     *
+     * @return the offset of the next record
+     */
+    public long getNextOffset() {
+        return nextOffset;
+    }
+
+    @Override
+    public void close() throws IOException {
+
+        if(channel != null){
+            channel.close();
+        }else{
+            stream.close();
+        }
+    }
+}
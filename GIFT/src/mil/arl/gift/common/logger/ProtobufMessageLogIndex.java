@@ -0,0 +1,311 @@
+/**
+ * Copyright Dignitas Technologies, LLC
+ *
+ * This file and its contents are governed by one or more distribution and
+ * copyright statements as described in the LICENSE.txt file distributed with
+ * this work.
+ */
+package mil.arl.gift.common.logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import generated.proto.common.ProtobufLogMessageProto.ProtobufLogMessage;
+import mil.arl.gift.common.io.FileProxy;
+import mil.arl.gift.common.util.ProtobufDefaultsUtil;
+
+/**
+ * A sparse index of a protobuf binary message log file.  The messages in the log are grouped into blocks of
+ * consecutive messages and for each block the index records the byte offset of the block's first record.
+ * This allows a range of messages (e.g. the span of a knowledge session played back in AAR) to be read by
+ * seeking directly to the block that contains the first message instead of reading the log from the start.<br/>
+ * <br/>
+ * The index is saved in a sidecar file next to the log file (with the {@value #INDEX_FILE_EXTENSION} extension
+ * appended) and is rebuilt whenever the log file's size or last modified time no longer match the index.
+ *
+ * @author agent
+ *
+ */
+public class ProtobufMessageLogIndex {
+
+    /** instance of the logger */
+    private static Logger logger = LoggerFactory.getLogger(ProtobufMessageLogIndex.class);
+
+    /** the extension appended to the log file name to create the index sidecar file name */
+    public static final String INDEX_FILE_EXTENSION = ".idx";
+
+    /** the number of messages in each block of the index */
+    public static final int DEFAULT_BLOCK_SIZE = 256;
+
+    /** identifies a GIFT message log index file */
+    private static final int MAGIC = 0x47494458;
+
+    /**
+     * the version of the index file format, version 1 indexes also counted messages missing required fields and
+     * version 2 indexes also contained the time stamps and message types of each block
+     */
+    private static final int VERSION = 3;
+
+    /** the size (bytes) of the log file when it was indexed */
+    private final long logLength;
+
+    /** the last modified time of the log file when it was indexed */
+    private final long logLastModified;
+
+    /** the number of messages in each block, except maybe the last block */
+    private final int blockSize;
+
+    /** the byte offset of the first record of each block */
+    private final long[] blockOffsets;
+
+    /**
+     * Set attributes.
+     *
+     * @param logLength the size (bytes) of the log file when it was indexed
+     * @param logLastModified the last modified time of the log file when it was indexed
+     * @param blockSize the number of messages in each block
+     * @param blockOffsets the byte offset of the first record of each block
+     */
+    private ProtobufMessageLogIndex(long logLength, long logLastModified, int blockSize, long[] blockOffsets) {
+        this.logLength = logLength;
+        this.logLastModified = logLastModified;
+        this.blockSize = blockSize;
+        this.blockOffsets = blockOffsets;
+    }
+
+    /**
+     * Return the index of the log file, reading it from the sidecar file if it is up to date, otherwise
+     * building it from the log file and saving it to the sidecar file.
+     *
+     * @param logFile the local protobuf binary log file.  Can't be null.
+     * @return the index of the log file
+     * @throws IOException if there was a problem reading the log file
+     */
+    public static ProtobufMessageLogIndex getIndex(File logFile) throws IOException {
+
+        File indexFile = getIndexFile(logFile);
+        if(indexFile.exists()){
+
+            try{
+                ProtobufMessageLogIndex index = read(indexFile);
+                if(index.logLength == logFile.length() && index.logLastModified == logFile.lastModified()){
+                    return index;
+                }
+
+                if(logger.isDebugEnabled()){
+                    logger.debug("The index "+indexFile+" is out of date, rebuilding it.");
+                }
+            }catch(IOException | RuntimeException e){
+                logger.warn("Unable to read the index "+indexFile+", rebuilding it.", e);
+            }
+        }
+
+        ProtobufMessageLogIndex index = build(logFile, DEFAULT_BLOCK_SIZE);
+
+        try{
+            index.write(indexFile);
+        }catch(IOException e){
+            //the index will be rebuilt the next time
+            logger.warn("Unable to save the index of "+logFile+" to "+indexFile+".", e);
+        }
+
+        return index;
+    }
+
+    /**
+     * Return the sidecar file the index of the log file is saved to.
+     *
+     * @param logFile the protobuf binary log file
+     * @return the index file, may not exist
+     */
+    public static File getIndexFile(File logFile) {
+        return new File(logFile.getParentFile(), logFile.getName() + INDEX_FILE_EXTENSION);
+    }
+
+    /**
+     * Build the index by reading every record of the log file.  The message payloads are not decoded.
+     *
+     * @param logFile the local protobuf binary log file.  Can't be null.
+     * @param blockSize the number of messages in each block.  Must be greater than zero.
+     * @return the new index
+     * @throws IOException if there was a problem reading the log file
+     */
+    public static ProtobufMessageLogIndex build(File logFile, int blockSize) throws IOException {
+
+        if(blockSize <= 0){
+            throw new IllegalArgumentException("The block size must be greater than zero.");
+        }
+
+        long start = System.currentTimeMillis();
+        long logLength = logFile.length();
+        long logLastModified = logFile.lastModified();
+
+        List<Long> offsets = new ArrayList<>();
+
+        int messageCount = 0;
+        long blockStartOffset = 0;
+        try(ProtobufLogFileCursor cursor = ProtobufLogFileCursor.open(new FileProxy(logFile), 0)){
+
+            while(cursor.next()){
+
+                ProtobufLogMessage record = cursor.getRecord();
+                if(!record.hasMessage()){
+                    continue;
+                }
+
+                if(!ProtobufDefaultsUtil.checkRequiredFields(record.getMessage())){
+                    //not counted, the same as the messages skipped when the log is parsed
+                    continue;
+                }
+
+                if(messageCount % blockSize == 0){
+                    //the block starts with the first record after the previous block, which may not be a message
+                    offsets.add(blockStartOffset);
+                }
+
+                messageCount++;
+                if(messageCount % blockSize == 0){
+                    blockStartOffset = cursor.getNextOffset();
+                }
+            }
+        }
+
+        long[] blockOffsets = new long[offsets.size()];
+        for(int block = 0; block < blockOffsets.length; block++){
+            blockOffsets[block] = offsets.get(block);
+        }
+
+        ProtobufMessageLogIndex index = new ProtobufMessageLogIndex(logLength, logLastModified, blockSize, blockOffsets);
+
+        if(logger.isInfoEnabled()){
+            logger.info("Built the index of "+logFile+" with "+messageCount+" messages in "+(System.currentTimeMillis() - start)+" ms: "+index);
+        }
+
+        return index;
+    }
+
+    /**
+     * Read an index from the sidecar file.
+     *
+     * @param indexFile the file to read
+     * @return the index in the file
+     * @throws IOException if there was a problem reading the file or the file isn't a supported index
+     */
+    private static ProtobufMessageLogIndex read(File indexFile) throws IOException {
+
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))){
+
+            if(in.readInt() != MAGIC){
+                throw new IOException("The file is not a message log index.");
+            }
+
+            int version = in.readInt();
+            if(version != VERSION){
+                throw new IOException("The message log index version "+version+" is not supported.");
+            }
+
+            long logLength = in.readLong();
+            long logLastModified = in.readLong();
+            int blockSize = in.readInt();
+
+            int blockCount = in.readInt();
+            long[] blockOffsets = new long[blockCount];
+            for(int block = 0; block < blockCount; block++){
+                blockOffsets[block] = in.readLong();
+            }
+
+            return new ProtobufMessageLogIndex(logLength, logLastModified, blockSize, blockOffsets);
+        }
+    }
+
+    /**
+     * Save this index to the sidecar file.  The index is written to a temporary file first so that a reader
+     * never sees a partially written index.
+     *
+     * @param indexFile the file to write
+     * @throws IOException if there was a problem writing the file
+     */
+    private void write(File indexFile) throws IOException {
+
+        File tempFile = new File(indexFile.getParentFile(), indexFile.getName() + ".tmp");
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))){
+
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(logLength);
+            out.writeLong(logLastModified);
+            out.writeInt(blockSize);
+
+            out.writeInt(blockOffsets.length);
+            for(long blockOffset : blockOffsets){
+                out.writeLong(blockOffset);
+            }
+        }
+
+        Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Return the number of blocks in the index.
+     *
+     * @return the number of blocks
+     */
+    public int getBlockCount() {
+        return blockOffsets.length;
+    }
+
+    /**
+     * Return the block containing the message.
+     *
+     * @param messageIndex the 0-based index of the message in the log (records without a message or with a message
+     * missing required fields are not counted)
+     * @return the block containing the message, the number of blocks if the message is past the end of the log
+     */
+    public int getBlockOfMessage(int messageIndex) {
+        return Math.min(Math.max(messageIndex, 0) / blockSize, blockOffsets.length);
+    }
+
+    /**
+     * Return the byte offset in the log file of the block's first record.
+     *
+     * @param block a block in this index
+     * @return the byte offset to start reading the block from
+     */
+    public long getBlockOffset(int block) {
+        return blockOffsets[block];
+    }
+
+    /**
+     * Return the 0-based index in the log of the block's first message.
+     *
+     * @param block a block in this index
+     * @return the index of the first message in the block
+     */
+    public int getBlockFirstMessageIndex(int block) {
+        return block * blockSize;
+    }
+
+    @Override
+    public String toString() {
+
+        StringBuilder sb = new StringBuilder("[ProtobufMessageLogIndex: ");
+        sb.append("logLength = ").append(logLength);
+        sb.append(", blockSize = ").append(blockSize);
+        sb.append(", blocks = ").append(blockOffsets.length);
+        sb.append("]");
+        return sb.toString();
+    }
+}
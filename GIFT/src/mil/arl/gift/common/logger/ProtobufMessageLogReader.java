@@ -11,13 +11,16 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeUnit;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.apache.log4j.PropertyConfigurator;
 import org.slf4j.Logger;
@@ -44,7 +47,10 @@ import mil.arl.gift.net.api.message.codec.proto.ProtoMapper;
 import mil.arl.gift.net.api.message.codec.proto.ProtobufMessageProtoCodec;
 
 /**
- * Reader for the protobuf binary log file.
+ * Reader for the protobuf binary log file.<br/>
+ * <br/>
+ * The streaming methods read the records lazily using a {@link ProtobufLogFileCursor} and, for local files,
+ * use the {@link ProtobufMessageLogIndex} sidecar to seek directly to the requested messages.
  * 
  * @author sharrison, oamer, cpolynice
  */
@@ -59,12 +65,6 @@ public class ProtobufMessageLogReader extends MessageLogReader {
     /** The file extension for a GIFT session JSON log file, the output of the converted protobuf log  */
     public static final String CONVERTED_LOG_FILE_EXTENSION = ".log";
 
-    /**
-     * The number of seconds until we declare a timeout for parsing a single
-     * message from the protobuf log
-     */
-    private static final int PARSE_TIMEOUT = 10;
-
     /** used to retrieve Proto classes for each message type */
     private static ProtoMapper mapper = ProtoMapper.getInstance();
 
@@ -96,74 +96,30 @@ public class ProtobufMessageLogReader extends MessageLogReader {
                     + "'.");
         }
 
-        try (final InputStream in = inputFile.getSingleUseInputStream()) {
+        try (final ProtobufLogFileCursor cursor = ProtobufLogFileCursor.open(inputFile, 0)) {
 
-            /* This will read the file, one line at a time. When there are no
-             * messages left it will return null. */
+            /* This will read the file, one record at a time, until there
+             * are no records left. */
             while (true) {
-                ProtobufLogMessage message;
                 try {
-                    final CompletableFuture<ProtobufLogMessage> future = new CompletableFuture<ProtobufLogMessage>();
-                    CompletableFuture.runAsync(new Runnable() {
-                        @Override
-                        public void run() {
-                            readNextLine(in, future);
-                        }
-                    });
-
-                    message = future.get(PARSE_TIMEOUT, TimeUnit.SECONDS);
+                    if (!cursor.next()) {
+                        break;
+                    }
                 } catch (Exception e) {
                     throw new Exception("Unable to parse the input file '" + inputFile + "'.", e);
                 }
 
-                if (message == null) {
-                    break;
-                }
+                final ProtobufLogMessage message = cursor.getRecord();
 
                 /* Add all non-null ProtobufLogMessages to the original log
                  * messages list */
                 originalLogMessages.add(message);
 
-                /* Convert to Message if possible */
-                if (!message.hasMessage()) {
-                    continue;
-                }
-
-                final ProtobufMessage protoMessage = message.getMessage();
-
-                if (!ProtobufDefaultsUtil.checkRequiredFields(protoMessage)) {
-                    logger.error("Found message of type '" + protoMessage.getMessageType()
-                            + "' that is missing required fields.");
+                final Message commonMessage = toMessage(message);
+                if (commonMessage == null) {
                     continue;
                 }
 
-                if (!haveCheckedIfDSLog) {
-                    isDomainSessionLog = protoMessage.hasDomainSessionId();
-                    haveCheckedIfDSLog = true;
-                    if(logger.isInfoEnabled()){
-                        logger.info("Determined that the input file is a domain session message log file");
-                    }
-                }
-                
-                Message commonMessage = CODEC.convert(protoMessage);
-
-                /* Convert DomainSessionMessage to DomainSessionMessageEntry */
-                if (isDomainSessionLog) {
-                    if (logger.isTraceEnabled()) {
-                        logger.trace("Create domain session message entry from message");
-                    }
-
-                    final String elapsedDSTime = message.hasElapsedDsTime()
-                            ? TimeUtil.formatTimeRelative(message.getElapsedDsTime().getValue())
-                            : TimeUtil.getDefaultRelativeTime();
-                    final String elapsedWriteTime = message.hasElapsedWriteTime()
-                            ? TimeUtil.formatTimeRelative(message.getElapsedWriteTime().getValue())
-                            : TimeUtil.getDefaultRelativeTime();
-
-                    commonMessage = DomainSessionMessageEntry.parseMessageEntry(elapsedDSTime + " " + elapsedWriteTime,
-                            (DomainSessionMessage) commonMessage);
-                }
-
                 messages.add(commonMessage);
                 final MessageTypeEnum typeEnum = commonMessage.getMessageType();
                 if (!messagesByType.containsKey(typeEnum)) {
@@ -176,21 +132,113 @@ public class ProtobufMessageLogReader extends MessageLogReader {
     }
 
     /**
-     * Read the next line of the input stream
+     * Convert the log record into a GIFT message.  The first message converted determines whether this
+     * is a domain session log.
      * 
-     * @param in the input stream to read.
-     * @param future the future used to return the parsed log message.
+     * @param message the log record to convert
+     * @return the message, or for a domain session log a {@link DomainSessionMessageEntry}. Null if the
+     *         record doesn't contain a message or the message is missing required fields.
      */
-    private void readNextLine(InputStream in, CompletableFuture<ProtobufLogMessage> future) {
-        try {
-            future.complete(ProtobufLogMessage.parseDelimitedFrom(in));
-        } catch (IOException e) {
-            future.completeExceptionally(e);
+    private Message toMessage(ProtobufLogMessage message) {
+
+        /* Convert to Message if possible */
+        if (!isValidMessage(message)) {
+            return null;
+        }
+
+        return convertMessage(message);
+    }
+
+    /**
+     * Convert the log record, which must contain a valid message (see {@link #isValidMessage(ProtobufLogMessage)}),
+     * into a GIFT message.  The first message converted determines whether this is a domain session log.
+     * 
+     * @param message the log record to convert
+     * @return the message, or for a domain session log a {@link DomainSessionMessageEntry}.
+     */
+    private Message convertMessage(ProtobufLogMessage message) {
+
+        final ProtobufMessage protoMessage = message.getMessage();
+
+        if (!haveCheckedIfDSLog) {
+            isDomainSessionLog = protoMessage.hasDomainSessionId();
+            haveCheckedIfDSLog = true;
+            if(logger.isInfoEnabled()){
+                logger.info("Determined that the input file is a domain session message log file");
+            }
+        }
+        
+        Message commonMessage = CODEC.convert(protoMessage);
+
+        /* Convert DomainSessionMessage to DomainSessionMessageEntry */
+        if (isDomainSessionLog) {
+            if (logger.isTraceEnabled()) {
+                logger.trace("Create domain session message entry from message");
+            }
+
+            final String elapsedDSTime = message.hasElapsedDsTime()
+                    ? TimeUtil.formatTimeRelative(message.getElapsedDsTime().getValue())
+                    : TimeUtil.getDefaultRelativeTime();
+            final String elapsedWriteTime = message.hasElapsedWriteTime()
+                    ? TimeUtil.formatTimeRelative(message.getElapsedWriteTime().getValue())
+                    : TimeUtil.getDefaultRelativeTime();
+
+            commonMessage = DomainSessionMessageEntry.parseMessageEntry(elapsedDSTime + " " + elapsedWriteTime,
+                    (DomainSessionMessage) commonMessage);
+        }
+
+        return commonMessage;
+    }
+
+    /**
+     * Return whether the log record contains a message that can be converted.  Only these records are counted
+     * when indexing the messages of a log (see {@link ProtobufMessageLogIndex}).
+     * 
+     * @param message the log record to check
+     * @return false if the record doesn't contain a message or the message is missing required fields
+     */
+    private static boolean isValidMessage(ProtobufLogMessage message) {
+
+        if (!message.hasMessage()) {
+            return false;
         }
+
+        final ProtobufMessage protoMessage = message.getMessage();
+        if (!ProtobufDefaultsUtil.checkRequiredFields(protoMessage)) {
+            logger.error("Found message of type '" + protoMessage.getMessageType()
+                    + "' that is missing required fields.");
+            return false;
+        }
+
+        return true;
     }
 
     @Override
     public Stream<Message> streamMessages(FileProxy logFile, int from, int until) throws IOException {
+        checkLogFile(logFile);
+
+        reset();
+
+        /* Start reading at the block containing the first message requested */
+        final ProtobufMessageLogIndex index = from > 0 ? getIndex(logFile) : null;
+        final int block = index != null ? index.getBlockOfMessage(from) : 0;
+        final long offset = index != null && block < index.getBlockCount() ? index.getBlockOffset(block) : 0;
+        final int firstIndex = offset > 0 ? index.getBlockFirstMessageIndex(block) : 0;
+
+        final ProtobufLogFileCursor cursor = ProtobufLogFileCursor.open(logFile, offset);
+        final LogMessageIterator iterator = new LogMessageIterator(cursor, firstIndex);
+        iterator.fromIndex = from;
+        iterator.untilIndex = until;
+        return toStream(iterator);
+    }
+
+    /**
+     * Check that the file is an existing protobuf binary log file.
+     * 
+     * @param logFile the file to check
+     * @throws IllegalArgumentException if the file is null, doesn't exist or isn't a protobuf binary log file
+     */
+    private static void checkLogFile(FileProxy logFile) {
         if (logFile == null) {
             throw new IllegalArgumentException("The parameter 'logFile' cannot be null.");
         } else if (!logFile.exists()) {
@@ -200,16 +248,48 @@ public class ProtobufMessageLogReader extends MessageLogReader {
                     + "' is not the correct type of file. Expected file extension: '*" + PROTOBUF_LOG_FILE_EXTENSION
                     + "'.");
         }
-        
+    }
+
+    /**
+     * Return the index of the log file.
+     * 
+     * @param logFile the log file to get the index of
+     * @return the index, null if the file isn't a local file or the index couldn't be built (e.g. the last
+     *         record is still being written), in which case the file is read from the beginning
+     */
+    private static ProtobufMessageLogIndex getIndex(FileProxy logFile) {
+
+        final File localFile = logFile.getLocalFile();
+        if (localFile == null) {
+            return null;
+        }
+
         try {
-            super.parseLog(logFile);
-            return messages.stream().skip(from).limit(until - from);
-        } catch (Exception e) {
-            logger.error("Unable to parse protobuf log message.", e);
-            throw new RuntimeException(e);
+            return ProtobufMessageLogIndex.getIndex(localFile);
+        } catch (IOException e) {
+            logger.warn("Unable to index the protobuf log file '" + logFile + "', it will be read from the beginning.", e);
+            return null;
         }
     }
 
+    /**
+     * Wrap the iterator in a stream that closes the log file when the stream is closed.
+     * 
+     * @param iterator the iterator over the messages in the log file
+     * @return the stream of messages
+     */
+    private static Stream<Message> toStream(LogMessageIterator iterator) {
+        return StreamSupport
+                .stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    try {
+                        iterator.cursor.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
     /**
      * Checks if the given file is a protobuf binary log file.
      * 
@@ -352,6 +432,95 @@ public class ProtobufMessageLogReader extends MessageLogReader {
         return outputFile;
     }
 
+    /**
+     * Lazily reads the messages of a log file, optionally restricted to a range of message indices.
+     * 
+     * @author agent
+     */
+    private class LogMessageIterator implements Iterator<Message> {
+
+        /** reads the records of the log file */
+        private final ProtobufLogFileCursor cursor;
+
+        /** the 0-based index of the next message to be read, records without a valid message are not counted */
+        private int messageIndex;
+
+        /** the inclusive index of the first message to return */
+        private int fromIndex = 0;
+
+        /** the exclusive index of the message to stop at */
+        private int untilIndex = Integer.MAX_VALUE;
+
+        /** the next message to return, null if it hasn't been read yet */
+        private Message nextMessage = null;
+
+        /**
+         * Set attributes.
+         * 
+         * @param cursor reads the records of the log file, positioned at the record of the first message to read
+         * @param messageIndex the 0-based index of the first message to read
+         */
+        private LogMessageIterator(ProtobufLogFileCursor cursor, int messageIndex) {
+            this.cursor = cursor;
+            this.messageIndex = messageIndex;
+        }
+
+        @Override
+        public boolean hasNext() {
+
+            if (nextMessage == null) {
+                try {
+                    nextMessage = readNext();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            return nextMessage != null;
+        }
+
+        @Override
+        public Message next() {
+
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            final Message message = nextMessage;
+            nextMessage = null;
+            return message;
+        }
+
+        /**
+         * Read records until the next message to return is found.
+         * 
+         * @return the next message, null if there are no more messages to return
+         * @throws IOException if there was a problem reading the log file
+         */
+        private Message readNext() throws IOException {
+
+            while (true) {
+
+                if (messageIndex >= untilIndex || !cursor.next()) {
+                    return null;
+                }
+
+                final ProtobufLogMessage record = cursor.getRecord();
+                if (!isValidMessage(record)) {
+                    /* not counted, the same as parse() */
+                    continue;
+                }
+
+                final int currentIndex = messageIndex++;
+                if (currentIndex < fromIndex) {
+                    continue;
+                }
+
+                return convertMessage(record);
+            }
+        }
+    }
+
     /**
      * The main method used to convert the binary log file to a human-readable
      * JSON log file.
@@ -34,6 +34,8 @@ import mil.arl.gift.common.enums.ModuleTypeEnum;
 import mil.arl.gift.common.io.TimeUtil;
 import mil.arl.gift.net.api.AllocatedModuleListener;
 import mil.arl.gift.net.api.ConnectionFilter;
+import mil.arl.gift.net.api.MessageCallbackExecutor;
+import mil.arl.gift.net.api.MessageClient;
 import mil.arl.gift.net.api.MessageCollectionCallback;
 import mil.arl.gift.net.api.NetworkSession;
 import mil.arl.gift.net.api.message.DomainSessionMessage;
@@ -166,6 +168,9 @@ public abstract class AbstractModule {
             }
         };
 
+        //size the message callback threads using this module's properties
+        MessageCallbackExecutor.configure(getModuleName(), properties);
+
         try {
             networkSession = new NetworkSession(getModuleName(), getModuleType(), moduleQueueName, clearQueueOnStartup, moduleQueueInboxName,
                     properties.getBrokerURL(), properties.getMessageEncodingType(), messageHandler, !properties.shouldIgnoreIPAddrAllocation(), properties.getLessonLevel() == LessonLevelEnum.RTA);
@@ -805,6 +810,53 @@ public abstract class AbstractModule {
         return networkSession.sendMessage(subjectName, payload, userSession, domainSessionId, messageType, callback);
     }
 
+    /**
+     * Send a domain session message to a specific address (i.e. subject) without requesting an ACK
+     * or tracking the message in a message collection.  Use this for high rate messages where the
+     * sender doesn't need to know whether the message was handled.
+     *
+     * @param subjectName - the destination to send this message too
+     * @param payload - the payload of the message to send
+     * @param userSession - info about the user associated with this domain session
+     * message
+     * @param domainSessionId - the unique domain session id associated with
+     * this domain session message
+     * @param messageType - the type of message being sent
+     * @return boolean - whether the message was sent successfully
+     */
+    protected boolean sendUnacknowledgedDomainSessionMessage(String subjectName, Object payload, UserSession userSession, int domainSessionId,
+            MessageTypeEnum messageType) {
+        return networkSession.sendUnacknowledgedMessage(subjectName, payload, userSession, domainSessionId, messageType);
+    }
+
+    /**
+     * Create a topic client that only publishes to the subject and has its own broker connection.  Use it with
+     * {@link #sendUnacknowledgedDomainSessionMessage(MessageClient, Object, UserSession, int, MessageTypeEnum)}
+     * from a single thread to publish to the topic in parallel with other threads.
+     *
+     * @param subjectName the name of the topic to publish to
+     * @return the connected client, null if the client could not connect
+     */
+    protected MessageClient createPublishOnlyTopicClient(String subjectName) {
+        return networkSession.createPublishOnlyTopicClient(subjectName);
+    }
+
+    /**
+     * Send a domain session message without requesting an ACK using the client provided (e.g. a publish only
+     * topic client).  The client must only be used by one thread at a time.
+     *
+     * @param client the client to send the message with
+     * @param payload the payload of the message
+     * @param userSession information about the user session the message is associated with
+     * @param domainSessionId the unique id of the domain session the message is associated with
+     * @param messageType the type of message being sent
+     * @return boolean - whether the message was sent successfully
+     */
+    protected boolean sendUnacknowledgedDomainSessionMessage(MessageClient client, Object payload, UserSession userSession, int domainSessionId,
+            MessageTypeEnum messageType) {
+        return networkSession.sendUnacknowledgedMessage(client, payload, userSession, domainSessionId, messageType);
+    }
+
     /**
      * Register a message handler to receive training app game state messages that are received via a
      * gateway topic client connection (if one exists for this module).
@@ -0,0 +1,92 @@
+/**
+ * Copyright Dignitas Technologies, LLC
+ *
+ * This file and its contents are governed by one or more distribution and
+ * copyright statements as described in the LICENSE.txt file distributed with
+ * this work.
+ */
+package mil.arl.gift.common.test;
+
+/**
+ * Keeps track of the checks made by a test program (e.g. a class in a module's test package that is run from
+ * its main method).  Failed checks are printed as they happen and {@link #finish()} ends the program with a
+ * non-zero exit code if any check failed, so that the test can also be run from a script.
+ *
+ * @author agent
+ *
+ */
+public class TestChecker {
+
+    /** the name of the test, used in the summary */
+    private final String testName;
+
+    /** the number of checks that failed, including unexpected exceptions */
+    private int failureCount = 0;
+
+    /**
+     * Class constructor - set attributes
+     *
+     * @param testName the name of the test, used in the summary (e.g. "Message dispatch queue").  Can't be null.
+     */
+    public TestChecker(String testName){
+
+        if(testName == null){
+            throw new IllegalArgumentException("The test name can't be null.");
+        }
+
+        this.testName = testName;
+    }
+
+    /**
+     * Compare an actual value to the expected value, printing and counting a failure if they differ.
+     *
+     * @param description what is being checked
+     * @param expected the expected value, can be null
+     * @param actual the actual value, can be null
+     * @return true if the values are equal
+     */
+    public synchronized boolean check(String description, Object expected, Object actual){
+
+        boolean equal = expected == null ? actual == null : expected.equals(actual);
+        if(!equal){
+            failureCount++;
+            System.out.println("FAILED: "+description+", expected "+expected+" but was "+actual);
+        }
+
+        return equal;
+    }
+
+    /**
+     * Print and count an exception that ended the test (or part of it) unexpectedly.
+     *
+     * @param t the exception that was caught
+     */
+    public synchronized void error(Throwable t){
+
+        failureCount++;
+        t.printStackTrace();
+    }
+
+    /**
+     * Return the number of checks that have failed so far.
+     *
+     * @return the failure count, including unexpected exceptions
+     */
+    public synchronized int getFailureCount(){
+        return failureCount;
+    }
+
+    /**
+     * Print the result of the test.  If any check failed the program is ended with an exit code of 1.
+     */
+    public void finish(){
+
+        int failures = getFailureCount();
+        if(failures > 0){
+            System.out.println(testName+" test failed "+failures+" check(s)");
+            System.exit(1);
+        }
+
+        System.out.println("Finished test");
+    }
+}
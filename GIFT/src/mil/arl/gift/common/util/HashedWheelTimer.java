@@ -0,0 +1,577 @@
+/**
+ * Copyright Dignitas Technologies, LLC
+ *
+ * This file and its contents are governed by one or more distribution and
+ * copyright statements as described in the LICENSE.txt file distributed with
+ * this work.
+ */
+package mil.arl.gift.common.util;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A timer that serves any number of one-shot timeouts from a single thread.  Timeouts are placed
+ * in the bucket of a circular wheel based on their deadline, the thread advances one bucket per tick and
+ * runs the timeouts in that bucket whose deadline has been reached.  Scheduling and cancelling a timeout
+ * are O(1) operations and never create a thread, unlike a {@link java.util.Timer} per timeout.<br/>
+ * <br/>
+ * The precision of a timeout is the tick duration, which makes this timer a good fit for the many
+ * timeouts that are typically cancelled before they expire (e.g. waiting for a message ACK).  The tasks
+ * are run on the timer thread, therefore they should be quick or hand the work off to another thread.
+ *
+ * @author agent
+ *
+ */
+public class HashedWheelTimer {
+
+    /** instance of the logger */
+    private static Logger logger = LoggerFactory.getLogger(HashedWheelTimer.class);
+
+    /** the default duration of a tick (ms) */
+    private static final long DEFAULT_TICK_DURATION_MS = 100;
+
+    /** the default number of buckets in the wheel */
+    private static final int DEFAULT_TICKS_PER_WHEEL = 512;
+
+    /** the timeout has been scheduled and neither cancelled or expired */
+    private static final int ST_INIT = 0;
+
+    /** the timeout was cancelled before it expired */
+    private static final int ST_CANCELLED = 1;
+
+    /** the timeout expired and its task was run */
+    private static final int ST_EXPIRED = 2;
+
+    /** the name of the thread that advances the wheel */
+    private final String name;
+
+    /** the duration of a tick (nanoseconds) */
+    private final long tickDurationNanos;
+
+    /** the buckets of the wheel, the length is a power of two */
+    private final Bucket[] wheel;
+
+    /** used to find the bucket for a tick without a modulo */
+    private final int mask;
+
+    /** timeouts that have been scheduled but not yet placed in a bucket by the timer thread */
+    private final Queue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+
+    /** timeouts that were cancelled and need to be removed from their bucket by the timer thread */
+    private final Queue<Timeout> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+
+    /** whether the timer thread has been started */
+    private final AtomicBoolean started = new AtomicBoolean(false);
+
+    /** whether the timer has been stopped */
+    private volatile boolean stopped = false;
+
+    /** the time (nanoseconds) the timer thread was started, deadlines are relative to this time */
+    private volatile long startTime;
+
+    /** used to wait for the start time to be set by the timer thread */
+    private final Object startTimeLock = new Object();
+
+    /** the number of timeouts that are scheduled and have not yet expired or been cancelled */
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    /** total number of timeouts that have been scheduled */
+    private final AtomicLong scheduledCount = new AtomicLong();
+
+    /** total number of timeouts that have been cancelled */
+    private final AtomicLong cancelledCount = new AtomicLong();
+
+    /** total number of timeouts that have expired (i.e. their task was run) */
+    private final AtomicLong expiredCount = new AtomicLong();
+
+    /** total number of timeouts whose task was run more than one tick after the deadline */
+    private final AtomicLong lateCount = new AtomicLong();
+
+    /** the largest amount of time (ms) past the deadline that a task has been run */
+    private volatile long maxLatenessMs = 0;
+
+    /**
+     * Create a timer with the default tick duration and wheel size.  The timer thread is not started
+     * until the first timeout is scheduled.
+     *
+     * @param name the name of the timer thread.  Can't be null.
+     */
+    public HashedWheelTimer(String name) {
+        this(name, DEFAULT_TICK_DURATION_MS, TimeUnit.MILLISECONDS, DEFAULT_TICKS_PER_WHEEL);
+    }
+
+    /**
+     * Create a timer.  The timer thread is not started until the first timeout is scheduled.
+     *
+     * @param name the name of the timer thread.  Can't be null.
+     * @param tickDuration the duration between ticks, i.e. the precision of the timeouts.  Must be greater than zero.
+     * @param unit the unit of the tick duration.  Can't be null.
+     * @param ticksPerWheel the number of buckets in the wheel, will be rounded up to a power of two.
+     *        Must be greater than zero.
+     */
+    public HashedWheelTimer(String name, long tickDuration, TimeUnit unit, int ticksPerWheel) {
+
+        if(name == null){
+            throw new IllegalArgumentException("The name can't be null.");
+        }else if(unit == null){
+            throw new IllegalArgumentException("The unit can't be null.");
+        }else if(tickDuration <= 0){
+            throw new IllegalArgumentException("The tick duration must be greater than zero.");
+        }else if(ticksPerWheel <= 0 || ticksPerWheel > (1 << 30)){
+            throw new IllegalArgumentException("The ticks per wheel must be greater than zero and no more than 2^30.");
+        }
+
+        this.name = name;
+        this.tickDurationNanos = unit.toNanos(tickDuration);
+
+        int size = 1;
+        while(size < ticksPerWheel){
+            size <<= 1;
+        }
+
+        wheel = new Bucket[size];
+        for(int index = 0; index < size; index++){
+            wheel[index] = new Bucket();
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * Schedule the task to be run once after the given delay.
+     *
+     * @param task the task to run on the timer thread.  Can't be null.
+     * @param delay the amount of time to wait before running the task
+     * @param unit the unit of the delay.  Can't be null.
+     * @return the handle used to cancel the timeout
+     * @throws IllegalStateException if the timer has been stopped
+     */
+    public Timeout newTimeout(Runnable task, long delay, TimeUnit unit) {
+
+        if(task == null){
+            throw new IllegalArgumentException("The task can't be null.");
+        }else if(unit == null){
+            throw new IllegalArgumentException("The unit can't be null.");
+        }else if(stopped){
+            throw new IllegalStateException("The timer '"+name+"' has been stopped.");
+        }
+
+        start();
+
+        long deadline = System.nanoTime() - startTime + unit.toNanos(Math.max(0, delay));
+        Timeout timeout = new Timeout(task, deadline);
+        pendingCount.incrementAndGet();
+        scheduledCount.incrementAndGet();
+        pendingTimeouts.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Start the timer thread if it hasn't been started already and wait for it to set its start time.
+     */
+    private void start() {
+
+        if(startTime != 0){
+            //already running
+            return;
+        }
+
+        if(started.compareAndSet(false, true)){
+
+            Thread workerThread = new Thread(new Worker(), name);
+            workerThread.setDaemon(true);
+            workerThread.start();
+        }
+
+        synchronized(startTimeLock){
+
+            while(startTime == 0){
+                try{
+                    startTimeLock.wait();
+                }catch(@SuppressWarnings("unused") InterruptedException e){
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Stop the timer thread.  Timeouts that have not expired will not be run.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Return the number of timeouts that are scheduled and have not yet expired or been cancelled.
+     *
+     * @return the number of pending timeouts
+     */
+    public int getPendingCount() {
+        return pendingCount.get();
+    }
+
+    /**
+     * Return the total number of timeouts that have been scheduled.
+     *
+     * @return the number of scheduled timeouts since this timer was created
+     */
+    public long getScheduledCount() {
+        return scheduledCount.get();
+    }
+
+    /**
+     * Return the total number of timeouts that have been cancelled.
+     *
+     * @return the number of cancelled timeouts since this timer was created
+     */
+    public long getCancelledCount() {
+        return cancelledCount.get();
+    }
+
+    /**
+     * Return the total number of timeouts that have expired, i.e. their task was run.
+     *
+     * @return the number of expired timeouts since this timer was created
+     */
+    public long getExpiredCount() {
+        return expiredCount.get();
+    }
+
+    /**
+     * Return the total number of timeouts whose task was run more than one tick after the deadline
+     * (e.g. because a previous task took too long).
+     *
+     * @return the number of late timeouts since this timer was created
+     */
+    public long getLateCount() {
+        return lateCount.get();
+    }
+
+    /**
+     * Return the largest amount of time past the deadline that a task has been run.
+     *
+     * @return the maximum lateness (ms) since this timer was created
+     */
+    public long getMaxLatenessMs() {
+        return maxLatenessMs;
+    }
+
+    @Override
+    public String toString() {
+
+        StringBuilder sb = new StringBuilder("[HashedWheelTimer: ");
+        sb.append("name = ").append(name);
+        sb.append(", buckets = ").append(wheel.length);
+        sb.append(", tickMs = ").append(TimeUnit.NANOSECONDS.toMillis(tickDurationNanos));
+        sb.append(", pending = ").append(getPendingCount());
+        sb.append(", scheduled = ").append(getScheduledCount());
+        sb.append(", cancelled = ").append(getCancelledCount());
+        sb.append(", expired = ").append(getExpiredCount());
+        sb.append(", late = ").append(getLateCount());
+        sb.append(", maxLatenessMs = ").append(getMaxLatenessMs());
+        sb.append("]");
+        return sb.toString();
+    }
+
+    /**
+     * Handle to a scheduled task that can be used to cancel it.
+     *
+     * @author agent
+     *
+     */
+    public class Timeout {
+
+        /** the task to run when the timeout expires */
+        private final Runnable task;
+
+        /** the deadline (nanoseconds relative to the timer's start time) */
+        private final long deadline;
+
+        /** the current state of this timeout */
+        private final AtomicInteger state = new AtomicInteger(ST_INIT);
+
+        /** the number of times the wheel needs to go around before this timeout expires, timer thread only */
+        private long remainingRounds;
+
+        /** the bucket this timeout is in, null if not in a bucket, timer thread only */
+        private Bucket bucket;
+
+        /** the neighbors in the bucket's linked list, timer thread only */
+        private Timeout next, prev;
+
+        /**
+         * Set attributes
+         *
+         * @param task the task to run when the timeout expires
+         * @param deadline the deadline (nanoseconds relative to the timer's start time)
+         */
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancel the timeout so that its task is not run.  This is an O(1) operation, the timeout is removed from
+         * the wheel on the next tick.
+         *
+         * @return true if the timeout was cancelled, false if it had already expired or been cancelled
+         */
+        public boolean cancel() {
+
+            if(!state.compareAndSet(ST_INIT, ST_CANCELLED)){
+                return false;
+            }
+
+            pendingCount.decrementAndGet();
+            cancelledCount.incrementAndGet();
+            cancelledTimeouts.add(this);
+            return true;
+        }
+
+        /**
+         * Return whether the timeout was cancelled before it expired.
+         *
+         * @return true if cancelled
+         */
+        public boolean isCancelled() {
+            return state.get() == ST_CANCELLED;
+        }
+
+        /**
+         * Return whether the timeout expired and its task was run.
+         *
+         * @return true if expired
+         */
+        public boolean isExpired() {
+            return state.get() == ST_EXPIRED;
+        }
+
+        /**
+         * Run the task if the timeout hasn't been cancelled.
+         *
+         * @param now the current time (nanoseconds relative to the timer's start time)
+         */
+        private void expire(long now) {
+
+            if(!state.compareAndSet(ST_INIT, ST_EXPIRED)){
+                return;
+            }
+
+            pendingCount.decrementAndGet();
+            expiredCount.incrementAndGet();
+
+            long latenessNanos = now - deadline;
+            if(latenessNanos > tickDurationNanos){
+                lateCount.incrementAndGet();
+
+                long latenessMs = TimeUnit.NANOSECONDS.toMillis(latenessNanos);
+                if(latenessMs > maxLatenessMs){
+                    maxLatenessMs = latenessMs;
+                }
+            }
+
+            try{
+                task.run();
+            }catch(Throwable t){
+                logger.error("Caught exception from the task of a timeout on the '"+name+"' timer.", t);
+            }
+        }
+    }
+
+    /**
+     * A doubly linked list of timeouts in the same slot of the wheel.  Only accessed by the timer thread.
+     *
+     * @author agent
+     *
+     */
+    private static class Bucket {
+
+        /** the first and last timeouts in this bucket */
+        private Timeout head, tail;
+
+        /**
+         * Add the timeout to the end of this bucket.
+         *
+         * @param timeout the timeout to add
+         */
+        private void add(Timeout timeout) {
+
+            timeout.bucket = this;
+            if(head == null){
+                head = tail = timeout;
+            }else{
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        /**
+         * Remove the timeout from this bucket.
+         *
+         * @param timeout the timeout to remove
+         * @return the timeout that followed the removed timeout, can be null
+         */
+        private Timeout remove(Timeout timeout) {
+
+            Timeout next = timeout.next;
+            if(timeout.prev != null){
+                timeout.prev.next = next;
+            }
+            if(timeout.next != null){
+                timeout.next.prev = timeout.prev;
+            }
+
+            if(timeout == head){
+                if(timeout == tail){
+                    head = tail = null;
+                }else{
+                    head = next;
+                }
+            }else if(timeout == tail){
+                tail = timeout.prev;
+            }
+
+            timeout.prev = timeout.next = null;
+            timeout.bucket = null;
+            return next;
+        }
+
+        /**
+         * Run the timeouts in this bucket whose deadline has been reached.
+         *
+         * @param now the current time (nanoseconds relative to the timer's start time)
+         */
+        private void expireTimeouts(long now) {
+
+            Timeout timeout = head;
+            while(timeout != null){
+
+                if(timeout.remainingRounds <= 0){
+                    Timeout next = remove(timeout);
+                    timeout.expire(now);
+                    timeout = next;
+                }else if(timeout.isCancelled()){
+                    timeout = remove(timeout);
+                }else{
+                    timeout.remainingRounds--;
+                    timeout = timeout.next;
+                }
+            }
+        }
+    }
+
+    /**
+     * Advances the wheel one tick at a time until the timer is stopped.
+     *
+     * @author agent
+     *
+     */
+    private class Worker implements Runnable {
+
+        /** the number of ticks since the timer was started */
+        private long tick = 0;
+
+        @Override
+        public void run() {
+
+            synchronized(startTimeLock){
+                startTime = System.nanoTime();
+                if(startTime == 0){
+                    //zero is used to signal not started
+                    startTime = 1;
+                }
+                startTimeLock.notifyAll();
+            }
+
+            while(!stopped){
+
+                long now = waitForNextTick();
+                if(now < 0){
+                    break;
+                }
+
+                removeCancelledTimeouts();
+                transferPendingTimeouts();
+
+                wheel[(int) (tick & mask)].expireTimeouts(now);
+                tick++;
+            }
+
+            if(logger.isInfoEnabled()){
+                logger.info("The timer thread has ended for "+HashedWheelTimer.this);
+            }
+        }
+
+        /**
+         * Sleep until the start of the next tick.
+         *
+         * @return the current time (nanoseconds relative to the timer's start time), negative if interrupted
+         */
+        private long waitForNextTick() {
+
+            long deadline = tickDurationNanos * (tick + 1);
+
+            while(true){
+
+                long now = System.nanoTime() - startTime;
+                long sleepMs = TimeUnit.NANOSECONDS.toMillis(deadline - now + 999999);
+                if(sleepMs <= 0){
+                    return now;
+                }
+
+                try{
+                    Thread.sleep(sleepMs);
+                }catch(@SuppressWarnings("unused") InterruptedException e){
+                    if(stopped){
+                        return -1;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Remove the cancelled timeouts from their buckets so they don't linger until their slot comes around.
+         */
+        private void removeCancelledTimeouts() {
+
+            Timeout timeout;
+            while((timeout = cancelledTimeouts.poll()) != null){
+
+                if(timeout.bucket != null){
+                    timeout.bucket.remove(timeout);
+                }
+            }
+        }
+
+        /**
+         * Place the newly scheduled timeouts in the bucket for their deadline.
+         */
+        private void transferPendingTimeouts() {
+
+            Timeout timeout;
+            while((timeout = pendingTimeouts.poll()) != null){
+
+                if(timeout.isCancelled()){
+                    continue;
+                }
+
+                long calculated = timeout.deadline / tickDurationNanos;
+                timeout.remainingRounds = (calculated - tick) / wheel.length;
+
+                //the deadline may already be in the past, if so expire it on this tick
+                long ticks = Math.max(calculated, tick);
+                wheel[(int) (ticks & mask)].add(timeout);
+            }
+        }
+    }
+}
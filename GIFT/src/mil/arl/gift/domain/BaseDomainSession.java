@@ -8523,6 +8523,22 @@ public class BaseDomainSession implements DomainKnowledgeActionInterface, Strate
 
     }
 
+    @Override
+    public void handleDeadReckonedEntityMessages(List<Message> messages) {
+
+        boolean isValidLessonState = currentLessonState == LessonStateEnum.RUNNING ||
+                currentLessonState == LessonStateEnum.PAUSED;
+
+        // the manager can be released by the session while the entity table is ticking
+        DomainKnowledgeManager knowledgeManager = domainKnowledgeManager;
+        if (knowledgeManager != null && isValidLessonState) {
+
+            // the whole tick of the entity table is assessed in one pass with a single performance assessment
+            PerformanceAssessment perfAss = knowledgeManager.handleTrainingAppGameStateMessages(messages);
+            buildAndSendPerformanceAssessment(perfAss);
+        }
+    }
+
     private class ConversationEndedCallback implements MessageCollectionCallback{
 
         boolean terminateSessionOnFailure;
@@ -7,6 +7,8 @@
  */
 package mil.arl.gift.domain;
 
+import java.util.List;
+
 import mil.arl.gift.net.api.message.Message;
 
 
@@ -22,4 +24,16 @@ public interface DeadReckonedEntityMessageHandler {
      * @param message a Message instance. Although not strictly required by the method signature, the message type of message should be MessageTypeEnum.ENTITY_STATE.
      */
     void handleDeadReckonedEntityMessage(Message message);
+    
+    /**
+     * Callback method to receive the dead reckoned entity information of all the entities ticked at the same time.
+     * By default each message is provided to {@link #handleDeadReckonedEntityMessage(Message)}.
+     * @param messages the entity state messages of the ticked entities.  Won't be null or empty.
+     */
+    default void handleDeadReckonedEntityMessages(List<Message> messages) {
+        
+        for(Message message : messages) {
+            handleDeadReckonedEntityMessage(message);
+        }
+    }
 }
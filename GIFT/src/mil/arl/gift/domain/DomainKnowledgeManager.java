@@ -496,6 +496,29 @@ public class DomainKnowledgeManager implements ConversationAssessmentHandlerInte
         return performanceAssessment;
     }
 
+    /**
+     * Process the training application game state messages of one update (e.g. the entity states dead reckoned
+     * by one tick of the entity table) in a single pass.
+     *
+     * @param messages the training application game state messages to handle, in order.  Can't be null.
+     * @return PerformanceAssessment - a single assessment created as a result of all of the game state messages.
+     * Null to indicate that the assessment value hasn't changed for the domain assessment knowledge from the
+     * last reported value.
+     */
+    public PerformanceAssessment handleTrainingAppGameStateMessages(List<Message> messages){
+
+        PerformanceAssessment performanceAssessment = null;
+        if(domainAssessmentKnowledge != null){
+            performanceAssessment = domainAssessmentKnowledge.trainingAppGameStateMessagesReceived(messages);
+
+            if(logger.isDebugEnabled() && performanceAssessment != null){
+                logger.debug("Created new "+performanceAssessment+" from "+messages.size()+" messages");
+            }
+        }
+
+        return performanceAssessment;
+    }
+
     /**
      * Build an updated performance assessment using the metrics provided within the request.
      *
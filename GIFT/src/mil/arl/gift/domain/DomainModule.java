@@ -180,6 +180,7 @@ import mil.arl.gift.domain.DomainCourseFileHandler.CourseOptionsWrapper;
 import mil.arl.gift.domain.course.SurveyHTMLElementsHandler;
 import mil.arl.gift.domain.knowledge.KnowledgeSessionEventListener;
 import mil.arl.gift.domain.knowledge.KnowledgeSessionManager;
+import mil.arl.gift.domain.knowledge.condition.ConditionTimerScheduler;
 import mil.arl.gift.domain.knowledge.strategy.StrategyAppliedEvent;
 import mil.arl.gift.net.api.AllocatedModuleListener;
 import mil.arl.gift.net.api.ConnectionFilter;
@@ -267,6 +268,17 @@ public class DomainModule extends AbstractModule implements KnowledgeSessionEven
 
             return true;
         }
+        
+        @Override
+        public boolean processMessage(byte[] msg, MessageEncodingTypeEnum encodingType) {
+
+            // received message in queue, decode it directly from the bytes
+            Message message = MessageUtil.getMessageFromBytes(msg, encodingType);
+
+            handleTrainingAppGameStateMessage(message);
+
+            return true;
+        }
     };
 
     /**
@@ -432,6 +444,9 @@ public class DomainModule extends AbstractModule implements KnowledgeSessionEven
         // reset to zero since the module is just starting
         metrics.updateMetricCounter(NUM_DOMAIN_SESSIONS_METRIC, domainSessionIdToDomainSession.size());
         metrics.updateMetricCounter(NUM_EXPERIMENT_DOMAIN_SESSIONS_METRIC, domainSessionIdToDomainSession.size());
+
+        // report whether the condition timers are keeping up
+        ConditionTimerScheduler.getInstance().startReportingMetrics(metrics);
     }
 
     /**
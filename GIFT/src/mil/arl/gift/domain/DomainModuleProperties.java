@@ -29,6 +29,8 @@ public class DomainModuleProperties extends AbstractModuleProperties {
     protected static final String AUTO_COMPLETE_SCENARIO = "AutoCompleteScenario";
     protected static final String ENTITY_TABLE_ENTITY_TIMEOUT_MILLIS     ="EntityTableEntityTimeoutMillis";
     protected static final String ENTITY_TABLE_DEAD_RECKONING_INTERVAL   ="EnityTableDeadReckoningInterval";
+    private static final String PARALLEL_CONDITION_ASSESSMENT = "ParallelConditionAssessment";
+    private static final String PARALLEL_CONDITION_ASSESSMENT_THREADS = "ParallelConditionAssessmentThreads";
 
     protected static final String BYPASS_CHAT_WINDOWS = "BypassChatWindows";
     private static final String VALIDATE_COURSE_AT_STARTUP = "ValidateCoursesAtStartup";
@@ -115,6 +117,25 @@ public class DomainModuleProperties extends AbstractModuleProperties {
         return getPropertyIntValue(ENTITY_TABLE_DEAD_RECKONING_INTERVAL, EntityTable.DEFAULT_DEAD_RECKONING_INTERVAL_MILLIS);
     }
     
+    /**
+     * Returns whether the conditions of the different concepts of a task should be assessed in parallel
+     * when a training application message is received.
+     * 
+     * @return true if parallel condition assessment is enabled.  Default is false.
+     */
+    public boolean isParallelConditionAssessment(){
+        return getPropertyBooleanValue(PARALLEL_CONDITION_ASSESSMENT, false);
+    }
+    
+    /**
+     * Returns the number of threads used to assess conditions in parallel (see {@link #isParallelConditionAssessment()}).
+     * 
+     * @return the number of threads, zero or less to use the number of available processors.  Default is 0.
+     */
+    public int getParallelConditionAssessmentThreads(){
+        return getPropertyIntValue(PARALLEL_CONDITION_ASSESSMENT_THREADS, 0);
+    }
+    
     /**
      * Returns whether the domain module should bypass given the tutor any survey questions
      * 
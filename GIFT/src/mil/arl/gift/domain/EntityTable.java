@@ -8,8 +8,8 @@
 package mil.arl.gift.domain;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Timer;
@@ -29,169 +29,230 @@ import mil.arl.gift.net.api.message.Message;
 //NOTE: code for pausing does NOT support pauses originating from VBS!
 
 /**
- * Wrapper class to be used exclusively by EntityTable.  Wraps around an incoming EntityStateMessage.
- * Used to keep track of last ground truth location update and time.
+ * Dead reckoning state of all the entities of an EntityTable, kept in parallel primitive arrays (one slot per entity)
+ * so that every entity can be extrapolated and checked for a timeout in a single pass over contiguous memory.
+ * Used to keep track of each entity's last ground truth location, velocity and update time along with the incoming
+ * EntityStateMessage whose location is dead reckoned in place.
  * 
  * This class is not thread-safe. Thread safety is managed by EntityTable class.
  * 
  * @author cragusa
- */    
-class DeadReckonedEntity {
-        
-    private Message msg;
-    private EntityState es;   
-    
-    private Point3d lastGroundTruthLocation = new Point3d();
-    private long    timeOfLastGroundTruthUpdate;   
-
-    private boolean hasNonZeroVelocity = true;            
-    
-    private boolean paused = false;
-    private long accumulatedPauseTime = 0;
-    private long startTimeOfActivePause;
-    
+ */
+class DeadReckonedEntities {
     
     //Minimum time interval between receipt of a ground truth update and when a dead reckoned message will be sent.
     //intent is to avoid sending a DR update in very close proximity to a ground truth update.
     //Since ground truth updates are handled in the usual way (i.e. by BaseDomainSession) there is still a chance for close updates
     //when ground truth updates come in very soon after a DR update. Need a more advanced implementation to work around this.
-    private static final int MIN_DT_MILLIS = 10;   
+    private static final int MIN_DT_MILLIS = 10;
+    
+    /** the number of entity slots allocated when the table is created */
+    private static final int INITIAL_CAPACITY = 64;
+    
+    /** slot index of each entity */
+    private final Map<EntityIdentifier, Integer> slots = new HashMap<EntityIdentifier, Integer>();
+    
+    /** the number of slots in use, the used slots are always 0 to count - 1 */
+    private int count = 0;
+    
+    private EntityIdentifier[] ids = new EntityIdentifier[INITIAL_CAPACITY];
+    private Message[] msgs = new Message[INITIAL_CAPACITY];
+    private Point3d[] locations = new Point3d[INITIAL_CAPACITY];
+    
+    /** last ground truth location */
+    private double[] gtX = new double[INITIAL_CAPACITY], gtY = new double[INITIAL_CAPACITY], gtZ = new double[INITIAL_CAPACITY];
+    
+    /** linear velocity (meters per second) of the last ground truth update */
+    private double[] velX = new double[INITIAL_CAPACITY], velY = new double[INITIAL_CAPACITY], velZ = new double[INITIAL_CAPACITY];
+    
+    private long[] timeOfLastGroundTruthUpdate = new long[INITIAL_CAPACITY];
+    private long[] accumulatedPauseTime = new long[INITIAL_CAPACITY];
+    private long[] startTimeOfActivePause = new long[INITIAL_CAPACITY];
+    
+    /** whether the entity has a non-zero velocity, only moving entities are dead reckoned */
+    private boolean[] hasNonZeroVelocity = new boolean[INITIAL_CAPACITY];
+    
+    /** whether all the entities are paused */
+    private boolean paused = false;
     
     /**
-     * Constructor used to create DeadReckonedEntity.
-     * @param msg
-     */
-    //called by BaseDomainSession's thread
-    DeadReckonedEntity(Message msg, long time) {            
-        update(msg, time);            
-    } 
-  
-    /**
-     * Updates the state of an existing DeadReckonedEntity instance.
+     * Adds a new entity or updates the state of an existing entity with a ground truth update.
      * 
      * @param msg the Message containing the update.
-     * @param time the time of the update. 
+     * @param time the time of the update.
+     * @return true if the entity was added
      */
-    void update(Message msg, long time) {
+    boolean update(Message msg, long time) {
         
-        this.msg = msg;
-        this.es = (EntityState)msg.getPayload(); 
-        setGroundTruthLocation(this.es.getLocation(), time);
+        EntityState es = (EntityState)msg.getPayload();
+        EntityIdentifier eid = es.getEntityID();
+        
+        Integer slot = slots.get(eid);
+        boolean added = slot == null;
+        if(added) {
+            
+            if(count == ids.length) {
+                grow();
+            }
+            
+            slot = count++;
+            slots.put(eid, slot);
+            ids[slot] = eid;
+        }
+        
+        int i = slot;
+        msgs[i] = msg;
+        
+        Point3d loc = es.getLocation();
+        locations[i] = loc;
+        gtX[i] = loc.getX();
+        gtY[i] = loc.getY();
+        gtZ[i] = loc.getZ();
+        timeOfLastGroundTruthUpdate[i] = time;
         
         //only do DR if the entity has a non-zero velocity. set the flag here for each new esm
         Vector3d vel = es.getLinearVelocity();
-        hasNonZeroVelocity = ( vel.getX() != 0.0 || vel.getY() != 0.0 || vel.getZ() != 0.0 ); 
+        velX[i] = vel.getX();
+        velY[i] = vel.getY();
+        velZ[i] = vel.getZ();
+        hasNonZeroVelocity[i] = ( velX[i] != 0.0 || velY[i] != 0.0 || velZ[i] != 0.0 );
         
         //we just got a GT update, so any accumulated pauses are blown away
-        accumulatedPauseTime = 0;
+        accumulatedPauseTime[i] = 0;
         
-        if( isPaused() ) {
-            //if we're currently paused we need to update the pause start time to coincide with the current time.
-            startTimeOfActivePause = time;
-        }
+        //if we're currently paused the pause start time coincides with the current time.
+        startTimeOfActivePause[i] = time;
+        
+        return added;
     }
     
     /**
-     * Get the entity ID for the entity represented by this DeadReckonedEntity.
+     * Sets the paused state of all the entities.
      * 
-     * @return the entity ID.
+     * @param paused whether the entities are paused
+     * @param time the current time in milliseconds since epoch
      */
-    EntityIdentifier getEntityID() {
+    void setPaused(boolean paused, long time) {
         
-        return es.getEntityID();
+        if( this.paused != paused ) {
+            
+            for(int i = 0; i < count; i++) {
+                
+                if( paused ) { //starting a pause
+                    
+                    startTimeOfActivePause[i] = time;
+                }
+                else { //ending a pause
+                    
+                    accumulatedPauseTime[i] += (time - startTimeOfActivePause[i]);
+                }
+            }
+            
+            this.paused = paused;
+        }
     }
     
-    
-    /**
-     * Dead Reckons this DeadReckonedEntity using the absolute wall clock time (millis since epoch) provided.
-     * @param time
-     */
-    void deadReckon(long time) {
-    
-        if( !isPaused() ) {
-
-            long dtMillis = getDeltaSimTimeMillis(time);
-
-            if ( dtMillis >= MIN_DT_MILLIS && hasNonZeroVelocity ) {
-
-                double dtSeconds = dtMillis/1000.0;
-
-                Point3d  loc = es.getLocation();
-                Vector3d vel = es.getLinearVelocity();
-
-                Point3d lastGtLoc = lastGroundTruthLocation;
-
-                loc.setX(lastGtLoc.getX() + vel.getX() * dtSeconds);
-                loc.setY(lastGtLoc.getY() + vel.getY() * dtSeconds);
-                loc.setZ(lastGtLoc.getZ() + vel.getZ() * dtSeconds);
-               
-            }   
-        }
+    boolean isPaused() {
+        return paused;
     }
     
     /**
-     * Get the Message contained by this DeadReckonedEntity.
+     * Removes the stale entities and dead reckons the others using the absolute wall clock time (millis since epoch) provided.
+     * Entities don't time out if updates are delayed because of pausing, sim time must be elapsing for them to timeout.
      * 
-     * @return the Message contained by this DeadReckonedEntity.
-     */
-    Message getDeadReckonedMessage() {
-        
-        return msg;
-    }
-   
-    /**
-     * Determines if this DeadReckonedEntity is stale or not.  Takes into account pauses.  (Entities don't time out of updates are delayed because of pausing.  Sim time must be elapsing for them to timeout.) 
-     *   
      * @param time current time in milliseconds since epoch.
      * @param timeOutMillis timeout threshold in milliseconds.
-     * @return boolean indicating if this DeadReckonedEntity is timed out.
+     * @param deadReckonedMessages the messages of the entities that were ticked are added to this list, nothing is added while paused.
+     * @param staleEntities the ids of the entities that timed out and were removed are added to this list.
      */
-    boolean isStale(long time, long timeOutMillis) {
+    void tick(long time, long timeOutMillis, List<Message> deadReckonedMessages, List<EntityIdentifier> staleEntities) {
         
-        return  getDeltaSimTimeMillis(time) > timeOutMillis;
-    }
-   
-    boolean isPaused() {
-        return paused;
-    }
-
-    void setPaused(boolean paused, long time) {
-
-        if( this.paused != paused ) {
-
-            if( paused ) { //starting a pause
-
-                startTimeOfActivePause = time;
+        //iterate backwards so that removing a stale entity only moves an entity that was already ticked
+        for(int i = count - 1; i >= 0; i--) {
+            
+            // elapsedSimTime since last GT update (accounts for pauses)
+            long activePauseDuration = paused ? (time - startTimeOfActivePause[i]) : 0;
+            long dtMillis = time - timeOfLastGroundTruthUpdate[i] - accumulatedPauseTime[i] - activePauseDuration;
+            
+            if( dtMillis > timeOutMillis ) {
+                
+                staleEntities.add(ids[i]);
+                remove(i);
             }
-            else { //ending a pause
+            else if( !paused ) {
                 
-                accumulatedPauseTime += (time - startTimeOfActivePause);
+                if ( dtMillis >= MIN_DT_MILLIS && hasNonZeroVelocity[i] ) {
+                    
+                    double dtSeconds = dtMillis/1000.0;
+                    locations[i].set(gtX[i] + velX[i] * dtSeconds, gtY[i] + velY[i] * dtSeconds, gtZ[i] + velZ[i] * dtSeconds);
+                }
+                
+                deadReckonedMessages.add(msgs[i]);
             }
-
-            this.paused = paused;
         }
-    } 
+    }
     
-    private void setGroundTruthLocation(Point3d loc, long time) {
-        
-        lastGroundTruthLocation.set(loc);
-        timeOfLastGroundTruthUpdate = time;            
-    }      
+    /**
+     * @return the number of entities
+     */
+    int size() {
+        return count;
+    }
     
-    // elapsedSimTime since last GT update (accounts for pauses)
-    private long getDeltaSimTimeMillis(long time) {
+    /**
+     * Removes the entity in the slot by moving the entity in the last slot into it.
+     * 
+     * @param i the slot of the entity to remove
+     */
+    private void remove(int i) {
         
-        long deltaWallClockTimeMillis = time - timeOfLastGroundTruthUpdate;
+        slots.remove(ids[i]);
         
-        return deltaWallClockTimeMillis - getCumulativePauseTime(time);        
+        int last = --count;
+        if( i != last ) {
+            
+            ids[i] = ids[last];
+            msgs[i] = msgs[last];
+            locations[i] = locations[last];
+            gtX[i] = gtX[last];
+            gtY[i] = gtY[last];
+            gtZ[i] = gtZ[last];
+            velX[i] = velX[last];
+            velY[i] = velY[last];
+            velZ[i] = velZ[last];
+            timeOfLastGroundTruthUpdate[i] = timeOfLastGroundTruthUpdate[last];
+            accumulatedPauseTime[i] = accumulatedPauseTime[last];
+            startTimeOfActivePause[i] = startTimeOfActivePause[last];
+            hasNonZeroVelocity[i] = hasNonZeroVelocity[last];
+            slots.put(ids[i], i);
+        }
+        
+        //release the references so the messages can be garbage collected
+        ids[last] = null;
+        msgs[last] = null;
+        locations[last] = null;
     }
+    
+    /**
+     * Doubles the number of entity slots.
+     */
+    private void grow() {
         
-    private long getCumulativePauseTime(long time) {
-                   
-        long activePauseDuration = isPaused() ? (time - startTimeOfActivePause) : 0;
-               
-        return accumulatedPauseTime + activePauseDuration;
-    }   
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        msgs = Arrays.copyOf(msgs, capacity);
+        locations = Arrays.copyOf(locations, capacity);
+        gtX = Arrays.copyOf(gtX, capacity);
+        gtY = Arrays.copyOf(gtY, capacity);
+        gtZ = Arrays.copyOf(gtZ, capacity);
+        velX = Arrays.copyOf(velX, capacity);
+        velY = Arrays.copyOf(velY, capacity);
+        velZ = Arrays.copyOf(velZ, capacity);
+        timeOfLastGroundTruthUpdate = Arrays.copyOf(timeOfLastGroundTruthUpdate, capacity);
+        accumulatedPauseTime = Arrays.copyOf(accumulatedPauseTime, capacity);
+        startTimeOfActivePause = Arrays.copyOf(startTimeOfActivePause, capacity);
+        hasNonZeroVelocity = Arrays.copyOf(hasNonZeroVelocity, capacity);
+    }
 }
 
 
@@ -232,9 +293,9 @@ public class EntityTable {
     private Timer drTimer = new Timer("Dead Reckoning Timer");        
    
     /**
-     * Map to contain the entities in the entity table. 
+     * The dead reckoning state of the entities in the entity table. 
      */
-    private Map<EntityIdentifier, DeadReckonedEntity> map = new HashMap<EntityIdentifier, DeadReckonedEntity>();
+    private DeadReckonedEntities entities = new DeadReckonedEntities();
     
     /**
      * Call back to process entities as they are dead reckoned to new locations.
@@ -247,9 +308,9 @@ public class EntityTable {
     private boolean running = false;
     
     /**
-     * List containing entity ID's of stale entities (i.e. entities that need to be removed because they've timed out). 
+     * Reusable list containing entity ID's of stale entities (i.e. entities that were removed because they've timed out). 
      */
-    private List<EntityIdentifier> staleEntityList = new LinkedList<EntityIdentifier>();
+    private List<EntityIdentifier> staleEntityList = new ArrayList<EntityIdentifier>();
     
     /**
      * The entity timeout threshold in milliseconds.  
@@ -262,15 +323,9 @@ public class EntityTable {
     private static final int deadReckoningIntervalMillis = DomainModuleProperties.getInstance().getEnityTableDeadReckoningInterval();
        
     /**
-     * Flag indicating that the entity table (and thus dead reckoning) is paused.
+     * The number of dead reckoned messages delivered by the last tick, used to size the next batch.
      */
-    private boolean paused = false;
-    
-    /**
-     * Reusable container to hold DeadReckonedEntity references while they are being iterated over, while outside a synchronized block.
-     * 
-     */
-    private List<DeadReckonedEntity> entityList = new ArrayList<DeadReckonedEntity>();
+    private int lastBatchSize = 0;
 
     
     /**
@@ -292,14 +347,6 @@ public class EntityTable {
         start();
     }
     
-    /**
-     * @return true if EntityTable is paused, otherwise returns false.
-     */
-    private boolean isPaused() {
-
-        return paused;       
-    }
-       
     /**
      * Sets the paused state of the entity table. 
      * 
@@ -307,15 +354,7 @@ public class EntityTable {
      */
     synchronized void setPaused(boolean paused) {
         
-        this.paused = paused;
-
-        for(DeadReckonedEntity entity : map.values()) {
-
-            synchronized(entity) {
-
-                entity.setPaused(paused, System.currentTimeMillis());
-            }
-        }        
+        entities.setPaused(paused, System.currentTimeMillis());
     }
         
       
@@ -329,7 +368,12 @@ public class EntityTable {
             @Override
             public void run() {
                 
-                EntityTable.this.tick();
+                try {
+                    EntityTable.this.tick();
+                } catch(Throwable t) {
+                    //an exception would end the timer thread and with it the dead reckoning of every entity
+                    logger.error("Caught exception while ticking the entity table.", t);
+                }
             }
         };
                        
@@ -367,38 +411,12 @@ public class EntityTable {
                 
         if( running ) {
 
-            EntityState es = (EntityState)message.getPayload();
-            
-            EntityIdentifier eid = es.getEntityID();
-
-            DeadReckonedEntity drEntity = null;
-            
             synchronized(this) {
                 
-                long now = System.currentTimeMillis();
-                
-                if( !map.containsKey( eid ) ) {
-                    
-                    //no need to sync on drEntity here, because other threads don't know about it until it's put into the map.
-                    drEntity = new DeadReckonedEntity(message, now);
-                    drEntity.setPaused(isPaused(), now);
-                    map.put(eid, drEntity);
-
-                    if(logger.isTraceEnabled()) {
+                if( entities.update(message, System.currentTimeMillis()) && logger.isTraceEnabled() ) {
 
-                        logger.trace("Added entity to entity table map with entity ID of: " + eid);
-                    }
+                    logger.trace("Added entity to entity table map with entity ID of: " + ((EntityState)message.getPayload()).getEntityID());
                 }
-                else {
-
-                    drEntity = map.get(eid);
-                    
-                    synchronized(drEntity) {
-                        
-                        drEntity.setPaused(isPaused(), now);                
-                        drEntity.update(message, now);
-                    }
-                }  
             }
         
         }
@@ -411,70 +429,34 @@ public class EntityTable {
     
     
     /**
-     * Tick the entities in the entity table.
+     * Tick the entities in the entity table.  Stale entities are removed and the others are dead reckoned in a
+     * single pass, then the handler receives the messages of all the ticked entities in one callback.
      */
     private void tick() {
         
-        staleEntityList.clear(); 
+        List<Message> deadReckonedMessages = new ArrayList<Message>(Math.max(lastBatchSize, 16));
         
-        entityList.clear();
-                
         synchronized(this) {
             
-            //copy references to entityList so I can release the lock on this.
-            entityList.addAll(map.values());
-        }
-        
-        //below here it's possible that the contents of the map may change, but that's okay, we'll pick up the changes on the next tick.
-        //Lock individual entities instead.        
-        for(DeadReckonedEntity entity: entityList) {
-
-            //dead reckon the entities, and do the callback for entities that are moving            
-            long now = System.currentTimeMillis();
-
-            synchronized(entity) {
-                
-                if( entity.isStale(now, entityTimeoutMillis) ) {
-
-                    staleEntityList.add(entity.getEntityID());
-                }
-                else {
-                    
-                    if( !entity.isPaused() ) {
-
-                        //System.out.print("."); //use to test if DR is pausing when expected
-
-                        entity.deadReckon(now);
-
-                        drEntityMessageHandler.handleDeadReckonedEntityMessage( entity.getDeadReckonedMessage() );
-                        
-                    }//if
-
-                }//else
-                
-            }//synchronized
-
-        }//for
-                
-        if( !staleEntityList.isEmpty() ) {
+            staleEntityList.clear();
             
-            synchronized(this) {
-                
-                //remove stale entities;
-                for(EntityIdentifier eid : staleEntityList) {
-
-                    map.remove(eid);
-
-                    if(logger.isDebugEnabled()) {
+            entities.tick(System.currentTimeMillis(), entityTimeoutMillis, deadReckonedMessages, staleEntityList);
+            
+            if(logger.isDebugEnabled()) {
 
-                        logger.debug("Removed entity from entity table map with entity ID of: " + eid);
-                    }
-                    
-                }//for
-                
-            }//synchronized
+                for(EntityIdentifier eid : staleEntityList) {
+                    logger.debug("Removed entity from entity table map with entity ID of: " + eid);
+                }
+            }
+        }
+        
+        lastBatchSize = deadReckonedMessages.size();
+        
+        //the handler is called outside of the lock so ground truth updates aren't blocked by the assessment of the batch
+        if( !deadReckonedMessages.isEmpty() ) {
             
-        } //if
+            drEntityMessageHandler.handleDeadReckonedEntityMessages(deadReckonedMessages);
+        }
         
     }//tick
 }
@@ -8,6 +8,7 @@
 package mil.arl.gift.domain.knowledge;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -85,6 +86,24 @@ public class Concept extends AbstractPerformanceAssessmentNode
     /** if not null, then it is the current concept's condition that is handling a simulation message */
     private AbstractCondition currentConditionWithSimMsg = null;
     
+    /** 
+     * the pool thread evaluating the conditions in parallel (see {@link ParallelConditionEvaluator}), null if none.
+     * The condition actions made on that thread are held in {@link #deferredConditionActions} instead of being handled.
+     */
+    private volatile Thread evaluatingThread = null;
+    
+    /** where the actions of the condition being evaluated in parallel are held, null if none is being evaluated */
+    private List<Runnable> deferredConditionActions = null;
+    
+    /** the message the conditions were evaluated with in parallel, null if there are no pending results */
+    private Message evaluatedMessage = null;
+    
+    /** whether each condition's assessment changed when evaluated in parallel, in the order of the conditions list */
+    private boolean[] evaluatedConditionChanges = null;
+    
+    /** the actions (e.g. assessment created) of each condition evaluated in parallel, in the order of the conditions list */
+    private List<List<Runnable>> evaluatedConditionActions = null;
+    
     /** The optional arguments to be passed into the algorithm that handles this concept's performance metrics */
     private PerformanceMetricArguments performanceArguments;
     
@@ -322,17 +341,100 @@ public class Concept extends AbstractPerformanceAssessmentNode
         assessmentUpdatedExternally();
     }
     
+    /**
+     * Provide the message to each condition of this concept and hold the results until the task
+     * provides the same message to {@link #handleTrainingAppGameState(Message)}.  Used by the 
+     * {@link ParallelConditionEvaluator} to evaluate the conditions of several concepts at the same time.<br/>
+     * The actions the conditions take on this thread (e.g. assessment created, condition completed, training
+     * application requests) are held as well, so that this concept, its parents and the task are only changed
+     * by the thread providing the message, in the same order as when the conditions are evaluated sequentially.
+     * 
+     * @param message the training application message to evaluate
+     */
+    void evaluateConditions(Message message){
+        
+        boolean[] conditionChanges = new boolean[conditionsList.size()];
+        List<List<Runnable>> conditionActions = new ArrayList<>(conditionChanges.length);
+        
+        evaluatingThread = Thread.currentThread();
+        try{
+            for(int index = 0; index < conditionChanges.length; index++){
+                
+                AbstractCondition condition = conditionsList.get(index);
+                deferredConditionActions = new ArrayList<>(1);
+                conditionActions.add(deferredConditionActions);
+                try{
+                    conditionChanges[index] = condition.handleTrainingAppGameState(message);
+                }catch(Exception e){
+                    logger.error("Caught exception from misbehaving condition class of "+condition+".  Continuing with handling training app game state message of\n"+message+".", e);
+                }
+            }
+        }finally{
+            deferredConditionActions = null;
+            evaluatingThread = null;
+        }
+        
+        evaluatedConditionChanges = conditionChanges;
+        evaluatedConditionActions = conditionActions;
+        evaluatedMessage = message;
+    }
+    
+    /**
+     * Discard the results of the parallel condition evaluation that were not used (e.g. the concept was deactivated
+     * by another concept's assessment before the task provided the message to it).  The conditions have still seen
+     * the message, only their actions are discarded, the same as the actions of an inactive concept.
+     */
+    void clearEvaluatedConditions(){
+        evaluatedMessage = null;
+        evaluatedConditionChanges = null;
+        evaluatedConditionActions = null;
+    }
+    
+    /**
+     * Handle an action taken by one of this concept's conditions now, or hold it if the condition is being
+     * evaluated in parallel on this thread (see {@link #evaluateConditions(Message)}).
+     * 
+     * @param action the handling of the condition's action
+     */
+    private void handleConditionAction(Runnable action){
+        
+        if(evaluatingThread == Thread.currentThread()){
+            deferredConditionActions.add(action);
+        }else{
+            action.run();
+        }
+    }
+    
     @Override
     public AbstractAssessment handleTrainingAppGameState(Message message){
         
         boolean assessmentChanged = false;
         
-        for(AbstractCondition condition : conditionsList){
+        // use the results of the parallel evaluation of the conditions with this message, if any
+        boolean[] conditionChanges = evaluatedMessage == message ? evaluatedConditionChanges : null;
+        List<List<Runnable>> conditionActions = evaluatedConditionActions;
+        clearEvaluatedConditions();
+        
+        for(int index = 0; index < conditionsList.size(); index++){
             
+            AbstractCondition condition = conditionsList.get(index);
             currentConditionWithSimMsg = condition;
             
             try{                
-                if(condition.handleTrainingAppGameState(message)){
+                boolean conditionChanged;
+                if(conditionChanges != null){
+                    //handle the actions the condition took while it was evaluated in parallel, 
+                    //as if the condition was handling the message now
+                    for(Runnable action : conditionActions.get(index)){
+                        action.run();
+                    }
+                    
+                    conditionChanged = conditionChanges[index];
+                }else{
+                    conditionChanged = condition.handleTrainingAppGameState(message);
+                }
+                
+                if(conditionChanged){
                     //update condition's assessment
                     
                     assessmentChanged = true;
@@ -690,44 +792,44 @@ public class Concept extends AbstractPerformanceAssessmentNode
         
         @Override
         public void conditionAssessmentCreated(AbstractCondition condition){
-            handleConditionUpdate(condition);
+            handleConditionAction(() -> handleConditionUpdate(condition));
         }
         
         @Override
         public void conditionCompleted(AbstractCondition condition){
-            handleConditionCompleted(condition);
+            handleConditionAction(() -> handleConditionCompleted(condition));
         }
 
         @Override
         public void trainingApplicationRequest(TrainingAppInfoRequest infoRequest) {
-            conceptActionInterface.trainingApplicationRequest(infoRequest);           
+            handleConditionAction(() -> conceptActionInterface.trainingApplicationRequest(infoRequest));
         }
 
         @Override
         public void handleDomainActionWithLearner(DomainAssessmentContent action) {
-            conceptActionInterface.handleDomainActionWithLearner(action);
+            handleConditionAction(() -> conceptActionInterface.handleDomainActionWithLearner(action));
         }
 
         @Override
         public void fatalError(String reason, String details) {
-            conceptActionInterface.fatalError(reason, details);
+            handleConditionAction(() -> conceptActionInterface.fatalError(reason, details));
         }
 
         @Override
         public void addSurveyResponseAssessmentListener(SurveyResponseAssessmentListener listener) {
-            addChildSurveyResponseAssessmentListener(listener);
+            handleConditionAction(() -> addChildSurveyResponseAssessmentListener(listener));
         }
 
         @Override
         public void displayDuringLessonSurvey(
                 AbstractSurveyLessonAssessment surveyAssessment,
                 SurveyResultListener surveyResultListener) {
-            conceptActionInterface.displayDuringLessonSurvey(surveyAssessment, surveyResultListener);            
+            handleConditionAction(() -> conceptActionInterface.displayDuringLessonSurvey(surveyAssessment, surveyResultListener));
         }
         
         @Override
         public void setConceptPriority(Integer priority) {
-            currentAssessment.updatePriority(priority);
+            handleConditionAction(() -> currentAssessment.updatePriority(priority));
         }
 
         @Override
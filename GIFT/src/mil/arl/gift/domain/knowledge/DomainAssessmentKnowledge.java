@@ -220,6 +220,28 @@ public class DomainAssessmentKnowledge {
         }
     }
 
+    /**
+     * Process the training application game state messages of one update (e.g. the entity states dead reckoned
+     * by one tick of the entity table) in a single pass, creating at most one performance assessment.
+     * 
+     * @param messages the training application game state messages to handle, in order.  Can't be null.
+     * @return PerformanceAssessment - an assessment created as a result of the game state messages.  Null if
+     * the assessment value hasn't changed for the scenario from the last reported value.
+     */
+    public PerformanceAssessment trainingAppGameStateMessagesReceived(List<Message> messages){
+        
+        if(scenario == null){
+            throw new NullPointerException("The scenario object is null so the scenario can't handle the "+messages.size()+" training app game state messages.");
+        }
+        
+        ProxyPerformanceAssessment assessment = scenario.trainingAppGameStateMessagesReceived(messages);
+        if(assessment != null){
+            return assessmentProxy.generatePerformanceAssessment(assessment);
+        }else{
+            return null;
+        }
+    }
+
     /**
      * Build an updated performance assessment using the metrics provided within the request.
      * 
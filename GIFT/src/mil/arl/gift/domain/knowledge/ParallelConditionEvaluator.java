@@ -0,0 +1,135 @@
+/**
+ * Copyright Dignitas Technologies, LLC
+ *
+ * This file and its contents are governed by one or more distribution and
+ * copyright statements as described in the LICENSE.txt file distributed with
+ * this work.
+ */
+package mil.arl.gift.domain.knowledge;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import mil.arl.gift.domain.DomainModuleProperties;
+import mil.arl.gift.net.api.message.Message;
+
+/**
+ * Evaluates the conditions of several concepts in parallel on a fork join pool shared by all the
+ * domain sessions of this domain module.  The conditions of a single concept are still evaluated in
+ * order on one thread, only the conditions of different concepts run at the same time.<br/>
+ * <br/>
+ * The pool threads only compute the condition results.  The actions the conditions take while being evaluated
+ * (e.g. assessment created, condition completed) are held by each concept along with the results until the task
+ * gives it the message on the thread handling the message.  Therefore the concepts, intermediate concepts and the
+ * task are only changed by that thread, in the same order as when the conditions are evaluated sequentially, and
+ * the pool threads never need the task's lock that the waiting thread holds.  The only difference is that the
+ * conditions of a concept deactivated by an earlier concept's assessment of the same message have already seen
+ * that message, their held actions are discarded.<br/>
+ * <br/>
+ * Enabled with the ParallelConditionAssessment domain module property.
+ *
+ * @author agent
+ *
+ */
+public class ParallelConditionEvaluator {
+
+    /** instance of the logger */
+    private static final Logger logger = LoggerFactory.getLogger(ParallelConditionEvaluator.class);
+
+    /** the singleton instance, null if parallel condition assessment is disabled */
+    private static final ParallelConditionEvaluator instance =
+            DomainModuleProperties.getInstance().isParallelConditionAssessment() ? new ParallelConditionEvaluator() : null;
+
+    /** runs the condition evaluations */
+    private final ForkJoinPool pool;
+
+    /**
+     * Return the singleton instance.
+     *
+     * @return the shared evaluator, null if parallel condition assessment is disabled
+     */
+    public static ParallelConditionEvaluator getInstance() {
+        return instance;
+    }
+
+    /**
+     * Create the pool that evaluates the conditions.
+     */
+    private ParallelConditionEvaluator() {
+
+        int threads = DomainModuleProperties.getInstance().getParallelConditionAssessmentThreads();
+        if(threads < 1){
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+
+        pool = new ForkJoinPool(threads, forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("ParallelConditionEvaluator-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+
+        if(logger.isInfoEnabled()){
+            logger.info("Conditions of different concepts will be assessed in parallel on " + threads + " threads.");
+        }
+    }
+
+    /**
+     * Evaluate the conditions of each concept with the message and wait for all of them to finish.  Each
+     * concept holds its results and its conditions' actions until {@link Concept#handleTrainingAppGameState(Message)}
+     * is called with the same message.
+     *
+     * @param concepts the concepts (not intermediate concepts) whose conditions should be evaluated.  Can't be null.
+     * @param message the training application message to evaluate.  Can't be null.
+     */
+    public void evaluate(List<Concept> concepts, final Message message) {
+
+        if(concepts.size() < 2){
+            //nothing to run in parallel, the concept will evaluate its conditions itself
+            return;
+        }
+
+        List<Callable<Void>> evaluations = new ArrayList<>(concepts.size());
+        for(final Concept concept : concepts){
+            evaluations.add(() -> {
+                concept.evaluateConditions(message);
+                return null;
+            });
+        }
+
+        // the concept catches exceptions thrown by its conditions, invokeAll waits for every evaluation
+        pool.invokeAll(evaluations);
+    }
+
+    /**
+     * Add the concepts under the node that evaluate conditions, i.e. the concept itself or
+     * all the concepts under an intermediate concept.
+     *
+     * @param concept a task's concept or intermediate concept
+     * @param leafConcepts where to add the concepts that have conditions
+     */
+    static void addLeafConcepts(Concept concept, List<Concept> leafConcepts) {
+
+        if(concept instanceof IntermediateConcept){
+
+            for(Concept child : ((IntermediateConcept)concept).getConcepts()){
+                addLeafConcepts(child, leafConcepts);
+            }
+        }else{
+            leafConcepts.add(concept);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("[ParallelConditionEvaluator: pool = ").append(pool);
+        sb.append("]");
+        return sb.toString();
+    }
+}
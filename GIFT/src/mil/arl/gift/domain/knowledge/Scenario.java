@@ -557,19 +557,7 @@ public class Scenario implements TaskLessonAssessmentHandlerInterface{
      */
     public ProxyPerformanceAssessment trainingAppGameStateMessageReceived(Message message){
 
-        //wait to handle the next training app state message until all events are processed
-        //first, this is to synchronize all domain knowledge events caused by the last training app
-        //state message before the next message is handled.
-        if(!triggerEventMgr.isEventQueueEmpty()){
-
-            synchronized(triggerEventQueueMutex){
-                try {
-                    triggerEventQueueMutex.wait();
-                } catch (InterruptedException e) {
-                    logger.error("Caught exception while waiting to be notified that the trigger event queue is empty.", e);
-                }
-            }
-        }
+        waitForTriggerEvents();
 
         //Nick 2/6/15 - Prevent remaining logic in this method from executing if the scenario is inactive
         if(!active){
@@ -590,19 +578,7 @@ public class Scenario implements TaskLessonAssessmentHandlerInterface{
         //synchronized because a task assessment update can affect the current assessment
         synchronized(currentAssessment){
 
-            for(Task task : tasks){
-
-                if(!task.isFinished()){
-                    // (currently) a finished task's attributes shouldn't be changed
-                    ProxyTaskAssessment tAss = (ProxyTaskAssessment)task.handleTrainingAppGameState(message);
-
-                    if(tAss != null){
-                        updated = true;
-//                            currentAssessment.updateTaskAssessment(tAss);
-                    }
-
-                }
-            }
+            updated = assessTasks(message);
 
             //when there are task assessments, create a new performance assessment in order to allow other threads
             //to change the current assessment and not effect the values.
@@ -621,6 +597,96 @@ public class Scenario implements TaskLessonAssessmentHandlerInterface{
         return resultingAssessment;
     }
 
+    /**
+     * Process the training application game state messages of one update (e.g. the entity states dead reckoned
+     * by one tick of the entity table) in order, as {@link #trainingAppGameStateMessageReceived(Message)} does
+     * for each message, but create a single performance assessment for the whole update.
+     *
+     * @param messages the training application game state messages to handle, in the order they were created.  Can't be null.
+     * @return an assessment of the tasks after all of the messages were handled.  Null if none of the messages
+     * changed the assessment of a task or the scenario isn't active.
+     */
+    public ProxyPerformanceAssessment trainingAppGameStateMessagesReceived(List<Message> messages){
+
+        boolean updated = false;
+        for(Message message : messages){
+
+            waitForTriggerEvents();
+
+            if(!active){
+                break;
+            }
+
+            populateEntityId(message);
+            handleBlackboardUpdates(message);
+
+            //synchronized because a task assessment update can affect the current assessment
+            synchronized(currentAssessment){
+                updated |= assessTasks(message);
+            }
+
+            EndTriggerInformation taskShouldEndInfo = shouldEnd(message);
+            if(taskShouldEndInfo != null){
+                handleEndTriggerInformation(taskShouldEndInfo);
+            }
+        }
+
+        ProxyPerformanceAssessment resultingAssessment = null;
+        if(updated){
+
+            synchronized(currentAssessment){
+                resultingAssessment = new ProxyPerformanceAssessment(currentAssessment.getTasks());
+                updateStatusTool();
+            }
+        }
+
+        return resultingAssessment;
+    }
+
+    /**
+     * Wait until the trigger events caused by the last training application game state message are processed.
+     * This is to synchronize all domain knowledge events caused by the last training app state message before
+     * the next message is handled.
+     */
+    private void waitForTriggerEvents(){
+
+        if(!triggerEventMgr.isEventQueueEmpty()){
+
+            synchronized(triggerEventQueueMutex){
+                try {
+                    triggerEventQueueMutex.wait();
+                } catch (InterruptedException e) {
+                    logger.error("Caught exception while waiting to be notified that the trigger event queue is empty.", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Have the tasks that aren't finished assess the training application game state message.
+     * The caller must hold the lock on the current assessment.
+     *
+     * @param message the training application game state message to assess
+     * @return true if any task assessment was updated
+     */
+    private boolean assessTasks(Message message){
+
+        boolean updated = false;
+        for(Task task : tasks){
+
+            if(!task.isFinished()){
+                // (currently) a finished task's attributes shouldn't be changed
+                ProxyTaskAssessment tAss = (ProxyTaskAssessment)task.handleTrainingAppGameState(message);
+
+                if(tAss != null){
+                    updated = true;
+                }
+            }
+        }
+
+        return updated;
+    }
+
     /**
      * Build an updated performance assessment using the metrics provided within the request.
      *
@@ -829,7 +895,10 @@ public class Scenario implements TaskLessonAssessmentHandlerInterface{
             }
         }
         
-        if(message.getMessageType() == MessageTypeEnum.VARIABLE_STATE_RESULT){
+        if(message.getMessageType() == MessageTypeEnum.ENTITY_STATE){
+            // index the location once for all the conditions that look for nearby entities
+            blackboard.updateEntityLocation((EntityState)message.getPayload());
+        }else if(message.getMessageType() == MessageTypeEnum.VARIABLE_STATE_RESULT){
             VariablesStateResult result = (VariablesStateResult)message.getPayload();
             
             VariablesState varsState = result.getVariablesState();
@@ -286,6 +286,24 @@ public class Task extends AbstractPerformanceAssessmentNode implements ConceptLe
                 List<Concept> conceptAssessmentChanges = null;
                 
                 List<EndTriggerInformation> taskShouldEndInfos = null;
+                
+                //when enabled, evaluate the conditions of the active concepts in parallel before
+                //providing the message to each concept in order.  The concepts hold their conditions'
+                //actions until then, so this task is only changed by this thread while holding the lock
+                List<Concept> evaluatedConcepts = null;
+                ParallelConditionEvaluator parallelEvaluator = ParallelConditionEvaluator.getInstance();
+                if(interestedConcepts != null && parallelEvaluator != null){
+                    
+                    evaluatedConcepts = new ArrayList<>();
+                    for(Concept concept : interestedConcepts){
+                        if(concept.isActive()){
+                            ParallelConditionEvaluator.addLeafConcepts(concept, evaluatedConcepts);
+                        }
+                    }
+                    
+                    parallelEvaluator.evaluate(evaluatedConcepts, message);
+                }
+                
                 if(interestedConcepts != null){
                     for(Concept concept : interestedConcepts){
                         
@@ -326,6 +344,12 @@ public class Task extends AbstractPerformanceAssessmentNode implements ConceptLe
                 //reset
                 currentConceptWithSimMsg = null;
                 
+                if(evaluatedConcepts != null){
+                    for(Concept concept : evaluatedConcepts){
+                        concept.clearEvaluatedConditions();
+                    }
+                }
+                
                 if(needCompletionCheck && !finished){
                     //a concept has finished while handling the simulation message and it didn't activate any end triggers
                     
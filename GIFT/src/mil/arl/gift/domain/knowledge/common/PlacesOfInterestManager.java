@@ -7,9 +7,16 @@
  */
 package mil.arl.gift.domain.knowledge.common;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import javax.vecmath.Point3d;
+
+import mil.arl.gift.common.coordinate.AbstractCoordinate;
+import mil.arl.gift.common.coordinate.CoordinateUtil;
+
 /**
  * This class manages the places of interest for a single dkf instance in memory.
  * 
@@ -18,9 +25,27 @@ import java.util.Map;
  */
 public class PlacesOfInterestManager {
     
+    /** the length of the side of a cell (meters) of the area index, areas usually cover more ground than a point search */
+    private static final double AREA_CELL_SIZE = 1000.0;
+    
+    /** 
+     * how far (meters) outside of its bounding box an area is still found, covers rounding when the area's
+     * coordinates are converted to another coordinate type after being indexed 
+     */
+    private static final double AREA_BOUNDS_TOLERANCE = 1.0;
+    
     /** mapping of current places of interest for a dkf */
     private Map<String, PlaceOfInterestInterface> placesOfInterestMap = new HashMap<String, PlaceOfInterestInterface>();
     
+    /** the location of each point, keyed by point name, in the same coordinate space as entity locations */
+    private SpatialGridIndex<String> pointIndex = new SpatialGridIndex<>();
+    
+    /** 
+     * the 2D (x, y) bounding box of each area, keyed by area name, in the same coordinate space as entity locations.
+     * The elevation is left out because the areas are checked in 2D.
+     */
+    private SpatialGridIndex<String> areaIndex = new SpatialGridIndex<>(AREA_CELL_SIZE);
+    
     /**
      * Default constructor
      */
@@ -40,9 +65,75 @@ public class PlacesOfInterestManager {
         }
         
         placesOfInterestMap.put(placeOfInterest.getName(), placeOfInterest);
+        
+        if(placeOfInterest instanceof Point){
+            pointIndex.update(placeOfInterest.getName(), (Point)placeOfInterest);
+        }else if(placeOfInterest instanceof Area){
+            indexArea((Area)placeOfInterest);
+        }
 
     }
     
+    /**
+     * Add the 2D bounding box of the area's points to the area index.
+     * 
+     * @param area the area to index.  If it has no points this method does nothing.
+     */
+    private void indexArea(Area area){
+        
+        Point3d min = null, max = null;
+        for(AbstractCoordinate coordinate : area.getPoints()){
+            
+            Point3d point = CoordinateUtil.getInstance().convertToPoint(coordinate);
+            if(min == null){
+                min = new Point3d(point.x, point.y, 0);
+                max = new Point3d(point.x, point.y, 0);
+            }else{
+                min.set(Math.min(min.x, point.x), Math.min(min.y, point.y), 0);
+                max.set(Math.max(max.x, point.x), Math.max(max.y, point.y), 0);
+            }
+        }
+        
+        if(min != null){
+            areaIndex.update(area.getName(), min, max);
+        }
+    }
+    
+    /**
+     * Return the points within the distance of the location.
+     * 
+     * @param location the location to search around, in the same coordinate space as entity locations (e.g. GCC).  Can't be null.
+     * @param radius the maximum distance (meters) from the location
+     * @return the points found.  Won't be null.
+     */
+    public List<PlaceOfInterestInterface> getPointsWithin(Point3d location, double radius){
+        
+        List<PlaceOfInterestInterface> found = new ArrayList<>();
+        for(String name : pointIndex.findWithin(location, radius)){
+            found.add(placesOfInterestMap.get(name));
+        }
+        
+        return found;
+    }
+    
+    /**
+     * Return the areas whose 2D bounding box contains the x and y of the location.  The caller should still
+     * check whether the location is inside the area itself.
+     * 
+     * @param x the x value of the location, in the same coordinate space as entity locations (e.g. GCC)
+     * @param y the y value of the location, in the same coordinate space as entity locations (e.g. GCC)
+     * @return the areas found.  Won't be null.
+     */
+    public List<PlaceOfInterestInterface> getAreasAround(double x, double y){
+        
+        List<PlaceOfInterestInterface> found = new ArrayList<>();
+        for(String name : areaIndex.findWithin(new Point3d(x, y, 0), AREA_BOUNDS_TOLERANCE)){
+            found.add(placesOfInterestMap.get(name));
+        }
+        
+        return found;
+    }
+    
     /**
      * Return the place of interest with the given name.
      * 
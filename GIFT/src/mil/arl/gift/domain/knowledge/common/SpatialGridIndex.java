@@ -0,0 +1,392 @@
+/**
+ * Copyright Dignitas Technologies, LLC
+ *
+ * This file and its contents are governed by one or more distribution and
+ * copyright statements as described in the LICENSE.txt file distributed with
+ * this work.
+ */
+package mil.arl.gift.domain.knowledge.common;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.vecmath.Point3d;
+
+/**
+ * A uniform grid over 3D coordinates in meters (e.g. GCC) used to find the items near a location
+ * without checking the distance to every item.  Each item is stored in the cubic cells its axis aligned
+ * bounding box overlaps, a point being a bounding box with no size, therefore updating the location of an
+ * item that stays in the same cell is a constant time operation.<br/>
+ * <br/>
+ * The cells are hashed so that only the occupied cells use memory, which allows the grid to
+ * cover the whole earth.  Queries return candidates whose bounding box is within the distance, callers
+ * that index areas should still check the exact shape of the area.
+ *
+ * @author agent
+ *
+ * @param <K> the type of the key of an item (e.g. an entity identifier)
+ */
+public class SpatialGridIndex<K> {
+
+    /** the default length of the side of a cell (meters) */
+    public static final double DEFAULT_CELL_SIZE = 100.0;
+
+    /** the number of bits used for each axis of a cell's hash key */
+    private static final int AXIS_BITS = 21;
+
+    /** mask for the bits of one axis of a cell's hash key */
+    private static final long AXIS_MASK = (1L << AXIS_BITS) - 1;
+
+    /** the length of the side of a cell (meters) */
+    private final double cellSize;
+
+    /** the keys of the items in each occupied cell */
+    private final Map<Long, Set<K>> cells = new HashMap<>();
+
+    /** the bounding box and cells of each item */
+    private final Map<K, Bounds> items = new HashMap<>();
+
+    /**
+     * Create an index with the {@link #DEFAULT_CELL_SIZE}.
+     */
+    public SpatialGridIndex() {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * Create an index.
+     *
+     * @param cellSize the length of the side of a cell (meters), ideally close to the typical query
+     *        radius.  Must be greater than zero.
+     */
+    public SpatialGridIndex(double cellSize) {
+
+        if(cellSize <= 0){
+            throw new IllegalArgumentException("The cell size of "+cellSize+" must be greater than zero.");
+        }
+
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Add the item at the location or move it there if it is already in the index.
+     *
+     * @param key the item's unique key.  Can't be null.
+     * @param location the location of the item.  Can't be null.
+     */
+    public synchronized void update(K key, Point3d location) {
+        update(key, location, location);
+    }
+
+    /**
+     * Add the item with the bounding box or move it there if it is already in the index.
+     *
+     * @param key the item's unique key.  Can't be null.
+     * @param min the minimum corner of the item's bounding box.  Can't be null.
+     * @param max the maximum corner of the item's bounding box.  Can't be null.
+     */
+    public synchronized void update(K key, Point3d min, Point3d max) {
+
+        if(key == null){
+            throw new IllegalArgumentException("The key can't be null.");
+        }else if(min == null || max == null){
+            throw new IllegalArgumentException("The bounds can't be null.");
+        }
+
+        int minX = toCell(min.x), minY = toCell(min.y), minZ = toCell(min.z);
+        int maxX = toCell(max.x), maxY = toCell(max.y), maxZ = toCell(max.z);
+
+        Bounds bounds = items.get(key);
+        if(bounds != null){
+
+            if(bounds.hasCells(minX, minY, minZ, maxX, maxY, maxZ)){
+                //still in the same cells, only the location changed
+                bounds.min.set(min);
+                bounds.max.set(max);
+                return;
+            }
+
+            removeFromCells(key, bounds);
+        }
+
+        bounds = new Bounds(min, max, minX, minY, minZ, maxX, maxY, maxZ);
+        items.put(key, bounds);
+
+        for(int x = minX; x <= maxX; x++){
+            for(int y = minY; y <= maxY; y++){
+                for(int z = minZ; z <= maxZ; z++){
+                    cells.computeIfAbsent(cellKey(x, y, z), cell -> new HashSet<>()).add(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove the item from the index.
+     *
+     * @param key the item's unique key
+     * @return true if the item was in the index
+     */
+    public synchronized boolean remove(K key) {
+
+        Bounds bounds = items.remove(key);
+        if(bounds == null){
+            return false;
+        }
+
+        removeFromCells(key, bounds);
+        return true;
+    }
+
+    /**
+     * Return the location of the item, i.e. the minimum corner of its bounding box.
+     *
+     * @param key the item's unique key
+     * @return a copy of the location, null if the item isn't in the index
+     */
+    public synchronized Point3d getLocation(K key) {
+
+        Bounds bounds = items.get(key);
+        return bounds != null ? new Point3d(bounds.min) : null;
+    }
+
+    /**
+     * Return the number of items in the index.
+     *
+     * @return the number of items
+     */
+    public synchronized int size() {
+        return items.size();
+    }
+
+    /**
+     * Remove all the items from the index.
+     */
+    public synchronized void clear() {
+        items.clear();
+        cells.clear();
+    }
+
+    /**
+     * Find the items whose bounding box is within the distance of the location.
+     *
+     * @param center the location to search around.  Can't be null.
+     * @param radius the maximum distance (meters) from the location
+     * @return the keys of the items within the distance in no particular order.  Won't be null.
+     */
+    public synchronized List<K> findWithin(Point3d center, double radius) {
+
+        if(center == null){
+            throw new IllegalArgumentException("The center can't be null.");
+        }
+
+        List<K> found = new ArrayList<>();
+        if(radius < 0){
+            return found;
+        }
+
+        final double radiusSquared = radius * radius;
+        int minX = toCell(center.x - radius), minY = toCell(center.y - radius), minZ = toCell(center.z - radius);
+        int maxX = toCell(center.x + radius), maxY = toCell(center.y + radius), maxZ = toCell(center.z + radius);
+
+        //a double so that a very large radius can't overflow the count
+        double cellCount = ((double)maxX - minX + 1) * ((double)maxY - minY + 1) * ((double)maxZ - minZ + 1);
+        if(cellCount > cells.size()){
+
+            //the search covers more cells than are occupied, check every item instead
+            for(Map.Entry<K, Bounds> entry : items.entrySet()){
+                if(entry.getValue().distanceSquared(center) <= radiusSquared){
+                    found.add(entry.getKey());
+                }
+            }
+
+            return found;
+        }
+
+        //an item that spans several cells is only checked once
+        Set<K> checked = new HashSet<>();
+        for(int x = minX; x <= maxX; x++){
+            for(int y = minY; y <= maxY; y++){
+                for(int z = minZ; z <= maxZ; z++){
+
+                    Set<K> cellKeys = cells.get(cellKey(x, y, z));
+                    if(cellKeys == null){
+                        continue;
+                    }
+
+                    for(K key : cellKeys){
+                        if(checked.add(key) && items.get(key).distanceSquared(center) <= radiusSquared){
+                            found.add(key);
+                        }
+                    }
+                }
+            }
+        }
+
+        return found;
+    }
+
+    /**
+     * Find the items whose bounding box is closest to the location.
+     *
+     * @param center the location to search around.  Can't be null.
+     * @param count the maximum number of items to find
+     * @return the keys of up to count items, ordered from closest to farthest.  Won't be null.
+     */
+    public synchronized List<K> findNearest(Point3d center, int count) {
+
+        if(center == null){
+            throw new IllegalArgumentException("The center can't be null.");
+        }else if(count <= 0 || items.isEmpty()){
+            return new ArrayList<>();
+        }
+
+        /* grow the search until it finds enough items, any item outside of the search
+         * radius is farther than every item found within it */
+        List<K> found;
+        double radius = cellSize;
+        do{
+            found = findWithin(center, radius);
+            radius *= 2;
+        }while(found.size() < count && found.size() < items.size());
+
+        final Map<K, Double> distances = new HashMap<>();
+        for(K key : found){
+            distances.put(key, items.get(key).distanceSquared(center));
+        }
+
+        Collections.sort(found, Comparator.comparingDouble(distances::get));
+        return found.size() > count ? new ArrayList<>(found.subList(0, count)) : found;
+    }
+
+    /**
+     * Remove the item from the cells it was in.
+     *
+     * @param key the item's unique key
+     * @param bounds the item's bounding box and cells
+     */
+    private void removeFromCells(K key, Bounds bounds) {
+
+        for(int x = bounds.minX; x <= bounds.maxX; x++){
+            for(int y = bounds.minY; y <= bounds.maxY; y++){
+                for(int z = bounds.minZ; z <= bounds.maxZ; z++){
+
+                    long cellKey = cellKey(x, y, z);
+                    Set<K> cellKeys = cells.get(cellKey);
+                    if(cellKeys != null && cellKeys.remove(key) && cellKeys.isEmpty()){
+                        cells.remove(cellKey);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Return the cell coordinate of the value along one axis.
+     *
+     * @param value a coordinate value (meters)
+     * @return the index of the cell containing the value along that axis
+     */
+    private int toCell(double value) {
+        return (int) Math.floor(value / cellSize);
+    }
+
+    /**
+     * Return the hash key of a cell.  Cells far enough apart can share a key, which only
+     * adds candidates since the distance to every candidate is checked.
+     *
+     * @param x the index of the cell along the x axis
+     * @param y the index of the cell along the y axis
+     * @param z the index of the cell along the z axis
+     * @return the hash key of the cell
+     */
+    private static long cellKey(int x, int y, int z) {
+        return ((x & AXIS_MASK) << (2 * AXIS_BITS)) | ((y & AXIS_MASK) << AXIS_BITS) | (z & AXIS_MASK);
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("[SpatialGridIndex: cellSize = ").append(cellSize);
+        sb.append(", items = ").append(items.size());
+        sb.append(", cells = ").append(cells.size());
+        sb.append("]");
+        return sb.toString();
+    }
+
+    /**
+     * The bounding box of an item and the range of cells it overlaps.
+     *
+     * @author agent
+     *
+     */
+    private static class Bounds {
+
+        /** the minimum corner of the bounding box */
+        private final Point3d min;
+
+        /** the maximum corner of the bounding box */
+        private final Point3d max;
+
+        /** the range of cells the bounding box overlaps, inclusive */
+        private final int minX, minY, minZ, maxX, maxY, maxZ;
+
+        /**
+         * Set attributes
+         *
+         * @param min the minimum corner of the bounding box, copied
+         * @param max the maximum corner of the bounding box, copied
+         * @param minX the lowest cell along the x axis
+         * @param minY the lowest cell along the y axis
+         * @param minZ the lowest cell along the z axis
+         * @param maxX the highest cell along the x axis
+         * @param maxY the highest cell along the y axis
+         * @param maxZ the highest cell along the z axis
+         */
+        private Bounds(Point3d min, Point3d max, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+            this.min = new Point3d(min);
+            this.max = new Point3d(max);
+            this.minX = minX;
+            this.minY = minY;
+            this.minZ = minZ;
+            this.maxX = maxX;
+            this.maxY = maxY;
+            this.maxZ = maxZ;
+        }
+
+        /**
+         * Return whether the bounding box overlaps exactly the range of cells provided.
+         *
+         * @param minX the lowest cell along the x axis
+         * @param minY the lowest cell along the y axis
+         * @param minZ the lowest cell along the z axis
+         * @param maxX the highest cell along the x axis
+         * @param maxY the highest cell along the y axis
+         * @param maxZ the highest cell along the z axis
+         * @return true if the ranges are the same
+         */
+        private boolean hasCells(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+            return this.minX == minX && this.minY == minY && this.minZ == minZ
+                    && this.maxX == maxX && this.maxY == maxY && this.maxZ == maxZ;
+        }
+
+        /**
+         * Return the squared distance from the location to the closest point of the bounding box.
+         *
+         * @param location the location to measure from
+         * @return the squared distance, 0 if the location is inside the bounding box
+         */
+        private double distanceSquared(Point3d location) {
+            double dx = Math.max(0, Math.max(min.x - location.x, location.x - max.x));
+            double dy = Math.max(0, Math.max(min.y - location.y, location.y - max.y));
+            double dz = Math.max(0, Math.max(min.z - location.z, location.z - max.z));
+            return dx * dx + dy * dy + dz * dz;
+        }
+    }
+}
@@ -23,10 +23,10 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TimeZone;
-import java.util.Timer;
 import java.util.TimerTask;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.vecmath.Point3d;
 import javax.vecmath.Vector3d;
@@ -40,7 +40,6 @@ import generated.dkf.UnitsEnumType;
 import generated.dkf.ViolationTime;
 import mil.arl.gift.common.AbstractAssessment;
 import mil.arl.gift.common.aar.ScoreNodeUpdate;
-import mil.arl.gift.common.coordinate.CoordinateUtil;
 import mil.arl.gift.common.coordinate.GDC;
 import mil.arl.gift.common.course.dkf.ConditionDescription;
 import mil.arl.gift.common.course.dkf.session.AbstractKnowledgeSession.SessionMembers;
@@ -350,6 +349,67 @@ public abstract class AbstractCondition{
         }
     }
     
+    /**
+     * Return the derived coordinates (e.g. GDC, heading) of an entity state message.  The coordinates are
+     * shared with the other conditions of the domain session assessing the same message so the conversions
+     * are only done once per message.
+     * 
+     * @param message an entity state message, used to set the black board instance if it isn't already set.  Can't be null.
+     * @return the coordinates for the message's entity state.  Won't be null.
+     */
+    protected EntityStateCoordinates getEntityCoordinates(Message message){
+        setBlackboard(message);
+        return getEntityCoordinates((EntityState)message.getPayload());
+    }
+    
+    /**
+     * Return the derived coordinates (e.g. GDC, heading) of an entity state.  The coordinates are
+     * shared with the other conditions of the domain session assessing the same entity state, if the black board
+     * instance has been set.
+     * 
+     * @param entityState the entity state to get the coordinates for.  Can't be null.
+     * @return the coordinates for the entity state.  Won't be null.
+     */
+    protected EntityStateCoordinates getEntityCoordinates(EntityState entityState){
+        
+        if(blackboard != null){
+            return blackboard.getEntityCoordinates(entityState);
+        }
+        
+        return new EntityStateCoordinates(entityState);
+    }
+
+    /**
+     * Return the entities whose latest location is within the distance of the location, found with the session's
+     * entity location index instead of measuring the distance to every entity.  The caller should still check
+     * the exact distance to the entities found.
+     *
+     * @param location the location to search around, in the same coordinate space as entity state locations (e.g. GCC).  Can be null.
+     * @param radius the maximum distance (meters) from the location
+     * @return the identifiers of the entities found.  Null if the black board instance hasn't been set or the location
+     * is null, in which case every entity should be checked.
+     */
+    protected Set<EntityIdentifier> findNearbyEntities(Point3d location, double radius){
+
+        if(blackboard == null || location == null){
+            return null;
+        }
+
+        return new HashSet<>(blackboard.getEntityLocationIndex().findWithin(location, radius));
+    }
+
+    /**
+     * Return whether the team member could be near enough to check, based on the entities found by
+     * {@link #findNearbyEntities(Point3d, double)}.
+     *
+     * @param nearbyEntities the entities found near a location, null if every entity should be checked
+     * @param teamMember the team member to check.  Can't be null.
+     * @return false if the team member is known to be farther away than the distance searched
+     */
+    protected static boolean isNearbyEntity(Set<EntityIdentifier> nearbyEntities, TeamMember<?> teamMember){
+        return nearbyEntities == null || teamMember.getEntityIdentifier() == null || nearbyEntities.contains(teamMember.getEntityIdentifier());
+    }
+
     /**
      * Return the course level unique id of this condition created randomly amongst conditions.
      * Can be used to identify conditions under a concept.
@@ -2127,19 +2187,35 @@ public abstract class AbstractCondition{
     }   
 
     /**
-     * This class is responsible for scheduling a timer task.
+     * This class is responsible for scheduling a timer task.  The tasks run on the
+     * {@link ConditionTimerScheduler} shared by all conditions instead of a thread owned by
+     * this timer, but like a {@link java.util.Timer} the tasks of a timer never run at the
+     * same time and a timer can't be used once it has been cancelled.
      *
      * @author mhoffman
      *
      */
-    protected class SchedulableTimer extends Timer {
+    protected class SchedulableTimer {
+
+        /** the name of the timer, used for logging */
+        private final String name;
+
+        /** the tasks that have been scheduled by this timer */
+        private final Map<Runnable, ConditionTimerScheduler.ScheduledTask> scheduledTasks = new ConcurrentHashMap<>();
+
+        /** runs the tasks of this timer one at a time */
+        private final ConditionTimerScheduler.TaskQueue taskQueue;
+
+        /** whether this timer has been cancelled */
+        private volatile boolean cancelled = false;
 
         /**
          * Constructor
-         * @param name the name of the timer thread
+         * @param name the name of the timer
          */
         public SchedulableTimer(String name){
-            super(name);
+            this.name = name;
+            this.taskQueue = ConditionTimerScheduler.getInstance().newTaskQueue(name);
         }
 
         public void scheduleTask(TimerTask timerTask, long delay) {
@@ -2150,7 +2226,131 @@ public abstract class AbstractCondition{
             }
         }
 
-      }
+        /**
+         * Schedule the task to run once after the delay.
+         *
+         * @param task the task to run.  Can't be null.
+         * @param delay the amount of time (ms) to wait before running the task
+         * @throws IllegalStateException if this timer has been cancelled
+         */
+        public void schedule(Runnable task, long delay) {
+            schedule(task, delay, 0, false);
+        }
+
+        /**
+         * Schedule the task to run repeatedly with a fixed delay between the end of a run and the start of the next.
+         *
+         * @param task the task to run.  Can't be null.
+         * @param delay the amount of time (ms) to wait before the first run of the task
+         * @param period the amount of time (ms) between runs of the task.  Must be greater than zero.
+         * @throws IllegalStateException if this timer has been cancelled
+         */
+        public void schedule(Runnable task, long delay, long period) {
+
+            if(period <= 0){
+                throw new IllegalArgumentException("The period of "+period+" must be greater than zero.");
+            }
+
+            schedule(task, delay, period, false);
+        }
+
+        /**
+         * Schedule the task to run repeatedly at a fixed rate relative to the first run.
+         *
+         * @param task the task to run.  Can't be null.
+         * @param delay the amount of time (ms) to wait before the first run of the task
+         * @param period the amount of time (ms) between runs of the task.  Must be greater than zero.
+         * @throws IllegalStateException if this timer has been cancelled
+         */
+        public void scheduleAtFixedRate(Runnable task, long delay, long period) {
+
+            if(period <= 0){
+                throw new IllegalArgumentException("The period of "+period+" must be greater than zero.");
+            }
+
+            schedule(task, delay, period, true);
+        }
+
+        /**
+         * Schedule the task on the shared scheduler.
+         *
+         * @param task the task to run.  Can't be null.
+         * @param delay the amount of time (ms) to wait before the first run of the task
+         * @param period the amount of time (ms) between runs of the task, zero to run the task once
+         * @param fixedRate whether the runs are relative to the first run
+         * @throws IllegalStateException if this timer has been cancelled
+         */
+        private void schedule(Runnable task, long delay, long period, boolean fixedRate) {
+
+            if(cancelled){
+                throw new IllegalStateException("The timer '"+name+"' has already been cancelled.");
+            }
+
+            //the handle isn't known until after scheduling, a task that runs before then stays mapped until cancel
+            final AtomicReference<ConditionTimerScheduler.ScheduledTask> handle = new AtomicReference<>();
+            ConditionTimerScheduler.ScheduledTask scheduledTask = ConditionTimerScheduler.getInstance().schedule(() -> {
+                        try{
+                            task.run();
+                        }finally{
+                            ConditionTimerScheduler.ScheduledTask ranTask = handle.get();
+                            if(period <= 0 && ranTask != null){
+                                scheduledTasks.remove(task, ranTask);
+                            }
+                        }
+                    }, delay, period, fixedRate, taskQueue);
+            handle.set(scheduledTask);
+
+            ConditionTimerScheduler.ScheduledTask replaced = scheduledTasks.put(task, scheduledTask);
+            if(replaced != null){
+                //the same task can't be scheduled twice on a java.util.Timer, keep the latest
+                replaced.cancel();
+            }
+
+            if(cancelled){
+                //cancelled while being scheduled
+                scheduledTask.cancel();
+            }
+        }
+
+        /**
+         * Cancel a task that was scheduled by this timer.  Has no effect if the task already ran or
+         * was never scheduled.
+         *
+         * @param task the task to cancel
+         * @return true if a pending run of the task was cancelled
+         */
+        public boolean cancel(Runnable task) {
+
+            ConditionTimerScheduler.ScheduledTask scheduledTask = scheduledTasks.remove(task);
+            return scheduledTask != null && scheduledTask.cancel();
+        }
+
+        /**
+         * Cancel all the tasks scheduled by this timer.  A task that is running is allowed to finish.
+         * No tasks can be scheduled by this timer afterwards.
+         */
+        public void cancel() {
+
+            cancelled = true;
+            for(ConditionTimerScheduler.ScheduledTask scheduledTask : scheduledTasks.values()){
+                scheduledTask.cancel();
+            }
+
+            scheduledTasks.clear();
+        }
+
+        @Override
+        public String toString(){
+
+            StringBuilder sb = new StringBuilder();
+            sb.append("[SchedulableTimer: ");
+            sb.append("name = ").append(name);
+            sb.append(", scheduled = ").append(scheduledTasks.size());
+            sb.append(", cancelled = ").append(cancelled);
+            sb.append("]");
+            return sb.toString();
+        }
+    }
 
     /**
      * This class is the timer task which runs at the appropriately schedule date.  It will
@@ -2394,7 +2594,8 @@ public abstract class AbstractCondition{
         public void updateMetadata(EntityState es) {
             this.lastTimeStamp = System.currentTimeMillis();
             lastGccLocation.set(es.getLocation());
-            CoordinateUtil.getInstance().convertFromGCCToGDC(es.getLocation(), lastGdcLocation);
+            GDC gdc = getEntityCoordinates(es).getGdcLocation();
+            lastGdcLocation.set(gdc.getLatitude(), gdc.getLongitude(), gdc.getElevation());
             lastOrientationEulerAngles.set(es.getOrientation());
             damage = es.getAppearance().getDamage();
             isHealthy = es.getAppearance().getDamage() == DamageEnum.HEALTHY;
@@ -15,7 +15,6 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -172,16 +171,17 @@ public abstract class AbstractPowerPointDwellCondition extends AbstractCondition
 
     /**
      * This class is responsible for scheduling or rescheduling a timer task
-     * without having to create a new thread.
+     * without having to create a new thread.  The tasks run on the {@link ConditionTimerScheduler}
+     * shared by all conditions.
      *
      * @author mhoffman
      */
-    protected class ReschedulableTimer extends Timer {
+    protected class ReschedulableTimer extends SchedulableTimer {
 
         private TimeoutTimerTask timerTask = null;
 
         /**
-         * Class constructor - set the thread name
+         * Class constructor - set the timer name
          */
         public ReschedulableTimer() {
             super("PowerPointDwellTimer");
@@ -227,7 +227,7 @@ public abstract class AbstractPowerPointDwellCondition extends AbstractCondition
          */
         private boolean reschedule(long delay, int slideIndex) {
 
-            boolean canceledTask = timerTask != null && timerTask.cancel();
+            boolean canceledTask = timerTask != null && !timerTask.hasRun() && cancel(timerTask);
             if(delay > 0){
                 timerTask = new TimeoutTimerTask(slideIndex);
                 scheduleAfterCheck(timerTask, delay);
@@ -22,7 +22,6 @@ import org.slf4j.LoggerFactory;
 
 import generated.dkf.LearnerActionEnumType;
 import generated.dkf.RealTimeAssessmentRules;
-import mil.arl.gift.common.coordinate.CoordinateUtil;
 import mil.arl.gift.common.coordinate.GDC;
 import mil.arl.gift.common.course.dkf.ConditionDescription;
 import mil.arl.gift.common.course.dkf.ConditionDescription.FileDescription;
@@ -177,7 +176,8 @@ public class AssignedSectorCondition extends AbstractCondition {
                 return false;
             }
             
-            final GDC memberLocation = CoordinateUtil.getInstance().convertFromGCCToGDC(es.getLocation());
+            final EntityStateCoordinates esCoordinates = getEntityCoordinates(message);
+            final GDC memberLocation = esCoordinates.getGdcLocation();
             
             if(sectorMiddlePoint == null){
                 // only perform this conversion from point to GDC once per instance of this condition
@@ -192,7 +192,7 @@ public class AssignedSectorCondition extends AbstractCondition {
                 
                 /* Test the angle to determine whether or not this entity is
                  * violating the assigned sector condition. */
-                final double assessedHeading = CoordinateUtil.getInstance().getHeading(es.getOrientation(), memberLocation);
+                final double assessedHeading = esCoordinates.getHeading();
                 final double theta = MuzzleFlaggingCondition.getTheta(memberLocation, sectorMiddlePoint, assessedHeading);
                 
                 /* If the theta value is over the threshold, update the
@@ -106,6 +106,9 @@ public class AvoidLocationCondition extends AbstractCondition {
      */
     private Map<TeamMember<?>, Point3d> lastKnownPtMap = new HashMap<>(0);
 
+    /** the largest distance threshold (meters) of the points to avoid, null until calculated */
+    private Double maxPointDistance = null;
+
     /** the learner actions needed to be shown to the learner for this condition to assess the learner */
     private static final Set<generated.dkf.LearnerActionEnumType> LEARNER_ACTIONS = new HashSet<>(2);
     static{
@@ -452,10 +455,28 @@ public class AvoidLocationCondition extends AbstractCondition {
 
         if(avoidLocationInput != null){
 
+            // the places of interest index finds the points and areas the location could be near instead
+            // of checking every point and area
+            Set<String> nearbyPlaces = new HashSet<>();
+            double pointSearchRadius = getMaxPointDistance();
+            for(PlaceOfInterestInterface poi : placesOfInterestManager.getPointsWithin(currentLocation, pointSearchRadius)){
+                nearbyPlaces.add(poi.getName());
+            }
+            
+            // points without an elevation are checked in 2D
+            for(PlaceOfInterestInterface poi : placesOfInterestManager.getPointsWithin(
+                    new Point3d(currentLocation.x, currentLocation.y, 0), pointSearchRadius)){
+                nearbyPlaces.add(poi.getName());
+            }
+            
+            for(PlaceOfInterestInterface poi : placesOfInterestManager.getAreasAround(currentLocation.x, currentLocation.y)){
+                nearbyPlaces.add(poi.getName());
+            }
+
             // Check points
             for(PointRef pointRef : avoidLocationInput.getPointRef()){
 
-                if(pointRef == null){
+                if(pointRef == null || !nearbyPlaces.contains(pointRef.getValue())){
                     continue;
                 }
 
@@ -483,7 +504,7 @@ public class AvoidLocationCondition extends AbstractCondition {
             // Check areas
             for(AreaRef areaRef : avoidLocationInput.getAreaRef()){
 
-                if(areaRef == null){
+                if(areaRef == null || !nearbyPlaces.contains(areaRef.getValue())){
                     continue;
                 }
 
@@ -507,6 +528,29 @@ public class AvoidLocationCondition extends AbstractCondition {
 
     }
 
+    /**
+     * Return the largest distance threshold of the points to avoid.
+     * 
+     * @return the largest distance (meters) at which a location reaches one of the points, 0 if there are none
+     */
+    private double getMaxPointDistance(){
+        
+        if(maxPointDistance == null){
+            
+            double max = 0.0;
+            for(PointRef pointRef : avoidLocationInput.getPointRef()){
+                
+                if(pointRef != null && pointRef.getDistance() != null){
+                    max = Math.max(max, pointRef.getDistance().doubleValue());
+                }
+            }
+            
+            maxPointDistance = max;
+        }
+        
+        return maxPointDistance;
+    }
+
     /**
      * Return whether the entity location has reached the point specified.
      *
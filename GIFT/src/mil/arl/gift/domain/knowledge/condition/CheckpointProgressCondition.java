@@ -15,7 +15,6 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.Timer;
 import java.util.TimerTask;
 
 import javax.vecmath.Point3d;
@@ -79,7 +78,7 @@ public class CheckpointProgressCondition extends AbstractCondition {
 
     /** for scheduling a timer task for creating assessments out of synch with incoming simulation messages */
     private static final String TIMER_NAME = "CheckpointProgressCondition";
-    private Timer timer = new Timer(TIMER_NAME);
+    private SchedulableTimer timer = new SchedulableTimer(TIMER_NAME);
 
     /** the checkpoints for this condition */
     private List<Checkpoint> checkpoints;
@@ -267,7 +266,7 @@ public class CheckpointProgressCondition extends AbstractCondition {
             //reached checkpoint
 
             //cancel timer task
-            task.cancel();
+            timer.cancel(task);
 
             //assess based on time
             Date now = new Date();
@@ -0,0 +1,479 @@
+/**
+ * Copyright Dignitas Technologies, LLC
+ *
+ * This file and its contents are governed by one or more distribution and
+ * copyright statements as described in the LICENSE.txt file distributed with
+ * this work.
+ */
+package mil.arl.gift.domain.knowledge.condition;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import mil.arl.gift.common.metrics.MetricsSender;
+import mil.arl.gift.common.util.HashedWheelTimer;
+
+/**
+ * The single scheduler shared by the timers of every condition in every domain session
+ * of this domain module.  Deadlines are tracked by a {@link HashedWheelTimer} and expired
+ * tasks are run by a small pool of threads, so the number of threads no longer grows with the
+ * number of conditions and sessions like it did with a {@link java.util.Timer} per condition.<br/>
+ * <br/>
+ * The tasks of the same {@link TaskQueue} (e.g. a condition's timer) are run one at a time in the order
+ * their deadlines are reached, the same as the tasks of a single {@link java.util.Timer}.  A task queue
+ * only occupies a pool thread while it has tasks to run, so a task waiting on its queue never holds a pool
+ * thread that the tasks of other queues need.  The number of tasks that started running later than
+ * {@link #LATE_THRESHOLD_MS} after their deadline is tracked to detect when the pool can't keep up, and is
+ * reported to the module's metrics (see {@link #startReportingMetrics(MetricsSender)}).
+ *
+ * @author agent
+ *
+ */
+public class ConditionTimerScheduler {
+
+    /** instance of the logger */
+    private static final Logger logger = LoggerFactory.getLogger(ConditionTimerScheduler.class);
+
+    /** the precision of the condition timers (ms) */
+    private static final long TICK_DURATION_MS = 10;
+
+    /** the number of buckets in the wheel, covers about 5 seconds per rotation at the tick duration */
+    private static final int TICKS_PER_WHEEL = 512;
+
+    /** the number of threads that run the condition timer tasks */
+    private static final int TASK_THREAD_COUNT = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    /** the amount of time (ms) past its deadline a task can start running before it is counted as late */
+    public static final long LATE_THRESHOLD_MS = 100;
+
+    /** a warning is logged for the first late task run and then for every this many late task runs */
+    private static final long LATE_WARNING_INTERVAL = 100;
+
+    /** how often (ms) the counters are copied to the metrics */
+    private static final long METRICS_INTERVAL_MS = 5000;
+
+    /** the name of the metric counter of task runs started */
+    private static final String FIRED_METRIC = "conditionTimerTasksFired";
+
+    /** the name of the metric counter of late task runs */
+    private static final String LATE_METRIC = "conditionTimerTasksLate";
+
+    /** the name of the metric counter of the maximum lateness (ms) of a task run */
+    private static final String MAX_LATENESS_METRIC = "conditionTimerMaxLatenessMs";
+
+    /** the singleton instance of this class */
+    private static final ConditionTimerScheduler instance = new ConditionTimerScheduler();
+
+    /** tracks the deadline of each scheduled task */
+    private final HashedWheelTimer wheel = new HashedWheelTimer("ConditionTimerScheduler", TICK_DURATION_MS,
+            TimeUnit.MILLISECONDS, TICKS_PER_WHEEL);
+
+    /** runs the tasks whose deadline has been reached, keeps the wheel thread free to advance */
+    private final ExecutorService taskRunner;
+
+    /** total number of task runs that were scheduled, including each run of a repeating task */
+    private final AtomicLong scheduledCount = new AtomicLong();
+
+    /** total number of task runs that were started */
+    private final AtomicLong firedCount = new AtomicLong();
+
+    /** total number of tasks that were cancelled */
+    private final AtomicLong cancelledCount = new AtomicLong();
+
+    /** total number of task runs that started more than {@link #LATE_THRESHOLD_MS} after the deadline */
+    private final AtomicLong lateCount = new AtomicLong();
+
+    /** the largest amount of time (ms) past the deadline that a task run started */
+    private final AtomicLong maxLatenessMs = new AtomicLong();
+
+    /** the task that copies the counters to the metrics, null if the metrics aren't being reported */
+    private ScheduledTask metricsTask = null;
+
+    /**
+     * Return the singleton instance.
+     *
+     * @return the scheduler shared by all condition timers
+     */
+    public static ConditionTimerScheduler getInstance() {
+        return instance;
+    }
+
+    /**
+     * Create the thread pool that runs the tasks.
+     */
+    private ConditionTimerScheduler() {
+
+        final AtomicInteger threadCount = new AtomicInteger();
+        taskRunner = Executors.newFixedThreadPool(TASK_THREAD_COUNT, runnable -> {
+            Thread thread = new Thread(runnable, "ConditionTimerScheduler-Task-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Create a queue whose tasks are run one at a time, like the tasks of a {@link java.util.Timer}.
+     *
+     * @param name the name of the queue used for logging (e.g. the name of the timer).  Can't be null.
+     * @return the new task queue
+     */
+    public TaskQueue newTaskQueue(String name) {
+
+        if(name == null){
+            throw new IllegalArgumentException("The name can't be null.");
+        }
+
+        return new TaskQueue(name);
+    }
+
+    /**
+     * Schedule a task.
+     *
+     * @param task the task to run.  Can't be null.
+     * @param delay the amount of time (ms) to wait before the first run of the task
+     * @param period the amount of time (ms) between runs of the task, zero or less to run the task once
+     * @param fixedRate true if each run is scheduled relative to the deadline of the first run (like
+     *        {@link java.util.Timer#scheduleAtFixedRate(java.util.TimerTask, long, long)}), false if each run is
+     *        scheduled relative to the end of the previous run
+     * @param taskQueue the queue the task is run on, the tasks of a queue are run one at a time.  Can't be null.
+     * @return the handle used to cancel the task
+     */
+    public ScheduledTask schedule(Runnable task, long delay, long period, boolean fixedRate, TaskQueue taskQueue) {
+
+        if(task == null){
+            throw new IllegalArgumentException("The task can't be null.");
+        }else if(taskQueue == null){
+            throw new IllegalArgumentException("The task queue can't be null.");
+        }
+
+        ScheduledTask scheduledTask = new ScheduledTask(task, period, fixedRate, taskQueue);
+        scheduledTask.scheduleAt(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delay)));
+        return scheduledTask;
+    }
+
+    /**
+     * Return the total number of task runs that were scheduled.
+     *
+     * @return the number of scheduled runs, including each run of a repeating task
+     */
+    public long getScheduledCount() {
+        return scheduledCount.get();
+    }
+
+    /**
+     * Return the total number of task runs that were started.
+     *
+     * @return the number of task runs started
+     */
+    public long getFiredCount() {
+        return firedCount.get();
+    }
+
+    /**
+     * Return the total number of tasks that were cancelled.
+     *
+     * @return the number of cancelled tasks
+     */
+    public long getCancelledCount() {
+        return cancelledCount.get();
+    }
+
+    /**
+     * Return the total number of task runs that started more than {@link #LATE_THRESHOLD_MS} after their deadline.
+     *
+     * @return the number of late task runs
+     */
+    public long getLateCount() {
+        return lateCount.get();
+    }
+
+    /**
+     * Return the largest amount of time past the deadline that a task run has started.
+     *
+     * @return the maximum lateness (ms)
+     */
+    public long getMaxLatenessMs() {
+        return maxLatenessMs.get();
+    }
+
+    /**
+     * Periodically copy the number of task runs started, the number of late task runs and the maximum
+     * lateness to the metrics provided.  Has no effect if the metrics are already being reported.
+     *
+     * @param metrics where to report the counters (e.g. the domain module's metrics).  Can't be null.
+     */
+    public synchronized void startReportingMetrics(final MetricsSender metrics) {
+
+        if(metrics == null){
+            throw new IllegalArgumentException("The metrics can't be null.");
+        }else if(metricsTask != null){
+            return;
+        }
+
+        metricsTask = schedule(() -> {
+            metrics.updateMetricCounter(FIRED_METRIC, getFiredCount());
+            metrics.updateMetricCounter(LATE_METRIC, getLateCount());
+            metrics.updateMetricCounter(MAX_LATENESS_METRIC, getMaxLatenessMs());
+        }, 0, METRICS_INTERVAL_MS, false, newTaskQueue("ConditionTimerScheduler metrics"));
+    }
+
+    @Override
+    public String toString() {
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("[ConditionTimerScheduler: ");
+        sb.append("threads = ").append(TASK_THREAD_COUNT);
+        sb.append(", scheduled = ").append(getScheduledCount());
+        sb.append(", fired = ").append(getFiredCount());
+        sb.append(", cancelled = ").append(getCancelledCount());
+        sb.append(", late = ").append(getLateCount());
+        sb.append(", maxLatenessMs = ").append(getMaxLatenessMs());
+        sb.append(", wheel = ").append(wheel);
+        sb.append("]");
+        return sb.toString();
+    }
+
+    /**
+     * The runs of scheduled tasks that must not overlap, e.g. the tasks of one condition timer.  A run is
+     * added to the queue when its deadline is reached and the queue runs its pending runs on a pool thread,
+     * one at a time and in order.  After each run the queue gives up the pool thread and asks for it again
+     * if it has more runs pending, so a busy queue can't keep the other queues from running.
+     *
+     * @author agent
+     *
+     */
+    public class TaskQueue {
+
+        /** the name of the queue, used for logging */
+        private final String name;
+
+        /** the task runs whose deadline has been reached, in the order the deadlines were reached */
+        private final Queue<ScheduledTask> pending = new ConcurrentLinkedQueue<>();
+
+        /** whether a pool thread has been asked to run the next pending run, i.e. the queue is running */
+        private final AtomicBoolean running = new AtomicBoolean();
+
+        /**
+         * Set attributes
+         *
+         * @param name the name of the queue, used for logging
+         */
+        private TaskQueue(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Add the run of a task whose deadline has been reached.
+         *
+         * @param scheduledTask the task to run
+         */
+        private void add(ScheduledTask scheduledTask) {
+
+            pending.add(scheduledTask);
+            runNextLater();
+        }
+
+        /**
+         * Ask a pool thread to run the next pending run, unless one was already asked.
+         */
+        private void runNextLater() {
+
+            if(!pending.isEmpty() && running.compareAndSet(false, true)){
+                taskRunner.execute(this::runNext);
+            }
+        }
+
+        /**
+         * Run the next pending run on a pool thread.
+         */
+        private void runNext() {
+
+            try{
+                ScheduledTask scheduledTask = pending.poll();
+                if(scheduledTask != null){
+                    scheduledTask.run();
+                }
+            }finally{
+                running.set(false);
+
+                //a run added while this run was running couldn't ask for a pool thread
+                runNextLater();
+            }
+        }
+
+        @Override
+        public String toString() {
+
+            StringBuilder sb = new StringBuilder();
+            sb.append("[TaskQueue: ");
+            sb.append("name = ").append(name);
+            sb.append(", pending = ").append(pending.size());
+            sb.append(", running = ").append(running.get());
+            sb.append("]");
+            return sb.toString();
+        }
+    }
+
+    /**
+     * A task scheduled on the shared scheduler.  Cancelling the task is an O(1) operation that
+     * removes its pending run from the wheel.
+     *
+     * @author agent
+     *
+     */
+    public class ScheduledTask {
+
+        /** the task to run */
+        private final Runnable task;
+
+        /** the amount of time (ms) between runs of the task, zero or less to run the task once */
+        private final long period;
+
+        /** whether the runs are scheduled relative to the first deadline rather than the end of the previous run */
+        private final boolean fixedRate;
+
+        /** the queue the task is run on */
+        private final TaskQueue taskQueue;
+
+        /** the deadline (System.nanoTime) of the next run */
+        private volatile long deadlineNanos;
+
+        /** the pending run on the wheel, null before the first run is scheduled */
+        private volatile HashedWheelTimer.Timeout timeout;
+
+        /** whether the task has been cancelled */
+        private volatile boolean cancelled = false;
+
+        /**
+         * Set attributes
+         *
+         * @param task the task to run
+         * @param period the amount of time (ms) between runs of the task, zero or less to run the task once
+         * @param fixedRate whether the runs are scheduled relative to the first deadline
+         * @param taskQueue the queue the task is run on
+         */
+        private ScheduledTask(Runnable task, long period, boolean fixedRate, TaskQueue taskQueue) {
+            this.task = task;
+            this.period = period;
+            this.fixedRate = fixedRate;
+            this.taskQueue = taskQueue;
+        }
+
+        /**
+         * Place the next run of the task on the wheel.
+         *
+         * @param deadline the System.nanoTime the task should run at
+         */
+        private void scheduleAt(long deadline) {
+
+            deadlineNanos = deadline;
+            scheduledCount.incrementAndGet();
+            timeout = wheel.newTimeout(() -> taskQueue.add(this),
+                    Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+
+            if(cancelled){
+                //cancelled while being scheduled
+                timeout.cancel();
+            }
+        }
+
+        /**
+         * Run the task on a pool thread, called by the task queue, and schedule the next run of a repeating task.
+         */
+        private void run() {
+
+            if(cancelled){
+                return;
+            }
+
+            long latenessMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - deadlineNanos);
+            firedCount.incrementAndGet();
+            if(latenessMs > LATE_THRESHOLD_MS){
+                long late = lateCount.incrementAndGet();
+                maxLatenessMs.accumulateAndGet(latenessMs, Math::max);
+
+                if(late == 1 || late % LATE_WARNING_INTERVAL == 0){
+                    logger.warn("The condition timer task " + task + " of " + taskQueue + " started " + latenessMs +
+                            " ms late, the condition timers may not be keeping up.  " + ConditionTimerScheduler.this);
+                }else if(logger.isDebugEnabled()){
+                    logger.debug("The condition timer task " + task + " started " + latenessMs + " ms late.");
+                }
+            }
+
+            try{
+                task.run();
+            }catch(Throwable t){
+                logger.error("Caught exception while running the condition timer task " + task + ".", t);
+            }
+
+            if(period > 0 && !cancelled){
+                scheduleAt(fixedRate ? deadlineNanos + TimeUnit.MILLISECONDS.toNanos(period)
+                        : System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(period));
+            }
+        }
+
+        /**
+         * Cancel the task.  A run that has already started is allowed to finish, but no other run
+         * will start.  Doesn't wait for a running task, therefore this can be called while holding
+         * a lock the task needs.
+         *
+         * @return true if the task wasn't already cancelled
+         */
+        public boolean cancel() {
+
+            if(cancelled){
+                return false;
+            }
+
+            cancelled = true;
+            cancelledCount.incrementAndGet();
+
+            HashedWheelTimer.Timeout pending = timeout;
+            if(pending != null){
+                pending.cancel();
+            }
+
+            return true;
+        }
+
+        /**
+         * Return whether the task has been cancelled.
+         *
+         * @return true if {@link #cancel()} has been called
+         */
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * Return the queue the task is run on.
+         *
+         * @return the task queue provided when the task was scheduled
+         */
+        public TaskQueue getTaskQueue() {
+            return taskQueue;
+        }
+
+        @Override
+        public String toString() {
+
+            StringBuilder sb = new StringBuilder();
+            sb.append("[ScheduledTask: ");
+            sb.append("task = ").append(task);
+            sb.append(", period = ").append(period);
+            sb.append(", fixedRate = ").append(fixedRate);
+            sb.append(", cancelled = ").append(cancelled);
+            sb.append("]");
+            return sb.toString();
+        }
+    }
+}
@@ -24,7 +24,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import generated.dkf.LearnerActionEnumType;
-import mil.arl.gift.common.coordinate.CoordinateUtil;
 import mil.arl.gift.common.coordinate.GDC;
 import mil.arl.gift.common.course.dkf.ConditionDescription;
 import mil.arl.gift.common.course.dkf.ConditionDescription.FileDescription;
@@ -34,6 +33,7 @@ import mil.arl.gift.common.enums.AssessmentLevelEnum;
 import mil.arl.gift.common.enums.DamageEnum;
 import mil.arl.gift.common.enums.MessageTypeEnum;
 import mil.arl.gift.common.ta.state.ArticulationParameter;
+import mil.arl.gift.common.ta.state.EntityIdentifier;
 import mil.arl.gift.common.ta.state.EntityState;
 import mil.arl.gift.common.util.CollectionUtils;
 import mil.arl.gift.domain.knowledge.VariablesHandler.ActorVariables;
@@ -321,8 +321,9 @@ public class DetectObjectsCondition extends AbstractCondition {
             }
 
             
-            final GDC memberLocation = CoordinateUtil.getInstance().convertFromGCCToGDC(es.getLocation());
-            double assessedHeading = CoordinateUtil.getInstance().getHeading(es.getOrientation(), memberLocation);
+            final EntityStateCoordinates esCoordinates = getEntityCoordinates(message);
+            final GDC memberLocation = esCoordinates.getGdcLocation();
+            double assessedHeading = esCoordinates.getHeading();
             
             if(isPlatform && articulatedOrientation != null) {
             	
@@ -391,7 +392,9 @@ public class DetectObjectsCondition extends AbstractCondition {
                     
                 }
                 
-                // check detect team members
+                // check detect team members, the session's entity location index finds the members that could be
+                // within the view max distance instead of measuring the distance to every member
+                Set<EntityIdentifier> nearbyEntities = findNearbyEntities(es.getLocation(), viewMaxDistance);
                 for(String targetMemberName : memberObjectsToDetectAssessmentMap.keySet()){
                     
                     TeamMember<?> memberToDetect = getTeamMember(targetMemberName);
@@ -411,8 +414,8 @@ public class DetectObjectsCondition extends AbstractCondition {
                     }
                     
                     // check that the detect target is within the view max distance to be considered for this assessment
-                    double distanceBetweenLocations = es.getLocation().distance(targetMemberMetadata.getLastGccLocation());
-                    if(distanceBetweenLocations > viewMaxDistance){
+                    if(!isNearbyEntity(nearbyEntities, memberToDetect) ||
+                            es.getLocation().distance(targetMemberMetadata.getLastGccLocation()) > viewMaxDistance){
                         // not allowed to detect something that is out of distance
                         continue;
                     }
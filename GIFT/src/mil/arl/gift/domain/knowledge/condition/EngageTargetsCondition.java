@@ -254,8 +254,9 @@ public class EngageTargetsCondition extends AbstractCondition {
                 return false;
             }
             
-            final GDC memberLocation = CoordinateUtil.getInstance().convertFromGCCToGDC(es.getLocation());
-            final double assessedHeading = CoordinateUtil.getInstance().getHeading(es.getOrientation(), memberLocation);
+            final EntityStateCoordinates esCoordinates = getEntityCoordinates(message);
+            final GDC memberLocation = esCoordinates.getGdcLocation();
+            final double assessedHeading = esCoordinates.getHeading();
             
             //
             // Determine if any engage or non-engage targets on in the weapon cone in order to start timing.
@@ -316,7 +317,9 @@ public class EngageTargetsCondition extends AbstractCondition {
                     
                 }
                 
-                // check engage team members
+                // check engage team members, the session's entity location index finds the targets that could be
+                // within the weapon cone distance instead of measuring the distance to every target
+                Set<EntityIdentifier> nearbyEntities = findNearbyEntities(es.getLocation(), weaponConeDistance);
                 for(String targetMemberName : memberTargetsToEngageAssessmentMap.keySet()){
                     
                     TeamMember<?> targetMember = getTeamMember(targetMemberName);
@@ -336,8 +339,8 @@ public class EngageTargetsCondition extends AbstractCondition {
                     }
                     
                     // check that the engage target is within the weapon cone distance to be considered for this assessment
-                    double distanceBetweenLocations = es.getLocation().distance(targetMemberMetadata.getLastGccLocation());
-                    if(distanceBetweenLocations > weaponConeDistance){
+                    if(!isNearbyEntity(nearbyEntities, targetMember) ||
+                            es.getLocation().distance(targetMemberMetadata.getLastGccLocation()) > weaponConeDistance){
                         // TODO: may want to not remove here because if the object entered the Weapon Cone w/in max distance and
                         //       then moved beyond max distance w/o first entering the inner cone, isn't this a violation of not engaging?
                         engageTargetsInWeaponCone.remove(targetMemberName); // the target could have moved out of the weapon cone
@@ -0,0 +1,112 @@
+/**
+ * Copyright Dignitas Technologies, LLC
+ *
+ * This file and its contents are governed by one or more distribution and
+ * copyright statements as described in the LICENSE.txt file distributed with
+ * this work.
+ */
+package mil.arl.gift.domain.knowledge.condition;
+
+import mil.arl.gift.common.coordinate.CoordinateUtil;
+import mil.arl.gift.common.coordinate.GDC;
+import mil.arl.gift.common.ta.state.EntityState;
+
+/**
+ * The coordinates derived from the GCC location of a single entity state message, computed the first time
+ * they are needed and then shared by every condition that assesses the same message.  The scenario
+ * creates one for each entity state it receives and the session blackboard keeps the one of the latest
+ * entity state of each entity (see {@link SessionConditionsBlackboardMgr.SessionConditionsBlackboard#getEntityCoordinates(EntityState)})
+ * so the GCC to GDC conversion and the heading calculation run at most once per message instead of once per condition.<br/>
+ * <br/>
+ * The returned values are shared and must not be modified.  AGL values are not cached since
+ * they can't be derived from the GCC location without the training application.
+ *
+ * @author agent
+ *
+ */
+public class EntityStateCoordinates {
+
+    /** the entity state message the coordinates are derived from */
+    private final EntityState entityState;
+
+    /** the GDC location of the entity, null until first requested */
+    private volatile GDC gdcLocation;
+
+    /** the heading (degrees from north) of the entity, null until first requested */
+    private volatile Double heading;
+
+    /**
+     * Set attributes
+     *
+     * @param entityState the entity state message the coordinates are derived from.  Can't be null.
+     */
+    public EntityStateCoordinates(EntityState entityState) {
+
+        if(entityState == null){
+            throw new IllegalArgumentException("The entity state can't be null.");
+        }
+
+        this.entityState = entityState;
+    }
+
+    /**
+     * Return the entity state message the coordinates are derived from.
+     *
+     * @return the entity state.  Won't be null.
+     */
+    public EntityState getEntityState() {
+        return entityState;
+    }
+
+    /**
+     * Return the GDC location of the entity, converting it from the GCC location the first time.
+     *
+     * @return the GDC location, shared with other conditions and must not be modified.  Won't be null.
+     */
+    public GDC getGdcLocation() {
+
+        GDC gdc = gdcLocation;
+        if(gdc == null){
+            synchronized(this){
+                gdc = gdcLocation;
+                if(gdc == null){
+                    gdc = CoordinateUtil.getInstance().convertFromGCCToGDC(entityState.getLocation());
+                    gdcLocation = gdc;
+                }
+            }
+        }
+
+        return gdc;
+    }
+
+    /**
+     * Return the heading of the entity, calculating it from the orientation and GDC location the first time.
+     *
+     * @return the heading as degrees from north (see {@link CoordinateUtil#getHeading(javax.vecmath.Vector3d, GDC)})
+     */
+    public double getHeading() {
+
+        Double value = heading;
+        if(value == null){
+            synchronized(this){
+                value = heading;
+                if(value == null){
+                    value = CoordinateUtil.getInstance().getHeading(entityState.getOrientation(), getGdcLocation());
+                    heading = value;
+                }
+            }
+        }
+
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("[EntityStateCoordinates: entityId = ").append(entityState.getEntityID());
+        sb.append(", gdcLocation = ").append(gdcLocation);
+        sb.append(", heading = ").append(heading);
+        sb.append("]");
+        return sb.toString();
+    }
+}
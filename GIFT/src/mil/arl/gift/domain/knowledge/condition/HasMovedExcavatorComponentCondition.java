@@ -14,7 +14,6 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.Timer;
 import java.util.TimerTask;
 
 import org.slf4j.Logger;
@@ -100,7 +99,7 @@ public class HasMovedExcavatorComponentCondition extends AbstractCondition {
     private int assessmentsCnt = 0;
     
     /** used to separate assessments by a delay to prevent a rapid fire of assessment values */
-    private Timer reassessTimer = new Timer("Re-assess Timer");
+    private SchedulableTimer reassessTimer = new SchedulableTimer("Re-assess Timer");
     
     /**
      * Default constructor - required for authoring logic
@@ -26,7 +26,6 @@ import org.slf4j.LoggerFactory;
 
 import generated.dkf.LearnerActionEnumType;
 import generated.dkf.RealTimeAssessmentRules;
-import mil.arl.gift.common.coordinate.CoordinateUtil;
 import mil.arl.gift.common.coordinate.GDC;
 import mil.arl.gift.common.course.dkf.ConditionDescription;
 import mil.arl.gift.common.course.dkf.ConditionDescription.FileDescription;
@@ -204,6 +203,15 @@ public class MuzzleFlaggingCondition extends AbstractCondition {
             final Point3d assessedGcc = assessedMetadata.getLastGccLocation();
             final GDC assessedGdc = assessedMetadata.getLastGdcLocation();
 
+            /* When there is a max distance, use the session's entity location index
+             * to find the entities that could be flagged instead of measuring the distance
+             * to every target. */
+            final Set<EntityIdentifier> nearbyEntities = maxDistanceSquared != 0
+                    ? findNearbyEntities(assessedGcc, Math.sqrt(maxDistanceSquared)) : null;
+
+            /* the heading is shared with the other conditions assessing this entity state */
+            final double assessedHeading = getEntityCoordinates(message).getHeading();
+
             /* Check this entity against all other assessed entities. */
             boolean violatedOrientation = false, violatedFlagging = false;
             for (String targetMemberName : getTeamOrgRefs().getTeamMemberRef()) {
@@ -216,6 +224,11 @@ public class MuzzleFlaggingCondition extends AbstractCondition {
                 /* Fetch the target location */
                 final TeamMember<?> targetMember = getTeamMember(targetMemberName);
 
+                /* Skip the targets that are too far away to be flagged. */
+                if (!isNearbyEntity(nearbyEntities, targetMember)) {
+                    continue;
+                }
+
                 /* If the metadata for the target is not yet known, skip the
                  * assessment for now. */
                 final AssessedEntityMetadata targetMetadata;
@@ -241,7 +254,6 @@ public class MuzzleFlaggingCondition extends AbstractCondition {
 
                 /* Test the angle to determine whether or not this entity is
                  * violating the muzzle flagging condition. */
-                final double assessedHeading = CoordinateUtil.getInstance().getHeading(es.getOrientation(), assessedGdc);
                 final double theta = getTheta(assessedGdc, targetGdc, assessedHeading);
 
                 /* If the theta value is under the threshold, update the
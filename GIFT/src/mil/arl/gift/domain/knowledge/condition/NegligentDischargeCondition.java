@@ -213,8 +213,9 @@ public class NegligentDischargeCondition extends AbstractCondition {
                 return false;
             }
             
-            final GDC memberLocation = CoordinateUtil.getInstance().convertFromGCCToGDC(es.getLocation());
-            final double assessedHeading = CoordinateUtil.getInstance().getHeading(es.getOrientation(), memberLocation);
+            final EntityStateCoordinates esCoordinates = getEntityCoordinates(message);
+            final GDC memberLocation = esCoordinates.getGdcLocation();
+            final double assessedHeading = esCoordinates.getHeading();
             
             //
             // Determine if any non-engage targets on in the weapon cone
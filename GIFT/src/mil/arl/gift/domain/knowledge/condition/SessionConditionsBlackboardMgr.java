@@ -10,13 +10,18 @@ package mil.arl.gift.domain.knowledge.condition;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+import mil.arl.gift.common.ta.state.EntityIdentifier;
 import mil.arl.gift.common.ta.state.EntityState;
 import mil.arl.gift.common.ta.state.VariablesState.VariableNumberState;
 import mil.arl.gift.common.ta.state.VariablesState.WeaponState;
 import mil.arl.gift.common.util.StringUtils;
+import mil.arl.gift.domain.DomainModuleProperties;
+import mil.arl.gift.domain.knowledge.common.SpatialGridIndex;
 
 /**
  * Manages black boards for multiple domain sessions.  A blackboard is used to store shared information
@@ -59,7 +64,7 @@ public class SessionConditionsBlackboardMgr {
      * @param dsId the domain session to get the blackboard for. Can't be null.
      * @return the blackboard for the specified domain session.
      */
-    public SessionConditionsBlackboard getSessionBlackboard(Integer dsId){
+    public synchronized SessionConditionsBlackboard getSessionBlackboard(Integer dsId){
         
         if(dsId == null){
             throw new IllegalArgumentException("The domain session id can't be null");
@@ -80,9 +85,15 @@ public class SessionConditionsBlackboardMgr {
      *
      */
     public static class SessionConditionsBlackboard{
+        
+        /** 
+         * the amount of time (ms) an entity can go without an entity state before it is removed from the
+         * entity location index, the same as the entity table's entity timeout 
+         */
+        private static final int ENTITY_LOCATION_TIMEOUT_MS = DomainModuleProperties.getInstance().getEntityTableEntityTimeoutMillis();
 
         /** mapping of entity id (e.g. entity marking) to the common state for that actor */
-        private Map<String, ConditionEntityState> entityIdToState = new HashMap<>();
+        private Map<String, ConditionEntityState> entityIdToState = new ConcurrentHashMap<>();
         
         /** contains entities (e.g. entity marking) that have a pending weapon state request */
         private Set<String> pendingEntityWeaponStateRequests = new HashSet<>();
@@ -95,6 +106,24 @@ public class SessionConditionsBlackboardMgr {
          */
         private boolean trainingAppAvailable = true;
         
+        /** 
+         * the latest GCC location of every entity in the session, updated once per entity state so that
+         * conditions can find the entities near a location without checking the distance to each entity 
+         */
+        private final SpatialGridIndex<EntityIdentifier> entityLocationIndex = new SpatialGridIndex<>();
+        
+        /** the time (epoch ms) of the latest entity state of each entity in the entity location index */
+        private final Map<EntityIdentifier, Long> entityLocationTimes = new HashMap<>();
+        
+        /** the last time (epoch ms) the entity location index was checked for entities that timed out */
+        private long lastEntityTimeoutCheck = System.currentTimeMillis();
+        
+        /** 
+         * the derived coordinates of the latest entity state message of each entity, so that the entity
+         * states of different entities don't replace each other's coordinates
+         */
+        private final Map<EntityIdentifier, EntityStateCoordinates> entityIdToCoordinates = new ConcurrentHashMap<>();
+        
         /**
          * Return the condition state information for the entity identified by the provided value
          * @param entityId an entity identifier unique to the session (e.g. entity marking).  Can't be null or empty.
@@ -106,13 +135,8 @@ public class SessionConditionsBlackboardMgr {
                 throw new IllegalArgumentException("The entity id can't be null or blank");
             }
             
-            ConditionEntityState state = entityIdToState.get(entityId);
-            if(state == null){
-                state = new ConditionEntityState();
-                entityIdToState.put(entityId, state);
-            }
-            
-            return state;
+            // concurrent since conditions can be assessed in parallel
+            return entityIdToState.computeIfAbsent(entityId, key -> new ConditionEntityState());
         }
         
         /**
@@ -182,6 +206,91 @@ public class SessionConditionsBlackboardMgr {
         public void setTrainingAppAvailable(boolean trainingAppAvailable) {
             this.trainingAppAvailable = trainingAppAvailable;
         }
+        
+        /**
+         * Update the location of the entity in the {@link #getEntityLocationIndex() entity location index}.
+         * A deactivated entity is removed from the index, as are the entities that haven't had an entity state
+         * for longer than the entity table's entity timeout.
+         * @param entityState the latest state of an entity in this session.  If null or missing a location
+         * this method does nothing.
+         */
+        public synchronized void updateEntityLocation(EntityState entityState){
+            
+            if(entityState == null || entityState.getEntityID() == null || entityState.getLocation() == null){
+                return;
+            }
+            
+            long now = System.currentTimeMillis();
+            EntityIdentifier entityId = entityState.getEntityID();
+            if(entityState.getAppearance() != null && !entityState.getAppearance().isActive()){
+                // the entity left the scenario
+                entityLocationIndex.remove(entityId);
+                entityLocationTimes.remove(entityId);
+                entityIdToCoordinates.remove(entityId);
+            }else{
+                entityLocationIndex.update(entityId, entityState.getLocation());
+                entityLocationTimes.put(entityId, now);
+                entityIdToCoordinates.put(entityId, new EntityStateCoordinates(entityState));
+            }
+            
+            if(now - lastEntityTimeoutCheck >= ENTITY_LOCATION_TIMEOUT_MS / 2){
+                removeTimedOutEntityLocations(now);
+                lastEntityTimeoutCheck = now;
+            }
+        }
+        
+        /**
+         * Remove the entities that haven't had an entity state for longer than the entity timeout from the 
+         * entity location index.
+         * @param now the current time (epoch ms)
+         */
+        private void removeTimedOutEntityLocations(long now){
+            
+            Iterator<Map.Entry<EntityIdentifier, Long>> itr = entityLocationTimes.entrySet().iterator();
+            while(itr.hasNext()){
+                
+                Map.Entry<EntityIdentifier, Long> entry = itr.next();
+                if(now - entry.getValue() > ENTITY_LOCATION_TIMEOUT_MS){
+                    entityLocationIndex.remove(entry.getKey());
+                    entityIdToCoordinates.remove(entry.getKey());
+                    itr.remove();
+                }
+            }
+        }
+        
+        /**
+         * Return the derived coordinates (e.g. GDC) of the entity state message, shared by all the conditions
+         * assessing that message so the conversions run at most once per message.  The coordinates of the
+         * latest entity state of each entity are kept.
+         * @param entityState the entity state message being assessed.  Can't be null.
+         * @return the coordinates for that entity state.  Won't be null.
+         */
+        public EntityStateCoordinates getEntityCoordinates(EntityState entityState){
+            
+            EntityIdentifier entityId = entityState.getEntityID();
+            if(entityId == null){
+                return new EntityStateCoordinates(entityState);
+            }
+            
+            EntityStateCoordinates coordinates = entityIdToCoordinates.get(entityId);
+            if(coordinates == null || coordinates.getEntityState() != entityState){
+                // the message wasn't seen by the scenario first, cache it for the other conditions
+                coordinates = new EntityStateCoordinates(entityState);
+                entityIdToCoordinates.put(entityId, coordinates);
+            }
+            
+            return coordinates;
+        }
+        
+        /**
+         * Return the index of the latest GCC location of every entity in this session.  Conditions should 
+         * use it to narrow down the entities near a location and still check the exact distance to each 
+         * entity found.
+         * @return the entity location index.  Won't be null.
+         */
+        public SpatialGridIndex<EntityIdentifier> getEntityLocationIndex() {
+            return entityLocationIndex;
+        }
     }
     
     
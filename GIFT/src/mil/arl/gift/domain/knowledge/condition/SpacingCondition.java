@@ -22,6 +22,7 @@ import mil.arl.gift.common.course.dkf.ConditionDescription.FileDescription;
 import mil.arl.gift.common.course.dkf.team.TeamMember;
 import mil.arl.gift.common.enums.AssessmentLevelEnum;
 import mil.arl.gift.common.enums.MessageTypeEnum;
+import mil.arl.gift.common.ta.state.EntityIdentifier;
 import mil.arl.gift.common.ta.state.EntityState;
 import mil.arl.gift.net.api.message.Message;
 
@@ -178,6 +179,9 @@ public class SpacingCondition extends AbstractCondition {
             if (teamMember == null) {
                 return false;
             }            
+            
+            // needed to find the nearby entities with the session's entity location index
+            setBlackboard(message);
 
             AssessmentWrapper assessmentWrapper = teamMemberRefAssessmentMap.get(teamMember.getName());
             if(assessmentWrapper == null){
@@ -323,6 +327,10 @@ public class SpacingCondition extends AbstractCondition {
         AssessmentLevelEnum assessment = null;
         if(spaces != null){
             
+            // the session's entity location index finds the other entities that could be within a spacing limit,
+            // an entity that isn't found is farther away than every limit of its spacing pairs
+            Set<EntityIdentifier> nearbyEntities = findNearbyEntities(entityState.getLocation(), assessmentWrapper.getMaxSpacing());
+            
             for(generated.dkf.SpacingCondition.SpacingPair spacingPair : spaces){
                 
                 // find the other entity
@@ -360,7 +368,12 @@ public class SpacingCondition extends AbstractCondition {
                     }
                 }
                 
-                double distance = entityState.getLocation().distance(otherEntityState.getLocation());
+                double distance;
+                if(nearbyEntities == null || nearbyEntities.contains(otherEntityState.getEntityID())){
+                    distance = entityState.getLocation().distance(otherEntityState.getLocation());
+                }else{
+                    distance = Double.POSITIVE_INFINITY;
+                }
                 
                 // Check ideal range first, acceptable range second
                 // If already have an assessment, the assessment can't increase but only decrease, therefore
@@ -509,6 +522,9 @@ public class SpacingCondition extends AbstractCondition {
          */
         private List<generated.dkf.SpacingCondition.SpacingPair> spacingPairs = new ArrayList<>();
         
+        /** the largest ideal or acceptable max spacing of the spacing pairs, null until calculated */
+        private Double maxSpacing = null;
+        
         /**
          * Set attribute
          * 
@@ -532,6 +548,33 @@ public class SpacingCondition extends AbstractCondition {
             return spacingPairs;
         }
         
+        /**
+         * Return the largest distance at which this member could be within a spacing limit of the other
+         * member of one of its spacing pairs.
+         * @return the largest ideal or acceptable max spacing (meters) of the spacing pairs, 0 if there are none
+         */
+        public double getMaxSpacing(){
+            
+            if(maxSpacing == null){
+                
+                double max = 0;
+                for(generated.dkf.SpacingCondition.SpacingPair spacingPair : spacingPairs){
+                    
+                    if(spacingPair.getIdeal() != null){
+                        max = Math.max(max, spacingPair.getIdeal().getIdealMaxSpacing().doubleValue());
+                    }
+                    
+                    if(spacingPair.getAcceptable() != null){
+                        max = Math.max(max, spacingPair.getAcceptable().getAcceptableMaxSpacing().doubleValue());
+                    }
+                }
+                
+                maxSpacing = max;
+            }
+            
+            return maxSpacing;
+        }
+        
         /**
          * Return the team member name for the team member being assessed
          * @return won't be null or empty.
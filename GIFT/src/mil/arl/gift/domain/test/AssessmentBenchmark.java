@@ -0,0 +1,656 @@
+/**
+ * Copyright Dignitas Technologies, LLC
+ *
+ * This file and its contents are governed by one or more distribution and
+ * copyright statements as described in the LICENSE.txt file distributed with
+ * this work.
+ */
+package mil.arl.gift.domain.test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.net.InetAddress;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import javax.vecmath.Point3d;
+import javax.vecmath.Vector3d;
+
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import mil.arl.gift.common.DomainAssessmentContent;
+import mil.arl.gift.common.PerformanceAssessment;
+import mil.arl.gift.common.SurveyResultListener;
+import mil.arl.gift.common.UserSession;
+import mil.arl.gift.common.aar.util.MessageManager;
+import mil.arl.gift.common.coordinate.CoordinateUtil;
+import mil.arl.gift.common.coordinate.GDC;
+import mil.arl.gift.common.course.dkf.session.AbstractKnowledgeSession.SessionMembers;
+import mil.arl.gift.common.course.dkf.session.LessonCompleted.LessonCompletedStatusType;
+import mil.arl.gift.common.course.dkf.team.LocatedTeamMember;
+import mil.arl.gift.common.course.dkf.team.MarkedTeamMember;
+import mil.arl.gift.common.course.dkf.team.Team;
+import mil.arl.gift.common.course.dkf.team.TeamMember;
+import mil.arl.gift.common.enums.DamageEnum;
+import mil.arl.gift.common.enums.MessageTypeEnum;
+import mil.arl.gift.common.enums.ModuleTypeEnum;
+import mil.arl.gift.common.enums.PostureEnum;
+import mil.arl.gift.common.io.DesktopFolderProxy;
+import mil.arl.gift.common.io.FileProxy;
+import mil.arl.gift.common.ta.request.TrainingAppInfoRequest;
+import mil.arl.gift.common.ta.state.EntityAppearance;
+import mil.arl.gift.common.ta.state.EntityIdentifier;
+import mil.arl.gift.common.ta.state.EntityMarking;
+import mil.arl.gift.common.ta.state.EntityState;
+import mil.arl.gift.common.ta.state.EntityType;
+import mil.arl.gift.common.ta.state.SimulationAddress;
+import mil.arl.gift.domain.DomainDKFHandler;
+import mil.arl.gift.domain.knowledge.Concept;
+import mil.arl.gift.domain.knowledge.DomainAssessmentKnowledge;
+import mil.arl.gift.domain.knowledge.IntermediateConcept;
+import mil.arl.gift.domain.knowledge.Task;
+import mil.arl.gift.domain.knowledge.common.AbstractSurveyLessonAssessment;
+import mil.arl.gift.domain.knowledge.common.AssessmentProxy;
+import mil.arl.gift.domain.knowledge.common.DomainKnowledgeInterface;
+import mil.arl.gift.domain.knowledge.condition.AbstractCondition;
+import mil.arl.gift.net.api.message.DomainSessionMessage;
+import mil.arl.gift.net.api.message.Message;
+
+/**
+ * Measures the throughput and allocation rate of the DKF assessment pipeline without a GIFT deployment.
+ * A DKF is loaded the same way the domain module loads it and is fed a synthetic stream of entity state
+ * messages, for the team members of the DKF and additional entities, without any network.<br/>
+ * <br/>
+ * The whole pipeline (scenario, tasks, concepts and conditions) is measured along with each condition
+ * type on its own.  The results are written to a JSON report which is compared to a baseline report
+ * recorded on the same host, a drop in throughput or an increase in allocation beyond the tolerance is
+ * reported as a regression and the process exits with a non-zero status.  A missing baseline is also a
+ * failure, the baseline is only written when {@value #RECORD_FLAG} is given.  The report describes the host
+ * and JVM it was measured on, a warning is printed when the baseline was recorded on a different one.<br/>
+ * <br/>
+ * Usage: AssessmentBenchmark [{@value #RECORD_FLAG}] &lt;dkf file&gt; [entities] [messages per run] [runs] [report file] [baseline file] [tolerance %]<br/>
+ * Also available from the domain module's 'benchmark' Ant target, which measures config/domain/benchmark/sample.dkf.xml
+ * by default.
+ *
+ * @author agent
+ *
+ */
+public class AssessmentBenchmark {
+
+    /** instance of the logger */
+    private static final Logger logger = LoggerFactory.getLogger(AssessmentBenchmark.class);
+
+    /** the default number of entities in the synthetic stream */
+    private static final int DEFAULT_ENTITY_COUNT = 200;
+
+    /** the default number of messages per measured run */
+    private static final int DEFAULT_MESSAGES_PER_RUN = 20000;
+
+    /** the default number of measured runs, the same number of warmup runs are done first */
+    private static final int DEFAULT_RUNS = 5;
+
+    /** the default allowed change (percent) from the baseline before it is reported as a regression */
+    private static final double DEFAULT_TOLERANCE_PERCENT = 10.0;
+
+    /** the argument that writes the report as the baseline instead of comparing the report to the baseline */
+    public static final String RECORD_FLAG = "-record";
+
+    /** the domain session id of the synthetic messages */
+    private static final int DOMAIN_SESSION_ID = 1;
+
+    /** where the synthetic entities are placed when the DKF has no located team members (GDC) */
+    private static final GDC DEFAULT_ORIGIN = new GDC(32.36, -84.95, 100);
+
+    /** the synthetic entities move around the origin within this distance (meters) */
+    private static final double SPREAD_METERS = 500.0;
+
+    /** report keys */
+    private static final String THROUGHPUT = "messagesPerSecond";
+    private static final String ALLOCATION = "bytesPerMessage";
+    private static final String PIPELINE = "pipeline";
+    private static final String CONDITIONS = "conditions";
+    private static final String HOST = "host";
+    private static final String JVM = "jvm";
+
+    /** the file describing the processors of a Linux host */
+    private static final File CPU_INFO_FILE = new File("/proc/cpuinfo");
+
+    /** the assessment knowledge of the loaded DKF */
+    private final DomainAssessmentKnowledge assessmentKnowledge;
+
+    /** the conditions of the DKF grouped by class name, in a stable order */
+    private final Map<String, List<AbstractCondition>> conditionsByType = new LinkedHashMap<>();
+
+    /** the synthetic entity state messages provided in every run */
+    private final List<Message> messages;
+
+    /** the number of measured runs */
+    private final int runs;
+
+    /** used to measure the bytes allocated by the benchmark thread, null if the JVM doesn't support it */
+    private final com.sun.management.ThreadMXBean threadBean;
+
+    /**
+     * Load the DKF and create the synthetic messages.
+     *
+     * @param dkfFile the DKF to assess.  The course folder is the folder containing the DKF.
+     * @param entityCount the number of entities in the synthetic stream
+     * @param messageCount the number of messages per run
+     * @param runs the number of measured runs
+     * @throws Exception if there was a problem loading the DKF
+     */
+    public AssessmentBenchmark(File dkfFile, int entityCount, int messageCount, int runs) throws Exception {
+
+        DomainDKFHandler dkfHandler = new DomainDKFHandler(new FileProxy(dkfFile),
+                new DesktopFolderProxy(dkfFile.getAbsoluteFile().getParentFile()), null, true);
+
+        assessmentKnowledge = dkfHandler.getDomainAssessmentKnowledge();
+        assessmentKnowledge.registerNodes(new AssessmentProxy());
+        if(!assessmentKnowledge.load(new BenchmarkDomainKnowledge())){
+            throw new Exception("Failed to load the assessment knowledge of " + dkfFile);
+        }
+        assessmentKnowledge.start();
+
+        for(Task task : assessmentKnowledge.getScenario().getTasks()){
+            for(Concept concept : task.getConcepts()){
+                addConditions(concept);
+            }
+        }
+
+        this.messages = createMessages(entityCount, messageCount);
+        this.runs = runs;
+
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if(bean instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean)bean).isThreadAllocatedMemorySupported()){
+            threadBean = (com.sun.management.ThreadMXBean)bean;
+            threadBean.setThreadAllocatedMemoryEnabled(true);
+        }else{
+            threadBean = null;
+            logger.warn("Allocation can't be measured on this JVM, only throughput will be reported.");
+        }
+    }
+
+    /**
+     * Add the conditions of the concept, and of the concepts under an intermediate concept, to the
+     * conditions by type.
+     *
+     * @param concept the concept to get the conditions from
+     */
+    private void addConditions(Concept concept) {
+
+        if(concept instanceof IntermediateConcept){
+            for(Concept child : ((IntermediateConcept)concept).getConcepts()){
+                addConditions(child);
+            }
+        }else{
+            for(AbstractCondition condition : concept.getConditions()){
+                conditionsByType.computeIfAbsent(condition.getClass().getSimpleName(), type -> new ArrayList<>()).add(condition);
+            }
+        }
+    }
+
+    /**
+     * Create the entity state messages of entities moving around the first located team member of the DKF.
+     * The team members of the DKF are the first entities so that the conditions assess them.
+     *
+     * @param entityCount the number of entities
+     * @param messageCount the number of messages, the entities take turns
+     * @return the messages.  Won't be null.
+     */
+    private List<Message> createMessages(int entityCount, int messageCount) {
+
+        List<String> markings = new ArrayList<>();
+        Point3d origin = CoordinateUtil.getInstance().convertToPoint(DEFAULT_ORIGIN);
+
+        Team rootTeam = assessmentKnowledge.getScenario().getRootTeam();
+        if(rootTeam != null){
+            for(TeamMember<?> member : rootTeam.getTeamMembers()){
+
+                if(member instanceof MarkedTeamMember){
+                    markings.add(((MarkedTeamMember)member).getIdentifier());
+                }else if(member instanceof LocatedTeamMember && markings.isEmpty()){
+                    origin = CoordinateUtil.getInstance().convertToPoint(((LocatedTeamMember)member).getIdentifier());
+                }
+            }
+        }
+
+        Collections.sort(markings);
+        while(markings.size() < entityCount){
+            markings.add("Entity" + markings.size());
+        }
+
+        //the same seed every time so the runs and the baselines see the same stream
+        Random random = new Random(entityCount);
+        SimulationAddress simAddress = new SimulationAddress(1, 1);
+        UserSession userSession = new UserSession(1);
+
+        List<Message> stream = new ArrayList<>(messageCount);
+        for(int index = 0; index < messageCount; index++){
+
+            int entity = index % entityCount;
+            Point3d location = new Point3d(origin.x + (random.nextDouble() - 0.5) * SPREAD_METERS,
+                    origin.y + (random.nextDouble() - 0.5) * SPREAD_METERS, origin.z);
+            Vector3d velocity = new Vector3d(random.nextDouble() * 2, random.nextDouble() * 2, 0);
+            Vector3d orientation = new Vector3d(random.nextDouble() * Math.PI * 2, 0, 0);
+
+            EntityState entityState = new EntityState(new EntityIdentifier(simAddress, entity + 1), 1,
+                    new EntityType(1, 1, 225, 3, 1, 1, 0), velocity, location, orientation, new ArrayList<>(),
+                    new EntityAppearance(DamageEnum.HEALTHY, PostureEnum.STANDING),
+                    new EntityMarking(EntityMarking.ASCII_CHARACTER_SET, markings.get(entity)));
+
+            stream.add(new DomainSessionMessage(MessageTypeEnum.ENTITY_STATE, 0, "AssessmentBenchmark", "AssessmentBenchmark",
+                    ModuleTypeEnum.GATEWAY_MODULE, "AssessmentBenchmark", entityState, userSession, DOMAIN_SESSION_ID, false));
+        }
+
+        return stream;
+    }
+
+    /**
+     * Run the benchmark.
+     *
+     * @return the report containing the throughput and allocation of the pipeline and of each condition type
+     */
+    @SuppressWarnings("unchecked")
+    public JSONObject run() {
+
+        JSONObject report = new JSONObject();
+        report.put("messages", messages.size());
+        report.put("runs", runs);
+        report.put("recorded", new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ").format(new Date()));
+        report.put(HOST, describeHost());
+        report.put(JVM, describeJvm());
+
+        // the pipeline first, so the team members are assigned their entities like in a real session
+        report.put(PIPELINE, measure(message -> assessmentKnowledge.trainingAppGameStateMessageReceived(message), 1));
+
+        JSONObject conditions = new JSONObject();
+        for(Map.Entry<String, List<AbstractCondition>> entry : conditionsByType.entrySet()){
+
+            final List<AbstractCondition> typeConditions = entry.getValue();
+            JSONObject result = measure(message -> {
+                for(AbstractCondition condition : typeConditions){
+                    condition.handleTrainingAppGameState(message);
+                }
+            }, typeConditions.size());
+            result.put("count", typeConditions.size());
+            conditions.put(entry.getKey(), result);
+        }
+        report.put(CONDITIONS, conditions);
+
+        return report;
+    }
+
+    /**
+     * Describe the hardware and operating system the benchmark is running on.
+     *
+     * @return the host name, operating system, processor model and count and physical memory (when known)
+     */
+    @SuppressWarnings("unchecked")
+    private static JSONObject describeHost() {
+
+        JSONObject host = new JSONObject();
+        try{
+            host.put("name", InetAddress.getLocalHost().getHostName());
+        }catch(Exception e){
+            logger.warn("Unable to get the name of this host.", e);
+        }
+
+        host.put("os", System.getProperty("os.name") + " " + System.getProperty("os.version"));
+        host.put("arch", System.getProperty("os.arch"));
+        host.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+
+        String cpuModel = getCpuModel();
+        if(cpuModel != null){
+            host.put("cpuModel", cpuModel);
+        }
+
+        OperatingSystemMXBean osBean = ManagementFactory.getOperatingSystemMXBean();
+        if(osBean instanceof com.sun.management.OperatingSystemMXBean){
+            host.put("physicalMemoryBytes", ((com.sun.management.OperatingSystemMXBean)osBean).getTotalPhysicalMemorySize());
+        }
+
+        return host;
+    }
+
+    /**
+     * Return the processor model of this host, from /proc/cpuinfo on Linux or the PROCESSOR_IDENTIFIER
+     * environment variable on Windows.
+     *
+     * @return the processor model, null if it isn't known
+     */
+    private static String getCpuModel() {
+
+        if(CPU_INFO_FILE.canRead()){
+
+            try(BufferedReader reader = new BufferedReader(new FileReader(CPU_INFO_FILE))){
+
+                String line;
+                while((line = reader.readLine()) != null){
+                    if(line.startsWith("model name")){
+                        return line.substring(line.indexOf(':') + 1).trim();
+                    }
+                }
+            }catch(Exception e){
+                logger.warn("Unable to read the processor model from " + CPU_INFO_FILE + ".", e);
+            }
+        }
+
+        return System.getenv("PROCESSOR_IDENTIFIER");
+    }
+
+    /**
+     * Describe the JVM the benchmark is running in.
+     *
+     * @return the vendor, name and version of the JVM and its maximum heap size
+     */
+    @SuppressWarnings("unchecked")
+    private static JSONObject describeJvm() {
+
+        JSONObject jvm = new JSONObject();
+        jvm.put("vendor", System.getProperty("java.vm.vendor"));
+        jvm.put("name", System.getProperty("java.vm.name"));
+        jvm.put("version", System.getProperty("java.version"));
+        jvm.put("maxHeapBytes", Runtime.getRuntime().maxMemory());
+        jvm.put("arguments", String.join(" ", ManagementFactory.getRuntimeMXBean().getInputArguments()));
+        return jvm;
+    }
+
+    /**
+     * Provide every message to the assessment, first for the warmup runs and then for the measured runs.
+     *
+     * @param assessment the assessment being measured
+     * @param assessmentsPerMessage the number of assessments (e.g. conditions) per message, used to report per assessment values
+     * @return the best throughput and the lowest allocation of the measured runs
+     */
+    @SuppressWarnings("unchecked")
+    private JSONObject measure(MessageAssessment assessment, int assessmentsPerMessage) {
+
+        for(int run = 0; run < runs; run++){
+            for(Message message : messages){
+                assessment.assess(message);
+            }
+        }
+
+        double bestThroughput = 0;
+        double lowestAllocation = Double.MAX_VALUE;
+        long threadId = Thread.currentThread().getId();
+        for(int run = 0; run < runs; run++){
+
+            long startBytes = threadBean != null ? threadBean.getThreadAllocatedBytes(threadId) : 0;
+            long start = System.nanoTime();
+
+            for(Message message : messages){
+                assessment.assess(message);
+            }
+
+            long elapsed = Math.max(1, System.nanoTime() - start);
+            long bytes = threadBean != null ? threadBean.getThreadAllocatedBytes(threadId) - startBytes : 0;
+
+            double operations = (double) messages.size() * assessmentsPerMessage;
+            bestThroughput = Math.max(bestThroughput, operations * 1_000_000_000L / elapsed);
+            lowestAllocation = Math.min(lowestAllocation, bytes / operations);
+        }
+
+        JSONObject result = new JSONObject();
+        result.put(THROUGHPUT, bestThroughput);
+        if(threadBean != null){
+            result.put(ALLOCATION, lowestAllocation);
+        }
+        return result;
+    }
+
+    /**
+     * Compare the report to the baseline.
+     *
+     * @param report the report of this run
+     * @param baseline a report recorded earlier on the same host
+     * @param tolerancePercent the allowed drop in throughput or increase in allocation (percent)
+     * @return a description of each regression found.  Empty if there are none.
+     */
+    static List<String> findRegressions(JSONObject report, JSONObject baseline, double tolerancePercent) {
+
+        List<String> regressions = new ArrayList<>();
+        compare(PIPELINE, (JSONObject)report.get(PIPELINE), (JSONObject)baseline.get(PIPELINE), tolerancePercent, regressions);
+
+        JSONObject conditions = (JSONObject)report.get(CONDITIONS);
+        JSONObject baselineConditions = (JSONObject)baseline.get(CONDITIONS);
+        if(conditions != null && baselineConditions != null){
+            for(Object type : conditions.keySet()){
+                compare((String)type, (JSONObject)conditions.get(type), (JSONObject)baselineConditions.get(type), tolerancePercent, regressions);
+            }
+        }
+
+        return regressions;
+    }
+
+    /**
+     * Compare the throughput and allocation of one measurement to its baseline.
+     *
+     * @param name the name of the measurement (e.g. a condition type)
+     * @param result the measurement of this run
+     * @param baseline the baseline measurement, if null the measurement is new and is not compared
+     * @param tolerancePercent the allowed drop in throughput or increase in allocation (percent)
+     * @param regressions where to add a description of each regression found
+     */
+    private static void compare(String name, JSONObject result, JSONObject baseline, double tolerancePercent, List<String> regressions) {
+
+        if(result == null || baseline == null){
+            return;
+        }
+
+        double tolerance = tolerancePercent / 100.0;
+        Number throughput = (Number)result.get(THROUGHPUT), baselineThroughput = (Number)baseline.get(THROUGHPUT);
+        if(throughput != null && baselineThroughput != null && throughput.doubleValue() < baselineThroughput.doubleValue() * (1 - tolerance)){
+            regressions.add(name + " throughput dropped from " + baselineThroughput + " to " + throughput + " " + THROUGHPUT);
+        }
+
+        Number allocation = (Number)result.get(ALLOCATION), baselineAllocation = (Number)baseline.get(ALLOCATION);
+        if(allocation != null && baselineAllocation != null && allocation.doubleValue() > baselineAllocation.doubleValue() * (1 + tolerance)){
+            regressions.add(name + " allocation increased from " + baselineAllocation + " to " + allocation + " " + ALLOCATION);
+        }
+    }
+
+    /**
+     * Return whether two descriptions (e.g. of the host) have the same values.  The values are compared as
+     * text since a parsed description has different number types than a new one.
+     *
+     * @param baseline the description in the baseline, can be null
+     * @param current the description of this run
+     * @return true if both have the same keys with the same values
+     */
+    private static boolean isSameDescription(JSONObject baseline, JSONObject current) {
+
+        if(baseline == null || !baseline.keySet().equals(current.keySet())){
+            return false;
+        }
+
+        for(Object key : current.keySet()){
+            if(!String.valueOf(baseline.get(key)).equals(String.valueOf(current.get(key)))){
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Run the benchmark on a DKF.
+     *
+     * @param arguments [{@value #RECORD_FLAG}] &lt;dkf file&gt; [entities] [messages per run] [runs] [report file] [baseline file] [tolerance %]
+     */
+    public static void main(String[] arguments) {
+
+        List<String> argList = new ArrayList<>(Arrays.asList(arguments));
+        boolean record = argList.remove(RECORD_FLAG);
+        String[] args = argList.toArray(new String[argList.size()]);
+
+        if(args.length < 1){
+            System.out.println("Usage: AssessmentBenchmark ["+RECORD_FLAG+"] <dkf file> [entities] [messages per run] [runs] [report file] [baseline file] [tolerance %]");
+            System.exit(1);
+        }
+
+        try{
+            File dkfFile = new File(args[0]);
+            int entityCount = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ENTITY_COUNT;
+            int messageCount = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_MESSAGES_PER_RUN;
+            int runs = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_RUNS;
+            File reportFile = args.length > 4 ? new File(args[4]) : null;
+            File baselineFile = args.length > 5 ? new File(args[5]) : null;
+            double tolerancePercent = args.length > 6 ? Double.parseDouble(args[6]) : DEFAULT_TOLERANCE_PERCENT;
+
+            AssessmentBenchmark benchmark = new AssessmentBenchmark(dkfFile, entityCount, messageCount, runs);
+            JSONObject report = benchmark.run();
+            report.put("dkf", dkfFile.getName());
+            report.put("entities", entityCount);
+
+            System.out.println(report.toJSONString());
+            if(reportFile != null){
+                try(Writer writer = new FileWriter(reportFile)){
+                    report.writeJSONString(writer);
+                }
+            }
+
+            if(baselineFile != null){
+
+                if(record){
+
+                    try(Writer writer = new FileWriter(baselineFile)){
+                        report.writeJSONString(writer);
+                    }
+                    System.out.println("Recorded the baseline " + baselineFile);
+
+                }else if(!baselineFile.exists()){
+
+                    System.out.println("FAILED: There is no baseline " + baselineFile + " to compare to, run again with " +
+                            RECORD_FLAG + " to record the report as the baseline for this host.");
+                    System.exit(3);
+
+                }else{
+
+                    JSONObject baseline;
+                    try(Reader reader = new FileReader(baselineFile)){
+                        baseline = (JSONObject)new JSONParser().parse(reader);
+                    }
+
+                    //the limits are only meaningful on the host and JVM they were measured on
+                    for(String key : new String[]{HOST, JVM}){
+                        if(!isSameDescription((JSONObject)baseline.get(key), (JSONObject)report.get(key))){
+                            System.out.println("WARNING: The baseline " + baselineFile + " was recorded on a different " + key + " (" +
+                                    baseline.get(key) + ") than this run (" + report.get(key) + "), regressions may be false.");
+                        }
+                    }
+
+                    List<String> regressions = findRegressions(report, baseline, tolerancePercent);
+                    for(String regression : regressions){
+                        System.out.println("REGRESSION: " + regression);
+                    }
+
+                    if(!regressions.isEmpty()){
+                        System.exit(2);
+                    }
+                }
+            }
+
+            System.exit(0);
+
+        }catch(Throwable t){
+            logger.error("The assessment benchmark failed.", t);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * An assessment step that is measured.
+     *
+     * @author agent
+     *
+     */
+    @FunctionalInterface
+    private interface MessageAssessment {
+
+        /**
+         * Assess the message.
+         *
+         * @param message an entity state message
+         */
+        void assess(Message message);
+    }
+
+    /**
+     * Ignores the events of the assessment knowledge, there is no learner, tutor or training application.
+     *
+     * @author agent
+     *
+     */
+    private static class BenchmarkDomainKnowledge implements DomainKnowledgeInterface {
+
+        /** the playback messages, not used */
+        private List<MessageManager> playbackMessages;
+
+        @Override
+        public void domainStarted() {
+            // nothing to do
+        }
+
+        @Override
+        public void domainEnded(LessonCompletedStatusType status) {
+            // nothing to do
+        }
+
+        @Override
+        public void displayDuringLessonSurvey(AbstractSurveyLessonAssessment surveyAssessment, SurveyResultListener surveyResultListener) {
+            // nothing to do
+        }
+
+        @Override
+        public void performanceAssessmentCreated(PerformanceAssessment performanceAssessment) {
+            // nothing to do
+        }
+
+        @Override
+        public void trainingApplicationRequest(TrainingAppInfoRequest infoRequest) {
+            // nothing to do
+        }
+
+        @Override
+        public void handleDomainActionWithLearner(DomainAssessmentContent information) {
+            // nothing to do
+        }
+
+        @Override
+        public void fatalError(String reason, String details) {
+            logger.error("The assessment knowledge reported a fatal error: " + reason + "\n" + details);
+        }
+
+        @Override
+        public SessionMembers getSessionMembers() {
+            return new SessionMembers();
+        }
+
+        @Override
+        public List<MessageManager> getPlaybackMessages() {
+            return playbackMessages;
+        }
+
+        @Override
+        public void setPlaybackMessages(List<MessageManager> playbackMessages) {
+            this.playbackMessages = playbackMessages;
+        }
+    }
+}
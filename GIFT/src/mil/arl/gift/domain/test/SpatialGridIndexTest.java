@@ -0,0 +1,225 @@
+/**
+ * Copyright Dignitas Technologies, LLC
+ *
+ * This file and its contents are governed by one or more distribution and
+ * copyright statements as described in the LICENSE.txt file distributed with
+ * this work.
+ */
+package mil.arl.gift.domain.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import javax.vecmath.Point3d;
+
+import mil.arl.gift.common.test.TestChecker;
+import mil.arl.gift.domain.knowledge.common.SpatialGridIndex;
+
+/**
+ * This class tests that the spatial grid index finds the same items as checking the distance to every item,
+ * as items are added, moved across cells and removed, and that the nearest items are found in order.
+ *
+ * @author agent
+ *
+ */
+public class SpatialGridIndexTest {
+
+    /** a GCC location on the surface of the earth, the grid must work with coordinates this large */
+    private static final Point3d GCC_ORIGIN = new Point3d(1130000.0, -4830000.0, 3990000.0);
+
+    /** keeps track of the checks of this test */
+    private static final TestChecker checker = new TestChecker("Spatial grid index");
+
+    public static void main(String args[]){
+
+        System.out.println("Starting test");
+
+        try{
+            testPointQueries();
+            testBoundingBoxQueries();
+            testMoveAndRemove();
+            testNearest();
+            testRandomUpdatesMatchLinearSearch();
+        }catch(Throwable t){
+            checker.error(t);
+        }
+
+        checker.finish();
+    }
+
+    /**
+     * Points on either side of a cell boundary and at negative coordinates are found by distance, not by cell.
+     */
+    private static void testPointQueries(){
+
+        SpatialGridIndex<String> index = new SpatialGridIndex<>(10);
+        index.update("a", new Point3d(9, 0, 0));
+        index.update("b", new Point3d(11, 0, 0));
+        index.update("c", new Point3d(-1, 0, 0));
+        index.update("d", new Point3d(0, 25, 0));
+
+        checker.check("within 2 of 10", sorted("a", "b"), sorted(index.findWithin(new Point3d(10, 0, 0), 2)));
+        checker.check("within 1.5 of 0", sorted("c"), sorted(index.findWithin(new Point3d(0, 0, 0), 1.5)));
+        checker.check("within 30 of 0", sorted("a", "b", "c", "d"), sorted(index.findWithin(new Point3d(0, 0, 0), 30)));
+        checker.check("negative radius", sorted(), sorted(index.findWithin(new Point3d(0, 0, 0), -1)));
+        checker.check("radius larger than the grid", sorted("a", "b", "c", "d"), sorted(index.findWithin(new Point3d(0, 0, 0), Double.MAX_VALUE)));
+        checker.check("size", 4, index.size());
+    }
+
+    /**
+     * An item with a bounding box is found when the location is inside the box or near any side of it.
+     */
+    private static void testBoundingBoxQueries(){
+
+        SpatialGridIndex<String> index = new SpatialGridIndex<>(10);
+        index.update("area", new Point3d(0, 0, 0), new Point3d(35, 15, 0));
+
+        checker.check("inside the box", sorted("area"), sorted(index.findWithin(new Point3d(20, 5, 0), 0)));
+        checker.check("near the far side", sorted("area"), sorted(index.findWithin(new Point3d(40, 5, 0), 5)));
+        checker.check("too far from the far side", sorted(), sorted(index.findWithin(new Point3d(40, 5, 0), 4.9)));
+        checker.check("location is the minimum corner", new Point3d(0, 0, 0), index.getLocation("area"));
+    }
+
+    /**
+     * Moving an item to another cell removes it from the old cell and removing an item removes it from every query.
+     */
+    private static void testMoveAndRemove(){
+
+        SpatialGridIndex<String> index = new SpatialGridIndex<>(10);
+        index.update("a", new Point3d(5, 5, 5));
+        index.update("a", new Point3d(6, 5, 5));
+        checker.check("moved within the cell", new Point3d(6, 5, 5), index.getLocation("a"));
+
+        index.update("a", new Point3d(505, 5, 5));
+        checker.check("old cell is empty", sorted(), sorted(index.findWithin(new Point3d(5, 5, 5), 5)));
+        checker.check("new cell", sorted("a"), sorted(index.findWithin(new Point3d(500, 5, 5), 5)));
+
+        checker.check("remove", true, index.remove("a"));
+        checker.check("remove again", false, index.remove("a"));
+        checker.check("removed item not found", sorted(), sorted(index.findWithin(new Point3d(500, 5, 5), 1000)));
+        checker.check("removed item has no location", null, index.getLocation("a"));
+        checker.check("size after remove", 0, index.size());
+    }
+
+    /**
+     * The nearest items are ordered from closest to farthest, including items outside of the first cells searched.
+     */
+    private static void testNearest(){
+
+        SpatialGridIndex<String> index = new SpatialGridIndex<>(10);
+        checker.check("nearest in an empty index", sorted(), index.findNearest(new Point3d(0, 0, 0), 3));
+
+        index.update("a", new Point3d(3, 0, 0));
+        index.update("b", new Point3d(-1, 0, 0));
+        index.update("c", new Point3d(0, 250, 0));
+        index.update("area", new Point3d(0, -20, 0), new Point3d(40, -2, 0));
+
+        checker.check("nearest 1", Arrays.asList("b"), index.findNearest(new Point3d(0, 0, 0), 1));
+        checker.check("nearest 3", Arrays.asList("b", "area", "a"), index.findNearest(new Point3d(0, 0, 0), 3));
+        checker.check("nearest more than the size", Arrays.asList("b", "area", "a", "c"), index.findNearest(new Point3d(0, 0, 0), 10));
+        checker.check("nearest 0", sorted(), index.findNearest(new Point3d(0, 0, 0), 0));
+    }
+
+    /**
+     * Random adds, moves and removes around a GCC location, checking small and large queries against a linear search.
+     */
+    private static void testRandomUpdatesMatchLinearSearch(){
+
+        Random random = new Random(3);
+        SpatialGridIndex<Integer> index = new SpatialGridIndex<>();
+        Map<Integer, Point3d> locations = new HashMap<>();
+
+        for(int step = 0; step < 5000; step++){
+
+            Integer key = random.nextInt(300);
+            if(random.nextInt(10) == 0){
+                index.remove(key);
+                locations.remove(key);
+            }else{
+                Point3d location = randomLocation(random, 2000);
+                index.update(key, location);
+                locations.put(key, location);
+            }
+
+            if(step % 50 == 0){
+
+                Point3d center = randomLocation(random, 2000);
+                for(double radius : new double[]{0, 50, 150, 1000, 10000}){
+
+                    List<Integer> expected = new ArrayList<>();
+                    for(Map.Entry<Integer, Point3d> entry : locations.entrySet()){
+                        if(entry.getValue().distance(center) <= radius){
+                            expected.add(entry.getKey());
+                        }
+                    }
+
+                    checker.check("step "+step+", radius "+radius, sorted(expected), sorted(index.findWithin(center, radius)));
+                }
+
+                //ties can be found in either order, so compare the distances
+                List<Double> expectedDistances = new ArrayList<>();
+                for(Point3d location : locations.values()){
+                    expectedDistances.add(location.distance(center));
+                }
+                Collections.sort(expectedDistances);
+
+                for(int count : new int[]{1, 5, 40}){
+
+                    List<Double> nearestDistances = new ArrayList<>();
+                    for(Integer nearestKey : index.findNearest(center, count)){
+                        nearestDistances.add(locations.get(nearestKey).distance(center));
+                    }
+
+                    checker.check("step "+step+", nearest "+count, expectedDistances.subList(0, Math.min(count, expectedDistances.size())), nearestDistances);
+                }
+
+                checker.check("step "+step+", size", locations.size(), index.size());
+            }
+        }
+    }
+
+    /**
+     * Return a random location near the GCC origin.
+     *
+     * @param random the source of the location
+     * @param extent the maximum distance (meters) from the origin along each axis
+     * @return the location
+     */
+    private static Point3d randomLocation(Random random, double extent){
+        return new Point3d(GCC_ORIGIN.x + (random.nextDouble() * 2 - 1) * extent,
+                GCC_ORIGIN.y + (random.nextDouble() * 2 - 1) * extent,
+                GCC_ORIGIN.z + (random.nextDouble() * 2 - 1) * extent);
+    }
+
+    /**
+     * Return the keys sorted so that they can be compared regardless of the order they were found in.
+     *
+     * @param keys the keys to sort
+     * @return a sorted copy of the keys
+     */
+    @SafeVarargs
+    private static <K extends Comparable<K>> List<K> sorted(K... keys){
+
+        List<K> list = new ArrayList<>();
+        Collections.addAll(list, keys);
+        return sorted(list);
+    }
+
+    /**
+     * Return the keys sorted so that they can be compared regardless of the order they were found in.
+     *
+     * @param keys the keys to sort
+     * @return a sorted copy of the keys
+     */
+    private static <K extends Comparable<K>> List<K> sorted(List<K> keys){
+
+        List<K> list = new ArrayList<>(keys);
+        Collections.sort(list);
+        return list;
+    }
+}
@@ -0,0 +1,387 @@
+/**
+ * Copyright Dignitas Technologies, LLC
+ *
+ * This file and its contents are governed by one or more distribution and
+ * copyright statements as described in the LICENSE.txt file distributed with
+ * this work.
+ */
+package mil.arl.gift.gateway;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import mil.arl.gift.common.UserSession;
+import mil.arl.gift.common.enums.MessageTypeEnum;
+import mil.arl.gift.common.ta.state.EntityIdentifier;
+import mil.arl.gift.common.ta.state.EntityState;
+import mil.arl.gift.common.ta.state.TrainingAppState;
+import mil.arl.gift.gateway.interop.AbstractInteropInterface;
+
+/**
+ * Coalesces the entity state updates produced by the interop plugins so that only the latest pending
+ * update for each entity is sent to the rest of GIFT.  When the domain module falls behind (e.g. during a
+ * large DIS exercise) this bounds the number of stale entity positions queued on the gateway topic.<br/>
+ * <br/>
+ * Pending updates are flushed on a fixed cadence or as soon as the number of entities with a pending
+ * update reaches the maximum batch size.  Only {@link EntityState} messages are coalesced, all other
+ * training application state (e.g. detonations, weapon fire, collisions) is never held back and should
+ * be sent right away by the caller.
+ *
+ * @author agent
+ *
+ */
+public class GameStateCoalescer {
+
+    /** instance of the logger */
+    private static Logger logger = LoggerFactory.getLogger(GameStateCoalescer.class);
+
+    /** where coalesced updates are sent when flushed */
+    private final GameStateSender sender;
+
+    /** the number of entities with a pending update that causes an immediate flush */
+    private final int maxBatchSize;
+
+    /** the interval (ms) between flushes */
+    private final long flushIntervalMs;
+
+    /** the latest pending update for each entity, in the order the entity was first seen since the last flush */
+    private final Map<CoalesceKey, PendingGameState> pending = new LinkedHashMap<>();
+
+    /**
+     * held while sending a flushed batch so that two flushes can't send updates for the same
+     * entity out of order
+     */
+    private final Object flushLock = new Object();
+
+    /** runs the periodic flush */
+    private final ScheduledExecutorService flushExecutor;
+
+    /** total number of entity state updates received */
+    private final AtomicLong offeredCount = new AtomicLong();
+
+    /** total number of entity state updates replaced by a newer update before being sent */
+    private final AtomicLong coalescedCount = new AtomicLong();
+
+    /** total number of entity state updates sent */
+    private final AtomicLong flushedCount = new AtomicLong();
+
+    /**
+     * Create and start the coalescer.
+     *
+     * @param sender where coalesced updates are sent when flushed.  Can't be null.
+     * @param flushIntervalMs the interval (ms) between flushes.  Must be greater than zero.
+     * @param maxBatchSize the number of entities with a pending update that causes an immediate flush.  Must be greater than zero.
+     */
+    public GameStateCoalescer(GameStateSender sender, long flushIntervalMs, int maxBatchSize) {
+
+        if(sender == null){
+            throw new IllegalArgumentException("The sender can't be null.");
+        }else if(flushIntervalMs <= 0){
+            throw new IllegalArgumentException("The flush interval must be greater than zero.");
+        }else if(maxBatchSize <= 0){
+            throw new IllegalArgumentException("The max batch size must be greater than zero.");
+        }
+
+        this.sender = sender;
+        this.flushIntervalMs = flushIntervalMs;
+        this.maxBatchSize = maxBatchSize;
+
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Game State Coalescer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flushExecutor.scheduleAtFixedRate(() -> {
+            try{
+                flush();
+            }catch(Throwable t){
+                logger.error("Caught exception while flushing the coalesced game state.", t);
+            }
+        }, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+
+        if(logger.isInfoEnabled()){
+            logger.info("Created "+this);
+        }
+    }
+
+    /**
+     * Return whether the training application state can be coalesced.
+     *
+     * @param payload the training application state to check
+     * @param messageType the type of message the state will be sent as
+     * @return true if only the latest update of this state needs to be sent
+     */
+    public static boolean isCoalescible(TrainingAppState payload, MessageTypeEnum messageType) {
+        return MessageTypeEnum.ENTITY_STATE.equals(messageType) && payload instanceof EntityState
+                && ((EntityState)payload).getEntityID() != null;
+    }
+
+    /**
+     * Hold the training application state until the next flush if it can be coalesced, replacing
+     * any pending update for the same entity.
+     *
+     * @param userSession information about the user session the message is associated with
+     * @param domainSessionId unique domain session id associated with this message
+     * @param experimentId unique id for an experiment.  Can be null.
+     * @param payload the message payload to send
+     * @param messageType the type of message being sent
+     * @param interop the plugin requesting the message to be sent
+     * @return true if the state is being held by this coalescer, false if the caller should send it right away
+     */
+    public boolean offer(UserSession userSession, int domainSessionId, String experimentId, TrainingAppState payload,
+            MessageTypeEnum messageType, AbstractInteropInterface interop) {
+
+        if(!isCoalescible(payload, messageType)){
+            return false;
+        }
+
+        offeredCount.incrementAndGet();
+
+        CoalesceKey key = new CoalesceKey(((EntityState)payload).getEntityID(), messageType, domainSessionId);
+        PendingGameState state = new PendingGameState(userSession, domainSessionId, experimentId, payload, messageType, interop);
+
+        boolean flushNow;
+        synchronized(pending){
+
+            if(pending.put(key, state) != null){
+                coalescedCount.incrementAndGet();
+            }
+
+            flushNow = pending.size() >= maxBatchSize;
+        }
+
+        if(flushNow){
+            flush();
+        }
+
+        return true;
+    }
+
+    /**
+     * Send all pending updates.
+     */
+    public void flush() {
+
+        synchronized(flushLock){
+
+            List<PendingGameState> batch;
+            synchronized(pending){
+
+                if(pending.isEmpty()){
+                    return;
+                }
+
+                batch = new ArrayList<>(pending.values());
+                pending.clear();
+            }
+
+            for(PendingGameState state : batch){
+
+                try{
+                    sender.send(state);
+                }catch(Throwable t){
+                    logger.error("Caught exception while sending the coalesced game state of "+state.getPayload()+".", t);
+                }
+            }
+
+            flushedCount.addAndGet(batch.size());
+        }
+    }
+
+    /**
+     * Stop the periodic flush and send any pending updates.
+     */
+    public void stop() {
+
+        flushExecutor.shutdownNow();
+        flush();
+
+        if(logger.isInfoEnabled()){
+            logger.info("Stopped "+this);
+        }
+    }
+
+    /**
+     * Return the total number of entity state updates received.
+     *
+     * @return the number of updates offered since this coalescer was created
+     */
+    public long getOfferedCount() {
+        return offeredCount.get();
+    }
+
+    /**
+     * Return the total number of entity state updates that were replaced by a newer update before being sent.
+     *
+     * @return the number of updates that were never sent since this coalescer was created
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    /**
+     * Return the total number of entity state updates sent.
+     *
+     * @return the number of updates flushed since this coalescer was created
+     */
+    public long getFlushedCount() {
+        return flushedCount.get();
+    }
+
+    @Override
+    public String toString() {
+
+        StringBuilder sb = new StringBuilder("[GameStateCoalescer: ");
+        sb.append("flushIntervalMs = ").append(flushIntervalMs);
+        sb.append(", maxBatchSize = ").append(maxBatchSize);
+        sb.append(", offered = ").append(getOfferedCount());
+        sb.append(", coalesced = ").append(getCoalescedCount());
+        sb.append(", flushed = ").append(getFlushedCount());
+        sb.append("]");
+        return sb.toString();
+    }
+
+    /**
+     * Used to send a coalesced update when it is flushed.
+     *
+     * @author agent
+     *
+     */
+    public interface GameStateSender {
+
+        /**
+         * Send the training application state over the GIFT network.
+         *
+         * @param state the latest update for an entity
+         */
+        void send(PendingGameState state);
+    }
+
+    /**
+     * The information needed to send a training application state message that is being held by the coalescer.
+     *
+     * @author agent
+     *
+     */
+    public static class PendingGameState {
+
+        /** information about the user session the message is associated with */
+        private final UserSession userSession;
+
+        /** unique domain session id associated with this message */
+        private final int domainSessionId;
+
+        /** unique id for an experiment, can be null */
+        private final String experimentId;
+
+        /** the message payload to send */
+        private final TrainingAppState payload;
+
+        /** the type of message being sent */
+        private final MessageTypeEnum messageType;
+
+        /** the plugin requesting the message to be sent */
+        private final AbstractInteropInterface interop;
+
+        /**
+         * Set attributes.
+         *
+         * @param userSession information about the user session the message is associated with
+         * @param domainSessionId unique domain session id associated with this message
+         * @param experimentId unique id for an experiment.  Can be null.
+         * @param payload the message payload to send
+         * @param messageType the type of message being sent
+         * @param interop the plugin requesting the message to be sent
+         */
+        private PendingGameState(UserSession userSession, int domainSessionId, String experimentId, TrainingAppState payload,
+                MessageTypeEnum messageType, AbstractInteropInterface interop) {
+            this.userSession = userSession;
+            this.domainSessionId = domainSessionId;
+            this.experimentId = experimentId;
+            this.payload = payload;
+            this.messageType = messageType;
+            this.interop = interop;
+        }
+
+        public UserSession getUserSession() {
+            return userSession;
+        }
+
+        public int getDomainSessionId() {
+            return domainSessionId;
+        }
+
+        public String getExperimentId() {
+            return experimentId;
+        }
+
+        public TrainingAppState getPayload() {
+            return payload;
+        }
+
+        public MessageTypeEnum getMessageType() {
+            return messageType;
+        }
+
+        public AbstractInteropInterface getInterop() {
+            return interop;
+        }
+    }
+
+    /**
+     * Identifies the entity and message type an update is for.
+     *
+     * @author agent
+     *
+     */
+    private static class CoalesceKey {
+
+        /** the entity the update is for */
+        private final EntityIdentifier entityId;
+
+        /** the type of message the update is sent as */
+        private final MessageTypeEnum messageType;
+
+        /** the domain session the update is for */
+        private final int domainSessionId;
+
+        /**
+         * Set attributes.
+         *
+         * @param entityId the entity the update is for.  Can't be null.
+         * @param messageType the type of message the update is sent as.  Can't be null.
+         * @param domainSessionId the domain session the update is for
+         */
+        private CoalesceKey(EntityIdentifier entityId, MessageTypeEnum messageType, int domainSessionId) {
+            this.entityId = entityId;
+            this.messageType = messageType;
+            this.domainSessionId = domainSessionId;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+
+            if(other instanceof CoalesceKey){
+                CoalesceKey otherKey = (CoalesceKey)other;
+                return domainSessionId == otherKey.domainSessionId && messageType.equals(otherKey.messageType)
+                        && entityId.equals(otherKey.entityId);
+            }
+
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * entityId.hashCode() + messageType.hashCode()) + domainSessionId;
+        }
+    }
+}
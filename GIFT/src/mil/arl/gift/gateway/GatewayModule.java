@@ -18,6 +18,7 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
@@ -70,6 +71,7 @@ import mil.arl.gift.gateway.installer.InstallMain;
 import mil.arl.gift.gateway.interop.AbstractInteropInterface;
 import mil.arl.gift.gateway.interop.AbstractInteropInterface.HandlesDisDialect;
 import mil.arl.gift.gateway.interop.InteropConfigFileHandler;
+import mil.arl.gift.net.api.MessageClient;
 import mil.arl.gift.net.api.MessageCollectionCallback;
 import mil.arl.gift.net.api.SubjectUtil;
 import mil.arl.gift.net.api.message.ACK;
@@ -136,6 +138,24 @@ public class GatewayModule extends AbstractModule {
      */
     private final AtomicBoolean isStartingDomainSession = new AtomicBoolean();
 
+    /**
+     * coalesces entity state updates from the interop plugins before they are sent to GIFT,
+     * null if coalescing is disabled in the gateway properties
+     */
+    private volatile GameStateCoalescer gameStateCoalescer = null;
+
+    /**
+     * the send lane for each interop plugin, each publishes the messages of its interop in order on its own
+     * thread and gateway topic client so that different interops publish in parallel
+     */
+    private final Map<AbstractInteropInterface, GatewayTopicPublisher> interopSendLanes = new ConcurrentHashMap<>();
+
+    /**
+     * used to publish one message at a time with the shared gateway topic client when a send lane couldn't
+     * create its own client, since a JMS session and its producer can only be used by one thread at a time
+     */
+    private final Object sharedGatewayTopicLock = new Object();
+
     static {
         //use Gateway log4j
 
@@ -223,6 +243,18 @@ public class GatewayModule extends AbstractModule {
         //create client to send gift messages that the gateway translated from simulation messages
         createSubjectTopicClient(gatewayTopicName, false);
 
+        GatewayModuleProperties properties = GatewayModuleProperties.getInstance();
+        if(properties.isGameStateCoalescingEnabled()){
+            gameStateCoalescer = new GameStateCoalescer(state -> {
+
+                if(state.getInterop().isEnabled()){
+                    GatewayTopicPublisher sendLane = getSendLane(state.getInterop());
+                    sendLane.submit(() ->
+                        publishMessageToGIFT(sendLane.getPublishClient(), state.getUserSession(), state.getDomainSessionId(), state.getPayload(), state.getMessageType()));
+                }
+            }, properties.getGameStateCoalescingFlushIntervalMs(), properties.getGameStateCoalescingMaxBatchSize());
+        }
+
         // In RTA lesson level the Gateway module is responsible for replacing the tutor module's
         // control over start/stopping sessions.  Therefore the Gateway module needs the same
         // logic for starting a user/domain session which involves connecting to the UMS and LMS
@@ -1219,10 +1251,12 @@ public class GatewayModule extends AbstractModule {
      * @param messageType - the type of message being sent
      * @param interop - plugin requesting the message to be sent
      */
-    public synchronized void sendMessageToGIFT(TrainingAppState payload, MessageTypeEnum messageType, AbstractInteropInterface interop){
+    public void sendMessageToGIFT(TrainingAppState payload, MessageTypeEnum messageType, AbstractInteropInterface interop){
 
         if(interop.isEnabled()){
-            sendMessageToGIFT(getDomainSession(), getDomainSession().getDomainSessionId(), getDomainSession().getExperimentId(), payload, messageType, interop);
+            //read once since this is no longer synchronized and the domain session can change
+            final DomainSession domainSession = getDomainSession();
+            sendMessageToGIFT(domainSession, domainSession.getDomainSessionId(), domainSession.getExperimentId(), payload, messageType, interop);
 
         }else{
             if(logger.isInfoEnabled()){
@@ -1256,7 +1290,9 @@ public class GatewayModule extends AbstractModule {
     }
 
     /**
-     * Send the simulation message that has been translated into a GIFT message over the GIFT network
+     * Send the simulation message that has been translated into a GIFT message over the GIFT network.
+     * The message is queued and published on the send lane of the interop, messages from the same interop are sent
+     * in order, messages from different interops are sent in parallel.
      *
      * @param userSession - information about the user session (including the unique user id of the learner)
      *                      the message is associated with
@@ -1266,14 +1302,21 @@ public class GatewayModule extends AbstractModule {
      * @param messageType - the type of message being sent
      * @param interop - plugin requesting the message to be sent
      */
-    public synchronized void sendMessageToGIFT(UserSession userSession, int domainSessionId, String experimentId, TrainingAppState payload, MessageTypeEnum messageType, AbstractInteropInterface interop){
+    public void sendMessageToGIFT(UserSession userSession, int domainSessionId, String experimentId, TrainingAppState payload, MessageTypeEnum messageType, AbstractInteropInterface interop){
 
         if(interop.isEnabled()){
             if(logger.isDebugEnabled()){
                 logger.debug("Sending translated simulation message to GIFT with payload = "+payload);
             }
 
-            sendDomainSessionMessage(gatewayTopicName, payload, userSession, domainSessionId, experimentId, messageType, null);
+            if(gameStateCoalescer != null &&
+                    gameStateCoalescer.offer(userSession, domainSessionId, experimentId, payload, messageType, interop)){
+                //the latest update for this entity will be sent on the next flush
+                return;
+            }
+
+            GatewayTopicPublisher sendLane = getSendLane(interop);
+            sendLane.submit(() -> publishMessageToGIFT(sendLane.getPublishClient(), userSession, domainSessionId, payload, messageType));
 
         }else{
             if(logger.isInfoEnabled()){
@@ -1282,6 +1325,48 @@ public class GatewayModule extends AbstractModule {
         }
     }
 
+    /**
+     * Return the send lane for the interop plugin, creating it and its gateway topic client if needed.
+     *
+     * @param interop the plugin requesting messages to be sent
+     * @return the send lane of the interop
+     */
+    private GatewayTopicPublisher getSendLane(AbstractInteropInterface interop){
+
+        return interopSendLanes.computeIfAbsent(interop, key -> {
+
+            MessageClient publishClient = createPublishOnlyTopicClient(gatewayTopicName);
+            if(publishClient == null){
+                logger.error("Unable to create a gateway topic client for the '"+key.getName()+
+                        "' send lane, its messages will be published one at a time with the shared gateway topic client.");
+            }
+
+            return new GatewayTopicPublisher(key.getName(), publishClient);
+        });
+    }
+
+    /**
+     * Send the translated simulation message over the gateway topic without requesting an ACK.
+     *
+     * @param publishClient the client of the send lane publishing the message, only used by that send lane's thread.
+     *                      If null the shared gateway topic client is used one message at a time.
+     * @param userSession - information about the user session (including the unique user id of the learner)
+     *                      the message is associated with
+     * @param domainSessionId - unique domain session id associated with this message being sent
+     * @param payload - the message payload to send
+     * @param messageType - the type of message being sent
+     */
+    private void publishMessageToGIFT(MessageClient publishClient, UserSession userSession, int domainSessionId, TrainingAppState payload, MessageTypeEnum messageType){
+
+        if(publishClient != null){
+            sendUnacknowledgedDomainSessionMessage(publishClient, payload, userSession, domainSessionId, messageType);
+        }else{
+            synchronized(sharedGatewayTopicLock){
+                sendUnacknowledgedDomainSessionMessage(gatewayTopicName, payload, userSession, domainSessionId, messageType);
+            }
+        }
+    }
+
     /**
      * Gets a user session for a specified user.
      *
@@ -1584,6 +1669,18 @@ public class GatewayModule extends AbstractModule {
 
     @Override
     protected void cleanup() {
+
+        if(gameStateCoalescer != null){
+            gameStateCoalescer.stop();
+            gameStateCoalescer = null;
+        }
+
+        //publish the messages already queued before the network session (and the send lane clients) are closed
+        for(GatewayTopicPublisher sendLane : interopSendLanes.values()){
+            sendLane.stop();
+        }
+        interopSendLanes.clear();
+
         super.cleanup();
 
         if(logger.isInfoEnabled()){
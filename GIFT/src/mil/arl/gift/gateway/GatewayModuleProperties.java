@@ -9,11 +9,15 @@ package mil.arl.gift.gateway;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.commons.cli.Option;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import mil.arl.gift.common.module.AbstractModuleProperties;
+import mil.arl.gift.net.socket.AsyncSocketHandler;
 
 /**
  * Contains the Gateway module property values.
@@ -23,6 +27,9 @@ import mil.arl.gift.common.module.AbstractModuleProperties;
  */
 public class GatewayModuleProperties extends AbstractModuleProperties {
 
+    /** instance of the logger */
+    private static final Logger logger = LoggerFactory.getLogger(GatewayModuleProperties.class);
+
     /** the properties file name*/
     private static final String PROPERTIES_FILE = "gateway"+File.separator+"gateway.properties";
     
@@ -37,6 +44,16 @@ public class GatewayModuleProperties extends AbstractModuleProperties {
     
     // From gateway.properties
     private static final String INTEROP_CONFIG = "InteropConfig";
+    private static final String GAME_STATE_COALESCING_ENABLED = "GameStateCoalescingEnabled";
+    private static final String GAME_STATE_COALESCING_FLUSH_INTERVAL_MS = "GameStateCoalescingFlushIntervalMs";
+    private static final String GAME_STATE_COALESCING_MAX_BATCH_SIZE = "GameStateCoalescingMaxBatchSize";
+    private static final String UNITY_SOCKET_FRAMING = "UnitySocketFraming";
+
+    /** default interval (ms) between flushes of coalesced entity state updates */
+    private static final int DEFAULT_GAME_STATE_COALESCING_FLUSH_INTERVAL_MS = 50;
+
+    /** default number of entities with a pending update that causes an immediate flush */
+    private static final int DEFAULT_GAME_STATE_COALESCING_MAX_BATCH_SIZE = 500;
     
     /** singleton instance of this class */
     private static GatewayModuleProperties instance = null;
@@ -71,6 +88,57 @@ public class GatewayModuleProperties extends AbstractModuleProperties {
         return getPropertyValue(INTEROP_CONFIG);
     }
     
+    /**
+     * Return whether entity state updates from the interop plugins should be coalesced so that
+     * only the latest pending update for each entity is sent to the rest of GIFT.
+     *
+     * @return true if coalescing is enabled, default is false
+     */
+    public boolean isGameStateCoalescingEnabled(){
+        return getPropertyBooleanValue(GAME_STATE_COALESCING_ENABLED, false);
+    }
+
+    /**
+     * Return the interval (ms) between flushes of coalesced entity state updates.
+     *
+     * @return the flush interval in milliseconds, default is 50
+     */
+    public int getGameStateCoalescingFlushIntervalMs(){
+        return getPropertyIntValue(GAME_STATE_COALESCING_FLUSH_INTERVAL_MS, DEFAULT_GAME_STATE_COALESCING_FLUSH_INTERVAL_MS);
+    }
+
+    /**
+     * Return the number of entities with a pending coalesced update that causes an immediate flush.
+     *
+     * @return the max batch size, default is 500
+     */
+    public int getGameStateCoalescingMaxBatchSize(){
+        return getPropertyIntValue(GAME_STATE_COALESCING_MAX_BATCH_SIZE, DEFAULT_GAME_STATE_COALESCING_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * Return how messages are separated on the socket connection to a Unity application.
+     *
+     * @return the framing, default is {@link AsyncSocketHandler.Framing#NEWLINE} which is the
+     * protocol used by Unity applications built with older versions of the GIFT Unity SDK.  The default
+     * is also used, with a warning, if the property value isn't a supported framing.
+     */
+    public AsyncSocketHandler.Framing getUnitySocketFraming(){
+
+        String value = getPropertyValue(UNITY_SOCKET_FRAMING);
+        if(value == null || value.trim().isEmpty()){
+            return AsyncSocketHandler.Framing.NEWLINE;
+        }
+
+        try{
+            return AsyncSocketHandler.Framing.valueOf(value.trim().toUpperCase());
+        }catch(@SuppressWarnings("unused") IllegalArgumentException e){
+            logger.warn("Found an unhandled socket framing value of '"+value+"' in the property value for "+UNITY_SOCKET_FRAMING+" in "+PROPERTIES_FILE+
+                    ", using "+AsyncSocketHandler.Framing.NEWLINE+" framing instead.  The supported values are "+Arrays.toString(AsyncSocketHandler.Framing.values())+".");
+            return AsyncSocketHandler.Framing.NEWLINE;
+        }
+    }
+
     @Override
     public void setCommandLineArgs(String[] args) {
 
@@ -0,0 +1,210 @@
+/**
+ * Copyright Dignitas Technologies, LLC
+ *
+ * This file and its contents are governed by one or more distribution and
+ * copyright statements as described in the LICENSE.txt file distributed with
+ * this work.
+ */
+package mil.arl.gift.gateway;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import mil.arl.gift.net.api.MessageClient;
+
+/**
+ * The send lane of a single interop plugin: publishes the messages that interop sends to the rest of GIFT on
+ * its own publisher thread using its own gateway topic client.<br/>
+ * <br/>
+ * A JMS session and its producers must only be used by one thread at a time.  Each lane has a publish only
+ * client with its own broker connection, session and producer that is only used by the lane's thread, so the
+ * messages of one interop are published in the order they were submitted while different interops (e.g. DIS and
+ * Unity running at the same time) publish in parallel.  The interop threads (e.g. the DIS receive thread or a
+ * socket message callback thread) only queue the message and return, so a slow message broker doesn't hold up
+ * the reading of simulation data.  When the queue is full the submitting thread waits for room rather than
+ * dropping the message.
+ *
+ * @author agent
+ *
+ */
+public class GatewayTopicPublisher {
+
+    /** instance of the logger */
+    private static Logger logger = LoggerFactory.getLogger(GatewayTopicPublisher.class);
+
+    /** the maximum number of messages waiting to be published */
+    private static final int CAPACITY = 10000;
+
+    /** how long (ms) to wait for the queued messages to be published when stopping */
+    private static final long STOP_TIMEOUT_MS = 5000;
+
+    /** messages waiting to be published */
+    private final BlockingQueue<Runnable> queue = new LinkedBlockingQueue<>(CAPACITY);
+
+    /** a name used for the thread and logging (e.g. the interop name) */
+    private final String name;
+
+    /**
+     * the client only this lane's thread publishes with, null if it couldn't be created in which case the
+     * module's shared gateway topic client is used
+     */
+    private final MessageClient publishClient;
+
+    /** the thread publishing the messages */
+    private final Thread publisherThread;
+
+    /** whether this publisher has been stopped */
+    private volatile boolean stopped = false;
+
+    /** total number of messages submitted */
+    private final AtomicLong submittedCount = new AtomicLong();
+
+    /** total number of times a submitting thread had to wait because the queue was full */
+    private final AtomicLong blockedCount = new AtomicLong();
+
+    /** the largest number of messages that have been waiting to be published at the same time */
+    private volatile int highWaterMark = 0;
+
+    /**
+     * Create and start the publisher thread.
+     *
+     * @param name used for the thread name and logging (e.g. the interop name).  Can't be null.
+     * @param publishClient the client only this lane's thread will publish with.  Can be null if the
+     * client couldn't be created.
+     */
+    public GatewayTopicPublisher(String name, MessageClient publishClient) {
+
+        if(name == null){
+            throw new IllegalArgumentException("The name can't be null.");
+        }
+
+        this.name = name;
+        this.publishClient = publishClient;
+
+        publisherThread = new Thread(this::publishMessages, "Gateway Topic Publisher - "+name);
+        publisherThread.setDaemon(true);
+        publisherThread.start();
+    }
+
+    /**
+     * Return the client the publish tasks of this lane should publish with.
+     *
+     * @return the lane's own gateway topic client, null if it couldn't be created
+     */
+    public MessageClient getPublishClient() {
+        return publishClient;
+    }
+
+    /**
+     * Publish the message on the publisher thread after any messages previously submitted.  This only waits
+     * when the queue is full.
+     *
+     * @param publishTask sends the message.  Exceptions thrown by the task are logged.  Can't be null.
+     */
+    public void submit(Runnable publishTask) {
+
+        if(publishTask == null){
+            throw new IllegalArgumentException("The publish task can't be null.");
+        }else if(stopped){
+            logger.warn("Unable to publish a message because the '"+name+"' gateway topic publisher has been stopped.");
+            return;
+        }
+
+        submittedCount.incrementAndGet();
+        if(!queue.offer(publishTask)){
+
+            blockedCount.incrementAndGet();
+            try{
+                queue.put(publishTask);
+            }catch(@SuppressWarnings("unused") InterruptedException e){
+                Thread.currentThread().interrupt();
+                logger.warn("Interrupted while waiting to queue a message on the '"+name+"' gateway topic publisher, the message was not sent.");
+                return;
+            }
+        }
+
+        int size = queue.size();
+        if(size > highWaterMark){
+            highWaterMark = size;
+        }
+    }
+
+    /**
+     * The publisher thread loop, publishes the queued messages until stopped and the queue is empty.
+     */
+    private void publishMessages() {
+
+        while(!stopped || !queue.isEmpty()){
+
+            try{
+                Runnable task = queue.poll(1, TimeUnit.SECONDS);
+                if(task != null){
+                    task.run();
+                }
+            }catch(@SuppressWarnings("unused") InterruptedException e){
+                //stopping
+            }catch(Throwable t){
+                logger.error("Caught exception while publishing a message from the '"+name+"' send lane to the gateway topic.", t);
+            }
+        }
+    }
+
+    /**
+     * Stop accepting messages and wait a short time for the queued messages to be published.
+     */
+    public void stop() {
+
+        stopped = true;
+        try{
+            publisherThread.join(STOP_TIMEOUT_MS);
+        }catch(@SuppressWarnings("unused") InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+
+        if(publisherThread.isAlive()){
+            logger.warn("Gave up waiting for "+queue.size()+" queued messages of the '"+name+"' send lane to be published on the gateway topic.");
+            publisherThread.interrupt();
+        }
+
+        if(logger.isInfoEnabled()){
+            logger.info("Stopped "+this);
+        }
+    }
+
+    /**
+     * Return the total number of messages submitted to this publisher.
+     *
+     * @return the number of messages submitted since this publisher was created
+     */
+    public long getSubmittedCount() {
+        return submittedCount.get();
+    }
+
+    /**
+     * Return the total number of times a submitting thread had to wait because the queue was full.
+     *
+     * @return the number of times backpressure was applied since this publisher was created
+     */
+    public long getBlockedCount() {
+        return blockedCount.get();
+    }
+
+    @Override
+    public String toString() {
+
+        StringBuilder sb = new StringBuilder("[GatewayTopicPublisher: ");
+        sb.append("name = ").append(name);
+        sb.append(", ownClient = ").append(publishClient != null);
+        sb.append(", pending = ").append(queue.size());
+        sb.append(", highWaterMark = ").append(highWaterMark);
+        sb.append(", submitted = ").append(getSubmittedCount());
+        sb.append(", blocked = ").append(getBlockedCount());
+        sb.append("]");
+        return sb.toString();
+    }
+}
@@ -49,6 +49,7 @@ import mil.arl.gift.net.api.message.Message;
 import mil.arl.gift.net.dis.DISTime;
 import mil.arl.gift.net.dis.DISToGIFTConverter;
 import mil.arl.gift.net.dis.DISToGIFTConverter.DISDialect;
+import mil.arl.gift.net.dis.EntityStateDecodeCache;
 import mil.arl.gift.net.util.Util;
 
 /**
@@ -101,6 +102,9 @@ public class DISInterface extends AbstractInteropInterface implements HandlesDis
         PRODUCED_MSG_TYPES.add(MessageTypeEnum.COLLISION);
     }
 
+    /** the index of the exercise id byte in the DIS PDU header (after the protocol version byte) */
+    private static final int EXERCISE_ID_HEADER_INDEX = 1;
+
     /** the exercise id to filter DIS PDUs on */
     private UnsignedByte exerciseID;
 
@@ -118,6 +122,9 @@ public class DISInterface extends AbstractInteropInterface implements HandlesDis
     /** responsible for writing pdu's to the network */
     private PDUWriter pduWriter;
 
+    /** the entity markings and entity types decoded from the last entity state PDU of each entity received by this plugin */
+    private final EntityStateDecodeCache entityStateDecodeCache = new EntityStateDecodeCache();
+
     /**
      * whether any PDUs sent by this interop plugin should also be received and handled
      * by this interop plugin.  This is useful for domain session log playback during
@@ -152,6 +159,11 @@ public class DISInterface extends AbstractInteropInterface implements HandlesDis
 				return;
 			}
 
+			//filter on exercise id before the PDU is decoded
+			if(!isEnabled() || !isExercisePacket(packet)){
+			    return;
+			}
+
 			super.datagramPacketReceived(packet);
 		}
     }
@@ -170,6 +182,26 @@ public class DISInterface extends AbstractInteropInterface implements HandlesDis
             && datagramPacket.getPort() == pduWriter.getDatagramSocket().getLocalPort();
     }
 
+    /**
+     * Returns a boolean indicating if the specified DatagramPacket contains a PDU for the
+     * exercise this interop plugin is configured to filter on.  Only the exercise id byte
+     * of the raw PDU header is examined so that PDUs of other exercises sharing the network
+     * are discarded without being decoded.
+     *
+     * @param datagramPacket the DatagramPacket to examine
+     * @return true if the PDU header exercise id matches the configured exercise id or the
+     * packet is too short to contain a PDU header (let the PDU reader handle it)
+     */
+    protected boolean isExercisePacket(DatagramPacket datagramPacket) {
+
+        if(exerciseID == null || datagramPacket.getLength() <= EXERCISE_ID_HEADER_INDEX){
+            return true;
+        }
+
+        int packetExerciseID = datagramPacket.getData()[datagramPacket.getOffset() + EXERCISE_ID_HEADER_INDEX] & 0xFF;
+        return packetExerciseID == exerciseID.intValue();
+    }
+
     /** the DIS PDU listener for this DIS plugin that will receive incoming PDU messages from a DIS network*/
     private PDUListener pduListener = new PDUListener(){
 
@@ -469,7 +501,7 @@ public class DISInterface extends AbstractInteropInterface implements HandlesDis
     protected void handleEntityStatePDU(EntityStatePDU es){
 
         /* Route the entity state back onto GIFT's message bus */
-        EntityState entityState = DISToGIFTConverter.createEntityState(es, dialect);
+        EntityState entityState = DISToGIFTConverter.createEntityState(es, dialect, entityStateDecodeCache);
         GatewayModule.getInstance().sendMessageToGIFT(entityState, MessageTypeEnum.ENTITY_STATE, this);
     }
 
@@ -598,6 +630,8 @@ public class DISInterface extends AbstractInteropInterface implements HandlesDis
         }
 
         pduWriter.stop();
+
+        entityStateDecodeCache.clear();
     }
 
     @Override
@@ -30,6 +30,7 @@ import mil.arl.gift.common.enums.TrainingApplicationEnum;
 import mil.arl.gift.common.io.DetailedException;
 import mil.arl.gift.common.ta.state.TrainingAppState;
 import mil.arl.gift.gateway.GatewayModule;
+import mil.arl.gift.gateway.GatewayModuleProperties;
 import mil.arl.gift.gateway.interop.AbstractInteropInterface;
 import mil.arl.gift.net.api.message.Message;
 import mil.arl.gift.net.embedded.message.codec.EmbeddedAppMessageEncoder;
@@ -342,7 +343,8 @@ public class UnityInterface extends AbstractInteropInterface {
         if (socketHandler == null) {
             final String address = this.unityConfig.getNetworkAddress();
             final int port = this.unityConfig.getNetworkPort();
-            socketHandler = new AsyncSocketHandler(address, port, this::handleRawUnityMessage);
+            socketHandler = new AsyncSocketHandler(address, port, this::handleRawUnityMessage,
+                    GatewayModuleProperties.getInstance().getUnitySocketFraming());
             
             if(logger.isInfoEnabled()){
                 logger.info("Created new socket handler");
@@ -142,6 +142,17 @@ public class LearnerModule extends AbstractModule {
 
                 return true;
             }
+            
+            @Override
+            public boolean processMessage(byte[] msg, MessageEncodingTypeEnum encodingType) {
+
+                //received message in queue, decode it directly from the bytes
+                Message message = MessageUtil.getMessageFromBytes(msg, encodingType);
+
+                handleTrainingAppStateMessage(message);
+
+                return true;
+            }
         });
         
         //start the module heartbeat
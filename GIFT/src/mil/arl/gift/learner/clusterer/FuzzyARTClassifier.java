@@ -8,7 +8,7 @@
 package mil.arl.gift.learner.clusterer;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -21,7 +21,11 @@ import mil.arl.gift.common.state.LearnerStateAttribute;
 
 /**
  * This classifier implements the Fuzzy Adaptive Resonance Theory (ART) logic found in artmap.py
- * Python file provided by Keith @ RDECOM.
+ * Python file provided by Keith @ RDECOM.<br/>
+ * <br/>
+ * This class is not thread-safe.  Training and categorizing (including the categorize methods, which
+ * don't change any weights) load each pattern into a buffer shared by the instance, so an instance
+ * must not be used by more than one thread at a time.
  * 
  * @author mhoffman
  *
@@ -73,7 +77,17 @@ public class FuzzyARTClassifier extends AbstractClassifier {
     /** size of data patterns and weights */
     protected int numFeatures;
 
-    private List<List<Double>> weight = new ArrayList<List<Double>>();
+    /** 
+     * the model vector (weights) of every category, stored contiguously one category after another
+     * with numFeatures values each.  The capacity grows as categories are created.
+     */
+    private double[] weight = new double[0];
+    
+    /** the pattern being trained or categorized after complement coding, reused for every pattern */
+    private double[] input = new double[0];
+    
+    /** the sum of the values in the input pattern, the denominator of the match calculation */
+    private double inputTotal;
     
     /** the learner's engagement state */
 	protected LearnerStateAttribute state;
@@ -139,6 +153,16 @@ public class FuzzyARTClassifier extends AbstractClassifier {
         }
     }
     
+    /**
+     * Return the number of values in a pattern before complement coding, i.e. the number of values
+     * each data point or sample given to this classifier must have.
+     * 
+     * @return int
+     */
+    protected int getSampleSize(){
+        return complement ? numFeatures / 2 : numFeatures;
+    }
+    
     /**
      * Train all patterns
      * 
@@ -158,6 +182,34 @@ public class FuzzyARTClassifier extends AbstractClassifier {
     	return true;
     }
     
+    /**
+     * Train a batch of patterns in a single pass.  The samples are stored one after another in a single
+     * array so that no data point objects need to be created for each pattern.
+     * 
+     * @param samples the values of the patterns to train with, {@link #getSampleSize()} values per pattern
+     * @param numSamples the number of patterns in the samples array to train with
+     * @return int[] - the category number of each pattern, {@link #NONE_CATEGORY} if a pattern couldn't be categorized
+     */
+    protected int[] train(double[] samples, int numSamples){
+        
+        int sampleSize = getSampleSize();
+        if(numSamples < 0 || samples.length < numSamples * sampleSize){
+            throw new IllegalArgumentException("The samples array of length "+samples.length+" doesn't contain "+numSamples+" patterns of "+sampleSize+" values.");
+        }
+        
+        logger.debug("batch training started");
+        
+        int[] categories = new int[numSamples];
+        for(int sample = 0, offset = 0; sample < numSamples; sample++, offset += sampleSize){
+            loadInput(samples, offset);
+            categories[sample] = learnInput();
+        }
+        
+        logger.debug("batch training finished");
+        
+        return categories;
+    }
+    
     /**
      * Train one pattern
      * 
@@ -166,132 +218,109 @@ public class FuzzyARTClassifier extends AbstractClassifier {
      */
     protected int step(DataPoint dataPoint){
     	
-    	if(complement){
-    		dataPoint = complementCode(dataPoint);
-    	}
+    	loadInput(dataPoint);
+    	return learnInput();
+    }
+    
+    /**
+     * Train one pattern
+     * 
+     * @param values the values of the pattern, must contain {@link #getSampleSize()} values
+     * @return int - the category number
+     */
+    protected int step(double[] values){
+        
+        if(values.length != getSampleSize()){
+            throw new IllegalArgumentException("The pattern has "+values.length+" values but "+getSampleSize()+" are needed.");
+        }
+        
+        loadInput(values, 0);
+        return learnInput();
+    }
+    
+    /**
+     * Train the current input pattern, either updating the weights of the first category
+     * that matches it or creating a new category for it.<br/>
+     * Categories are tested newest first.  The original implementation sorted the categories by choice activation,
+     * but compared activations by truncating their difference to an integer.  Activations are always less than 1,
+     * so every comparison was equal and the sort always left the categories newest first.  That order is kept
+     * and the activations, which can't change it, are not calculated.
+     * 
+     * @return int - the category number
+     */
+    private int learnInput(){
     	
     	if(isDebugEnabled){
-    		logger.debug("training input: "+dataPoint);
+    		logger.debug("training input: "+Arrays.toString(input));
     	}
     	
-    	List<Double> categories = activateCategories(dataPoint);
-    	List<ActivationCategory> sorted = new ArrayList<ActivationCategory>(categories.size());
-    	for(int i = 0; i < categories.size(); i++){
-    		ActivationCategory cat = new ActivationCategory(categories.get(i), i);
-    		sorted.add(cat);
+    	for(int currentCategory = numCategories - 1; currentCategory >= 0; currentCategory--){
+    	    
+    	    //if match is close enough
+    	    if(calculateMatch(currentCategory) > vigilance){
+    	        //update the weights
+    	        updateWeights(currentCategory);
+    	        
+    	        if(isDebugEnabled){
+    	            logger.debug("matched "+Arrays.toString(input)+" to category "+currentCategory+", weight of that category is "+getWeightDisplay(currentCategory));
+    	        }
+    	        
+    	        return currentCategory;
+    	    }
     	}
-    	Collections.sort(sorted);
-    	Collections.reverse(sorted);
     	
-    	int currentSortedIndex = 0;
-    	while(true){
-    		if(numCategories == 0){
-    			//no categories yet (first time): add a category
-    			List<Double> category = new ArrayList<Double>(numFeatures);
-    			for(int i = 0; i < numFeatures; i++){
-    				category.add(1.0);
-    			}
-    			weight.add(category);
-    			updateWeights(dataPoint, weight.get(0));
-    			numCategories++;
-    			
-    			if(isDebugEnabled){
-    				logger.debug("created category 0, current weight = "+weight.get(0));
-    			}
-    			
-    			//winning category
-    			return 0;
-    		}
-    		
-    		//at least one category exists
-    		int currentCategory = sorted.get(currentSortedIndex).getCategory();
-    		List<Double> currentWeightVector = weight.get(currentCategory);
-    		double match = calculateMatch(dataPoint, currentWeightVector);
-    		
-    		//if match is close enough
-    		if(match > vigilance){
-    			//update the weights
-    			updateWeights(dataPoint, weight.get(currentCategory));
-    			
-    			if(isDebugEnabled){
-    				logger.debug("matched "+dataPoint+" to category "+currentCategory+", weight of that category is "+weight.get(currentCategory));
-    			}
-    			
-    			return currentCategory;
-    			
-    		}
-    		
-    		if(currentSortedIndex == (numCategories - 1)){
-    				
-    				if(maxNumCategories != Integer.MAX_VALUE && numCategories == maxNumCategories){
-    					//no winner
-    					
-    	    			if(isDebugEnabled){
-    	    				logger.debug("unable to match to category");
-    	    			}
-    	    			
-    					return NONE_CATEGORY;
-    					
-    				}
-    				
-    				List<Double> category = new ArrayList<Double>(numFeatures);
-                    for(int i = 0; i < numFeatures; i++){
-                        category.add(1.0);
-                    }
-                    weight.add(category);
-                    updateWeights(dataPoint, weight.get(weight.size()-1));
-                    numCategories++;
-                    
-                    if(isDebugEnabled){
-                        logger.debug("created category "+(numCategories-1)+" for "+dataPoint+", current weight = "+weight.get(weight.size()-1));
-                    }
-                    
-                    return numCategories - 1;    				
-            }
-    		
-    		currentSortedIndex++;
+    	//no categories yet (first time) or none matched
+    	if(numCategories != 0 && numCategories == maxNumCategories){
+    	    //no winner
+    	    
+    	    if(isDebugEnabled){
+    	        logger.debug("unable to match to category");
+    	    }
+    	    
+    	    return NONE_CATEGORY;
     	}
+    	
+    	int newCategory = addCategory();
+    	updateWeights(newCategory);
+    	
+    	if(isDebugEnabled){
+    	    logger.debug("created category "+newCategory+" for "+Arrays.toString(input)+", current weight = "+getWeightDisplay(newCategory));
+    	}
+    	
+    	return newCategory;
     }
     
     /**
-     * Propagate the activation to the category layer.
+     * Add a category with all of its weights set to 1.0, growing the weight storage if needed.
      * 
-     * @param dataPoint
-     * @return List<Double> - activations
+     * @return int - the new category number
      */
-    private List<Double> activateCategories(DataPoint dataPoint){
-    	
-    	List<Double> categories = new ArrayList<Double>();
-    	List<Double> dimensions = dataPoint.getDimensions();
-    	
-    	double match, weight;
-    	for(int j = 0; j < numCategories; j++){
-    		match = 0;
-    		weight = 0;
-    		for(int i = 0; i < numFeatures; i++){
-    			//TODO: j & numcategories, i & numfeatures and this.weight need closer connection
-    			match += Math.min(dimensions.get(i), this.weight.get(j).get(i));
-    			weight += this.weight.get(j).get(i);
-    		}
-    		categories.add(match / (bias + weight));
-    	}
-    	
-    	return categories;
+    private int addCategory(){
+        
+        if((numCategories + 1) * numFeatures > weight.length){
+            int capacity = Math.max(4, numCategories * 2);
+            weight = Arrays.copyOf(weight, capacity * numFeatures);
+        }
+        
+        int base = numCategories * numFeatures;
+        Arrays.fill(weight, base, base + numFeatures, 1.0);
+        
+        return numCategories++;
     }
     
     /**
-     * Update the weights
+     * Update the weights of a category toward the input pattern
      * 
-     * @param dataPoint
-     * @param category
+     * @param category the category number
      * @return boolean - true if the weights change
      */
-    private boolean updateWeights(DataPoint dataPoint, List<Double> category){
+    private boolean updateWeights(int category){
     	
     	boolean change = false;
-    	for(int i = 0; i < dataPoint.getDimensions().size(); i++){
-    		if(dataPoint.getDimensions().get(i) < category.get(i)){
-    			category.set(i, (learningRate * dataPoint.getDimensions().get(i)) + ((1-learningRate) * category.get(i)));
+    	int base = category * numFeatures;
+    	for(int i = 0; i < numFeatures; i++){
+    		if(input[i] < weight[base + i]){
+    			weight[base + i] = (learningRate * input[i]) + ((1-learningRate) * weight[base + i]);
     			change = true;
     		}
     	}
@@ -300,49 +329,69 @@ public class FuzzyARTClassifier extends AbstractClassifier {
     }
     
     /**
+     * Fuzzy AND of the input pattern and a category's weights uses min, scale by total 1's of the input
      * 
-     * @param dataPoint
-     * @param b
+     * @param category the category number
      * @return double
      */
-    private static double calculateMatch(DataPoint dataPoint, List<Double> b){
-    	return fuzzyAnd(dataPoint, b);
+    private double calculateMatch(int category){
+        
+        if(inputTotal == 0){
+            return 0;
+        }
+        
+        double match = 0;
+        int base = category * numFeatures;
+        for(int i = 0; i < numFeatures; i++){
+            match += Math.min(input[i], weight[base + i]);
+        }
+        
+        return match/inputTotal;
     }
     
     /**
-     * Find the closest model vector (category)
+     * Find the closest model vector (category).  Not thread-safe, see the class description.
      * 
      * @param dataPoint - a data point to categorize
      * @return int - the category closest to the data point
      */
     protected int categorize(DataPoint dataPoint){
     	
-    	if(complement){
-    		dataPoint = complementCode(dataPoint);
-    	}
+    	loadInput(dataPoint);
+    	return categorizeInput();
+    }
+    
+    /**
+     * Find the closest model vector (category).  Not thread-safe, see the class description.
+     * 
+     * @param values the values of the pattern to categorize, must contain {@link #getSampleSize()} values
+     * @return int - the category closest to the pattern
+     */
+    protected int categorize(double[] values){
+        
+        if(values.length != getSampleSize()){
+            throw new IllegalArgumentException("The pattern has "+values.length+" values but "+getSampleSize()+" are needed.");
+        }
+        
+        loadInput(values, 0);
+        return categorizeInput();
+    }
+    
+    /**
+     * Find the closest model vector (category) to the current input pattern without changing any weights.
+     * Categories are tested newest first, the same as {@link #learnInput()}.
+     * 
+     * @return int - the category closest to the input pattern, {@link #NONE_CATEGORY} if none match
+     */
+    private int categorizeInput(){
     	
     	if(isDebugEnabled){
-    		logger.debug("categorize input: "+dataPoint);
+    		logger.debug("categorize input: "+Arrays.toString(input));
     	}
     	
-    	List<Double> categories = activateCategories(dataPoint);
-    	List<ActivationCategory> sorted = new ArrayList<ActivationCategory>(categories.size());
-    	for(int i = 0; i < categories.size(); i++){
-    		ActivationCategory cat = new ActivationCategory(categories.get(i), i);
-    		sorted.add(cat);
-    	}
-    	Collections.sort(sorted);
-    	Collections.reverse(sorted);
-    	
-    	double match = 0;
-    	int currentSortedIndex = 0, currentCategory;
-    	while(true){
+    	for(int currentCategory = numCategories - 1; currentCategory >= 0; currentCategory--){
     		
-    		currentCategory = sorted.get(currentSortedIndex).getCategory();
-        	List<Double> currentWeightVector = weight.get(currentCategory);
-        	match = calculateMatch(dataPoint, currentWeightVector);
-        	
-        	if(match > vigilance){
+        	if(calculateMatch(currentCategory) > vigilance){
         		
             	if(isDebugEnabled){
             		logger.debug("found match to category "+currentCategory);
@@ -350,61 +399,102 @@ public class FuzzyARTClassifier extends AbstractClassifier {
             	
         		return currentCategory;
         	}
-        	
-            if(currentSortedIndex < numCategories){
-                currentSortedIndex++;
-            }else{
-                //end of the line
-                
-                if(isDebugEnabled){
-                    logger.debug("unable to find match to a category");
-                }
-                
-                return NONE_CATEGORY;
-            }
     	}
-
+    	
+    	//end of the line
+    	if(isDebugEnabled){
+    	    logger.debug("unable to find match to a category");
+    	}
+    	
+    	return NONE_CATEGORY;
     }
     
     /**
-     * Constructs complement code pairs [n, 1-n, ...] for n in data point
+     * Copy the data point into the input pattern, complement coding it if needed.
      * 
-     * @param dataPoint - contains values for dimensions
-     * @return DataPoint - the complement data point object
+     * @param dataPoint contains values for dimensions, must contain {@link #getSampleSize()} values
      */
-    private DataPoint complementCode(DataPoint dataPoint){
-    	
-    	DataPoint dPt = new DataPoint();
-    	List<Double> dPtDimensions = dPt.getDimensions();
-    	
-    	for(Double value : dataPoint.getDimensions()){
-    		dPtDimensions.add(value);
-    		dPtDimensions.add(1 - value);
-    	}
-    	
-    	return dPt;
+    private void loadInput(DataPoint dataPoint){
+        
+        List<Double> dimensions = dataPoint.getDimensions();
+        if(dimensions.size() != getSampleSize()){
+            throw new IllegalArgumentException("The data point has "+dimensions.size()+" dimensions but "+getSampleSize()+" are needed.");
+        }
+        
+        prepareInput();
+        for(int j = 0; j < dimensions.size(); j++){
+            setInputValue(j, dimensions.get(j));
+        }
+        sumInput();
     }
     
     /**
-     * Fuzzy AND uses min, scale by total 1's
+     * Copy a pattern into the input pattern, complement coding it if needed.
      * 
-     * @param dataPoint
-     * @param b
-     * @return double
+     * @param values contains the pattern starting at the offset
+     * @param offset index of the first value of the pattern
      */
-    private static double fuzzyAnd(DataPoint dataPoint, List<Double> b){
-    	
-    	double match = 0, total = 0;
-    	for(int i = 0; i < dataPoint.getDimensions().size(); i++){
-    		match += Math.min(dataPoint.getDimensions().get(i), b.get(i));
-    		total += dataPoint.getDimensions().get(i);
-    	}
-    	
-    	if(total == 0){
-    		return 0;
-    	}
-    	
-    	return match/total;
+    private void loadInput(double[] values, int offset){
+        
+        prepareInput();
+        if(complement){
+            for(int j = 0; j < numFeatures / 2; j++){
+                setInputValue(j, values[offset + j]);
+            }
+        }else{
+            System.arraycopy(values, offset, input, 0, numFeatures);
+        }
+        sumInput();
+    }
+    
+    /**
+     * Make sure the input pattern can hold the number of features.
+     */
+    private void prepareInput(){
+        
+        if(input.length != numFeatures){
+            input = new double[numFeatures];
+        }
+    }
+    
+    /**
+     * Set a value of the input pattern, constructing the complement code pair [n, 1-n]
+     * for the value if complement coding is enabled.
+     * 
+     * @param index the index of the value in the pattern before complement coding
+     * @param value the value
+     */
+    private void setInputValue(int index, double value){
+        
+        if(complement){
+            input[index * 2] = value;
+            input[index * 2 + 1] = 1 - value;
+        }else{
+            input[index] = value;
+        }
+    }
+    
+    /**
+     * Calculate the sum of the input pattern values used by every match calculation for the pattern.
+     */
+    private void sumInput(){
+        
+        double total = 0;
+        for(int i = 0; i < numFeatures; i++){
+            total += input[i];
+        }
+        inputTotal = total;
+    }
+    
+    /**
+     * Return a printable string of a category's weights
+     * 
+     * @param category the category number
+     * @return String
+     */
+    private String getWeightDisplay(int category){
+        int base = category * numFeatures;
+        return Arrays.toString(Arrays.copyOfRange(weight, base, base + numFeatures));
     }
     
     @Override
@@ -439,10 +529,10 @@ public class FuzzyARTClassifier extends AbstractClassifier {
 		
 	    StringBuffer sb = new StringBuffer();
 	    sb.append("Model Vectors:\n");
-		for(int i = 0; i < weight.size(); i++){
+		for(int i = 0; i < numCategories; i++){
 		    sb.append(i).append("[");
-			for(double value : weight.get(i)){
-			    sb.append(" ").append(value).append(",");
+			for(int j = i * numFeatures; j < (i + 1) * numFeatures; j++){
+			    sb.append(" ").append(weight[j]).append(",");
 			}
 			sb.append("]\n");
 		}
@@ -501,52 +591,4 @@ public class FuzzyARTClassifier extends AbstractClassifier {
 			return sb.toString();
 		}
 	}
-	
-	/**
-	 * This class contains the activation and category values for an activation category
-	 * 
-	 * @author mhoffman
-	 *
-	 */
-	protected class ActivationCategory implements Comparable<ActivationCategory>{
-		
-		private double activation;
-		private int category;
-		
-		/**
-		 * Class constructor - populate attributes
-		 * 
-		 * @param currentActivation the activation value  
-		 * @param currentCategory the index of the category
-		 */
-		public ActivationCategory(double currentActivation, int currentCategory){
-			this.activation = currentActivation;
-			this.category = currentCategory;
-		}
-		
-		public double getActivation(){
-			return activation;
-		}
-		
-		public int getCategory(){
-			return category;
-		}
-		
-		@Override
-		public int compareTo(ActivationCategory thatCategory){
-			return (int)(this.getActivation() - thatCategory.getActivation());
-		}
-		
-		@Override
-		public String toString(){
-			
-		    StringBuffer sb = new StringBuffer();
-		    sb.append("[FuzzyARTClassifier");
-		    sb.append(" activiation = ").append(activation);
-		    sb.append(", category = ").append(category);
-		    sb.append("]");
-			
-			return sb.toString();
-		}
-	}
 }
@@ -0,0 +1,97 @@
+/**
+ * Copyright Dignitas Technologies, LLC
+ *
+ * This file and its contents are governed by one or more distribution and
+ * copyright statements as described in the LICENSE.txt file distributed with
+ * this work.
+ */
+package mil.arl.gift.learner.test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import mil.arl.gift.common.test.TestChecker;
+import mil.arl.gift.learner.clusterer.FuzzyARTClassifier;
+
+/**
+ * This class tests that training the Fuzzy ART classifier with a batch of patterns gives the same categories
+ * and model vectors as presenting the same patterns one at a time.
+ *
+ * @author agent
+ *
+ */
+public class FuzzyARTClassifierBatchTest extends FuzzyARTClassifier {
+
+	/** keeps track of the checks made by this test */
+	private static final TestChecker checker = new TestChecker("Fuzzy ART classifier batch");
+
+	public FuzzyARTClassifierBatchTest(int numFeatures){
+		this.numFeatures = numFeatures;
+	}
+
+	public static void main(String args[]){
+
+		System.out.println("Starting test");
+
+		//create parameters, the same as the FuzzyARTClassifierTest
+		Map<String, String> properties = new HashMap<String, String>();
+		properties.put(FuzzyARTClassifier.VIGILANCE, Double.valueOf(0.5).toString());
+		properties.put(FuzzyARTClassifier.COMPLEMENT_CODE, Boolean.TRUE.toString());
+
+		try{
+			double[][] input = {{.1,.1},{.2,.2},{.3,.3},{.4,.4},{.5,.5},{.6,.6},{.7,.7},{.8,.8},{.9,.9},{1,1}};
+
+			FuzzyARTClassifierBatchTest batchFart = new FuzzyARTClassifierBatchTest(2);
+			batchFart.configureByProperties(properties);
+			FuzzyARTClassifierBatchTest sequentialFart = new FuzzyARTClassifierBatchTest(2);
+			sequentialFart.configureByProperties(properties);
+			runBatchTest(batchFart, sequentialFart, input);
+		}catch(Throwable t){
+			checker.error(t);
+		}
+
+		checker.finish();
+	}
+
+	/**
+	 * Run a test on the classifier that trains all of the given input in a single batch, checking that
+	 * the categories and model vectors are the same as presenting each pattern with step()
+	 *
+	 * @param fart - the fuzzy ART classifier instance to train in a single batch
+	 * @param sequentialFart - a fuzzy ART classifier instance with the same configuration to train one pattern at a time
+	 * @param input - the collection of data pairs to test with as input to the classifier
+	 */
+	private static void runBatchTest(FuzzyARTClassifierBatchTest fart, FuzzyARTClassifierBatchTest sequentialFart, double[][] input){
+
+		int sampleSize = input[0].length;
+		double[] samples = new double[input.length * sampleSize];
+		for(int i = 0; i < input.length; i++){
+			System.arraycopy(input[i], 0, samples, i * sampleSize, sampleSize);
+		}
+
+		int[] patternPres = fart.train(samples, input.length);
+
+		int[] sequentialPres = new int[input.length];
+		for(int i = 0; i < input.length; i++){
+			sequentialPres[i] = sequentialFart.step(input[i]);
+		}
+		checker.check("batch categories", Arrays.toString(sequentialPres), Arrays.toString(patternPres));
+
+		System.out.print("Batch presented:");
+		for(int value : patternPres){
+			System.out.print(" " + value + ",");
+		}
+
+		System.out.print("\nBatch find:");
+		for(double[] values : input){
+			int category = fart.categorize(values);
+			checker.check("batch categorize "+Arrays.toString(values), sequentialFart.categorize(values), category);
+			System.out.print(" " + category + ",");
+		}
+
+		System.out.println("\nnet.categorize => "+fart.categorize(new double[]{0.2, 0.4}));
+		System.out.println(fart.getModelVectorsDisplay());
+		checker.check("batch model vectors", sequentialFart.getModelVectorsDisplay(), fart.getModelVectorsDisplay());
+	}
+}
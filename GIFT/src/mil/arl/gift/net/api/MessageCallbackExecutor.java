@@ -0,0 +1,436 @@
+/**
+ * Copyright Dignitas Technologies, LLC
+ *
+ * This file and its contents are governed by one or more distribution and
+ * copyright statements as described in the LICENSE.txt file distributed with
+ * this work.
+ */
+package mil.arl.gift.net.api;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import mil.arl.gift.common.io.CommonProperties;
+
+/**
+ * Runs the notifications of message send completion (e.g. {@link MessageCollectionCallback} success and failure)
+ * and other network session events on reusable named threads instead of creating a new thread
+ * per notification.<br/>
+ * <br/>
+ * Callback implementations are allowed to block (e.g. while waiting on a reply to another message), therefore
+ * a notification never waits in a queue behind a busy callback thread: it is handed directly to an idle thread or a new
+ * thread is started for it.  The configured number of threads are kept ready and the extra threads end after
+ * being idle for a minute.  The number of threads is bounded by {@link CommonProperties#getMessageCallbackMaxThreads()},
+ * when every thread is busy the notification is run by the thread submitting it instead, so a burst slows down the
+ * sender rather than growing the number of threads without limit.  Those notifications are counted and logged.
+ * Because nothing is queued, the number of running notifications and its high water mark are reported instead of a
+ * queue depth.  Timeout notifications (see {@link #executeTimeout(Runnable, String)}) run on their
+ * own threads so that a callback blocked on a reply can always be told that the reply timed out.  Callbacks
+ * that run longer than {@link #SLOW_CALLBACK_WARNING_MS} are logged and counted so that blocking callbacks
+ * can be found.<br/>
+ * <br/>
+ * There is one executor per JVM, shared by every module running in that JVM (see
+ * {@link #configure(String, CommonProperties)}).<br/>
+ * Virtual threads are used instead of the thread pools when requested and the JVM supports them, the number of
+ * virtual threads is not bounded.
+ *
+ * @author agent
+ *
+ */
+public class MessageCallbackExecutor {
+
+    /** instance of the logger */
+    private static Logger logger = LoggerFactory.getLogger(MessageCallbackExecutor.class);
+
+    /** callbacks that run longer than this (ms) are logged as possibly blocking */
+    public static final long SLOW_CALLBACK_WARNING_MS = 5000;
+
+    /** how long (seconds) a callback thread beyond the configured number of threads waits for work before ending */
+    private static final long IDLE_THREAD_TIMEOUT_S = 60;
+
+    /** the least amount of time (ms) between warnings about notifications run by the submitting thread */
+    private static final long CALLER_RUNS_WARNING_INTERVAL_MS = 10000;
+
+    /** the singleton instance of this class */
+    private static MessageCallbackExecutor instance = null;
+
+    /** a name used for the threads and logging (e.g. the module name) */
+    private final String name;
+
+    /** runs the notifications */
+    private final ExecutorService executor;
+
+    /** runs the timeout notifications, separate from the other notifications */
+    private final ExecutorService timeoutExecutor;
+
+    /** the thread pool, null if virtual threads are being used */
+    private final ThreadPoolExecutor threadPool;
+
+    /** the timeout thread pool, null if virtual threads are being used */
+    private final ThreadPoolExecutor timeoutThreadPool;
+
+    /** the number of notifications currently running */
+    private final AtomicInteger runningCount = new AtomicInteger();
+
+    /** the largest number of notifications that have been running at the same time */
+    private final AtomicInteger maxRunningCount = new AtomicInteger();
+
+    /** total number of notifications submitted */
+    private final AtomicLong submittedCount = new AtomicLong();
+
+    /** total number of notifications that ran longer than {@link #SLOW_CALLBACK_WARNING_MS} */
+    private final AtomicLong slowCount = new AtomicLong();
+
+    /** total number of notifications run by the submitting thread because every callback thread was busy */
+    private final AtomicLong callerRunsCount = new AtomicLong();
+
+    /** when the last warning about notifications run by the submitting thread was logged (epoch ms) */
+    private volatile long lastCallerRunsWarning = 0;
+
+    /**
+     * Return the singleton instance, creating it with the values in the common properties if
+     * {@link #configure(String, CommonProperties)} hasn't been called.
+     *
+     * @return the executor for message callbacks
+     */
+    public static synchronized MessageCallbackExecutor getInstance() {
+
+        if(instance == null){
+            instance = new MessageCallbackExecutor("GIFT", CommonProperties.getInstance());
+        }
+
+        return instance;
+    }
+
+    /**
+     * Create the singleton instance using the values in the properties provided (e.g. the properties of a module).
+     * If the instance was already created, e.g. by another module running in the same JVM, the number of threads
+     * kept ready and the maximum number of threads are raised to the values in these properties if they are larger.
+     * Whether to use virtual threads is decided by the first configuration.
+     *
+     * @param name a name used for the threads and logging (e.g. the module name).  Can't be null.
+     * @param properties where to read the executor settings from.  Can't be null.
+     */
+    public static synchronized void configure(String name, CommonProperties properties) {
+
+        if(instance == null){
+            instance = new MessageCallbackExecutor(name, properties);
+        }else{
+            instance.ensureThreads(properties.getMessageCallbackThreads(), properties.getMessageCallbackMaxThreads());
+
+            if(logger.isInfoEnabled()){
+                logger.info("The message callback executor requested by "+name+" is shared with the existing "+instance);
+            }
+        }
+    }
+
+    /**
+     * Create the executor.
+     *
+     * @param name a name used for the threads and logging (e.g. the module name).  Can't be null.
+     * @param properties where to read the executor settings from.  Can't be null.
+     */
+    private MessageCallbackExecutor(String name, CommonProperties properties) {
+
+        if(name == null){
+            throw new IllegalArgumentException("The name can't be null.");
+        }else if(properties == null){
+            throw new IllegalArgumentException("The properties can't be null.");
+        }
+
+        this.name = name;
+
+        ExecutorService virtualExecutor = null, virtualTimeoutExecutor = null;
+        if(properties.getMessageCallbackUseVirtualThreads()){
+            virtualExecutor = createVirtualThreadExecutor();
+            virtualTimeoutExecutor = virtualExecutor != null ? createVirtualThreadExecutor() : null;
+        }
+
+        if(virtualExecutor != null && virtualTimeoutExecutor != null){
+            threadPool = null;
+            timeoutThreadPool = null;
+            executor = virtualExecutor;
+            timeoutExecutor = virtualTimeoutExecutor;
+        }else{
+            int maxThreads = properties.getMessageCallbackMaxThreads();
+            threadPool = createThreadPool(name + " Msg Callback ", properties.getMessageCallbackThreads(), maxThreads);
+            timeoutThreadPool = createThreadPool(name + " Msg Timeout Callback ", 1, maxThreads);
+            executor = threadPool;
+            timeoutExecutor = timeoutThreadPool;
+        }
+
+        if(logger.isInfoEnabled()){
+            logger.info("Created "+this);
+        }
+    }
+
+    /**
+     * Create a thread pool that never queues a task: a task is handed to an idle thread or a new thread is
+     * started for it, so a blocked task can't keep another task from running.  When the maximum number of
+     * threads are busy the task is run by the submitting thread.
+     *
+     * @param threadNamePrefix the start of the name of each thread
+     * @param coreThreads the number of threads kept ready, the other threads end once idle
+     * @param maxThreads the largest number of threads in the pool
+     * @return the new thread pool
+     */
+    private ThreadPoolExecutor createThreadPool(final String threadNamePrefix, int coreThreads, int maxThreads) {
+
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(coreThreads, Math.max(coreThreads, maxThreads), IDLE_THREAD_TIMEOUT_S, TimeUnit.SECONDS,
+                new SynchronousQueue<Runnable>(),
+                new ThreadFactory() {
+
+                    private final AtomicInteger counter = new AtomicInteger(1);
+
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        final Thread thread = new Thread(r, threadNamePrefix + counter.getAndIncrement());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                },
+                new RejectedExecutionHandler() {
+
+                    @Override
+                    public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+
+                        if(executor.isShutdown()){
+                            throw new RejectedExecutionException("The message callback executor "+name+" has been shut down.");
+                        }
+
+                        long count = callerRunsCount.incrementAndGet();
+                        long now = System.currentTimeMillis();
+                        if(now - lastCallerRunsWarning > CALLER_RUNS_WARNING_INTERVAL_MS){
+                            lastCallerRunsWarning = now;
+                            logger.warn("All "+executor.getMaximumPoolSize()+" message callback threads of '"+threadNamePrefix.trim()+"' are busy, running the callback on the thread "+
+                                    Thread.currentThread().getName()+" that submitted it.  A total of "+count+" callbacks have been run this way.  "+MessageCallbackExecutor.this);
+                        }
+
+                        r.run();
+                    }
+                });
+        pool.prestartCoreThread();
+        return pool;
+    }
+
+    /**
+     * Raise the number of callback threads kept ready and the maximum number of callback threads.
+     *
+     * @param coreThreads the number of threads to keep ready, ignored if not larger than the current number
+     * @param maxThreads the largest number of threads, ignored if not larger than the current maximum
+     */
+    private void ensureThreads(int coreThreads, int maxThreads) {
+
+        if(threadPool == null){
+            return;
+        }
+
+        //raise the maximum first, it can't be lower than the number of threads kept ready
+        int max = Math.max(coreThreads, maxThreads);
+        if(max > threadPool.getMaximumPoolSize()){
+            threadPool.setMaximumPoolSize(max);
+            timeoutThreadPool.setMaximumPoolSize(max);
+        }
+
+        if(coreThreads > threadPool.getCorePoolSize()){
+            threadPool.setCorePoolSize(coreThreads);
+        }
+    }
+
+    /**
+     * Create an executor that starts a new virtual thread for each task.  Reflection is used so that
+     * GIFT can still be built and run with a JDK that doesn't have virtual threads.
+     *
+     * @return the executor, null if virtual threads are not supported by this JVM
+     */
+    private static ExecutorService createVirtualThreadExecutor() {
+
+        try{
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }catch(Exception e){
+            logger.warn("Virtual threads were requested for message callbacks but are not supported by this JVM ("+
+                    System.getProperty("java.version")+"), using a thread pool instead.", e);
+            return null;
+        }
+    }
+
+    /**
+     * Run the notification on a callback thread.  The notification is never queued behind other notifications.
+     *
+     * @param task the notification to run.  Exceptions thrown by the task are logged.  Can't be null.
+     * @param description a short description of the notification used when logging problems (e.g. "Msg 12 success callback").
+     */
+    public void execute(final Runnable task, final String description) {
+        execute(executor, task, description);
+    }
+
+    /**
+     * Run a timeout notification (e.g. a message that wasn't replied to in time) on a callback thread that
+     * isn't shared with the other notifications, so that a callback blocked waiting on a reply can't keep
+     * the timeout of that reply from being delivered.
+     *
+     * @param task the notification to run.  Exceptions thrown by the task are logged.  Can't be null.
+     * @param description a short description of the notification used when logging problems (e.g. "Msg 12 timeout callback").
+     */
+    public void executeTimeout(final Runnable task, final String description) {
+        execute(timeoutExecutor, task, description);
+    }
+
+    /**
+     * Run the notification using the executor provided.
+     *
+     * @param taskExecutor where to run the notification
+     * @param task the notification to run.  Exceptions thrown by the task are logged.  Can't be null.
+     * @param description a short description of the notification used when logging problems.
+     */
+    private void execute(ExecutorService taskExecutor, final Runnable task, final String description) {
+
+        if(task == null){
+            throw new IllegalArgumentException("The task can't be null.");
+        }
+
+        submittedCount.incrementAndGet();
+
+        Runnable wrapper = new Runnable() {
+
+            @Override
+            public void run() {
+
+                int running = runningCount.incrementAndGet();
+                int max;
+                while(running > (max = maxRunningCount.get()) && !maxRunningCount.compareAndSet(max, running)){
+                    //try again
+                }
+
+                long start = System.currentTimeMillis();
+                try{
+                    task.run();
+                }catch(Throwable t){
+                    logger.error("Caught exception while running the message callback '"+description+"'.", t);
+                }finally{
+                    runningCount.decrementAndGet();
+
+                    long elapsed = System.currentTimeMillis() - start;
+                    if(elapsed > SLOW_CALLBACK_WARNING_MS){
+                        long slow = slowCount.incrementAndGet();
+                        logger.warn("The message callback '"+description+"' took "+elapsed+" ms, it may be blocking (e.g. waiting on another reply).  A total of "+
+                                slow+" callbacks have been slow.  "+MessageCallbackExecutor.this);
+                    }
+                }
+            }
+        };
+
+        try{
+            taskExecutor.execute(wrapper);
+        }catch(RejectedExecutionException e){
+            logger.error("Unable to run the message callback '"+description+"'.", e);
+        }
+    }
+
+    /**
+     * Return the number of notifications that are currently running.
+     *
+     * @return the number of running notifications
+     */
+    public int getRunningCount() {
+        return runningCount.get();
+    }
+
+    /**
+     * Return the largest number of notifications that have been running at the same time.
+     *
+     * @return the high water mark of running notifications
+     */
+    public int getMaxRunningCount() {
+        return maxRunningCount.get();
+    }
+
+    /**
+     * Return the total number of notifications submitted to this executor.
+     *
+     * @return the number of notifications since this executor was created
+     */
+    public long getSubmittedCount() {
+        return submittedCount.get();
+    }
+
+    /**
+     * Return the total number of notifications that ran longer than {@link #SLOW_CALLBACK_WARNING_MS}.
+     *
+     * @return the number of slow notifications since this executor was created
+     */
+    public long getSlowCount() {
+        return slowCount.get();
+    }
+
+    /**
+     * Return the total number of notifications run by the submitting thread because every callback thread was busy.
+     *
+     * @return the number of notifications that couldn't be handed to a callback thread since this executor was created
+     */
+    public long getCallerRunsCount() {
+        return callerRunsCount.get();
+    }
+
+    /**
+     * Return the largest number of threads the callback thread pool can have, not including the timeout threads.
+     *
+     * @return the maximum number of callback threads, -1 if virtual threads are being used
+     */
+    public int getMaxPoolSize() {
+        return threadPool != null ? threadPool.getMaximumPoolSize() : -1;
+    }
+
+    /**
+     * Return the largest number of threads that have been in the callback thread pool at the same time,
+     * not including the timeout threads.
+     *
+     * @return the high water mark of callback threads, -1 if virtual threads are being used
+     */
+    public int getLargestPoolSize() {
+        return threadPool != null ? threadPool.getLargestPoolSize() : -1;
+    }
+
+    /**
+     * Return the number of threads in the callback thread pool, not including the timeout threads.
+     *
+     * @return the number of callback threads, -1 if virtual threads are being used
+     */
+    public int getPoolSize() {
+        return threadPool != null ? threadPool.getPoolSize() : -1;
+    }
+
+    @Override
+    public String toString() {
+
+        StringBuilder sb = new StringBuilder("[MessageCallbackExecutor: ");
+        sb.append("name = ").append(name);
+        if(threadPool != null){
+            sb.append(", coreThreads = ").append(threadPool.getCorePoolSize());
+            sb.append(", maxThreads = ").append(getMaxPoolSize());
+            sb.append(", threads = ").append(getPoolSize());
+            sb.append(", largestThreads = ").append(getLargestPoolSize());
+            sb.append(", timeoutThreads = ").append(timeoutThreadPool.getPoolSize());
+        }else{
+            sb.append(", virtualThreads = true");
+        }
+        sb.append(", running = ").append(getRunningCount());
+        sb.append(", maxRunning = ").append(getMaxRunningCount());
+        sb.append(", submitted = ").append(getSubmittedCount());
+        sb.append(", slow = ").append(getSlowCount());
+        sb.append(", callerRuns = ").append(getCallerRunsCount());
+        sb.append("]");
+        return sb.toString();
+    }
+}
@@ -8,9 +8,8 @@
 package mil.arl.gift.net.api;
 
 import java.io.IOException;
-import java.util.Base64;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -182,8 +181,8 @@ public abstract class MessageClient implements MessageListener {
     //    and it only happens when shutting down gift modules.
     private final Set<MessageClientConnectionListener> connectionListeners = Collections.newSetFromMap(new ConcurrentHashMap<MessageClientConnectionListener,Boolean>());
 
-    /** list of unprocessed JMS Messages */
-    private final List<Message> incomingMessageList = new LinkedList<Message>();
+    /** unprocessed JMS Messages, drained in batches by the listen thread */
+    private final MessageDispatchQueue<Message> incomingMessageQueue;
     
     /**
      * Constructor
@@ -202,6 +201,10 @@ public abstract class MessageClient implements MessageListener {
         this.connectionUrl = StringUtils.isNotBlank(connectionUrl) ? connectionUrl : DEFAULT_URL;
         this.subjectName = subjectName;
         this.pruneOldMessages = pruneOldMessages;
+        //Note: the received messages haven't been decoded yet so ACK/NACK replies can't be told apart from other
+        //      messages here, therefore this queue never drops a message (the decoded message queue of the network
+        //      session is where dropping can be enabled)
+        this.incomingMessageQueue = new MessageDispatchQueue<>(subjectName, MessageDispatchQueue.DEFAULT_CAPACITY, -1);
     }
 
     /**
@@ -627,12 +630,8 @@ public abstract class MessageClient implements MessageListener {
         if (msg != null && isActive) {
             //only add the message if this client is active
 
-            synchronized (incomingMessageList) {
-
-                incomingMessageList.add(msg);
-
-                incomingMessageList.notifyAll();
-            }
+            //Note: this will apply backpressure on the JMS session thread if the queue is full
+            incomingMessageQueue.add(msg);
         }
     }
 
@@ -661,41 +660,35 @@ public abstract class MessageClient implements MessageListener {
     }
 
     /**
-     * Dispatches messages to be handled
+     * Dispatches messages to be handled.  All available messages (up to the batch size) are pulled
+     * from the queue at once.
      */
     private void dispatchMessages() {
 
-        Message msg;
+        List<Message> batch = new ArrayList<>(MessageDispatchQueue.DEFAULT_BATCH_SIZE);
 
         //process all the messages in the queue on this tick
         do {
 
-            synchronized (incomingMessageList) {
-
-                //MH: issue 3318 needed isActive() to be added here because a Gateway topic message was being processed
-                //    in handleMessage outside of this synchronized block when the incomingMessageList.notifyAll was called
-                //    in disconnect method.
-                if (incomingMessageList.isEmpty() && isActive()) {
-
-                    try {
-                        //wait until a message is received or the client is disconnecting
-                        incomingMessageList.wait();
-
-                    } catch (@SuppressWarnings("unused") InterruptedException e) {
-                    }
-                }
+            batch.clear();
 
-                //TODO: pulling all available messages inside a single synchronized block
-                //      may be more efficient
-                msg = incomingMessageList.isEmpty() ? null : incomingMessageList.remove(0);
+            //MH: issue 3318 needed isActive() to be checked here because a Gateway topic message was being processed
+            //    in handleMessage after the queue was cleared in the disconnect method.
+            if (!isActive() && incomingMessageQueue.isEmpty()) {
+                break;
             }
 
-            if (msg != null) {
+            try {
+                //wait until a message is received or the client is disconnecting
+                incomingMessageQueue.drainTo(batch, MessageDispatchQueue.DEFAULT_BATCH_SIZE);
+            } catch (@SuppressWarnings("unused") InterruptedException e) {
+            }
 
+            for (Message msg : batch) {
                 handleMessage(msg);
             }
 
-        } while (msg != null);
+        } while (!batch.isEmpty());
         
         if(logger.isInfoEnabled()){
             logger.info("Leaving dispatch messages logic (for now) because the collection had no messages for "+getSubjectName()+".");
@@ -790,13 +783,9 @@ public abstract class MessageClient implements MessageListener {
                 }
 
                 try {
-                    /* Base64 encoding schemes are commonly used when there is a
-                     * need to encode binary data that needs be stored and
-                     * transferred over media that are designed to deal with
-                     * textual data. This is to ensure that the data remains
-                     * intact without modification during transport. */
-                    final String bufferText = Base64.getEncoder().encodeToString(buffer);
-                    rawMsgHandler.processMessage(bufferText, encodingProperty);
+                    //hand the payload to the handler as is, handlers that support it will parse the
+                    //protobuf message directly from these bytes
+                    rawMsgHandler.processMessage(buffer, encodingProperty);
                 } catch (Throwable e) {
                     logger.error("Caught exception when decoding bytes message = " + msg, e);
                 }
@@ -824,10 +813,12 @@ public abstract class MessageClient implements MessageListener {
 
             isActive = false;
             
-            synchronized(incomingMessageList){
-                //since the connection is disconnecting, clear the local message queue and wake the thread up
-                incomingMessageList.clear();
-                incomingMessageList.notifyAll();
+            //since the connection is disconnecting, clear the local message queue and wake the thread up
+            incomingMessageQueue.clear();
+            incomingMessageQueue.wakeup();
+
+            if(logger.isInfoEnabled()){
+                logger.info("Incoming message queue statistics for "+getSubjectName()+": "+incomingMessageQueue);
             }
     
             synchronized (listenRunnable) {
@@ -1014,16 +1005,7 @@ public abstract class MessageClient implements MessageListener {
         }
         
         //wakeup the message listener thread and let it handle any messages already received from the message bus.
-        synchronized (incomingMessageList) {
-
-            while(!incomingMessageList.isEmpty()){
-                incomingMessageList.notifyAll();
-            }
-            
-            //one more just in case the message list was empty to being with and the thread is in wait
-            incomingMessageList.notifyAll();         
-            
-        }
+        incomingMessageQueue.wakeup();
         
         //wait for listen thread to finish gracefully after just having allowed it to read all messages in the message list
         //The listen thread needs to be finished before attempting a reconnect which will re-initialize and start the listen thread
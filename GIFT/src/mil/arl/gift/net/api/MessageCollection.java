@@ -10,8 +10,7 @@ package mil.arl.gift.net.api;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,6 +18,7 @@ import org.slf4j.LoggerFactory;
 import mil.arl.gift.common.enums.MessageEncodingTypeEnum;
 import mil.arl.gift.common.enums.MessageTypeEnum;
 import mil.arl.gift.common.io.CommonProperties;
+import mil.arl.gift.common.util.HashedWheelTimer;
 import mil.arl.gift.net.api.message.Message;
 import mil.arl.gift.net.api.message.NACK;
 import mil.arl.gift.net.api.message.PayloadDecodeException;
@@ -44,6 +44,15 @@ public class MessageCollection implements MessageClientConnectionListener {
     //NOTE (MH 1/28/13): After adding an after-ACK queue in MessageClient I was able to run an 
     //           Explicit Feedback course with this value at 100.
     public static final int ACK_TIMEOUT = CommonProperties.getInstance().getMessageAckTimeoutMs();
+    
+    /**
+     * The single timer thread that serves the ACK timeouts of every message collection in this JVM
+     * instead of a timer thread per message collection
+     */
+    private static final HashedWheelTimer ACK_TIMEOUT_TIMER = new HashedWheelTimer("MessageCollection-ACK-Timeout-Timer");
+    
+    /** the codec used to convert GIFT messages into protobuf messages, it is stateless and can be shared */
+    private static final ProtobufMessageProtoCodec CODEC = new ProtobufMessageProtoCodec();
 
     /**
      * A simple data structure for storing where a message was sent and if it
@@ -93,9 +102,9 @@ public class MessageCollection implements MessageClientConnectionListener {
     private final MessageCollectionCallback callback;
 
     /**
-     * The ACK timeout timer Note: this creates a new thread
+     * The ACK timeout scheduled on the shared ACK timeout timer, null if not waiting for ACKs
      */
-    private ReschedulableTimer ackTimer;
+    private HashedWheelTimer.Timeout ackTimeout;
 
     /**
      * The original message being sent
@@ -232,12 +241,11 @@ public class MessageCollection implements MessageClientConnectionListener {
                     if (callback != null && isActive) {
         
                         //Start the ACK Timer now that all the messages have been sent
-                        if (ackTimer == null) {
-        
-                            ackTimer = new ReschedulableTimer("MessageCollectionACKReceived-Timer", ACK_TIMEOUT, message);
+                        if (ackTimeout != null) {
+                            ackTimeout.cancel();
                         }
         
-                        ackTimer.schedule();
+                        ackTimeout = ACK_TIMEOUT_TIMER.newTimeout(new TimeoutTimerTask(message), ACK_TIMEOUT, TimeUnit.MILLISECONDS);
                     }
                 }
             }//end lock
@@ -282,7 +290,7 @@ public class MessageCollection implements MessageClientConnectionListener {
         if (MessageEncodingTypeEnum.JSON.equals(encodingType)) {
             throw new UnsupportedOperationException("JSON message types are no longer supported.");
         } else if (MessageEncodingTypeEnum.BINARY.equals(encodingType)) {
-            return client.sendMessage(new ProtobufMessageProtoCodec().map(clientMessage));
+            return client.sendMessage(CODEC.map(clientMessage));
         } else {
             logger.error("Unknown encoding type '" + encodingType + "' found. Unable to send the message.");
         }
@@ -296,9 +304,9 @@ public class MessageCollection implements MessageClientConnectionListener {
      */
     private void receivedACK() {
 
-        if (ackTimer != null) {
-            ackTimer.cancel();
-            ackTimer = null;
+        if (ackTimeout != null) {
+            ackTimeout.cancel();
+            ackTimeout = null;
 
             if (logger.isDebugEnabled()) {
                 logger.info("All messages have been received at their destinations for " + this);
@@ -322,9 +330,9 @@ public class MessageCollection implements MessageClientConnectionListener {
         //This is the first time the error was ever seen and I can only assume based on the code that an ACK msg
         //was received before the ACK timer was initialized.  In this scenario, the ACK timer might be scheduled after this line but
         //the only affect will be a warning msg in the log file.
-        if(ackTimer != null){
-            ackTimer.cancel();
-            ackTimer = null;
+        if(ackTimeout != null){
+            ackTimeout.cancel();
+            ackTimeout = null;
         }
         
         // remove the connection status listener from all the clients when this is finished.
@@ -428,7 +436,7 @@ public class MessageCollection implements MessageClientConnectionListener {
     	                        //(#1302) - threading this call here to allow the callback success method implementations
     	                        //to take as long as they want handling this event.  The longest logic currently is
     	                        //in dealing with the domain options request after receiving the LMS data reply.
-                                Thread successThread = new Thread(new Runnable() {
+                                MessageCallbackExecutor.getInstance().execute(new Runnable() {
                                     
                                     @Override
                                     public void run() {
@@ -450,8 +458,6 @@ public class MessageCollection implements MessageClientConnectionListener {
                                     }
                                 }, "Msg "+message.getSequenceNumber()+" success callback");
                                 
-                                successThread.start();                              
-                                
                             }
                             return true;
                         }
@@ -495,7 +501,7 @@ public class MessageCollection implements MessageClientConnectionListener {
                         if (callback != null) {
         
                             // thread the callback in order to release the 'lock'
-                            Thread failureCallbackThread = new Thread(new Runnable() {
+                            MessageCallbackExecutor.getInstance().execute(new Runnable() {
                                 
                                 @Override
                                 public void run() {
@@ -505,9 +511,7 @@ public class MessageCollection implements MessageClientConnectionListener {
                                         logger.error("Caught exception from mis-behaving message callback on receive failure: " + callback+"\n"+payloadException, e);
                                     }                          
                                 }
-                            }, "Msg Collection connection lost");
-                            
-                            failureCallbackThread.start();  
+                            }, "Msg Collection receive failure");
         
                         } else {        
                             logger.error(builder.toString(), payloadException);
@@ -604,7 +608,7 @@ public class MessageCollection implements MessageClientConnectionListener {
                         if(callback != null) {
                             
                             // thread the callback in order to release the 'lock'
-                            Thread failureCallbackThread = new Thread(new Runnable() {
+                            MessageCallbackExecutor.getInstance().executeTimeout(new Runnable() {
                                 
                                 @Override
                                 public void run() {
@@ -615,8 +619,6 @@ public class MessageCollection implements MessageClientConnectionListener {
                                     }                            
                                 }
                             }, "Msg Collection connection lost");
-                            
-                            failureCallbackThread.start();                          
                         }
                     }
                 }
@@ -640,7 +642,7 @@ public class MessageCollection implements MessageClientConnectionListener {
                     if (isActive) {
                         
                         // thread the callback in order to release the 'lock'
-                        Thread failureCallbackThread = new Thread(new Runnable() {
+                        MessageCallbackExecutor.getInstance().executeTimeout(new Runnable() {
                             
                             @Override
                             public void run() {
@@ -651,8 +653,6 @@ public class MessageCollection implements MessageClientConnectionListener {
                                 }                            
                             }
                         }, "Msg Collection connection closed");
-                        
-                        failureCallbackThread.start();
                     }
                 }
             }
@@ -668,7 +668,7 @@ public class MessageCollection implements MessageClientConnectionListener {
         sb.append("[MessageCollection: ");
         sb.append("active = ").append(isActive);
         sb.append(", sourceEventId = ").append(sourceEventId);
-        sb.append(", ackTimer = ").append(ackTimer != null);
+        sb.append(", ackTimer = ").append(ackTimeout != null);
         sb.append(" message = ").append(message);
         sb.append("]");
 
@@ -676,65 +676,10 @@ public class MessageCollection implements MessageClientConnectionListener {
     }
 
     /**
-     * This class is responsible for scheduling or rescheduling a timer task
-     * without having to create a new thread.
-     *
-     * @author mhoffman
-     *
-     */
-    private class ReschedulableTimer extends Timer {
-
-        private TimeoutTimerTask timerTask = null;
-
-        /** amount of time (milliseconds) to wait for a response */
-        private final int delay;
-        
-        /** the sent message whose response is being timed */
-        private Message sentMessage;
-
-        /**
-         * Class constructor - set the thread name
-         *
-         * @param name - thread name to use for this timer
-         * @param delay - amount of time (milliseconds) to wait for a response
-         * @param message - the sent message whose response is being timed
-         */
-        public ReschedulableTimer(String name, int delay, Message message) {
-            super(name);
-            this.delay = delay;
-            this.sentMessage = message;
-        }
-
-        /**
-         * Schedule a timer task with the given delay
-         */
-        public void schedule() {
-
-            if (timerTask == null) {
-                timerTask = new TimeoutTimerTask(sentMessage);
-                schedule(timerTask, delay);
-            } else {
-                reschedule();
-            }
-        }
-
-        /**
-         * Reschedules the timer task with the given delay
-         *
-         * @param delay
-         */
-        private void reschedule() {
-            timerTask.cancel();
-            timerTask = new TimeoutTimerTask(message);
-            schedule(timerTask, delay);
-        }
-    }
-
-    /**
-     * A TimerTask that calls failure on the callback if all messages are not
+     * A task that calls failure on the callback if all messages are not
      * responded to within the timeout duration.
      */
-    private class TimeoutTimerTask extends TimerTask {
+    private class TimeoutTimerTask implements Runnable {
         
         /** the sent message whose response is being timed */
         private Message sentMessage;
@@ -777,19 +722,33 @@ public class MessageCollection implements MessageClientConnectionListener {
     
                     if (!allRepliedTo) {
     
-                        String failString = builder.toString();
+                        final String failString = builder.toString();
                         logger.error("Message has timed out because: " + failString);
-                        handleTimeout(failString);
+                        
+                        //notify on a callback thread in order to keep the shared ACK timeout timer responsive
+                        MessageCallbackExecutor.getInstance().executeTimeout(new Runnable() {
+                            
+                            @Override
+                            public void run() {
+                                handleTimeout(failString);
+                            }
+                        }, "Msg "+sentMessage.getSequenceNumber()+" timeout callback");
     
                     } else {
     
                         if (callback != null) {
     
-                            try{
-                                callback.success();
-                            }catch(Exception e){
-                                logger.error("Caught exception from mis-behaving message callback "+callback, e);
-                            }
+                            MessageCallbackExecutor.getInstance().execute(new Runnable() {
+                                
+                                @Override
+                                public void run() {
+                                    try{
+                                        callback.success();
+                                    }catch(Exception e){
+                                        logger.error("Caught exception from mis-behaving message callback "+callback, e);
+                                    }
+                                }
+                            }, "Msg "+sentMessage.getSequenceNumber()+" success callback");
                         }
     
                         logger.warn("TimeoutTimerTask run() was executed even though all messages were replied to.");
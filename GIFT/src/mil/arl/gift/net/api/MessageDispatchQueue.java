@@ -0,0 +1,448 @@
+/**
+ * Copyright Dignitas Technologies, LLC
+ *
+ * This file and its contents are governed by one or more distribution and
+ * copyright statements as described in the LICENSE.txt file distributed with
+ * this work.
+ */
+package mil.arl.gift.net.api;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import mil.arl.gift.common.io.CommonProperties;
+
+/**
+ * A bounded, multiple producer / single consumer queue used to hand received messages off to the
+ * thread that dispatches them.  The consumer drains all available elements (up to a batch size) with a
+ * single lock acquisition instead of taking a monitor once per element, and producers only signal the
+ * consumer when it is actually waiting.<br/>
+ * <br/>
+ * The queue has two lanes:
+ * <ul>
+ * <li>a normal lane that is bounded by the configured capacity, when full the producer is blocked
+ * until there is room.  Dropping elements is opt-in: only when a non-negative backpressure timeout is
+ * configured is the element dropped after waiting that long.</li>
+ * <li>a priority lane (e.g. ACK/NACK replies) that is never blocked or dropped and is always drained first.
+ * The consumer can also check it between the elements of a batch with {@link #pollPriority()}.</li>
+ * </ul>
+ * The priority lane is never bounded because blocking an ACK could prevent the very reply the consumer
+ * is waiting on from ever being queued.
+ *
+ * @author agent
+ *
+ * @param <T> the type of element being queued
+ */
+public class MessageDispatchQueue<T> {
+
+    /** instance of the logger */
+    private static Logger logger = LoggerFactory.getLogger(MessageDispatchQueue.class);
+
+    /** the default capacity of the normal lane, read from the common properties */
+    public static final int DEFAULT_CAPACITY = CommonProperties.getInstance().getMessageDispatchQueueCapacity();
+
+    /** the default backpressure timeout (ms), read from the common properties.  Negative (never drop) unless configured otherwise. */
+    public static final int DEFAULT_BACKPRESSURE_TIMEOUT_MS = CommonProperties.getInstance().getMessageDispatchQueueBackpressureTimeoutMs();
+
+    /** the default maximum number of elements drained at once, read from the common properties */
+    public static final int DEFAULT_BATCH_SIZE = CommonProperties.getInstance().getMessageDispatchBatchSize();
+
+    /** a name used for logging purposes (e.g. the subject name of the client) */
+    private final String name;
+
+    /** the maximum number of elements in the normal lane */
+    private final int capacity;
+
+    /**
+     * how long (ms) a producer will wait for room in the normal lane before dropping the element.
+     * A negative value means wait until there is room, zero means drop right away.
+     */
+    private final long backpressureTimeoutMs;
+
+    /** elements waiting to be dispatched */
+    private final ArrayDeque<T> normalLane = new ArrayDeque<>();
+
+    /** high priority elements waiting to be dispatched, always drained before the normal lane */
+    private final ArrayDeque<T> priorityLane = new ArrayDeque<>();
+
+    /**
+     * the number of elements in the priority lane, updated while holding the lock but readable without it
+     * so the consumer can cheaply check for priority elements between the elements of a batch
+     */
+    private volatile int prioritySize = 0;
+
+    /** guards both lanes */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** signaled when an element is added or the consumer needs to wake up */
+    private final Condition notEmpty = lock.newCondition();
+
+    /** signaled when room is made in the normal lane */
+    private final Condition notFull = lock.newCondition();
+
+    /** whether the consumer is currently waiting for an element, guarded by the lock */
+    private boolean consumerWaiting = false;
+
+    /** the number of producers currently waiting for room, guarded by the lock */
+    private int producersWaiting = 0;
+
+    /** whether the consumer has been asked to return from a drain call without elements, guarded by the lock */
+    private boolean wakeupRequested = false;
+
+    /** the largest number of elements (both lanes) that have been queued at the same time */
+    private int highWaterMark = 0;
+
+    /** total number of elements accepted by the queue */
+    private final AtomicLong enqueuedCount = new AtomicLong();
+
+    /** total number of elements dropped because the normal lane was full */
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    /** total number of times a producer had to wait for room in the normal lane */
+    private final AtomicLong blockedCount = new AtomicLong();
+
+    /** total number of non-empty batches handed to the consumer */
+    private final AtomicLong batchCount = new AtomicLong();
+
+    /**
+     * Create a queue using the capacity and backpressure values from the common properties.
+     *
+     * @param name used for logging purposes (e.g. the subject name of the client).  Can't be null.
+     */
+    public MessageDispatchQueue(String name) {
+        this(name, DEFAULT_CAPACITY, DEFAULT_BACKPRESSURE_TIMEOUT_MS);
+    }
+
+    /**
+     * Create a queue.
+     *
+     * @param name used for logging purposes (e.g. the subject name of the client).  Can't be null.
+     * @param capacity the maximum number of elements in the normal lane.  Must be greater than zero.
+     * @param backpressureTimeoutMs how long (ms) a producer will wait for room in the normal lane
+     *        before dropping the element.  A negative value means wait until there is room, zero means
+     *        drop right away.
+     */
+    public MessageDispatchQueue(String name, int capacity, long backpressureTimeoutMs) {
+
+        if(name == null){
+            throw new IllegalArgumentException("The name can't be null.");
+        }else if(capacity <= 0){
+            throw new IllegalArgumentException("The capacity must be greater than zero.");
+        }
+
+        this.name = name;
+        this.capacity = capacity;
+        this.backpressureTimeoutMs = backpressureTimeoutMs;
+    }
+
+    /**
+     * Add an element to the normal lane.  If the lane is full the calling thread will wait according
+     * to the backpressure timeout.
+     *
+     * @param element the element to add.  Can't be null.
+     * @return true if the element was queued, false if it was dropped because the lane remained full
+     */
+    public boolean add(T element) {
+
+        if(element == null){
+            throw new IllegalArgumentException("The element can't be null.");
+        }
+
+        lock.lock();
+        try{
+
+            if(normalLane.size() >= capacity){
+
+                blockedCount.incrementAndGet();
+                long nanosLeft = backpressureTimeoutMs < 0 ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(backpressureTimeoutMs);
+
+                producersWaiting++;
+                try{
+                    while(normalLane.size() >= capacity && nanosLeft > 0){
+
+                        if(backpressureTimeoutMs < 0){
+                            notFull.await();
+                        }else{
+                            nanosLeft = notFull.awaitNanos(nanosLeft);
+                        }
+                    }
+                }catch(@SuppressWarnings("unused") InterruptedException e){
+                    Thread.currentThread().interrupt();
+                }finally{
+                    producersWaiting--;
+                }
+
+                if(normalLane.size() >= capacity){
+
+                    long dropped = droppedCount.incrementAndGet();
+                    logger.warn("Dropping element from the '"+name+"' dispatch queue because it is full with "+capacity+
+                            " elements.  A total of "+dropped+" element(s) have been dropped.");
+                    return false;
+                }
+            }
+
+            normalLane.add(element);
+            afterAdd();
+            return true;
+
+        }finally{
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Add an element to the priority lane.  This will never block or drop the element.
+     *
+     * @param element the element to add.  Can't be null.
+     */
+    public void addPriority(T element) {
+
+        if(element == null){
+            throw new IllegalArgumentException("The element can't be null.");
+        }
+
+        lock.lock();
+        try{
+            priorityLane.add(element);
+            prioritySize = priorityLane.size();
+            afterAdd();
+        }finally{
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Update the counters and wake up the consumer after an element was added.  Must be called while
+     * holding the lock.
+     */
+    private void afterAdd() {
+
+        enqueuedCount.incrementAndGet();
+
+        int size = normalLane.size() + priorityLane.size();
+        if(size > highWaterMark){
+            highWaterMark = size;
+        }
+
+        if(consumerWaiting){
+            notEmpty.signal();
+        }
+    }
+
+    /**
+     * Move the elements that are currently queued into the batch provided, priority lane elements first.
+     * If there are no elements the calling thread will wait until one is added or {@link #wakeup()} is called.
+     *
+     * @param batch where to place the drained elements.  Can't be null.
+     * @param maxElements the maximum number of elements to drain.  Must be greater than zero.
+     * @return the number of elements drained, zero if the consumer was woken up without any elements
+     * @throws InterruptedException if the thread is interrupted while waiting for elements
+     */
+    public int drainTo(Collection<? super T> batch, int maxElements) throws InterruptedException {
+
+        lock.lock();
+        try{
+
+            while(normalLane.isEmpty() && priorityLane.isEmpty() && !wakeupRequested){
+
+                consumerWaiting = true;
+                try{
+                    notEmpty.await();
+                }finally{
+                    consumerWaiting = false;
+                }
+            }
+
+            wakeupRequested = false;
+
+            int drained = 0;
+            while(drained < maxElements && !priorityLane.isEmpty()){
+                batch.add(priorityLane.poll());
+                drained++;
+            }
+            prioritySize = priorityLane.size();
+
+            int drainedNormal = 0;
+            while(drained < maxElements && !normalLane.isEmpty()){
+                batch.add(normalLane.poll());
+                drained++;
+                drainedNormal++;
+            }
+
+            if(drainedNormal > 0 && producersWaiting > 0){
+                notFull.signalAll();
+            }
+
+            if(drained > 0){
+                batchCount.incrementAndGet();
+            }
+
+            return drained;
+
+        }finally{
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove the oldest element from the priority lane without waiting.  Meant to be called by the consumer
+     * between the elements of a drained batch so that a priority element (e.g. an ACK) that arrives while a
+     * batch is being handled doesn't have to wait for the rest of the batch.
+     *
+     * @return the oldest priority element, null if the priority lane is empty
+     */
+    public T pollPriority() {
+
+        if(prioritySize == 0){
+            //avoid taking the lock in the common case
+            return null;
+        }
+
+        lock.lock();
+        try{
+            T element = priorityLane.poll();
+            if(element != null){
+                prioritySize = priorityLane.size();
+                batchCount.incrementAndGet();
+            }
+            return element;
+        }finally{
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Cause the consumer to return from {@link #drainTo(Collection, int)} (e.g. because the client is
+     * disconnecting) even if there are no elements to drain.
+     */
+    public void wakeup() {
+
+        lock.lock();
+        try{
+            wakeupRequested = true;
+            notEmpty.signalAll();
+        }finally{
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove all queued elements and release any producers waiting for room.
+     */
+    public void clear() {
+
+        lock.lock();
+        try{
+            normalLane.clear();
+            priorityLane.clear();
+            prioritySize = 0;
+            notFull.signalAll();
+        }finally{
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Return whether there are no queued elements.
+     *
+     * @return true if both lanes are empty
+     */
+    public boolean isEmpty() {
+
+        lock.lock();
+        try{
+            return normalLane.isEmpty() && priorityLane.isEmpty();
+        }finally{
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Return the number of queued elements in both lanes.
+     *
+     * @return the current queue depth
+     */
+    public int size() {
+
+        lock.lock();
+        try{
+            return normalLane.size() + priorityLane.size();
+        }finally{
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Return the largest number of elements (both lanes) that have been queued at the same time.
+     *
+     * @return the high water mark of this queue
+     */
+    public int getHighWaterMark() {
+
+        lock.lock();
+        try{
+            return highWaterMark;
+        }finally{
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Return the total number of elements accepted by this queue.
+     *
+     * @return the number of queued elements since this queue was created
+     */
+    public long getEnqueuedCount() {
+        return enqueuedCount.get();
+    }
+
+    /**
+     * Return the total number of elements dropped because the normal lane was full.
+     *
+     * @return the number of dropped elements since this queue was created
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Return the total number of times a producer had to wait for room in the normal lane.
+     *
+     * @return the number of times backpressure was applied since this queue was created
+     */
+    public long getBlockedCount() {
+        return blockedCount.get();
+    }
+
+    /**
+     * Return the total number of non-empty batches handed to the consumer.
+     *
+     * @return the number of batches drained since this queue was created
+     */
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    @Override
+    public String toString() {
+
+        StringBuilder sb = new StringBuilder("[MessageDispatchQueue: ");
+        sb.append("name = ").append(name);
+        sb.append(", capacity = ").append(capacity);
+        sb.append(", size = ").append(size());
+        sb.append(", highWaterMark = ").append(getHighWaterMark());
+        sb.append(", enqueued = ").append(getEnqueuedCount());
+        sb.append(", batches = ").append(getBatchCount());
+        sb.append(", blocked = ").append(getBlockedCount());
+        sb.append(", dropped = ").append(getDroppedCount());
+        sb.append("]");
+        return sb.toString();
+    }
+}
@@ -16,12 +16,12 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -55,6 +55,7 @@ import mil.arl.gift.net.api.message.NACK;
 import mil.arl.gift.net.api.message.PayloadDecodeException;
 import mil.arl.gift.net.api.message.RawMessageHandler;
 import mil.arl.gift.net.api.message.UserSessionMessage;
+import mil.arl.gift.net.api.message.codec.proto.ProtobufMessageProtoCodec;
 import mil.arl.gift.net.util.Util;
 
 /**
@@ -70,6 +71,9 @@ public class NetworkSession
     /** instance of the logger */
     private static Logger logger = LoggerFactory.getLogger(NetworkSession.class);
 
+    /** the codec used to encode messages sent on the unacknowledged (fire-and-forget) path */
+    private static final ProtobufMessageProtoCodec CODEC = new ProtobufMessageProtoCodec();
+
     /** flag used to indicate that this session is in the process of shutting down */
     private boolean shuttingDown = false;
 
@@ -81,6 +85,12 @@ public class NetworkSession
      */
     private AtomicInteger atomicSourceEventId = new AtomicInteger(0);
 
+    /** total number of messages sent without a message collection (i.e. no callback and a single destination) */
+    private final AtomicLong unacknowledgedSentCount = new AtomicLong();
+
+    /** total number of messages that failed to send without a message collection */
+    private final AtomicLong unacknowledgedFailedCount = new AtomicLong();
+
     /** the message encoding type to use for all messages being sent by this module */
     private MessageEncodingTypeEnum messageCodecType;
 
@@ -104,6 +114,12 @@ public class NetworkSession
      */
     private List<MessageClient> otherClientsToDestroy = new ArrayList<>();
 
+    /**
+     * clients that only publish to a topic, each with its own broker connection, session and producer
+     * (see {@link #createPublishOnlyTopicClient(String)}).  These are not in the subject to client mapping.
+     */
+    private final List<MessageClient> publishOnlyClients = new ArrayList<>();
+
     /** handler for simulation messages received from a GW module topic */
     private RawMessageHandler simulationMessageHandler;
 
@@ -152,21 +168,13 @@ public class NetworkSession
     /** responsible for monitoring status of all modules that this module is receiving discovery information on */
     private ModuleStatusMonitor moduleStatusMonitor = ModuleStatusMonitor.getInstance();
 
-    /** list of unprocessed but decoded Messages (not ACKs or NACKs) */
-    private final List<Message> decodedMessageList = new LinkedList<>();
-
     /**
-     * list of unprocessed but decoded ACK/NACK messages
-     * The reason these are in a separate thread is to give these messages types precedence over
+     * unprocessed but decoded Messages.
+     * ACK/NACK messages are placed in the priority lane of this queue to give these messages types precedence over
      * any other waiting message types due to Message Collection timeout logic that is waiting
      * for a response to sending a message.
      */
-    private final List<Message> decodedACKs = new LinkedList<>();
-
-    /**
-     * Used to wake-up the thread waiting for incoming decoded messages to arrive
-     */
-    private final Object decodedMessageMutex = new Object();
+    private final MessageDispatchQueue<Message> decodedMessageQueue;
 
     /**
      * contains pre-determined message destinations defined by the GIFT
@@ -522,6 +530,7 @@ public class NetworkSession
         this.senderName = senderName;
         this.senderModuleType = senderModuleType;
         this.ipaddrFilterOn = ipAddressFilter;
+        this.decodedMessageQueue = new MessageDispatchQueue<>(senderName + " Decoded Messages");
 
         if(redirectTutorMsgsToGateway){
             // the tutor module is not going to be running so the Gateway module is now
@@ -621,6 +630,20 @@ public class NetworkSession
 
                 return true;
             }
+            
+            @Override
+            public boolean processMessage(byte[] msg, MessageEncodingTypeEnum encodingType) {
+
+                //ignore incoming messages if currently shutting this module down
+                if (shuttingDown) {
+                    return false;
+                }
+
+                Message message = MessageUtil.getMessageFromBytes(msg, encodingType);
+                handleModuleStatusMessage(message);
+
+                return true;
+            }
         }, false);
     }
 
@@ -748,6 +771,23 @@ public class NetworkSession
 
                 @Override
                 public boolean processMessage(String msg, MessageEncodingTypeEnum encodingType) {
+                    return processMessage(msg, null, encodingType);
+                }
+                
+                @Override
+                public boolean processMessage(byte[] msg, MessageEncodingTypeEnum encodingType) {
+                    return processMessage(null, msg, encodingType);
+                }
+
+                /**
+                 * Decode and handle a message received on the module's queue.
+                 * 
+                 * @param msgText the message as a string, only used if msgBytes is null
+                 * @param msgBytes the raw bytes of the message, can be null if the message was received as a string
+                 * @param encodingType enumerated encoding type for this message
+                 * @return boolean - was the message processed
+                 */
+                private boolean processMessage(String msgText, byte[] msgBytes, MessageEncodingTypeEnum encodingType) {
 
                     if(shuttingDown){
                         //don't process a message if the module is shutting down
@@ -758,7 +798,11 @@ public class NetworkSession
                     try {
 
                         beforeDecodeTime = System.currentTimeMillis();
-                        message = MessageUtil.getMessageFromString(msg, encodingType);
+                        if(msgBytes != null){
+                            message = MessageUtil.getMessageFromBytes(msgBytes, encodingType);
+                        }else{
+                            message = MessageUtil.getMessageFromString(msgText, encodingType);
+                        }
                         afterDecodeTime = System.currentTimeMillis();
 
                         if (afterDecodeTime - beforeDecodeTime > TOO_LONG) {
@@ -817,21 +861,11 @@ public class NetworkSession
         // priority
         if (message.getMessageType() == MessageTypeEnum.ACK || message.getMessageType() == MessageTypeEnum.NACK) {
             // place decoded message in queue and notify listener
-            synchronized (decodedMessageMutex) {
-
-                decodedACKs.add(message);
-
-                decodedMessageMutex.notifyAll();
-            }
+            decodedMessageQueue.addPriority(message);
 
         } else {
             // place decoded message in queue and notify listener
-            synchronized (decodedMessageMutex) {
-
-                decodedMessageList.add(message);
-
-                decodedMessageMutex.notifyAll();
-            }
+            decodedMessageQueue.add(message);
         }
     }
 
@@ -842,60 +876,68 @@ public class NetworkSession
      */
     private void handleDecodedMessage(final MessageHandler messageHandler){
 
-        Message message = null;
+        List<Message> batch = new ArrayList<>(MessageDispatchQueue.DEFAULT_BATCH_SIZE);
         do {
 
-            synchronized (decodedMessageMutex) {
+            batch.clear();
+
+            try {
+                //
+                // Pull all available decoded messages (up to the batch size) at once, waiting until
+                // notified of a new message or when shutting down
+                // - ACK/NACK messages are drained first to help prevent message collection ACK timeouts
+                //
+                decodedMessageQueue.drainTo(batch, MessageDispatchQueue.DEFAULT_BATCH_SIZE);
 
-                if (decodedMessageList.isEmpty() && decodedACKs.isEmpty()) {
+            } catch (@SuppressWarnings("unused") InterruptedException e) {
+            }
 
-                    try {
-                        //wait until notified of a new message or when shutting down
-                        decodedMessageMutex.wait();
+            for(Message message : batch){
 
-                    } catch (@SuppressWarnings("unused") InterruptedException e) {
-                    }
+                //ACK/NACK messages decoded while this batch is being handled go ahead of the rest of the batch
+                Message priorityMessage;
+                while((priorityMessage = decodedMessageQueue.pollPriority()) != null){
+                    dispatchDecodedMessage(priorityMessage, messageHandler);
                 }
 
-                //
-                // Select the next decoded message to handle
-                // - Give ACK/NACK messages precedence to help prevent message collection ACK timeouts
-                //
-                //TODO: pulling all available messages inside a single synchronized block
-                //      may be more efficient
-                message = decodedACKs.isEmpty() ? decodedMessageList.isEmpty() ? null : decodedMessageList.remove(0) : decodedACKs.remove(0);
-//                message = decodedMessageList.isEmpty() ? null : decodedMessageList.remove(0);
+                dispatchDecodedMessage(message, messageHandler);
             }
 
-            if(message != null){
+        } while (!shuttingDown);
 
-                try{
+        if(logger.isInfoEnabled()){
+            logger.info("Ending the handling of decoded messages for sender named "+senderModuleType);
+        }
 
-//                    long before = System.currentTimeMillis();
-                    boolean handled = handleMessageWithMessageCollection(message);
+    }
 
-                    if (!handled) {
-                        messageHandler.processMessage(message);
-                    }
+    /**
+     * Handle a single decoded message, either with a message collection or with the message handler.
+     *
+     * @param message the decoded message to handle
+     * @param messageHandler the message handler to provide the message to if it isn't part of a message collection
+     */
+    private void dispatchDecodedMessage(Message message, MessageHandler messageHandler){
 
-//                    long after = System.currentTimeMillis();
-//                    if((after - before) > 1000){
-//                        logger.error("It took too long! "+(after - before)+", "+message);
-//                    }
+        try{
 
-                }catch(Exception e){
-                    logger.error("Caught exception while handling decoded message, therefore the message will be dropped.  The message is "+message, e);
+//            long before = System.currentTimeMillis();
+            boolean handled = handleMessageWithMessageCollection(message);
 
-                    sendReply(message, new NACK(ErrorEnum.OPERATION_FAILED, "Caught exception while trying to process decoded message."), MessageTypeEnum.PROCESSED_NACK, null);
-                }
+            if (!handled) {
+                messageHandler.processMessage(message);
             }
 
-        } while (!shuttingDown);
+//            long after = System.currentTimeMillis();
+//            if((after - before) > 1000){
+//                logger.error("It took too long! "+(after - before)+", "+message);
+//            }
 
-        if(logger.isInfoEnabled()){
-            logger.info("Ending the handling of decoded messages for sender named "+senderModuleType);
-        }
+        }catch(Exception e){
+            logger.error("Caught exception while handling decoded message, therefore the message will be dropped.  The message is "+message, e);
 
+            sendReply(message, new NACK(ErrorEnum.OPERATION_FAILED, "Caught exception while trying to process decoded message."), MessageTypeEnum.PROCESSED_NACK, null);
+        }
     }
 
 //    /**
@@ -2187,6 +2229,18 @@ public class NetworkSession
 
                     return true;
                 }
+                
+                @Override
+                public boolean processMessage(byte[] msg, MessageEncodingTypeEnum encodingType) {
+
+                    Message message = MessageUtil.getMessageFromBytes(msg, encodingType);
+
+                    // FYI. There is no need for an ACK/NACK on a topic
+
+                    messageHandler.processMessage(message);
+
+                    return true;
+                }
             };
         }
 
@@ -2360,6 +2414,49 @@ public class NetworkSession
         return null;
     }
 
+    /**
+     * Create a topic client that only publishes to the subject and has its own broker connection,
+     * session and producer.  Because a JMS session and its producer can only be used by one thread at a time,
+     * this allows several threads to publish to the same topic in parallel by each using its own client
+     * with {@link #sendUnacknowledgedMessage(MessageClient, Object, UserSession, int, MessageTypeEnum)}.<br/>
+     * The client is not associated with the subject name (i.e. it isn't used by the other send methods) and
+     * is disconnected, without destroying the topic, when this network session is cleaned up.
+     *
+     * @param subjectName the name of the topic to publish to.  Can't be null.
+     * @return the connected client, null if shutting down or the client could not connect
+     */
+    public MessageClient createPublishOnlyTopicClient(String subjectName) {
+
+        if(subjectName == null){
+            throw new IllegalArgumentException("The subject name can't be null.");
+        }else if (shuttingDown) {
+            return null;
+        }
+
+        try {
+            TopicMessageClient tClient = new TopicMessageClient(messageBrokerURI.toString(), subjectName);
+            if (!tClient.connect()) {
+                logger.error("Failed to connect the publish only client to topic = " + subjectName + ".");
+                return null;
+            }
+
+            if (logger.isInfoEnabled()) {
+                logger.info("successfully created publish only topic client for subject = " + subjectName);
+            }
+
+            synchronized (publishOnlyClients) {
+                publishOnlyClients.add(tClient);
+            }
+
+            return tClient;
+
+        } catch (Exception e) {
+            logger.error("Caught exception while trying to create and connect a publish only client to topic " + subjectName, e);
+        }
+
+        return null;
+    }
+
 
     /**
      * Provide the incoming message to the outstanding message collections
@@ -3032,9 +3129,13 @@ public class NetworkSession
 
         boolean sent;
 
+        if (callback == null && clients.size() == 1 && !message.needsHandlingResponse()) {
+            //nothing will be waiting on an ACK, don't create a message collection, just send it
+            return sendUnacknowledgedMessage(clients.iterator().next(), message);
+        }
+
         int sourceEventId = atomicSourceEventId.incrementAndGet();
 
-        //TODO: stream line this more - if only 1 client and no callback, don't create message collection class, just send it
         MessageCollection mCollection = new MessageCollection(sourceEventId, message, clients, callback, this);
 
         if (callback != null) {
@@ -3057,6 +3158,124 @@ public class NetworkSession
         return sent;
     }
 
+    /**
+     * Send a domain session message to a specific address (i.e. subject) without requesting an ACK.
+     * This is meant for high rate messages (e.g. simulation state from a training application) where the
+     * sender doesn't care whether the message was handled, therefore no message collection is created,
+     * no ACK timer is started and no callback is notified.
+     *
+     * @param subjectName - the destination to send this message too
+     * @param payload - the payload of the message to send
+     * @param userSession - information about the user session (including the unique user id of the learner)
+     *                      the message is associated with
+     * @param domainSessionId - the unique domain session id associated with
+     * this domain session message
+     * @param messageType - the type of message being sent
+     * @return boolean - whether the message was sent successfully
+     */
+    public boolean sendUnacknowledgedMessage(String subjectName, Object payload, UserSession userSession, int domainSessionId,
+            MessageTypeEnum messageType) {
+
+        try{
+            MessageClient client = getMessageClient(subjectName);
+            if (client != null) {
+                int sourceEventId = atomicSourceEventId.incrementAndGet();
+                Message message = createDomainSessionMessage(userSession, sourceEventId, domainSessionId, payload, messageType, false);
+                return sendUnacknowledgedMessage(client, message);
+            } else {
+                logger.error("Unable to find a message client for subject name " + subjectName + ", therefore unable to send the payload = " + payload + " for message type " + messageType);
+            }
+
+        } catch (Exception e) {
+            logger.error("Caught exception while trying to send "+messageType+" message to any module with address of " + subjectName, e);
+        }
+
+        unacknowledgedFailedCount.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Send a domain session message without requesting an ACK using the client provided, e.g. a client
+     * created by {@link #createPublishOnlyTopicClient(String)}.  The message is encoded and sent on the calling
+     * thread, therefore the client must only be used by one thread at a time.
+     *
+     * @param client the client to send the message with.  Can't be null.
+     * @param payload the payload of the message
+     * @param userSession information about the user session the message is associated with
+     * @param domainSessionId the unique id of the domain session the message is associated with
+     * @param messageType the type of message being sent
+     * @return boolean - whether the message was sent successfully
+     */
+    public boolean sendUnacknowledgedMessage(MessageClient client, Object payload, UserSession userSession, int domainSessionId,
+            MessageTypeEnum messageType) {
+
+        if(client == null){
+            throw new IllegalArgumentException("The client can't be null.");
+        }
+
+        try{
+            int sourceEventId = atomicSourceEventId.incrementAndGet();
+            Message message = createDomainSessionMessage(userSession, sourceEventId, domainSessionId, payload, messageType, false);
+            return sendUnacknowledgedMessage(client, message);
+        } catch (Exception e) {
+            logger.error("Caught exception while trying to send "+messageType+" message with " + client, e);
+        }
+
+        unacknowledgedFailedCount.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Encode and send the message to a single message client on the calling thread without
+     * the bookkeeping of a message collection.  Only use this for messages that don't need an ACK.
+     *
+     * @param client the destination to send the message
+     * @param message the message to send, the destination will be set to the client's subject
+     * @return boolean - whether the message was sent successfully
+     */
+    private boolean sendUnacknowledgedMessage(MessageClient client, Message message) {
+
+        if (!MessageEncodingTypeEnum.BINARY.equals(messageCodecType)) {
+            //let the message collection deal with any other encoding
+            return new MessageCollection(atomicSourceEventId.incrementAndGet(), message, Collections.singleton(client), null, this).send(messageCodecType);
+        }
+
+        final Message clientMessage = message.copyNewDestination(client.getSubjectName());
+
+        if (logger.isTraceEnabled()) {
+            logger.trace("Sending unacknowledged message " + clientMessage + " to " + client);
+        }
+
+        boolean sent = client.sendMessage(CODEC.map(clientMessage));
+        if (sent) {
+            unacknowledgedSentCount.incrementAndGet();
+        } else {
+            unacknowledgedFailedCount.incrementAndGet();
+            logger.error("Unable to send unacknowledged message " + clientMessage + " to " + client);
+        }
+
+        return sent;
+    }
+
+    /**
+     * Return the total number of messages sent without a message collection, i.e. messages that
+     * have no callback and a single destination.
+     *
+     * @return the number of unacknowledged messages sent since this session was created
+     */
+    public long getUnacknowledgedSentCount() {
+        return unacknowledgedSentCount.get();
+    }
+
+    /**
+     * Return the total number of messages that failed to send without a message collection.
+     *
+     * @return the number of unacknowledged messages that failed to send since this session was created
+     */
+    public long getUnacknowledgedFailedCount() {
+        return unacknowledgedFailedCount.get();
+    }
+
     /**
      * Create a new Domain Session Message with the given content.
      *
@@ -3205,11 +3424,19 @@ public class NetworkSession
                 }
             }
 
+            synchronized (publishOnlyClients) {
+                for (MessageClient i : publishOnlyClients) {
+                    i.disconnect(false);
+                }
+                publishOnlyClients.clear();
+            }
+
             //cleanup the decoded message queue and thread
-            synchronized(decodedMessageMutex){
-                decodedMessageList.clear();
-                decodedACKs.clear();
-                decodedMessageMutex.notifyAll();
+            decodedMessageQueue.clear();
+            decodedMessageQueue.wakeup();
+
+            if(logger.isInfoEnabled()){
+                logger.info("Decoded message queue statistics for "+senderName+": "+decodedMessageQueue);
             }
 
             if(destroyDestinations){
@@ -3285,7 +3512,7 @@ public class NetworkSession
      */
     private void notifyAllocatedModuleRemovedEvent(final int userId, final ModuleTypeEnum moduleType, final StatusReceivedInfo lastStatus){
 
-        new Thread("AllocatedModuleNotification-"+userId+":"+moduleType){
+        MessageCallbackExecutor.getInstance().execute(new Runnable(){
 
             @Override
             public void run() {
@@ -3303,7 +3530,7 @@ public class NetworkSession
                 }
             }
 
-        }.start();
+        }, "AllocatedModuleNotification-"+userId+":"+moduleType);
     }
 
     @Override
@@ -7,6 +7,7 @@
  */
 package mil.arl.gift.net.api.message;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Base64;
 
 import org.json.simple.JSONObject;
@@ -33,6 +34,9 @@ public class MessageUtil {
     /** instance of the logger */
     private static Logger logger = LoggerFactory.getLogger(MessageUtil.class);
 
+    /** the codec used to convert protobuf messages into GIFT messages, it is stateless and can be shared */
+    private static final ProtobufMessageProtoCodec CODEC = new ProtobufMessageProtoCodec();
+
     /**
      * Private constructor - for now there is no need to instantiate this class
      */
@@ -68,20 +72,13 @@ public class MessageUtil {
                 logger.error("JSON was unable to parse string message of " + str);
             }
         } else if (encodingType == MessageEncodingTypeEnum.BINARY) {
-            try {
-                /* Base64 encoding schemes are commonly used when there is a
-                 * need to encode binary data that needs be stored and
-                 * transferred over media that are designed to deal with textual
-                 * data. This is to ensure that the data remains intact without
-                 * modification during transport. */
-                final byte[] bytes = Base64.getDecoder().decode(str);
-                ProtobufMessage protobufMessage = ProtobufMessage.parseFrom(bytes);
-                msg = new ProtobufMessageProtoCodec().convert(protobufMessage);
-            } catch (InvalidProtocolBufferException e) {
-                logger.error("There was a problem parsing the data as a protobuf message.", e);
-                throw new DetailedException("There was a problem parsing the data as a protobuf message.",
-                        "Parsing the protobuf message caused an InvalidProtocolBufferException.", e);
-            }
+            /* Base64 encoding schemes are commonly used when there is a
+             * need to encode binary data that needs be stored and
+             * transferred over media that are designed to deal with textual
+             * data. This is to ensure that the data remains intact without
+             * modification during transport. */
+            final byte[] bytes = Base64.getDecoder().decode(str);
+            msg = getMessageFromProtobufBytes(bytes);
         } else {
             logger.error("There is no support for decoding message of encoding type "+encodingType+", therefore the message = "+str+" will not be handled");
         }
@@ -92,5 +89,55 @@ public class MessageUtil {
 
         return msg;
     }
+    
+    /**
+     * Decode the raw message bytes based on the encoding type.  Binary encoded messages are parsed
+     * directly from the bytes, avoiding the Base64 string round trip of {@link #getMessageFromString(String, MessageEncodingTypeEnum)}.
+     * 
+     * @param bytes - the raw message bytes as received from the message bus.  Can't be null.
+     * @param encodingType - the type of encoding used on the message
+     * @return Message - the message created using the bytes
+     * @throws MessageDecodeException if there was a problem decoding the bytes into a GIFT message
+     * @throws DetailedException if there was a problem parsing the message bytes based on the encoding type provided
+     */
+    public static Message getMessageFromBytes(byte[] bytes, MessageEncodingTypeEnum encodingType) throws MessageDecodeException, DetailedException {
+        
+        if(bytes == null){
+            throw new IllegalArgumentException("The message bytes can't be null.");
+        }
+        
+        if(encodingType == MessageEncodingTypeEnum.JSON){
+            return getMessageFromString(new String(bytes, StandardCharsets.UTF_8), encodingType);
+        }else if(encodingType != MessageEncodingTypeEnum.BINARY){
+            logger.error("There is no support for decoding message bytes of encoding type "+encodingType+", therefore the message of "+bytes.length+" bytes will not be handled");
+            throw new MessageDecodeException("MessageUtil", "Unable to decode message, check log for more details");
+        }
+        
+        Message msg = getMessageFromProtobufBytes(bytes);        
+        if(msg == null){
+            throw new MessageDecodeException("MessageUtil", "Unable to decode message, check log for more details");
+        }
+        
+        return msg;
+    }
+    
+    /**
+     * Parse the bytes as a protobuf message and convert it into a GIFT message.
+     * 
+     * @param bytes the serialized {@link ProtobufMessage}.  Can't be null.
+     * @return the GIFT message, can be null if the codec was unable to convert the protobuf message.
+     * @throws DetailedException if there was a problem parsing the data as a protobuf message
+     */
+    private static Message getMessageFromProtobufBytes(byte[] bytes) throws DetailedException {
+        
+        try {
+            ProtobufMessage protobufMessage = ProtobufMessage.parseFrom(bytes);
+            return CODEC.convert(protobufMessage);
+        } catch (InvalidProtocolBufferException e) {
+            logger.error("There was a problem parsing the data as a protobuf message.", e);
+            throw new DetailedException("There was a problem parsing the data as a protobuf message.",
+                    "Parsing the protobuf message caused an InvalidProtocolBufferException.", e);
+        }
+    }
 
 }
@@ -7,6 +7,8 @@
  */
 package mil.arl.gift.net.api.message;
 
+import java.util.Base64;
+
 import mil.arl.gift.common.enums.MessageEncodingTypeEnum;
 
 /**
@@ -24,4 +26,25 @@ public interface RawMessageHandler
      * @return boolean - was the message processed
      */
     boolean processMessage(String msg, MessageEncodingTypeEnum encodingType);
+    
+    /**
+     * Callback for when a binary message is received from the message broker.<br/>
+     * Handlers on busy paths should override this method and decode the bytes directly (e.g. with
+     * {@link MessageUtil#getMessageFromBytes(byte[], MessageEncodingTypeEnum)}).  The default implementation
+     * Base64 encodes the bytes and delegates to {@link #processMessage(String, MessageEncodingTypeEnum)} so that
+     * existing string based handlers continue to work.
+     *
+     * @param msg The raw bytes of the message to be handled.  Can't be null.
+     * @param encodingType - enumerated encoding type for this message
+     * @return boolean - was the message processed
+     */
+    default boolean processMessage(byte[] msg, MessageEncodingTypeEnum encodingType){
+        
+        /* Base64 encoding schemes are commonly used when there is a
+         * need to encode binary data that needs be stored and
+         * transferred over media that are designed to deal with
+         * textual data. This is to ensure that the data remains
+         * intact without modification during transport. */
+        return processMessage(Base64.getEncoder().encodeToString(msg), encodingType);
+    }
 }
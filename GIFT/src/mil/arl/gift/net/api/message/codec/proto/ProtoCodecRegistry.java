@@ -0,0 +1,163 @@
+/**
+ * Copyright Dignitas Technologies, LLC
+ *
+ * This file and its contents are governed by one or more distribution and
+ * copyright statements as described in the LICENSE.txt file distributed with
+ * this work.
+ */
+package mil.arl.gift.net.api.message.codec.proto;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.protobuf.AbstractMessage;
+
+import mil.arl.gift.common.enums.MessageTypeEnum;
+import mil.arl.gift.net.proto.ProtoCodec;
+
+/**
+ * Holds a single, shared instance of the payload codec for each message type in the {@link ProtoMapper}
+ * so that encoding and decoding a message doesn't reflectively create a new codec every time.<br/>
+ * <br/>
+ * Sharing a codec across threads is only safe if the codec is stateless.  When the registry is created each
+ * codec class is checked: every instance field (including those of super classes) must either hold another
+ * stateless codec or be a final primitive, string or enum.  Codecs that fail this check are logged and
+ * a new instance is created on each use, as was done before this registry existed.
+ *
+ * @author agent
+ *
+ */
+public class ProtoCodecRegistry {
+
+    /** instance of the logger */
+    private static Logger logger = LoggerFactory.getLogger(ProtoCodecRegistry.class);
+
+    /** the singleton instance of this class */
+    private static ProtoCodecRegistry instance = null;
+
+    /** the shared codec for each message type whose codec passed the stateless check */
+    private final Map<MessageTypeEnum, ProtoCodec<AbstractMessage, Object>> sharedCodecs = new HashMap<>();
+
+    /** the codec class for each message type whose codec can't be shared */
+    private final Map<MessageTypeEnum, Class<?>> statefulCodecClasses = new HashMap<>();
+
+    /**
+     * Return the singleton instance of this class
+     *
+     * @return the codec registry, created and checked on the first call
+     */
+    public static synchronized ProtoCodecRegistry getInstance() {
+
+        if (instance == null) {
+            instance = new ProtoCodecRegistry();
+        }
+
+        return instance;
+    }
+
+    /**
+     * Create a codec for every message type known to the proto mapper.
+     */
+    @SuppressWarnings("unchecked")
+    private ProtoCodecRegistry() {
+
+        ProtoMapper mapper = ProtoMapper.getInstance();
+        for (MessageTypeEnum messageType : mapper.getMessageTypes()) {
+
+            Class<?> codecClass = mapper.getCodecClass(messageType);
+            if (codecClass == null) {
+                continue;
+            }
+
+            if (!isStateless(codecClass, new HashSet<Class<?>>())) {
+                logger.warn("The codec " + codecClass.getName() + " for message type " + messageType
+                        + " has state, therefore a new instance will be created for each message of that type.");
+                statefulCodecClasses.put(messageType, codecClass);
+                continue;
+            }
+
+            try {
+                sharedCodecs.put(messageType, (ProtoCodec<AbstractMessage, Object>) codecClass.getDeclaredConstructor().newInstance());
+            } catch (Exception e) {
+                logger.error("Failed to create the codec " + codecClass.getName() + " for message type " + messageType
+                        + ", a new instance will be attempted for each message of that type.", e);
+                statefulCodecClasses.put(messageType, codecClass);
+            }
+        }
+
+        if (logger.isInfoEnabled()) {
+            logger.info("Created " + sharedCodecs.size() + " shared protobuf payload codecs, "
+                    + statefulCodecClasses.size() + " codecs will be created for each use.");
+        }
+    }
+
+    /**
+     * Return the codec that encodes/decodes the payload of the message type.
+     *
+     * @param messageType the type of message to get the codec for.  Can't be null.
+     * @return the codec for the message type, shared if the codec is stateless
+     * @throws ReflectiveOperationException if there was a problem creating a codec that can't be shared
+     * @throws IllegalArgumentException if the message type isn't supported
+     */
+    @SuppressWarnings("unchecked")
+    public ProtoCodec<AbstractMessage, Object> getCodec(MessageTypeEnum messageType) throws ReflectiveOperationException {
+
+        ProtoCodec<AbstractMessage, Object> codec = sharedCodecs.get(messageType);
+        if (codec != null) {
+            return codec;
+        }
+
+        Class<?> codecClass = statefulCodecClasses.get(messageType);
+        if (codecClass == null) {
+            throw new IllegalArgumentException("The message type " + messageType + " isn't supported.");
+        }
+
+        return (ProtoCodec<AbstractMessage, Object>) codecClass.getDeclaredConstructor().newInstance();
+    }
+
+    /**
+     * Return whether instances of the codec class can be shared across threads, i.e. every instance field
+     * (including those of super classes) either holds a stateless codec or is a final primitive, string or enum.
+     *
+     * @param codecClass the codec class to check
+     * @param visited the codec classes already being checked, used to stop on recursive references
+     * @return true if the codec class is stateless
+     */
+    private static boolean isStateless(Class<?> codecClass, Set<Class<?>> visited) {
+
+        if (!visited.add(codecClass)) {
+            return true;
+        }
+
+        for (Class<?> clazz = codecClass; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+
+            for (Field field : clazz.getDeclaredFields()) {
+
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || field.isSynthetic()) {
+                    continue;
+                }
+
+                Class<?> type = field.getType();
+                if (ProtoCodec.class.isAssignableFrom(type)) {
+
+                    if (!isStateless(type, visited)) {
+                        return false;
+                    }
+
+                } else if (!Modifier.isFinal(modifiers) || !(type.isPrimitive() || type == String.class || type.isEnum())) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+}
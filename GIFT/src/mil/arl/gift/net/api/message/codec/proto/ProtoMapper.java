@@ -7,8 +7,10 @@
  */
 package mil.arl.gift.net.api.message.codec.proto;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 import generated.proto.common.AbstractDisplayContentTutorRequestProto;
 import generated.proto.common.AbstractDisplayGuidanceTutorRequestProto;
@@ -470,6 +472,15 @@ public class ProtoMapper {
         }
     }
 
+    /**
+     * Return the message types that have a protobuf class and codec.
+     *
+     * @return an unmodifiable set of the supported message types
+     */
+    public Set<MessageTypeEnum> getMessageTypes() {
+        return Collections.unmodifiableSet(messageWrapper.keySet());
+    }
+
     /**
      * This class serves as a container for the protobuf class and the codec
      * class type that will be used to convert/map the payload after
@@ -40,6 +40,9 @@ public class ProtobufMessageProtoCodec implements ProtoCodec<ProtobufMessageProt
     /** used to retrieve Proto classes for each message type */
     private static ProtoMapper mapper = null;
 
+    /** used to retrieve the shared payload codec for each message type */
+    private static ProtoCodecRegistry codecRegistry = null;
+
     /* Codec that will be used to convert to/from AbstractEnums. */
     private static AbstractEnumObjectProtoCodec enumCodec = null;
 
@@ -48,11 +51,11 @@ public class ProtobufMessageProtoCodec implements ProtoCodec<ProtobufMessageProt
 
     static {
         mapper = ProtoMapper.getInstance();
+        codecRegistry = ProtoCodecRegistry.getInstance();
         enumCodec = new AbstractEnumObjectProtoCodec();
         userSessionCodec = new UserSessionProtoCodec();
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     public Message convert(ProtobufMessage protoObject) {
         if (protoObject == null) {
@@ -112,15 +115,14 @@ public class ProtobufMessageProtoCodec implements ProtoCodec<ProtobufMessageProt
         try {   
             if (payload == null) {
                 Class<?> protoClass = mapper.getObjectClass(messageType);
-                Class<?> codecClass = mapper.getCodecClass(messageType);
                 
-                if (protoClass == null || codecClass == null) {
+                if (protoClass == null) {
                     throw new Exception(
                             "Unable to find a codec class for message of type " + messageType + ". Is this a new message type?");
                 }
 
                 AbstractMessage protoPayload = protoObject.getPayload().unpack(protoClass.asSubclass(AbstractMessage.class));
-                payload = ((ProtoCodec<AbstractMessage, Object>) codecClass.getDeclaredConstructor().newInstance()).convert(protoPayload);
+                payload = codecRegistry.getCodec(messageType).convert(protoPayload);
             }
         } catch (Exception e) {            
             payloadDecodeException = e;
@@ -157,7 +159,6 @@ public class ProtobufMessageProtoCodec implements ProtoCodec<ProtobufMessageProt
         return message;
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     public ProtobufMessage map(Message commonObject) {
         if (commonObject == null) {
@@ -171,14 +172,13 @@ public class ProtobufMessageProtoCodec implements ProtoCodec<ProtobufMessageProt
         
         try {
             Class<?> protoClass = mapper.getObjectClass(type);
-            Class<?> codecClass = mapper.getCodecClass(type);
 
-            if (protoClass == null || codecClass == null) {
+            if (protoClass == null) {
                 throw new Exception(
                         "Unable to find a codec class for message of type " + type + ". Is this a new message type?");
             }
 
-            AbstractMessage message = ((ProtoCodec<AbstractMessage, Object>) codecClass.getDeclaredConstructor().newInstance()).map(payload);
+            AbstractMessage message = codecRegistry.getCodec(type).map(payload);
             builder.setPayload(Any.pack(message));
         } catch (Exception e) {
             /* It's possible that we encountered a legacy message here. Update the payload type to the current 
@@ -0,0 +1,189 @@
+/**
+ * Copyright Dignitas Technologies, LLC
+ *
+ * This file and its contents are governed by one or more distribution and
+ * copyright statements as described in the LICENSE.txt file distributed with
+ * this work.
+ */
+package mil.arl.gift.net.api.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import mil.arl.gift.common.test.TestChecker;
+import mil.arl.gift.net.api.MessageDispatchQueue;
+
+/**
+ * This class tests the lanes and backpressure of the message dispatch queue.
+ *
+ * @author agent
+ *
+ */
+public class MessageDispatchQueueTest {
+
+    /** keeps track of the checks of this test */
+    private static final TestChecker checker = new TestChecker("Message dispatch queue");
+
+    public static void main(String args[]){
+
+        System.out.println("Starting test");
+
+        try{
+            testPriorityLaneDrainedFirst();
+            testPollPriority();
+            testDropWhenFull();
+            testDropAfterBackpressureTimeout();
+            testBlockUntilRoom();
+            testWakeup();
+        }catch(Throwable t){
+            checker.error(t);
+        }
+
+        checker.finish();
+    }
+
+    /**
+     * Priority elements are drained before normal elements and the batch size is honored.
+     *
+     * @throws InterruptedException if interrupted while draining
+     */
+    private static void testPriorityLaneDrainedFirst() throws InterruptedException{
+
+        MessageDispatchQueue<String> queue = new MessageDispatchQueue<>("priority", 10, -1);
+        queue.add("n1");
+        queue.add("n2");
+        queue.addPriority("p1");
+        queue.add("n3");
+        queue.addPriority("p2");
+
+        List<String> batch = new ArrayList<>();
+        checker.check("drained count", 3, queue.drainTo(batch, 3));
+        checker.check("first batch", Arrays.asList("p1", "p2", "n1"), batch);
+
+        batch.clear();
+        checker.check("second drained count", 2, queue.drainTo(batch, 10));
+        checker.check("second batch", Arrays.asList("n2", "n3"), batch);
+        checker.check("empty after drain", true, queue.isEmpty());
+        checker.check("high water mark", 5, queue.getHighWaterMark());
+    }
+
+    /**
+     * A priority element added while a batch is being handled can be taken without waiting for the batch.
+     *
+     * @throws InterruptedException if interrupted while draining
+     */
+    private static void testPollPriority() throws InterruptedException{
+
+        MessageDispatchQueue<String> queue = new MessageDispatchQueue<>("poll", 10, -1);
+        checker.check("poll empty", null, queue.pollPriority());
+
+        queue.add("n1");
+        queue.add("n2");
+        List<String> batch = new ArrayList<>();
+        queue.drainTo(batch, 10);
+
+        queue.add("n3");
+        queue.addPriority("ack");
+        checker.check("poll priority", "ack", queue.pollPriority());
+        checker.check("poll priority again", null, queue.pollPriority());
+        checker.check("normal element left", 1, queue.size());
+    }
+
+    /**
+     * With a zero backpressure timeout an element is dropped right away when the normal lane is full,
+     * priority elements are never dropped.
+     */
+    private static void testDropWhenFull(){
+
+        MessageDispatchQueue<String> queue = new MessageDispatchQueue<>("drop", 2, 0);
+        checker.check("add 1", true, queue.add("n1"));
+        checker.check("add 2", true, queue.add("n2"));
+        checker.check("add 3 dropped", false, queue.add("n3"));
+        checker.check("dropped count", 1L, queue.getDroppedCount());
+
+        queue.addPriority("ack");
+        checker.check("priority not dropped", 3, queue.size());
+    }
+
+    /**
+     * With a positive backpressure timeout the producer waits about that long before dropping.
+     */
+    private static void testDropAfterBackpressureTimeout(){
+
+        MessageDispatchQueue<String> queue = new MessageDispatchQueue<>("timeout", 1, 100);
+        queue.add("n1");
+
+        long start = System.nanoTime();
+        checker.check("add dropped", false, queue.add("n2"));
+        long waitedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        checker.check("waited for the timeout", true, waitedMs >= 90);
+        checker.check("blocked count", 1L, queue.getBlockedCount());
+    }
+
+    /**
+     * With a negative backpressure timeout the producer waits until the consumer makes room and nothing is dropped.
+     *
+     * @throws InterruptedException if interrupted while waiting for the producer
+     */
+    private static void testBlockUntilRoom() throws InterruptedException{
+
+        final MessageDispatchQueue<String> queue = new MessageDispatchQueue<>("block", 1, -1);
+        queue.add("n1");
+
+        final AtomicBoolean added = new AtomicBoolean();
+        final CountDownLatch done = new CountDownLatch(1);
+        Thread producer = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                added.set(queue.add("n2"));
+                done.countDown();
+            }
+        }, "MessageDispatchQueueTest producer");
+        producer.start();
+
+        checker.check("producer is blocked", false, done.await(200, TimeUnit.MILLISECONDS));
+
+        List<String> batch = new ArrayList<>();
+        queue.drainTo(batch, 10);
+        checker.check("producer released", true, done.await(5, TimeUnit.SECONDS));
+        checker.check("element added", true, added.get());
+        checker.check("nothing dropped", 0L, queue.getDroppedCount());
+
+        batch.clear();
+        queue.drainTo(batch, 10);
+        checker.check("blocked element drained", Arrays.asList("n2"), batch);
+    }
+
+    /**
+     * A waiting consumer returns with no elements when woken up.
+     *
+     * @throws InterruptedException if interrupted while waiting for the consumer
+     */
+    private static void testWakeup() throws InterruptedException{
+
+        final MessageDispatchQueue<String> queue = new MessageDispatchQueue<>("wakeup", 10, -1);
+        final int[] drained = {-1};
+        Thread consumer = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try{
+                    drained[0] = queue.drainTo(new ArrayList<String>(), 10);
+                }catch(@SuppressWarnings("unused") InterruptedException e){
+                }
+            }
+        }, "MessageDispatchQueueTest consumer");
+        consumer.start();
+
+        Thread.sleep(100);
+        queue.wakeup();
+        consumer.join(5000);
+        checker.check("consumer returned", false, consumer.isAlive());
+        checker.check("nothing drained", 0, drained[0]);
+    }
+}
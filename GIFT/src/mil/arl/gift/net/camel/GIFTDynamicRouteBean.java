@@ -8,7 +8,6 @@
 package mil.arl.gift.net.camel;
 
 import java.io.IOException;
-import java.util.Base64;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -278,12 +277,7 @@ public class GIFTDynamicRouteBean extends BeanComponent {
                     throw jmsEx;
                 }
 
-                /* Base64 encoding schemes are commonly used when there is a
-                 * need to encode binary data that needs be stored and
-                 * transferred over media that are designed to deal with textual
-                 * data. This is to ensure that the data remains intact without
-                 * modification during transport. */
-                message = MessageUtil.getMessageFromString(Base64.getEncoder().encodeToString(buffer),
+                message = MessageUtil.getMessageFromBytes(buffer,
                         MessageEncodingTypeEnum.valueOf(bMsg.getByteProperty(ENCODING_PROPERTY)));
             }
         } catch (EnumerationNotFoundException e) {
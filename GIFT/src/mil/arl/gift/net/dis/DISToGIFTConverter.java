@@ -205,18 +205,36 @@ public class DISToGIFTConverter {
          * {@link EntityState} object.
          *
          * @param pdu The {@link EntityStatePDU} object to convert.
+         * @param decodeCache the entity markings and entity types decoded from the earlier
+         *        PDUs of the same source.  If null the PDU is fully decoded.
          * @return The {@link EntityState} that was created as a result of the
          *         conversion.
          */
-        public EntityState createEntityState(EntityStatePDU pdu) {
+        public EntityState createEntityState(EntityStatePDU pdu, EntityStateDecodeCache decodeCache) {
             EntityIdentifier eId = convertEntityIdentifier(pdu.getEntityID());
             EntityAppearance entityAppearance = getEntityAppearance(pdu.getEntityAppearance());
-            EntityType entityType = convertEntityType(pdu.getEntityType());
-            EntityType altEntityType = convertEntityType(pdu.getAlternativeEntityType());
+
+            EntityType entityType, altEntityType;
+            mil.arl.gift.common.ta.state.EntityMarking entityMarking;
+            if(decodeCache == null){
+                entityType = convertEntityType(pdu.getEntityType());
+                altEntityType = convertEntityType(pdu.getAlternativeEntityType());
+                entityMarking = getEntityMarking(pdu.getEntityMarking());
+            }else{
+                // the marking and types rarely change, reuse the values decoded from the last PDU of this entity
+                EntityStateDecodeCache.DecodedEntity decoded = decodeCache.getDecodedEntity(pdu.getEntityID());
+                entityType = decoded.getEntityType(pdu.getEntityType());
+                altEntityType = decoded.getAlternativeEntityType(pdu.getAlternativeEntityType());
+                entityMarking = decoded.getEntityMarking(pdu.getEntityMarking());
+
+                if(!entityAppearance.isActive()){
+                    // the entity has left the exercise
+                    decodeCache.removeEntity(pdu.getEntityID());
+                }
+            }
             Vector3d linearVel = convertLinearVelocity(pdu.getEntityLinearVelocity());
             Point3d location2 = convertLocation(pdu.getEntityLocation());
             Vector3d orientation = convertOrientation(pdu.getEntityOrientation());
-            mil.arl.gift.common.ta.state.EntityMarking entityMarking = getEntityMarking(pdu.getEntityMarking());
             DeadReckoningParameters deadReckoningParameters = convertDeadReckoningParameters(pdu.getDeadReckoningParameters());
             @SuppressWarnings("unchecked")
             List<ArticulationParameter> articulationParameters = convertArticulationParameters(pdu.getArticulationParameters());
@@ -430,26 +448,15 @@ public class DISToGIFTConverter {
      * @return the GIFT entity marking object
      */
     public static mil.arl.gift.common.ta.state.EntityMarking getEntityMarking(EntityMarking marking){
-        String tag = "none";
-
-        if(marking.getMarking()[0] != null ) {
-            // This is a 11 byte string of characters
-
-            ArrayList<Character> charList = new ArrayList<>();
-            for(int i = 0; i< marking.getMarking().length; i++) {
-                if(marking.getMarking()[i] != null) {
-                    charList.add((char) marking.getMarking()[i].intValue());
-                }
-            }
-
-            StringBuilder sb = new StringBuilder();
-            for(Character ch: charList) {
-                sb.append(ch);
-            }
-            tag = sb.toString();
-
+        // This is a 11 byte string of characters
+        UnsignedByte[] values = marking.getMarking();
+        int[] markingValues = new int[values.length];
+        for(int i = 0; i < values.length; i++) {
+            markingValues[i] = values[i] != null ? values[i].intValue() : EntityStateDecodeCache.UNSET_MARKING_VALUE;
         }
 
+        String tag = EntityStateDecodeCache.decodeMarking(markingValues, new char[values.length]);
+
         return new mil.arl.gift.common.ta.state.EntityMarking(mil.arl.gift.common.ta.state.EntityMarking.ASCII_CHARACTER_SET, tag);
 
     }
@@ -546,7 +553,23 @@ public class DISToGIFTConverter {
      * @return EntityState the gift representation of that entity state object
      */
     public static EntityState createEntityState(EntityStatePDU es, DISDialect dialect) {
-        return dialectToTranslator.get(dialect).createEntityState(es);
+        return createEntityState(es, dialect, null);
+    }
+
+    /**
+     * Convert the entity state PDU into a GIFT entity state message using the
+     * rules of a specific dialect, reusing the entity marking and entity types
+     * decoded from the earlier PDUs of the same entity.
+     *
+     * @param es The {@link EntityStatePDU} object
+     * @param dialect The {@link DISDialect} to use for the translation. A null
+     *        value indicates the generic/vanilla dialect should be used.
+     * @param decodeCache the values decoded from the earlier PDUs of the same source (e.g. a DIS
+     *        interop plugin).  If null the PDU is fully decoded.
+     * @return EntityState the gift representation of that entity state object
+     */
+    public static EntityState createEntityState(EntityStatePDU es, DISDialect dialect, EntityStateDecodeCache decodeCache) {
+        return dialectToTranslator.get(dialect).createEntityState(es, decodeCache);
     }
 
     /**
@@ -0,0 +1,314 @@
+/**
+ * Copyright Dignitas Technologies, LLC
+ *
+ * This file and its contents are governed by one or more distribution and
+ * copyright statements as described in the LICENSE.txt file distributed with
+ * this work.
+ */
+package mil.arl.gift.net.dis;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jdis.pdu.record.EntityMarking;
+import org.jdis.util.UnsignedByte;
+
+import mil.arl.gift.common.ta.state.EntityType;
+
+/**
+ * Caches the GIFT entity marking and entity types decoded from the entity state PDUs of each DIS entity.
+ * These fields rarely change over the life of an entity, therefore the GIFT objects are only rebuilt when
+ * the PDU values differ from the last entity state PDU received for that entity.  The cached GIFT objects
+ * are immutable (changes are made with replace methods that return a new object) so they can be shared
+ * by the entity state messages of an entity.<br/>
+ * <br/>
+ * Each source of entity state PDUs (e.g. a DIS interop plugin) should have its own cache so that the entity
+ * identifiers of different exercises don't mix.  An entity is removed from the cache when it is deactivated and
+ * entities that haven't been seen in a while are removed when the cache is full.
+ *
+ * @author agent
+ *
+ */
+public class EntityStateDecodeCache {
+
+    /** the number of characters in the DIS entity marking string */
+    private static final int MARKING_LENGTH = 11;
+
+    /** marking value used for a DIS entity marking character that isn't set */
+    static final int UNSET_MARKING_VALUE = -1;
+
+    /** the value to use for the GIFT entity marking when the DIS entity marking is not set */
+    private static final String NO_MARKING = "none";
+
+    /**
+     * the most entities to cache, when reached the entities that haven't been seen recently are removed
+     * to make room, prevents unbounded growth when entities come and go over a long running exercise
+     */
+    private static final int MAX_ENTITIES = 10000;
+
+    /**
+     * an entity whose entity state PDUs haven't been received for this long (ms) is removed when the cache is full,
+     * DIS entities send a heartbeat entity state PDU every few seconds
+     */
+    private static final long STALE_ENTITY_MS = 60000;
+
+    /** the decoded values for each entity, key: packed site, application and entity ids (see {@link #getKey(org.jdis.pdu.record.EntityIdentifier)}) */
+    private final Map<Long, DecodedEntity> entityIdToDecoded = new ConcurrentHashMap<>();
+
+    /**
+     * Return the decoded values for the entity, creating an empty entry for an entity not seen before.
+     *
+     * @param entityId the DIS entity identifier from the entity state PDU.  Can't be null.
+     * @return the decoded values for the entity.  Won't be null.
+     */
+    DecodedEntity getDecodedEntity(org.jdis.pdu.record.EntityIdentifier entityId){
+
+        long now = System.currentTimeMillis();
+        long key = getKey(entityId);
+        DecodedEntity decoded = entityIdToDecoded.get(key);
+        if(decoded == null){
+
+            if(entityIdToDecoded.size() >= MAX_ENTITIES){
+                removeStaleEntities(now);
+            }
+
+            decoded = entityIdToDecoded.computeIfAbsent(key, newKey -> new DecodedEntity());
+        }
+
+        decoded.lastSeenMillis = now;
+        return decoded;
+    }
+
+    /**
+     * Remove the entities that haven't been seen for {@link #STALE_ENTITY_MS}.  If every entity
+     * has been seen recently the entity that was seen the longest time ago is removed.
+     *
+     * @param now the current time (epoch ms)
+     */
+    private synchronized void removeStaleEntities(long now){
+
+        if(entityIdToDecoded.size() < MAX_ENTITIES){
+            // another thread made room
+            return;
+        }
+
+        Long oldestKey = null;
+        long oldestSeen = Long.MAX_VALUE;
+        Iterator<Map.Entry<Long, DecodedEntity>> itr = entityIdToDecoded.entrySet().iterator();
+        while(itr.hasNext()){
+
+            Map.Entry<Long, DecodedEntity> entry = itr.next();
+            long lastSeen = entry.getValue().lastSeenMillis;
+            if(now - lastSeen > STALE_ENTITY_MS){
+                itr.remove();
+            }else if(lastSeen < oldestSeen){
+                oldestSeen = lastSeen;
+                oldestKey = entry.getKey();
+            }
+        }
+
+        if(entityIdToDecoded.size() >= MAX_ENTITIES && oldestKey != null){
+            entityIdToDecoded.remove(oldestKey);
+        }
+    }
+
+    /**
+     * Remove the cached values of an entity, e.g. when the entity is deactivated.
+     *
+     * @param entityId the DIS entity identifier from the entity state PDU.  Can't be null.
+     */
+    void removeEntity(org.jdis.pdu.record.EntityIdentifier entityId){
+        entityIdToDecoded.remove(getKey(entityId));
+    }
+
+    /**
+     * Remove all cached values, e.g. when the DIS network connection is closed.
+     */
+    public void clear(){
+        entityIdToDecoded.clear();
+    }
+
+    /**
+     * Pack the 16 bit site, application and entity ids of a DIS entity identifier into a single
+     * value so that an entity can be looked up without creating a GIFT entity identifier.
+     *
+     * @param entityId the DIS entity identifier.  Can't be null.
+     * @return the packed identifier
+     */
+    private static long getKey(org.jdis.pdu.record.EntityIdentifier entityId){
+
+        return ((long)entityId.getSimulationAddress().getSiteIdentification().intValue() << 32) |
+                ((long)entityId.getSimulationAddress().getApplicationIdentification().intValue() << 16) |
+                entityId.getEntityIdentifier().intValue();
+    }
+
+    /**
+     * Pack the fields of a DIS entity type into a single value (kind, domain, category, subcategory, specific and
+     * extra are 8 bits, country is 16 bits) so that it can be compared to the last value without creating a GIFT entity type.
+     *
+     * @param entityType the DIS entity type.  Can't be null.
+     * @return the packed entity type
+     */
+    private static long getKey(org.jdis.pdu.record.EntityType entityType){
+
+        return ((long)entityType.getEntityKind().intValue() << 56) |
+                ((long)entityType.getDomain().intValue() << 48) |
+                ((long)entityType.getCountry().intValue() << 32) |
+                ((long)entityType.getCategory().intValue() << 24) |
+                ((long)entityType.getSubcategory().intValue() << 16) |
+                ((long)entityType.getSpecific().intValue() << 8) |
+                entityType.getExtra().intValue();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("[EntityStateDecodeCache: entities = ").append(entityIdToDecoded.size());
+        sb.append("]");
+        return sb.toString();
+    }
+
+    /**
+     * The decoded values of the last entity state PDU received for a single entity.
+     *
+     * @author agent
+     *
+     */
+    static class DecodedEntity {
+
+        /** when the last entity state PDU of this entity was received (epoch ms) */
+        private volatile long lastSeenMillis;
+
+        /** the DIS entity marking characters the GIFT entity marking was created from, {@link #UNSET_MARKING_VALUE} for characters that aren't set */
+        private final int[] markingValues = new int[MARKING_LENGTH];
+
+        /** scratch buffer for building the GIFT entity marking string */
+        private final char[] markingChars = new char[MARKING_LENGTH];
+
+        /** the GIFT entity marking, null until the first entity state PDU is decoded */
+        private mil.arl.gift.common.ta.state.EntityMarking entityMarking;
+
+        /** the packed DIS entity type the GIFT entity type was created from */
+        private long entityTypeKey;
+
+        /** the GIFT entity type, null until the first entity state PDU is decoded */
+        private EntityType entityType;
+
+        /** the packed DIS alternative entity type the GIFT alternative entity type was created from */
+        private long altEntityTypeKey;
+
+        /** the GIFT alternative entity type, null until the first entity state PDU is decoded */
+        private EntityType altEntityType;
+
+        /**
+         * Return the GIFT entity marking for the DIS entity marking, only decoding the
+         * marking if it differs from the last one received for this entity.
+         *
+         * @param marking the DIS entity marking from the entity state PDU.  Can't be null.
+         * @return the GIFT entity marking.  Won't be null.
+         */
+        synchronized mil.arl.gift.common.ta.state.EntityMarking getEntityMarking(EntityMarking marking){
+
+            UnsignedByte[] values = marking.getMarking();
+            boolean changed = entityMarking == null;
+            for(int index = 0; index < MARKING_LENGTH; index++){
+
+                int value = index < values.length && values[index] != null ? values[index].intValue() : UNSET_MARKING_VALUE;
+                if(value != markingValues[index]){
+                    markingValues[index] = value;
+                    changed = true;
+                }
+            }
+
+            if(changed){
+                entityMarking = new mil.arl.gift.common.ta.state.EntityMarking(
+                        mil.arl.gift.common.ta.state.EntityMarking.ASCII_CHARACTER_SET, decodeMarking(markingValues, markingChars));
+            }
+
+            return entityMarking;
+        }
+
+        /**
+         * Return the GIFT entity type for the DIS entity type, only converting the
+         * type if it differs from the last one received for this entity.
+         *
+         * @param disEntityType the DIS entity type from the entity state PDU.  Can't be null.
+         * @return the GIFT entity type.  Won't be null.
+         */
+        synchronized EntityType getEntityType(org.jdis.pdu.record.EntityType disEntityType){
+
+            long key = getKey(disEntityType);
+            if(entityType == null || key != entityTypeKey){
+                entityType = toEntityType(key);
+                entityTypeKey = key;
+            }
+
+            return entityType;
+        }
+
+        /**
+         * Return the GIFT alternative entity type for the DIS alternative entity type, only
+         * converting the type if it differs from the last one received for this entity.
+         *
+         * @param disEntityType the DIS alternative entity type from the entity state PDU.  Can't be null.
+         * @return the GIFT alternative entity type.  Won't be null.
+         */
+        synchronized EntityType getAlternativeEntityType(org.jdis.pdu.record.EntityType disEntityType){
+
+            long key = getKey(disEntityType);
+            if(altEntityType == null || key != altEntityTypeKey){
+                altEntityType = toEntityType(key);
+                altEntityTypeKey = key;
+            }
+
+            return altEntityType;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("[DecodedEntity: entityMarking = ").append(entityMarking);
+            sb.append(", entityType = ").append(entityType);
+            sb.append(", altEntityType = ").append(altEntityType);
+            sb.append("]");
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Create the GIFT entity marking string from the DIS entity marking characters.  The characters
+     * that are set are used in order, if the first character isn't set the entity has no marking.
+     *
+     * @param markingValues the DIS entity marking characters, {@link #UNSET_MARKING_VALUE} for characters that aren't set
+     * @param scratch buffer to build the string in, must be at least as long as the marking values
+     * @return the marking string.  Won't be null.
+     */
+    static String decodeMarking(int[] markingValues, char[] scratch){
+
+        if(markingValues.length == 0 || markingValues[0] == UNSET_MARKING_VALUE){
+            return NO_MARKING;
+        }
+
+        int length = 0;
+        for(int value : markingValues){
+            if(value != UNSET_MARKING_VALUE){
+                scratch[length++] = (char) value;
+            }
+        }
+
+        return new String(scratch, 0, length);
+    }
+
+    /**
+     * Create the GIFT entity type from a packed DIS entity type (see {@link #getKey(org.jdis.pdu.record.EntityType)}).
+     *
+     * @param key the packed DIS entity type
+     * @return the new GIFT entity type.  Won't be null.
+     */
+    private static EntityType toEntityType(long key){
+
+        return new EntityType((int)(key >>> 56) & 0xFF, (int)(key >>> 48) & 0xFF, (int)(key >>> 32) & 0xFFFF,
+                (int)(key >>> 24) & 0xFF, (int)(key >>> 16) & 0xFF, (int)(key >>> 8) & 0xFF, (int)key & 0xFF);
+    }
+}
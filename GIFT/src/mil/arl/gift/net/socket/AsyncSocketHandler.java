@@ -1,32 +1,40 @@
 /**
  * Copyright Dignitas Technologies, LLC
- * 
+ *
  * This file and its contents are governed by one or more distribution and
  * copyright statements as described in the LICENSE.txt file distributed with
  * this work.
  */
 package mil.arl.gift.net.socket;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.Closeable;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.io.OutputStreamWriter;
 import java.net.InetSocketAddress;
-import java.net.Socket;
-import java.net.SocketException;
-import java.net.SocketTimeoutException;
-import java.util.concurrent.CompletableFuture;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import mil.arl.gift.common.util.StringUtils;
+import mil.arl.gift.net.api.MessageCallbackExecutor;
 
 /**
- * A class that handles asynchronous communication with a {@link Socket}.
+ * A class that handles asynchronous communication with a socket.  The connection is a non-blocking
+ * {@link SocketChannel} serviced by the {@link SocketSelector} thread shared by all handlers, so a
+ * connection doesn't need its own thread.  Outgoing messages are queued and written together when the
+ * socket can accept more data instead of flushing the socket on every message.  Incoming messages are
+ * queued and handed to the {@link IncomingDataHandler} on a {@link MessageCallbackExecutor} thread so that
+ * a slow handler can't hold up the selector thread, if too many incoming messages are waiting the
+ * connection stops being read from until the handler catches up.
  *
  * @author tflowers
  *
@@ -44,21 +52,46 @@ public class AsyncSocketHandler implements Closeable {
     public interface IncomingDataHandler {
         /**
          * The method that is invoked when {@link String} data is received from
-         * the socket.
+         * the socket.  This is called on a message callback thread, one message at
+         * a time in the order the messages were received.
          *
          * @param line The {@link String} that was received from the socket.
          */
         void onLineReceived(String line);
     }
 
+    /**
+     * How messages are separated on the socket.
+     *
+     * @author agent
+     *
+     */
+    public enum Framing {
+
+        /** each UTF-8 message is followed by a newline character (the original protocol) */
+        NEWLINE,
+
+        /** each UTF-8 message is preceded by its length in bytes as a 4 byte big endian integer */
+        LENGTH_PREFIXED
+    }
+
     /** The logger for the class */
     private static final Logger logger = LoggerFactory.getLogger(AsyncSocketHandler.class);
 
-    /** The {@link Socket} on which communication occurs. */
-    private final Socket socket = new Socket();
+    /** the size of the direct buffers used to read from and write to the socket */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** the number of bytes in the length prefix of a {@link Framing#LENGTH_PREFIXED} message */
+    private static final int LENGTH_PREFIX_SIZE = 4;
+
+    /** the largest message that will be accepted, larger lengths mean the stream is corrupt */
+    private static final int MAX_MESSAGE_LENGTH = 16 * 1024 * 1024;
 
-    /** The object used to write data to the {@link #socket}. */
-    private BufferedWriter socketWriter;
+    /** when this many incoming messages are waiting to be handled the socket stops being read from until half of them have been handled */
+    private static final int MAX_PENDING_INCOMING_MESSAGES = 10000;
+
+    /** The channel on which communication occurs, null until connected. */
+    private volatile SocketChannel channel;
 
     /** The network address to which to connect. */
     private final String address;
@@ -69,14 +102,62 @@ public class AsyncSocketHandler implements Closeable {
     /** The object that is used to process incoming data */
     private final IncomingDataHandler incomingHandler;
 
-    /** The future that is responsible for polling the {@link #socket}. */
-    private CompletableFuture<Void> pollingFuture = null;
+    /** how messages are separated on the socket */
+    private final Framing framing;
+
+    /** the encoded messages waiting to be written to the socket */
+    private final Queue<byte[]> outgoingMessages = new ConcurrentLinkedQueue<>();
+
+    /** whether the selector has been asked to write the outgoing messages, used to avoid waking the selector for every message */
+    private final AtomicBoolean writeRequested = new AtomicBoolean(false);
+
+    /** the incoming messages waiting to be handed to the {@link #incomingHandler} */
+    private final Queue<String> incomingMessages = new ConcurrentLinkedQueue<>();
+
+    /** the number of messages in {@link #incomingMessages}, kept separately since the queue size isn't constant time */
+    private final AtomicInteger pendingIncomingCount = new AtomicInteger();
+
+    /** whether a callback thread is handing the {@link #incomingMessages} to the handler */
+    private final AtomicBoolean dispatchingIncoming = new AtomicBoolean(false);
+
+    /** whether the socket stopped being read from because too many incoming messages are waiting */
+    private final AtomicBoolean readPaused = new AtomicBoolean(false);
+
+    /** bytes read from the socket that haven't been handled yet, only used on the selector thread */
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    /** bytes waiting to be written to the socket, only used on the selector thread */
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    /** the outgoing message being copied into the {@link #writeBuffer}, null if there isn't one */
+    private byte[] currentMessage = null;
+
+    /** the index of the next byte of the {@link #currentMessage} to copy */
+    private int currentMessageOffset = 0;
+
+    /** the bytes of the incoming message being assembled, only used on the selector thread */
+    private byte[] messageBytes = new byte[1024];
+
+    /** the number of bytes in {@link #messageBytes} */
+    private int messageLength = 0;
+
+    /** the length of the incoming {@link Framing#LENGTH_PREFIXED} message being assembled, -1 if the length hasn't been read */
+    private int expectedMessageLength = -1;
 
     /**
-     * The amount of time in milliseconds for which the polling future should
-     * block while attempting to read from the socket.
+     * Constructs a {@link AsyncSocketHandler} that connects to a specified
+     * location and uses a provided {@link IncomingDataHandler} for received
+     * messages.  Messages are separated by newlines.
+     *
+     * @param address The name of the host to which to connect. Can't be null or
+     *        empty.
+     * @param port The port to which to connect.
+     * @param incomingHandler The {@link IncomingDataHandler} used to process
+     *        data received from the socket.
      */
-    private static final int POLLING_TIMEOUT = 5000;
+    public AsyncSocketHandler(String address, int port, IncomingDataHandler incomingHandler) {
+        this(address, port, incomingHandler, Framing.NEWLINE);
+    }
 
     /**
      * Constructs a {@link AsyncSocketHandler} that connects to a specified
@@ -87,66 +168,53 @@ public class AsyncSocketHandler implements Closeable {
      *        empty.
      * @param port The port to which to connect.
      * @param incomingHandler The {@link IncomingDataHandler} used to process
-     *        data received from the {@link Socket}.
+     *        data received from the socket.
+     * @param framing How messages are separated on the socket. Can't be null.
      */
-    public AsyncSocketHandler(String address, int port, IncomingDataHandler incomingHandler) {
+    public AsyncSocketHandler(String address, int port, IncomingDataHandler incomingHandler, Framing framing) {
         if (StringUtils.isBlank(address)) {
             throw new IllegalArgumentException("The parameter 'address' cannot be null.");
         } else if (incomingHandler == null) {
             throw new IllegalArgumentException("The parameter 'incomingHandler' cannot be null.");
+        } else if (framing == null) {
+            throw new IllegalArgumentException("The parameter 'framing' cannot be null.");
         }
 
         this.address = address;
         this.port = port;
         this.incomingHandler = incomingHandler;
+        this.framing = framing;
     }
 
     /**
-     * Establishes a connection via a {@link Socket} based on the currently
-     * configured network information.
+     * Establishes a connection based on the currently configured network information.
+     * This blocks until the connection is established, after that the socket is read
+     * from on the socket selector thread.
      *
-     * @throws IOException if there was a problem establishing a {@link Socket}
+     * @throws IOException if there was a problem establishing a socket
      *         connection.
      */
     public void connect() throws IOException {
         /* Connect the socket to the specified endpoint. */
         final InetSocketAddress socketAddr = new InetSocketAddress(address, port);
-        socket.connect(socketAddr);
-
-        /* Set the timeout for the socket. */
-        try {
-            socket.setSoTimeout(POLLING_TIMEOUT);
-        } catch (SocketException sockEx) {
-            logger.error("There was a problem setting the timeout for the socket at " + socketAddr + ".", sockEx);
-            throw sockEx;
-        }
-
-        /* Create the writer around the socket. */
+        final SocketChannel newChannel = SocketChannel.open();
         try {
-            final OutputStream outputStream = socket.getOutputStream();
-            final OutputStreamWriter outputStreamWriter = new OutputStreamWriter(outputStream);
-            socketWriter = new BufferedWriter(outputStreamWriter);
+            newChannel.connect(socketAddr);
+            newChannel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            newChannel.configureBlocking(false);
         } catch (IOException ioEx) {
-            socket.close();
+            newChannel.close();
             throw ioEx;
         }
 
-        /* Start the thread which will listen for messages on the socket. */
-        pollingFuture = CompletableFuture.runAsync(() -> {
+        channel = newChannel;
 
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
-                while (socket.isConnected()) {
-                    try {
-                        final String line = reader.readLine();
-                        incomingHandler.onLineReceived(line);
-                    } catch (@SuppressWarnings("unused") SocketTimeoutException sockTimeEx) {
-                        Thread.yield();
-                    }
-                }
-            } catch (IOException ioEx) {
-                logger.error("There was a problem reading from the socket connected at " + socketAddr + ".", ioEx);
-            }
-        });
+        /* Start listening for messages on the socket. */
+        SocketSelector.getInstance().register(newChannel, this);
+
+        if (logger.isInfoEnabled()) {
+            logger.info("Connected to " + socketAddr + " using " + framing + " framing.");
+        }
     }
 
     /**
@@ -156,50 +224,349 @@ public class AsyncSocketHandler implements Closeable {
      *         otherwise.
      */
     public boolean isConnected() {
-        return socket.isConnected();
+        final SocketChannel currentChannel = channel;
+        return currentChannel != null && currentChannel.isConnected();
     }
 
     /**
-     * Sends data through the established {@link Socket} connection.
+     * Queues data to be sent through the established socket connection.  The data
+     * is written by the socket selector thread along with any other queued data
+     * once the socket can accept it.
      *
-     * @param message The data to send through the {@link Socket}.
-     * @throws IOException if there was a problem sending the message through
-     *         the socket.
+     * @param message The data to send through the socket.
+     * @throws IOException if the socket is not connected.
      */
     public void sendMessage(String message) throws IOException {
         if (logger.isTraceEnabled()) {
             logger.trace("sendMessage('" + message + "')");
         }
 
-        if (socketWriter == null) {
+        final SocketChannel currentChannel = channel;
+        if (currentChannel == null) {
             throw new IllegalStateException(
                     "Unable to send a message if the 'connect' method has not yet been called.");
+        } else if (!currentChannel.isOpen()) {
+            throw new IOException("Unable to send a message to " + address + ":" + port + " because the socket is closed.");
+        }
+
+        outgoingMessages.add(encode(message));
+
+        if (writeRequested.compareAndSet(false, true)) {
+            SocketSelector.getInstance().requestWrite(currentChannel);
+        }
+    }
+
+    /**
+     * Encode the message using the framing of this handler.
+     *
+     * @param message the message to encode
+     * @return the bytes to write to the socket
+     */
+    private byte[] encode(String message) {
+
+        final byte[] payload = message.getBytes(StandardCharsets.UTF_8);
+        final byte[] encoded;
+        if (framing == Framing.LENGTH_PREFIXED) {
+            encoded = new byte[LENGTH_PREFIX_SIZE + payload.length];
+            ByteBuffer.wrap(encoded).putInt(payload.length);
+            System.arraycopy(payload, 0, encoded, LENGTH_PREFIX_SIZE, payload.length);
+        } else {
+            encoded = Arrays.copyOf(payload, payload.length + 1);
+            encoded[payload.length] = '\n';
+        }
+
+        return encoded;
+    }
+
+    /**
+     * Write as much of the queued data as the socket will accept.  Called on the socket
+     * selector thread when the socket can be written to.
+     *
+     * @param key the selection key of the socket channel
+     * @throws IOException if there was a problem writing to the socket
+     */
+    void handleWritable(SelectionKey key) throws IOException {
+
+        final SocketChannel keyChannel = (SocketChannel) key.channel();
+        while (true) {
+
+            /* Coalesce as many queued messages as will fit into a single write. */
+            while (writeBuffer.hasRemaining()) {
+
+                if (currentMessage == null) {
+                    currentMessage = outgoingMessages.poll();
+                    currentMessageOffset = 0;
+                    if (currentMessage == null) {
+                        break;
+                    }
+                }
+
+                final int length = Math.min(writeBuffer.remaining(), currentMessage.length - currentMessageOffset);
+                writeBuffer.put(currentMessage, currentMessageOffset, length);
+                currentMessageOffset += length;
+                if (currentMessageOffset == currentMessage.length) {
+                    currentMessage = null;
+                }
+            }
+
+            if (writeBuffer.position() == 0) {
+                break;
+            }
+
+            writeBuffer.flip();
+            keyChannel.write(writeBuffer);
+            final boolean socketFull = writeBuffer.hasRemaining();
+            writeBuffer.compact();
+
+            if (socketFull) {
+                /* Wait for the selector to report the socket can be written to again. */
+                return;
+            }
+        }
+
+        /* Everything has been written, stop waiting for the socket to be writable unless
+         * another message was queued after the queue was found empty. */
+        writeRequested.set(false);
+        if (outgoingMessages.isEmpty() || !writeRequested.compareAndSet(false, true)) {
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+        }
+    }
+
+    /**
+     * Read the available data from the socket and notify the incoming data handler of each
+     * complete message.  Called on the socket selector thread when the socket can be read from.
+     *
+     * @param key the selection key of the socket channel
+     * @throws IOException if there was a problem reading from the socket
+     */
+    void handleReadable(SelectionKey key) throws IOException {
+
+        final SocketChannel keyChannel = (SocketChannel) key.channel();
+        final int read = keyChannel.read(readBuffer);
+        if (read < 0) {
+            if (logger.isInfoEnabled()) {
+                logger.info("The remote endpoint at " + address + ":" + port + " closed the connection.");
+            }
+
+            closeQuietly();
+            return;
+        }
+
+        readBuffer.flip();
+        if (framing == Framing.LENGTH_PREFIXED) {
+            readLengthPrefixedMessages();
+        } else {
+            readNewlineMessages();
+        }
+        readBuffer.compact();
+
+        if (pendingIncomingCount.get() >= MAX_PENDING_INCOMING_MESSAGES && readPaused.compareAndSet(false, true)) {
+
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+            logger.warn("Stopped reading from " + address + ":" + port + " because " + pendingIncomingCount.get() +
+                    " incoming messages are waiting to be handled.");
+
+            /* The handler may have caught up before reading was paused, in which case it won't resume reading. */
+            if (pendingIncomingCount.get() <= MAX_PENDING_INCOMING_MESSAGES / 2 && readPaused.compareAndSet(true, false)) {
+                key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+            }
+        }
+    }
+
+    /**
+     * Handle the complete newline separated messages in the read buffer, keeping the
+     * bytes of an incomplete message for the next read.
+     */
+    private void readNewlineMessages() {
+
+        while (readBuffer.hasRemaining()) {
+
+            final byte value = readBuffer.get();
+            if (value == '\n') {
+
+                /* Like BufferedReader.readLine, a carriage return before the newline isn't part of the message */
+                int length = messageLength;
+                if (length > 0 && messageBytes[length - 1] == '\r') {
+                    length--;
+                }
+
+                notifyMessage(new String(messageBytes, 0, length, StandardCharsets.UTF_8));
+                messageLength = 0;
+            } else {
+                appendMessageByte(value);
+            }
+        }
+    }
+
+    /**
+     * Handle the complete length prefixed messages in the read buffer, keeping the
+     * bytes of an incomplete message for the next read.
+     *
+     * @throws IOException if a message length is invalid
+     */
+    private void readLengthPrefixedMessages() throws IOException {
+
+        while (true) {
+
+            if (expectedMessageLength < 0) {
+
+                if (readBuffer.remaining() < LENGTH_PREFIX_SIZE) {
+                    return;
+                }
+
+                expectedMessageLength = readBuffer.getInt();
+                if (expectedMessageLength < 0 || expectedMessageLength > MAX_MESSAGE_LENGTH) {
+                    throw new IOException("Received an invalid message length of " + expectedMessageLength + " bytes from " + address + ":" + port + ".");
+                }
+            }
+
+            final int length = Math.min(readBuffer.remaining(), expectedMessageLength - messageLength);
+            ensureMessageCapacity(messageLength + length);
+            readBuffer.get(messageBytes, messageLength, length);
+            messageLength += length;
+
+            if (messageLength < expectedMessageLength) {
+                return;
+            }
+
+            notifyMessage(new String(messageBytes, 0, messageLength, StandardCharsets.UTF_8));
+            messageLength = 0;
+            expectedMessageLength = -1;
+        }
+    }
+
+    /**
+     * Add a byte to the incoming message being assembled.
+     *
+     * @param value the byte to add
+     */
+    private void appendMessageByte(byte value) {
+        ensureMessageCapacity(messageLength + 1);
+        messageBytes[messageLength++] = value;
+    }
+
+    /**
+     * Grow the incoming message bytes to hold at least the number of bytes.
+     *
+     * @param capacity the number of bytes needed
+     */
+    private void ensureMessageCapacity(int capacity) {
+        if (capacity > messageBytes.length) {
+            messageBytes = Arrays.copyOf(messageBytes, Math.max(capacity, messageBytes.length * 2));
         }
+    }
+
+    /**
+     * Queue a message for the incoming data handler, starting a callback thread to hand the
+     * messages to the handler if one isn't already doing so.  Called on the socket selector thread.
+     *
+     * @param message the message received
+     */
+    private void notifyMessage(String message) {
+
+        incomingMessages.add(message);
+        pendingIncomingCount.incrementAndGet();
+
+        if (dispatchingIncoming.compareAndSet(false, true)) {
+            MessageCallbackExecutor.getInstance().execute(this::dispatchIncomingMessages, "Incoming messages from " + address + ":" + port);
+        }
+    }
 
-        socketWriter.write(message + "\n");
-        socketWriter.flush();
+    /**
+     * Hand the queued incoming messages to the incoming data handler in the order they were received,
+     * until there are none left.  An exception thrown by the handler is logged so it doesn't keep the
+     * later messages from being handled.
+     */
+    private void dispatchIncomingMessages() {
+
+        do {
+            String message;
+            while ((message = incomingMessages.poll()) != null) {
+
+                int pending = pendingIncomingCount.decrementAndGet();
+                if (pending <= MAX_PENDING_INCOMING_MESSAGES / 2 && readPaused.compareAndSet(true, false)) {
+                    resumeReading();
+                }
+
+                try {
+                    incomingHandler.onLineReceived(message);
+                } catch (Exception e) {
+                    logger.error("The incoming data handler threw an exception while handling the message from " + address + ":" + port + "\n" + message, e);
+                }
+            }
+
+            dispatchingIncoming.set(false);
+
+            /* Keep going if a message was queued after the queue was found empty and no other thread took it. */
+        } while (!incomingMessages.isEmpty() && dispatchingIncoming.compareAndSet(false, true));
+    }
+
+    /**
+     * Start reading from the socket again after the incoming data handler caught up.
+     */
+    private void resumeReading() {
+
+        final SocketChannel currentChannel = channel;
+        if (currentChannel == null || !currentChannel.isOpen()) {
+            return;
+        }
+
+        try {
+            SocketSelector.getInstance().requestRead(currentChannel);
+        } catch (IOException e) {
+            logger.error("Unable to resume reading from " + address + ":" + port + ".", e);
+        }
+
+        if (logger.isInfoEnabled()) {
+            logger.info("Resumed reading from " + address + ":" + port + ".");
+        }
     }
 
     /**
      * Severs the connection from the remote endpoint.
-     * Any thread currently blocked in an I/O operation upon this socket will throw a SocketException. 
-     * Once a socket has been closed, it is not available for further networking use (i.e. can't be reconnected or rebound). 
-     * A new socket needs to be created. 
+     * Once a socket has been closed, it is not available for further networking use, call
+     * {@link #connect()} again to establish a new connection.
      *
      * @throws IOException if there was a problem while attempting to sever the
      *         connection.
      */
     public void disconnect() throws IOException {
-        if (socket.isConnected()) {
-            socket.close();
+        final SocketChannel currentChannel = channel;
+        if (currentChannel != null && currentChannel.isOpen()) {
+            currentChannel.close();
+        }
+
+        outgoingMessages.clear();
+        writeRequested.set(false);
+        readPaused.set(false);
+    }
+
+    /**
+     * Severs the connection from the remote endpoint, logging rather than throwing
+     * any problem that occurs.
+     */
+    void closeQuietly() {
+        try {
+            disconnect();
+        } catch (IOException e) {
+            logger.warn("There was a problem closing the socket connected to " + address + ":" + port + ".", e);
         }
     }
 
     @Override
     public void close() throws IOException {
         disconnect();
-        if (pollingFuture != null) {
-            pollingFuture.cancel(false);
-        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("[AsyncSocketHandler: address = ").append(address);
+        sb.append(", port = ").append(port);
+        sb.append(", framing = ").append(framing);
+        sb.append(", pendingIncoming = ").append(pendingIncomingCount.get());
+        sb.append(", connected = ").append(isConnected());
+        sb.append("]");
+        return sb.toString();
     }
 }
@@ -0,0 +1,182 @@
+/**
+ * Copyright Dignitas Technologies, LLC
+ *
+ * This file and its contents are governed by one or more distribution and
+ * copyright statements as described in the LICENSE.txt file distributed with
+ * this work.
+ */
+package mil.arl.gift.net.socket;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A single selector thread that performs the non-blocking reads and writes for all the
+ * {@link AsyncSocketHandler} connections in this JVM, instead of a thread per connection.
+ * Changes to the registered channels are queued and applied by the selector thread since
+ * a selection key can't be safely changed while the selector is blocked in select.
+ *
+ * @author agent
+ *
+ */
+class SocketSelector {
+
+    /** instance of the logger */
+    private static final Logger logger = LoggerFactory.getLogger(SocketSelector.class);
+
+    /** the name of the selector thread */
+    private static final String THREAD_NAME = "AsyncSocketSelector";
+
+    /** singleton instance, created when the first connection is established */
+    private static SocketSelector instance = null;
+
+    /** the selector for all the registered channels */
+    private final Selector selector;
+
+    /** changes to the registered channels to apply on the selector thread */
+    private final Queue<Runnable> pendingChanges = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Return the singleton instance, starting the selector thread the first time.
+     *
+     * @return the socket selector
+     * @throws IOException if there was a problem opening the selector
+     */
+    static synchronized SocketSelector getInstance() throws IOException {
+
+        if(instance == null){
+            instance = new SocketSelector();
+        }
+
+        return instance;
+    }
+
+    /**
+     * Open the selector and start the selector thread.
+     *
+     * @throws IOException if there was a problem opening the selector
+     */
+    private SocketSelector() throws IOException {
+
+        selector = Selector.open();
+
+        Thread thread = new Thread(this::run, THREAD_NAME);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Start reading from a connected non-blocking channel on the selector thread.
+     *
+     * @param channel the connected channel to read from.  Can't be null.
+     * @param handler notified when the channel can be read from or written to.  Can't be null.
+     */
+    void register(final SocketChannel channel, final AsyncSocketHandler handler) {
+
+        pendingChanges.add(() -> {
+            try{
+                channel.register(selector, SelectionKey.OP_READ, handler);
+            }catch(ClosedChannelException e){
+                logger.warn("Unable to register the socket channel for " + handler + " because it is already closed.", e);
+            }
+        });
+        selector.wakeup();
+    }
+
+    /**
+     * Start writing the data queued by the handler once the channel can be written to.
+     *
+     * @param channel the registered channel to write to.  Can't be null.
+     */
+    void requestWrite(final SocketChannel channel) {
+
+        pendingChanges.add(() -> {
+            SelectionKey key = channel.keyFor(selector);
+            if(key != null && key.isValid()){
+                key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+            }
+        });
+        selector.wakeup();
+    }
+
+    /**
+     * Start reading from the channel again after the handler stopped reading from it.
+     *
+     * @param channel the registered channel to read from.  Can't be null.
+     */
+    void requestRead(final SocketChannel channel) {
+
+        pendingChanges.add(() -> {
+            SelectionKey key = channel.keyFor(selector);
+            if(key != null && key.isValid()){
+                key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+            }
+        });
+        selector.wakeup();
+    }
+
+    /**
+     * The selector thread loop, runs until the JVM exits.
+     */
+    private void run() {
+
+        while(true){
+
+            try{
+                Runnable change;
+                while((change = pendingChanges.poll()) != null){
+                    change.run();
+                }
+
+                selector.select();
+
+                Iterator<SelectionKey> selectedKeys = selector.selectedKeys().iterator();
+                while(selectedKeys.hasNext()){
+
+                    SelectionKey key = selectedKeys.next();
+                    selectedKeys.remove();
+
+                    AsyncSocketHandler handler = (AsyncSocketHandler) key.attachment();
+                    try{
+                        if(key.isValid() && key.isWritable()){
+                            handler.handleWritable(key);
+                        }
+
+                        if(key.isValid() && key.isReadable()){
+                            handler.handleReadable(key);
+                        }
+                    }catch(CancelledKeyException e){
+                        // the handler was closed by another thread
+                        if(logger.isDebugEnabled()){
+                            logger.debug("The socket channel of " + handler + " was closed while handling it.", e);
+                        }
+                    }catch(IOException e){
+                        logger.error("There was a problem communicating over the socket of " + handler + ", closing the connection.", e);
+                        handler.closeQuietly();
+                    }
+                }
+
+            }catch(Throwable t){
+                logger.error("Caught exception in the socket selector loop.", t);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("[SocketSelector: channels = ").append(selector.keys().size());
+        sb.append("]");
+        return sb.toString();
+    }
+}
@@ -1,78 +1,175 @@
 /**
  * Copyright Dignitas Technologies, LLC
- * 
+ *
  * This file and its contents are governed by one or more distribution and
  * copyright statements as described in the LICENSE.txt file distributed with
  * this work.
  */
 package mil.arl.gift.sensor;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * The Event Mediator is responsible for notifying listeners of events.  It offers a threaded
- * queue implementation for enqueue and dequeue operations.
- * 
+ * The Event Mediator is responsible for notifying listeners of events.  Events are placed in a ring buffer
+ * that is allocated once and are taken out in batches by this mediator's thread, which hands each batch to
+ * the listeners in the order they were added, every listener receives the events in the order they were queued.
+ * When the ring buffer is full the {@link OverflowPolicy} decides what happens to the new event, the number of
+ * events dropped is counted and logged by this mediator's thread.
+ *
  * @author mhoffman
  *
  */
 public class EventMediator extends Thread {
-    
+
+    /**
+     * What to do with a new event when the ring buffer is full.
+     *
+     * @author agent
+     *
+     */
+    public enum OverflowPolicy {
+
+        /** wait for the listeners to make room, slows down the event producer but no events are lost */
+        BLOCK,
+
+        /** discard the oldest queued event to make room for the new event */
+        DROP_OLDEST,
+
+        /**
+         * discard most new events, only one of every sample rate new events replaces
+         * the oldest queued event so the listeners still receive a thinned out stream of recent events
+         */
+        SAMPLE
+    }
+
     /** instance of the logger */
     private static Logger logger = LoggerFactory.getLogger(EventMediator.class);
-    
+
     private static final String MEDIATOR_SUFFIX = ":EVENT_MEDIATOR";
-    
-    /** queue where events are placed and serviced*/
-    private LinkedBlockingQueue<Object> queue = new LinkedBlockingQueue<Object>(15000);
-    
+
+    /** the most events handed to the listeners at once */
+    private static final int MAX_BATCH_SIZE = 256;
+
+    /** minimum amount of milliseconds between warnings about dropped events */
+    private static final long DROP_WARNING_INTERVAL_MS = 10000;
+
+    /** the ring buffer of events waiting to be handled, allocated once */
+    private final Object[] ring;
+
+    /** the index of the oldest event in the ring */
+    private int head = 0;
+
+    /** the number of events in the ring */
+    private int count = 0;
+
+    /** guards the ring buffer */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** signaled when an event is added to an empty ring */
+    private final Condition notEmpty = lock.newCondition();
+
+    /** signaled when events are removed from a full ring */
+    private final Condition notFull = lock.newCondition();
+
+    /** what to do with a new event when the ring is full */
+    private final OverflowPolicy overflowPolicy;
+
+    /** for the {@link OverflowPolicy#SAMPLE} policy, one of every this many new events is kept while the ring is full */
+    private final int sampleRate;
+
+    /** the number of new events received while the ring is full since the ring was last not full, used for sampling */
+    private int overflowEventCount = 0;
+
+    /** the number of events this mediator has discarded */
+    private final AtomicLong droppedEventCount = new AtomicLong();
+
+    /** the dropped event count that was last logged, only used on this mediator's thread */
+    private long lastLoggedDroppedEventCount = 0;
+
+    /** when the dropped events were last logged (epoch ms), only used on this mediator's thread */
+    private long lastDropWarningTime = 0;
+
+    /** the events being handed to the listeners, only used on this mediator's thread */
+    private final Object[] batch;
+
     /** classes that want to be notified of events from this mediator */
-    private List<EventMediatorListener> listeners = new ArrayList<EventMediatorListener>();
+    private List<EventMediatorListener> listeners = new CopyOnWriteArrayList<EventMediatorListener>();
 
     /**
      * The name given to the mediator. This will be displayed in the log when
      * debug information is outputted.
      */
     private String mediatorName;
-    
+
     /**
-     * Class constructor
-     * 
+     * Class constructor - uses the event queue capacity and overflow policy from the sensor module properties.
+     *
      * @param mediatorName The display name given to the mediator.
      */
     public EventMediator(String mediatorName){
+        this(mediatorName, SensorModuleProperties.getInstance().getEventQueueCapacity(),
+                SensorModuleProperties.getInstance().getEventQueueOverflowPolicy(),
+                SensorModuleProperties.getInstance().getEventQueueSampleRate());
+    }
+
+    /**
+     * Class constructor
+     *
+     * @param mediatorName The display name given to the mediator.
+     * @param capacity the number of events that can be waiting to be handled.  Must be greater than zero.
+     * @param overflowPolicy what to do with a new event when the capacity is reached.  Can't be null.
+     * @param sampleRate for the {@link OverflowPolicy#SAMPLE} policy, one of every this many new events is
+     * kept when the capacity is reached.  Must be greater than zero.
+     */
+    public EventMediator(String mediatorName, int capacity, OverflowPolicy overflowPolicy, int sampleRate){
         super(mediatorName + MEDIATOR_SUFFIX);
+
+        if(capacity < 1){
+            throw new IllegalArgumentException("The capacity must be greater than zero.");
+        }else if(overflowPolicy == null){
+            throw new IllegalArgumentException("The overflow policy can't be null.");
+        }else if(sampleRate < 1){
+            throw new IllegalArgumentException("The sample rate must be greater than zero.");
+        }
+
         this.mediatorName = mediatorName;
+        this.ring = new Object[capacity];
+        this.batch = new Object[Math.min(capacity, MAX_BATCH_SIZE)];
+        this.overflowPolicy = overflowPolicy;
+        this.sampleRate = sampleRate;
     }
-    
+
     /**
-     * Add a listener 
-     * 
+     * Add a listener
+     *
      * @param listener a new listener to add
      */
     public void addListener(EventMediatorListener listener){
-        
+
         if(listener == null){
             throw new IllegalArgumentException("The listener can't be null.");
         }
         listeners.add(listener);
     }
-    
+
     /**
      * Remove a listener
-     * 
+     *
      * @param listener the listener to remove
-     * @return boolean whether the list contained the specified element 
+     * @return boolean whether the list contained the specified element
      */
     public boolean removeListener(EventMediatorListener listener){
         return listeners.remove(listener);
     }
-    
+
     @Override
     public void run() {
 
@@ -81,19 +178,32 @@ public class EventMediator extends Thread {
 
         while (true) {
             try {
-                
+
                 //Note: blocking call
-                Object event = queue.take();
-
-                for(EventMediatorListener listener : listeners){
-                    
-                    try{
-                        listener.notify(event);
-                    }catch(Exception e){
-                        logger.error("Caught exception from misbehaving event listener of "+listener, e);
+                int batchSize = takeBatch();
+
+                //the wait can end without events so that dropped events are logged
+                if(batchSize > 0){
+
+                    for(EventMediatorListener listener : listeners){
+
+                        try{
+                            listener.notifyBatch(batch, batchSize);
+                        }catch(Exception e){
+                            logger.error("Caught exception from misbehaving event listener of "+listener, e);
+                        }
                     }
                 }
-                
+
+                //release the events for garbage collection
+                for(int index = 0; index < batchSize; index++){
+                    batch[index] = null;
+                }
+
+                if(droppedEventCount.get() != lastLoggedDroppedEventCount){
+                    logDroppedEvents();
+                }
+
             } catch (Throwable t) {
 
                 logger.error("Caught Throwable while notifying the event listeners", t);
@@ -101,34 +211,171 @@ public class EventMediator extends Thread {
             }
         }
     }
-    
+
     /**
-     * Add an event to the queue for processing
-     * 
+     * Wait for events and move as many as fit into the batch, oldest first.  While there are dropped events
+     * that haven't been logged yet, the wait ends after {@link #DROP_WARNING_INTERVAL_MS} so they can be logged.
+     *
+     * @return the number of events placed in the batch, zero if the wait ended without events
+     * @throws InterruptedException if interrupted while waiting for an event
+     */
+    private int takeBatch() throws InterruptedException{
+
+        lock.lockInterruptibly();
+        try{
+            while(count == 0){
+
+                if(droppedEventCount.get() == lastLoggedDroppedEventCount){
+                    notEmpty.await();
+                }else if(!notEmpty.await(DROP_WARNING_INTERVAL_MS, TimeUnit.MILLISECONDS)){
+                    return 0;
+                }
+            }
+
+            int batchSize = Math.min(count, batch.length);
+            for(int index = 0; index < batchSize; index++){
+                batch[index] = ring[head];
+                ring[head] = null;
+                head = next(head);
+            }
+
+            count -= batchSize;
+            overflowEventCount = 0;
+            notFull.signalAll();
+
+            return batchSize;
+        }finally{
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Add an event to the queue for processing.  If the queue is full the overflow policy
+     * of this mediator is applied.
+     *
      * @param event - event to queue up
+     * @return true if the event was queued without dropping any events, false if this or an older event was dropped
      */
-    public void enqueue(Object event) {
+    public boolean enqueue(Object event) {
 
+        boolean dropped = false;
+        lock.lock();
         try {
-            queue.add(event);
-        } catch (IllegalStateException ise) {
 
-            logger.error("exception trying to add to external queue! event discarded.", ise);
-            logger.error("the queue may be full, should not happen.");
+            if(count == ring.length){
+
+                switch(overflowPolicy){
+                case BLOCK:
+                    while(count == ring.length){
+                        notFull.await();
+                    }
+                    break;
+
+                case SAMPLE:
+                    if(overflowEventCount++ % sampleRate != 0){
+                        //discard the new event
+                        droppedEventCount.incrementAndGet();
+                        return false;
+                    }
+                    //fall through to replace the oldest event with this sample
+
+                case DROP_OLDEST:
+                default:
+                    ring[head] = null;
+                    head = next(head);
+                    count--;
+                    droppedEventCount.incrementAndGet();
+                    dropped = true;
+                    break;
+                }
+            }
+
+            ring[(head + count) % ring.length] = event;
+            count++;
+            notEmpty.signal();
+
+        } catch (InterruptedException ie) {
+
+            Thread.currentThread().interrupt();
+            droppedEventCount.incrementAndGet();
+            logger.error("Interrupted while waiting for room in the event queue of "+mediatorName+", event discarded.", ie);
+            return false;
+
+        } finally {
+            lock.unlock();
+        }
+
+        return !dropped;
+    }
+
+    /**
+     * Log the number of events dropped since the last warning, no more than once
+     * every {@link #DROP_WARNING_INTERVAL_MS}.  Only called on this mediator's thread.
+     */
+    private void logDroppedEvents(){
+
+        long now = System.currentTimeMillis();
+        if(now - lastDropWarningTime < DROP_WARNING_INTERVAL_MS){
+            return;
         }
 
+        long dropped = droppedEventCount.get();
+        logger.warn("The event queue of "+mediatorName+" is full, "+(dropped - lastLoggedDroppedEventCount)+" events were dropped ("+
+                dropped+" total) using the "+overflowPolicy+" overflow policy.");
+
+        lastLoggedDroppedEventCount = dropped;
+        lastDropWarningTime = now;
+    }
+
+    /**
+     * Return the index after the given ring index.
+     *
+     * @param index an index in the ring
+     * @return the next index, wrapping around to the start of the ring
+     */
+    private int next(int index){
+        return ++index == ring.length ? 0 : index;
+    }
+
+    /**
+     * Return the number of events this mediator has discarded because its queue was full.
+     *
+     * @return the number of dropped events
+     */
+    public long getDroppedEventCount(){
+        return droppedEventCount.get();
     }
-    
+
     /**
      * Clears the event queue.
      */
     public void clearEventQueue() {
 
+        lock.lock();
         try {
-            queue.clear();
 
-        } catch (Exception e) {
-            logger.error("Exception caught: ", e);
+            for(int index = 0; index < ring.length; index++){
+                ring[index] = null;
+            }
+            head = 0;
+            count = 0;
+            overflowEventCount = 0;
+            notFull.signalAll();
+
+        } finally {
+            lock.unlock();
         }
     }
+
+    @Override
+    public String toString(){
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("[EventMediator: name = ").append(mediatorName);
+        sb.append(", capacity = ").append(ring.length);
+        sb.append(", overflowPolicy = ").append(overflowPolicy);
+        sb.append(", dropped = ").append(droppedEventCount.get());
+        sb.append("]");
+        return sb.toString();
+    }
 }
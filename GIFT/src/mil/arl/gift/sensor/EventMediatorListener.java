@@ -21,4 +21,20 @@ public interface EventMediatorListener {
      * @param event to process
      */
     void notify(Object event);
+
+    /**
+     * Notification of a batch of events from an event mediator, in the order they were queued.
+     * By default each event is handled with {@link #notify(Object)}, listeners that can handle
+     * several events more efficiently at once (e.g. writers) can override this.
+     *
+     * @param events the events to process, only the first count elements are events.  The array
+     * is reused by the mediator and must not be kept.
+     * @param count the number of events in the array
+     */
+    default void notifyBatch(Object[] events, int count){
+
+        for(int index = 0; index < count; index++){
+            notify(events[index]);
+        }
+    }
 }
@@ -7,6 +7,8 @@
  */
 package mil.arl.gift.sensor;
 
+import java.util.List;
+
 /**
  * This interface is used to notify implementations of sensor data events.
  * 
@@ -22,4 +24,19 @@ public interface SensorDataEventListener extends SensorEventListener {
 	 * @throws Exception if there was a severe problem handling the sensor event
 	 */
 	void sensorDataEvent(SensorDataEvent sensorDataEvent) throws Exception;
+
+	/**
+	 * Sensor has produced several data events, in the order they were produced.  By default each event
+	 * is handled with {@link #sensorDataEvent(SensorDataEvent)}, listeners that can handle several events
+	 * more efficiently at once (e.g. writers) can override this.
+	 * 
+	 * @param sensorDataEvents the events containing new sensor data.  The list must not be kept.
+	 * @throws Exception if there was a severe problem handling a sensor event, the events after it are not handled
+	 */
+	default void sensorDataEvents(List<SensorDataEvent> sensorDataEvents) throws Exception{
+
+	    for(SensorDataEvent sensorDataEvent : sensorDataEvents){
+	        sensorDataEvent(sensorDataEvent);
+	    }
+	}
 }
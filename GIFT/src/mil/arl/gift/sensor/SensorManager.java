@@ -7,8 +7,13 @@
  */
 package mil.arl.gift.sensor;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,8 +44,14 @@ public class SensorManager {
 	/** the singleton instance of this class */
 	private static SensorManager instance = null;
 	
-	/** container of event producers (sensors, filters) to the event mediator responsible for threading events */
+	/** 
+	 * container of event producers (sensors, filters) to the event mediator responsible for threading events
+	 * (synchronize on it to use it)
+	 */
 	private Map<AbstractEventProducer, EventMediator> eventMediators = new HashMap<AbstractEventProducer, EventMediator>();
+
+	/** the event producers (sensors, filters) whose mediator has dropped an event, used to only report the first drop */
+	private Set<AbstractEventProducer> droppingEventProducers = ConcurrentHashMap.newKeySet();
 	
 	/**
 	 * Return the singleton instance of this class
@@ -124,20 +135,26 @@ public class SensorManager {
 	 */
 	public void createSensorDataEvent(AbstractSensor sensor, AbstractSensorData data){
 		
-	      EventMediator mediator = eventMediators.get(sensor);
-          if(mediator == null){
-              //create new mediator instance to handle this sensor's events
-              
-              mediator = new EventMediator(sensor.getSensorName());
-              mediator.addListener(new SensorEventMediatorListener());
-              mediator.start();
-              
-              eventMediators.put(sensor, mediator);
-          }
+	      EventMediator mediator;
+	      synchronized (eventMediators){
+	          
+	          mediator = eventMediators.get(sensor);
+	          if(mediator == null){
+	              //create new mediator instance to handle this sensor's events
+
+	              mediator = new EventMediator(sensor.getSensorName());
+	              mediator.addListener(new SensorEventMediatorListener());
+	              mediator.start();
+
+	              eventMediators.put(sensor, mediator);
+	          }
+	      }
          
           SensorDataEvent event = new SensorDataEvent(sensor, data);
           try {
-              mediator.enqueue(event);
+              if(!mediator.enqueue(event)){
+                  eventsDropped(sensor, sensor, mediator);
+              }
           } catch (Exception ie) {
               logger
                   .error(mediator.getName()
@@ -149,45 +166,51 @@ public class SensorManager {
 	}
 	
 	/**
-	 * Notify listeners of sensor data event
+	 * Notify listeners of sensor data events.  The sensor's filter gets all of the events, then the
+	 * sensor's writer and then the sensor module.
 	 * 
-	 * @param event - the sensor data event to notify listeners about
+	 * @param events - the sensor data events to notify listeners about, in the order they were produced by the same sensor
 	 */
-	private void fireNotificationSensorData(SensorDataEvent event){
+	private void fireNotificationSensorData(List<SensorDataEvent> events){
+	    
+	    AbstractSensor sensor = events.get(0).getSensor();
 	            
-        if(event.getSensor().getSensorFilter() != null){
+        if(sensor.getSensorFilter() != null){
             
             try{
-                event.getSensor().getSensorFilter().sensorDataEvent(event);
+                sensor.getSensorFilter().sensorDataEvents(events);
             }catch(Exception e){
-                logger.error("Caught exception from mis-behaving sensor filter = "+event.getSensor().getSensorFilter(), e);
-                createSensorStatus(true, event.getSensor(), event.getSensor().getSensorName(), event.getSensor().getSensorType(), "Unable to filter raw sensor data for sensor named "+event.getSensor().getSensorName());
+                logger.error("Caught exception from mis-behaving sensor filter = "+sensor.getSensorFilter(), e);
+                createSensorStatus(true, sensor, sensor.getSensorName(), sensor.getSensorType(), "Unable to filter raw sensor data for sensor named "+sensor.getSensorName());
             }
         }
         
-        if(event.getSensor().getEventWriter() != null){
+        if(sensor.getEventWriter() != null){
             
             try{
-                event.getSensor().getEventWriter().sensorDataEvent(event);
+                sensor.getEventWriter().sensorDataEvents(events);
             }catch(Exception e){
-                logger.error("Caught exception from mis-behaving sensor event writer = "+event.getSensor().getEventWriter(), e);
-                createSensorStatus(true, event.getSensor(), event.getSensor().getSensorName(), event.getSensor().getSensorType(), "Unable to write raw sensor data for sensor named "+event.getSensor().getSensorName());
+                logger.error("Caught exception from mis-behaving sensor event writer = "+sensor.getEventWriter(), e);
+                createSensorStatus(true, sensor, sensor.getSensorName(), sensor.getSensorType(), "Unable to write raw sensor data for sensor named "+sensor.getSensorName());
             }
         }
         
-        if(event.getSensor().shouldDistributeExternally()){
-            SensorModule module = eventProducerToModule.get(event.getSensor());
+        if(sensor.shouldDistributeExternally()){
+            SensorModule module = eventProducerToModule.get(sensor);
             
             if(module != null){
-                try{
-                    module.sensorDataEvent(event);
-                }catch(Exception e){
-                    logger.error("Caught exception while trying to send raw sensor data externally.", e);
-                    createSensorStatus(true, event.getSensor(), event.getSensor().getSensorName(), event.getSensor().getSensorType(), "Unable to send raw sensor data for sensor named "+event.getSensor().getSensorName());
+                
+                for(SensorDataEvent event : events){
+                    try{
+                        module.sensorDataEvent(event);
+                    }catch(Exception e){
+                        logger.error("Caught exception while trying to send raw sensor data externally.", e);
+                        createSensorStatus(true, sensor, sensor.getSensorName(), sensor.getSensorType(), "Unable to send raw sensor data for sensor named "+sensor.getSensorName());
+                    }
                 }
             }else{
-                logger.error("Unable to find a sensor module for "+event.getSensor()+", therefore the sensor data event will not be sent externally");
-                createSensorStatus(true, event.getSensor(), event.getSensor().getSensorName(), event.getSensor().getSensorType(), "Unable to send raw sensor data for sensor named "+event.getSensor().getSensorName());
+                logger.error("Unable to find a sensor module for "+sensor+", therefore the sensor data events will not be sent externally");
+                createSensorStatus(true, sensor, sensor.getSensorName(), sensor.getSensorType(), "Unable to send raw sensor data for sensor named "+sensor.getSensorName());
             }
         }
 
@@ -202,20 +225,26 @@ public class SensorManager {
 	 */
 	public void createSensorFilterDataEvent(AbstractSensorFilter filter, SensorFilterData data, AbstractSensor sensor){
 				
-	    EventMediator mediator = eventMediators.get(filter);
-	    if(mediator == null){
-	        //create new mediator to handle this filter's events
+	    EventMediator mediator;
+	    synchronized (eventMediators){
 	        
-	        mediator = new EventMediator(filter.getFilterName());
-	        mediator.addListener(new FilterEventMediatorListener());
-	        mediator.start();
-	        
-	        eventMediators.put(filter, mediator);
+	        mediator = eventMediators.get(filter);
+	        if(mediator == null){
+	            //create new mediator to handle this filter's events
+
+	            mediator = new EventMediator(filter.getFilterName());
+	            mediator.addListener(new FilterEventMediatorListener());
+	            mediator.start();
+
+	            eventMediators.put(filter, mediator);
+	        }
 	    }
 	   
         SensorFilterEvent event = new SensorFilterEvent(filter, data, sensor);
         try {
-            mediator.enqueue(event);
+            if(!mediator.enqueue(event)){
+                eventsDropped(filter, sensor, mediator);
+            }
         } catch (Exception ie) {
             logger
                 .error(mediator.getName()
@@ -227,41 +256,81 @@ public class SensorManager {
 	}
 	
 	/**
-	 * Notify listeners of sensor filter data event
+	 * Called when an event producer's mediator dropped an event because its queue is full.  The first
+	 * time this happens for an event producer a sensor status is sent so the loss of data is visible
+	 * outside of the sensor module log.
+	 *
+	 * @param eProducer - the sensor or filter whose event queue is full
+	 * @param sensor - the sensor producing the data
+	 * @param mediator - the mediator that dropped the event
+	 */
+	private void eventsDropped(AbstractEventProducer eProducer, AbstractSensor sensor, EventMediator mediator){
+
+	    if(droppingEventProducers.add(eProducer) && sensor != null){
+	        createSensorStatus(false, sensor, sensor.getSensorName(), sensor.getSensorType(),
+	                "The event queue of "+mediator.getName()+" is full, events are being dropped. Consider increasing the EventQueueCapacity sensor module property.");
+	    }
+	}
+
+	/**
+	 * Notify listeners of sensor filter data events.  The filter's writer gets all of the events and then
+	 * the sensor module.
 	 * 
-	 * @param filter - the filter producing the data event
-	 * @param data - the data the filter produced
+	 * @param events - the sensor filter data events to notify listeners about, in the order they were produced by the same filter
 	 */
-	private void fireNotificationSensorFilterData(SensorFilterEvent event){	    
+	private void fireNotificationSensorFilterData(List<SensorFilterEvent> events){	    
 	    
-        if(event.getFilter().getEventWriter() != null){        	
+	    AbstractSensorFilter filter = events.get(0).getFilter();
+	    
+        if(filter.getEventWriter() != null){        	
             
             try{
-                event.getFilter().getEventWriter().sensorFilterEvent(event.getData().getElapsedTime(), event);
+                filter.getEventWriter().sensorFilterEvents(events);
             }catch(Exception e){
-                logger.error("Caught exception from mis-behaving sensor event writer = "+event.getSensor().getEventWriter(), e); 
+                logger.error("Caught exception from mis-behaving sensor event writer = "+filter.getEventWriter(), e); 
             }
         }
         
-        if(event.getFilter().shouldDistributeExternally()){
+        if(filter.shouldDistributeExternally()){
             
-            SensorModule sModule = eventProducerToModule.get(event.getFilter());
+            SensorModule sModule = eventProducerToModule.get(filter);
             
-            if(sModule != null){
-                try{
-                    sModule.sensorFilterEvent(event.getData().getElapsedTime(), event);
-                }catch(Exception e){
-                    logger.error("Caught exception while trying to send filtered sensor data externally.", e);
+            for(SensorFilterEvent event : events){
+                
+                if(sModule != null){
+                    try{
+                        sModule.sensorFilterEvent(event.getData().getElapsedTime(), event);
+                    }catch(Exception e){
+                        logger.error("Caught exception while trying to send filtered sensor data externally.", e);
+                        createSensorStatus(true, event.getSensor(), event.getSensor().getSensorName(), event.getSensor().getSensorType(), "Unable to send filtered sensor data for sensor named "+event.getSensor().getSensorName());
+                    }
+                }else{
+                    logger.error("Unable to find a sensor module for "+filter+", therefore the sensor filter event will not be sent externally");
                     createSensorStatus(true, event.getSensor(), event.getSensor().getSensorName(), event.getSensor().getSensorType(), "Unable to send filtered sensor data for sensor named "+event.getSensor().getSensorName());
                 }
-            }else{
-                logger.error("Unable to find a sensor module for "+event.getFilter()+", therefore the sensor filter event will not be sent externally");
-                createSensorStatus(true, event.getSensor(), event.getSensor().getSensorName(), event.getSensor().getSensorType(), "Unable to send filtered sensor data for sensor named "+event.getSensor().getSensorName());
             }
         }
 
 	}
 	
+	/**
+	 * Return the number of events dropped by each sensor and filter because its event queue was full.
+	 *
+	 * @return the mediator name to the number of dropped events for each sensor and filter that has produced an event
+	 */
+	public Map<String, Long> getDroppedEventCounts(){
+
+	    Map<String, Long> droppedEventCounts = new HashMap<String, Long>();
+	    synchronized (eventMediators){
+	        
+	        for(EventMediator mediator : eventMediators.values()){
+	            droppedEventCounts.put(mediator.getName(), mediator.getDroppedEventCount());
+	        }
+	    }
+
+	    return droppedEventCounts;
+	}
+	
     /**
      * Create a new sensor status message.
      *
@@ -292,11 +361,28 @@ public class SensorManager {
 	 *
 	 */
 	private class FilterEventMediatorListener implements EventMediatorListener{
+	    
+	    /** the events of a batch, reused for every batch of the mediator's thread */
+	    private final List<SensorFilterEvent> batchEvents = new ArrayList<>();
 
         @Override
         public void notify(Object event) {
             
-            fireNotificationSensorFilterData((SensorFilterEvent)event);            
+            fireNotificationSensorFilterData(Collections.singletonList((SensorFilterEvent)event));            
+        }
+        
+        @Override
+        public void notifyBatch(Object[] events, int count) {
+            
+            try{
+                for(int index = 0; index < count; index++){
+                    batchEvents.add((SensorFilterEvent)events[index]);
+                }
+                
+                fireNotificationSensorFilterData(batchEvents);
+            }finally{
+                batchEvents.clear();
+            }
         }
 	    
 	}
@@ -308,11 +394,28 @@ public class SensorManager {
 	 *
 	 */
     private class SensorEventMediatorListener implements EventMediatorListener{
+        
+        /** the events of a batch, reused for every batch of the mediator's thread */
+        private final List<SensorDataEvent> batchEvents = new ArrayList<>();
 
         @Override
         public void notify(Object event) {
             
-            fireNotificationSensorData((SensorDataEvent)event);            
+            fireNotificationSensorData(Collections.singletonList((SensorDataEvent)event));            
+        }
+        
+        @Override
+        public void notifyBatch(Object[] events, int count) {
+            
+            try{
+                for(int index = 0; index < count; index++){
+                    batchEvents.add((SensorDataEvent)events[index]);
+                }
+                
+                fireNotificationSensorData(batchEvents);
+            }finally{
+                batchEvents.clear();
+            }
         }
         
     }
@@ -35,6 +35,17 @@ public class SensorModuleProperties extends AbstractModuleProperties {
     /** minimum amount of seconds between the same error being sent over the network by a sensor instance */
     private static final String MIN_SEC_BTW_ERRORS = "MinSecBtwErrors";
     private static final double DEFAULT_MIN_SEC_BTW_ERRORS = 5.0;
+
+    /** the number of events each sensor and filter can have waiting to be handled */
+    private static final String EVENT_QUEUE_CAPACITY = "EventQueueCapacity";
+    private static final int DEFAULT_EVENT_QUEUE_CAPACITY = 15000;
+
+    /** what to do with a new sensor or filter event when the event queue is full */
+    private static final String EVENT_QUEUE_OVERFLOW_POLICY = "EventQueueOverflowPolicy";
+
+    /** for the SAMPLE overflow policy, one of every this many new events is kept when the event queue is full */
+    private static final String EVENT_QUEUE_SAMPLE_RATE = "EventQueueSampleRate";
+    private static final int DEFAULT_EVENT_QUEUE_SAMPLE_RATE = 10;
     
     /**
      * Return the singleton instance of this class
@@ -74,4 +85,37 @@ public class SensorModuleProperties extends AbstractModuleProperties {
     public double getMinSecBtwErrors(){
         return getPropertyDoubleValue(MIN_SEC_BTW_ERRORS, DEFAULT_MIN_SEC_BTW_ERRORS);
     }
+
+    /**
+     * Return the number of events each sensor and filter can have waiting to be handled
+     *
+     * @return int
+     */
+    public int getEventQueueCapacity(){
+        return getPropertyIntValue(EVENT_QUEUE_CAPACITY, DEFAULT_EVENT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Return what to do with a new sensor or filter event when the event queue is full
+     *
+     * @return the overflow policy, default is {@link EventMediator.OverflowPolicy#DROP_OLDEST}
+     */
+    public EventMediator.OverflowPolicy getEventQueueOverflowPolicy(){
+
+        String value = getPropertyValue(EVENT_QUEUE_OVERFLOW_POLICY);
+        if(value == null || value.trim().isEmpty()){
+            return EventMediator.OverflowPolicy.DROP_OLDEST;
+        }
+
+        return EventMediator.OverflowPolicy.valueOf(value.trim().toUpperCase());
+    }
+
+    /**
+     * Return, for the SAMPLE overflow policy, one of every how many new events is kept when the event queue is full
+     *
+     * @return int
+     */
+    public int getEventQueueSampleRate(){
+        return getPropertyIntValue(EVENT_QUEUE_SAMPLE_RATE, DEFAULT_EVENT_QUEUE_SAMPLE_RATE);
+    }
 }
@@ -8,6 +8,7 @@
 package mil.arl.gift.sensor.filter;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import mil.arl.gift.sensor.AbstractEventProducer;
@@ -46,6 +47,19 @@ public abstract class AbstractSensorFilter extends AbstractEventProducer impleme
 		filterSensorData(sensorDataEvent);
 	}
 	
+	/**
+	 * Filter each sensor data event in the order they were produced.
+	 * 
+	 * @param sensorDataEvents - sensor data from the same sensor
+	 */
+	@Override
+	public void sensorDataEvents(List<SensorDataEvent> sensorDataEvents){
+	    
+	    for(SensorDataEvent sensorDataEvent : sensorDataEvents){
+	        filterSensorData(sensorDataEvent);
+	    }
+	}
+	
 	/**
 	 * Filter the sensor data
 	 * 
@@ -58,6 +72,19 @@ public abstract class AbstractSensorFilter extends AbstractEventProducer impleme
 		filterSensorFilterData(sensorFilterEvent);
 	}
 	
+	/**
+	 * Filter each sensor filter event in the order they were produced.
+	 * 
+	 * @param sensorFilterEvents - sensor filter data
+	 */
+	@Override
+	public void sensorFilterEvents(List<SensorFilterEvent> sensorFilterEvents){
+	    
+	    for(SensorFilterEvent sensorFilterEvent : sensorFilterEvents){
+	        filterSensorFilterData(sensorFilterEvent);
+	    }
+	}
+	
 	/**
 	 * Set the name of the sensor filter
 	 * 
@@ -7,6 +7,8 @@
  */
 package mil.arl.gift.sensor.filter;
 
+import java.util.List;
+
 import mil.arl.gift.sensor.SensorEventListener;
 
 /**
@@ -25,4 +27,19 @@ public interface SensorFilterEventListener extends SensorEventListener{
 	 * @throws Exception if there was a severe problem handling the sensor filter event
 	 */
 	void sensorFilterEvent(long elapsedTime, SensorFilterEvent sensorFilterEvent) throws Exception;
+
+	/**
+	 * Sensor Filter has produced several data events, in the order they were produced.  By default each event
+	 * is handled with {@link #sensorFilterEvent(long, SensorFilterEvent)} using the elapsed time of the event's data,
+	 * listeners that can handle several events more efficiently at once (e.g. writers) can override this.
+	 * 
+	 * @param sensorFilterEvents the filter events containing filtered sensor data.  The list must not be kept.
+	 * @throws Exception if there was a severe problem handling a sensor filter event, the events after it are not handled
+	 */
+	default void sensorFilterEvents(List<SensorFilterEvent> sensorFilterEvents) throws Exception{
+
+	    for(SensorFilterEvent sensorFilterEvent : sensorFilterEvents){
+	        sensorFilterEvent(sensorFilterEvent.getData().getElapsedTime(), sensorFilterEvent);
+	    }
+	}
 }
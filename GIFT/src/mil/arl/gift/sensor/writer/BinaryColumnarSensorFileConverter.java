@@ -0,0 +1,281 @@
+/**
+ * Copyright Dignitas Technologies, LLC
+ *
+ * This file and its contents are governed by one or more distribution and
+ * copyright statements as described in the LICENSE.txt file distributed with
+ * this work.
+ */
+package mil.arl.gift.sensor.writer;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.text.DecimalFormat;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import mil.arl.gift.common.enums.SensorAttributeNameEnum;
+import mil.arl.gift.common.io.TimeUtil;
+
+/**
+ * Converts a file written by the {@link BinaryColumnarSensorWriter} into the delimited file the
+ * {@link GenericSensorDelimitedWriter} would have written for the same sensor data.<br/>
+ * <br/>
+ * Usage: BinaryColumnarSensorFileConverter [binary file] [optional: delimited file, default is the binary file with a .csv extension]
+ *
+ * @author agent
+ *
+ */
+public class BinaryColumnarSensorFileConverter {
+
+    /** instance of the logger */
+    private static Logger logger = LoggerFactory.getLogger(BinaryColumnarSensorFileConverter.class);
+
+    /** the delimiter between values, the same as the {@link GenericSensorDelimitedWriter} */
+    private static final String DELIM = GenericSensorDelimitedWriter.DELIM;
+
+
+    /** format used for attribute values, the same as the {@link GenericSensorDelimitedWriter} */
+    private final DecimalFormat attributeFormat = new DecimalFormat("#.##");
+
+    /** the binary file being converted */
+    private final File binaryFile;
+
+    /** used to replace the delimiter character contained within a text value, from the schema header */
+    private String delimReplacement;
+
+    /** the column names from the schema header */
+    private String[] labels;
+
+    /** the column types from the schema header */
+    private byte[] types;
+
+    /**
+     * Class constructor - set attributes
+     *
+     * @param binaryFile a file written by the {@link BinaryColumnarSensorWriter}.  Can't be null.
+     */
+    public BinaryColumnarSensorFileConverter(File binaryFile){
+
+        if(binaryFile == null){
+            throw new IllegalArgumentException("The binary file can't be null.");
+        }
+
+        this.binaryFile = binaryFile;
+    }
+
+    /**
+     * Write the contents of the binary file to a delimited file.
+     *
+     * @param delimitedFile the file to write.  Can't be null.  Will be overwritten if it exists.
+     * @return the number of rows written, not including the header
+     * @throws IOException if there was a problem reading the binary file or writing the delimited file
+     */
+    public long convert(File delimitedFile) throws IOException{
+
+        long rowsWritten = 0;
+        try(RandomAccessFile file = new RandomAccessFile(binaryFile, "r");
+                FileChannel channel = file.getChannel();
+                BufferedWriter output = new BufferedWriter(new FileWriter(delimitedFile))){
+
+            if(channel.size() > Integer.MAX_VALUE){
+                throw new IOException("The binary file "+binaryFile+" is too large to convert.");
+            }
+
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            readHeader(buffer);
+            writeHeader(output);
+
+            while(buffer.remaining() >= Integer.BYTES){
+
+                int rows = buffer.getInt();
+                if(rows == BinaryColumnarSensorWriter.NEXT_CHUNK_MARKER){
+
+                    long nextChunk = BinaryColumnarSensorWriter.nextChunkBoundary(buffer.position());
+                    if(nextChunk >= buffer.limit()){
+                        break;
+                    }
+
+                    buffer.position((int) nextChunk);
+                    continue;
+                }else if(rows <= 0){
+                    //the rest of the file is unused
+                    break;
+                }
+
+                rowsWritten += convertBlock(buffer, rows, output);
+            }
+        }
+
+        if(logger.isInfoEnabled()){
+            logger.info("Converted "+rowsWritten+" rows from "+binaryFile+" to "+delimitedFile+".");
+        }
+
+        return rowsWritten;
+    }
+
+    /**
+     * Read the schema header at the start of the binary file.
+     *
+     * @param buffer the contents of the binary file, positioned at the start
+     * @throws IOException if the file is not a binary columnar sensor file
+     */
+    private void readHeader(ByteBuffer buffer) throws IOException{
+
+        if(buffer.remaining() < Integer.BYTES + Short.BYTES + Short.BYTES + Integer.BYTES || buffer.getInt() != BinaryColumnarSensorWriter.MAGIC){
+            throw new IOException("The file "+binaryFile+" is not a binary columnar sensor file.");
+        }
+
+        short version = buffer.getShort();
+        if(version != BinaryColumnarSensorWriter.VERSION){
+            throw new IOException("The binary columnar sensor file "+binaryFile+" is version "+version+", only version "+BinaryColumnarSensorWriter.VERSION+" is supported.");
+        }
+
+        byte[] replacement = new byte[buffer.getShort()];
+        buffer.get(replacement);
+        delimReplacement = new String(replacement, StandardCharsets.UTF_8);
+
+        int columnCount = buffer.getInt();
+        labels = new String[columnCount];
+        types = new byte[columnCount];
+        for(int column = 0; column < columnCount; column++){
+
+            byte[] name = new byte[buffer.getShort()];
+            buffer.get(name);
+            labels[column] = new String(name, StandardCharsets.UTF_8);
+            types[column] = buffer.get();
+        }
+    }
+
+    /**
+     * Write the header line of the delimited file.
+     *
+     * @param output where to write the header
+     * @throws IOException if there was a problem writing
+     */
+    private void writeHeader(BufferedWriter output) throws IOException{
+
+        StringBuilder line = new StringBuilder();
+        line.append(SensorAttributeNameEnum.TIME.toString());
+        for(String label : labels){
+            line.append(DELIM).append(label);
+        }
+        line.append(AbstractFileWriter.EOL);
+        output.write(line.toString());
+    }
+
+    /**
+     * Write the rows of a block to the delimited file.
+     *
+     * @param buffer the contents of the binary file, positioned after the block row count
+     * @param rows the number of rows in the block
+     * @param output where to write the rows
+     * @return the number of rows written
+     * @throws IOException if there was a problem writing
+     */
+    private int convertBlock(ByteBuffer buffer, int rows, BufferedWriter output) throws IOException{
+
+        long[] times = new long[rows];
+        for(int row = 0; row < rows; row++){
+            times[row] = buffer.getLong();
+        }
+
+        int bitmapSize = (rows + 7) / 8;
+        String[][] values = new String[labels.length][rows];
+        for(int column = 0; column < labels.length; column++){
+
+            if(types[column] == BinaryColumnarSensorWriter.UNSUPPORTED_COLUMN){
+                continue;
+            }
+
+            byte[] bitmap = new byte[bitmapSize];
+            buffer.get(bitmap);
+
+            for(int row = 0; row < rows; row++){
+
+                boolean present = (bitmap[row / 8] & (1 << (row % 8))) != 0;
+                if(types[column] == BinaryColumnarSensorWriter.DOUBLE_COLUMN){
+
+                    double value = buffer.getDouble();
+                    if(present){
+                        values[column][row] = attributeFormat.format(value);
+                    }
+
+                }else if(present){
+
+                    byte[] text = new byte[buffer.getInt()];
+                    buffer.get(text);
+                    values[column][row] = new String(text, StandardCharsets.UTF_8).replace(DELIM, delimReplacement);
+                }
+            }
+        }
+
+        StringBuilder line = new StringBuilder();
+        for(int row = 0; row < rows; row++){
+
+            line.setLength(0);
+            line.append(TimeUtil.formatTimeRelative(0, times[row]));
+            for(int column = 0; column < labels.length; column++){
+
+                line.append(DELIM);
+                if(values[column][row] != null){
+                    line.append(values[column][row]);
+                }
+            }
+            line.append(AbstractFileWriter.EOL);
+            output.write(line.toString());
+        }
+
+        return rows;
+    }
+
+    @Override
+    public String toString(){
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("[BinaryColumnarSensorFileConverter: file = ").append(binaryFile);
+        sb.append("]");
+        return sb.toString();
+    }
+
+    /**
+     * Convert a binary columnar sensor file to a delimited file.
+     *
+     * @param args the binary file to convert and optionally the delimited file to write
+     */
+    public static void main(String[] args){
+
+        if(args.length < 1){
+            System.out.println("Usage: BinaryColumnarSensorFileConverter [binary file] [optional: delimited file]");
+            System.exit(1);
+        }
+
+        File binaryFile = new File(args[0]);
+        File delimitedFile;
+        if(args.length > 1){
+            delimitedFile = new File(args[1]);
+        }else{
+            String name = binaryFile.getPath();
+            if(name.endsWith(BinaryColumnarSensorWriter.BINARY_COLUMNAR_EXTENSION)){
+                name = name.substring(0, name.length() - BinaryColumnarSensorWriter.BINARY_COLUMNAR_EXTENSION.length());
+            }
+            delimitedFile = new File(name + AbstractFileWriter.CSV_EXTENSION);
+        }
+
+        try{
+            long rows = new BinaryColumnarSensorFileConverter(binaryFile).convert(delimitedFile);
+            System.out.println("Wrote "+rows+" rows to "+delimitedFile+".");
+        }catch(Exception e){
+            logger.error("Caught exception while converting "+binaryFile, e);
+            System.err.println("Failed to convert "+binaryFile+": "+e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,685 @@
+/**
+ * Copyright Dignitas Technologies, LLC
+ *
+ * This file and its contents are governed by one or more distribution and
+ * copyright statements as described in the LICENSE.txt file distributed with
+ * this work.
+ */
+package mil.arl.gift.sensor.writer;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import mil.arl.gift.common.PackageUtil;
+import mil.arl.gift.common.enums.SensorAttributeNameEnum;
+import mil.arl.gift.common.sensor.AbstractSensorAttributeValue;
+import mil.arl.gift.common.sensor.ComplexAttributeFieldManager;
+import mil.arl.gift.common.sensor.ComplexAttributeFieldManager.ComplexAttributeField;
+import mil.arl.gift.common.sensor.DoubleValue;
+import mil.arl.gift.common.sensor.ImageValue;
+import mil.arl.gift.common.sensor.IntegerValue;
+import mil.arl.gift.common.sensor.Tuple3dValue;
+import mil.arl.gift.sensor.AbstractEventProducer.EventProducerAttribute;
+import mil.arl.gift.sensor.AbstractEventProducer.EventProducerInformation;
+import mil.arl.gift.sensor.AbstractSensorData;
+import mil.arl.gift.sensor.SensorData;
+import mil.arl.gift.sensor.SensorDataCollection;
+import mil.arl.gift.sensor.SensorDataEvent;
+import mil.arl.gift.sensor.filter.SensorFilterData;
+import mil.arl.gift.sensor.filter.SensorFilterEvent;
+
+/**
+ * This class is responsible for writing sensor and/or filtered data to a binary file where the values are
+ * kept as primitives instead of being formatted as text.  It is an alternative to the {@link GenericSensorDelimitedWriter}
+ * for high rate sensors (e.g. Kinect skeleton, ECG) where formatting every value is the main cost of writing the data.
+ * Use {@link BinaryColumnarSensorFileConverter} to create the delimited file the {@link GenericSensorDelimitedWriter}
+ * would have written.<br/>
+ * <br/>
+ * The file starts with a schema header holding the configured delimiter replacement and describing the columns (the same
+ * columns as the delimited file header) followed by blocks of rows.  Within a block each column is stored contiguously: the elapsed times as longs, then for each column a
+ * bitmap of the rows that have a value followed by the values (doubles for number columns, length prefixed UTF-8 for text columns).
+ * Rows are buffered in primitive arrays and a block is written when it is full, when it has been buffering for
+ * {@link #MAX_BLOCK_DURATION_MS} or when the writer is finished.  The file is written through memory mapped regions that
+ * are {@link #CHUNK_SIZE} bytes (or a multiple of it) and start on a chunk boundary.  When a block doesn't fit in the current region
+ * a {@link #NEXT_CHUNK_MARKER} is written and the block is written at the next chunk boundary.  A block row count of zero marks
+ * the end of the data.  When the writer is closed the mapped region is released and the unused end of the last region is
+ * truncated from the file, if the file was not closed (e.g. the JVM ended) the end of the file stays zero filled up to the next
+ * chunk boundary.<br/>
+ * <br/>
+ * Image attributes (e.g. Kinect color and depth channels) are not written, use the {@link KinectSensorWriter} when those are needed.
+ *
+ * @author agent
+ *
+ */
+public class BinaryColumnarSensorWriter extends AbstractFileWriter {
+
+    /** instance of the logger */
+    private static Logger logger = LoggerFactory.getLogger(BinaryColumnarSensorWriter.class);
+
+    /** the file extension of the binary files */
+    public static final String BINARY_COLUMNAR_EXTENSION = ".gcol";
+
+    /** the first 4 bytes of the file ("GCOL") */
+    static final int MAGIC = 0x47434F4C;
+
+    /** the version of the file format */
+    static final short VERSION = 1;
+
+    /** a column of double values (numbers and numeric fields of complex attributes) */
+    static final byte DOUBLE_COLUMN = 0;
+
+    /** a column of UTF-8 text values */
+    static final byte TEXT_COLUMN = 1;
+
+    /** a column that is in the delimited file header but whose values aren't written (e.g. images) */
+    static final byte UNSUPPORTED_COLUMN = 2;
+
+    /** the row count written when the rest of a chunk is unused, the next block starts at the next chunk boundary */
+    static final int NEXT_CHUNK_MARKER = -1;
+
+    /** the size of the memory mapped regions of the file */
+    static final int CHUNK_SIZE = 1024 * 1024;
+
+    /** the number of rows in a full block */
+    private static final int BLOCK_ROWS = 512;
+
+    /** the longest amount of time rows are buffered before the block is written */
+    private static final long MAX_BLOCK_DURATION_MS = 1000;
+
+    /** used to replace the delimiter character contained within a text value when the file is converted */
+    private final String delimReplacement;
+
+    /** the columns of the file, in the order of the delimited file header */
+    private final List<Column> columns = new ArrayList<>();
+
+    /** the file channel of the binary file, null until initialized */
+    private FileChannel fileChannel = null;
+
+    /** the file the binary data is written too, null until initialized */
+    private RandomAccessFile file = null;
+
+    /** the file name (w/o path) being written too */
+    private String binaryFileName = null;
+
+    /** the currently mapped region of the file, null until the first block is written */
+    private MappedByteBuffer region = null;
+
+    /** the file offset of the start of the {@link #region} */
+    private long regionStart = 0;
+
+    /** the elapsed time of each row in the block being buffered */
+    private final long[] blockTimes = new long[BLOCK_ROWS];
+
+    /** the number of rows in the block being buffered */
+    private int blockRowCount = 0;
+
+    /** when the first row of the block being buffered was added (epoch ms) */
+    private long blockStartTime = 0;
+
+    /** the number of rows written to the file */
+    private long rowsWritten = 0;
+
+    /**
+     * Class constructor - configure using the writer configuration input for this writer.  The configuration
+     * is shared with the {@link GenericSensorDelimitedWriter}.
+     *
+     * @param configuration parameters to configure this writer
+     * @param eventProducerInformation attributes for which data will be written for
+     */
+    public BinaryColumnarSensorWriter(generated.sensor.GenericSensorDelimitedWriter configuration, EventProducerInformation eventProducerInformation){
+        super(configuration.getFilePrefix(), BINARY_COLUMNAR_EXTENSION, eventProducerInformation);
+
+        delimReplacement = configuration.getDatumDelimReplacementChar() != null ?
+                configuration.getDatumDelimReplacementChar() : GenericSensorDelimitedWriter.DEFAULT_DELIM_REPLACEMENT;
+
+        if(configuration.getDirectoryToWrite() != null) {
+            logger.warn("A sensor writer contains a legacy configuration to write to '" + configuration.getDirectoryToWrite() + "'. The "
+                    + "configured directory will be ignored, and sensor output from this writer will instead be written to '"
+                    + PackageUtil.getDomainSessions() + "'.");
+        }
+
+        buildColumns();
+    }
+
+    /**
+     * Create the columns for the attributes of the event producer, using the same columns as
+     * the header of the {@link GenericSensorDelimitedWriter}.
+     */
+    private void buildColumns(){
+
+        ComplexAttributeFieldManager complexAttrMgr = ComplexAttributeFieldManager.getInstance();
+        for(EventProducerAttribute attribute : eventProducerInformation.getAttributes()){
+
+            List<ComplexAttributeField> attributeFields = complexAttrMgr.getFieldsForAttributeClass(attribute.getType());
+            if(attributeFields != null && !attributeFields.isEmpty()){
+                //this attribute is complex and needs it fields represented in one or more columns
+
+                for(ComplexAttributeField attributeField : attributeFields){
+
+                    Class<?> returnType = attributeField.getMethod().getReturnType();
+                    boolean isNumber = Number.class.isAssignableFrom(returnType) ||
+                            (returnType.isPrimitive() && returnType != boolean.class && returnType != char.class && returnType != void.class);
+                    columns.add(new Column(attribute.getName(), attribute.getName() + "_" + attributeField.getLabel(),
+                            isNumber ? DOUBLE_COLUMN : TEXT_COLUMN, attributeField.getMethod()));
+                }
+
+            }else if(ImageValue.class.isAssignableFrom(attribute.getType())){
+                columns.add(new Column(attribute.getName(), attribute.getName().toString(), UNSUPPORTED_COLUMN, null));
+
+            }else if(DoubleValue.class.isAssignableFrom(attribute.getType()) || IntegerValue.class.isAssignableFrom(attribute.getType())){
+                columns.add(new Column(attribute.getName(), attribute.getName().toString(), DOUBLE_COLUMN, null));
+
+            }else{
+                columns.add(new Column(attribute.getName(), attribute.getName().toString(), TEXT_COLUMN, null));
+            }
+        }
+    }
+
+    @Override
+    public String getFileName(){
+        return binaryFileName;
+    }
+
+    @Override
+    public synchronized boolean initialize(String fileName){
+
+        boolean fileCreated = false;
+
+        if(fileChannel == null){
+            try{
+                this.binaryFileName = fileName;
+                file = new RandomAccessFile(getFullFileName(), "rw");
+                file.setLength(0);
+                fileChannel = file.getChannel();
+
+                writeHeader();
+
+                fileCreated = true;
+                if(logger.isInfoEnabled()){
+                    logger.info("output file named "+fileName+" has been created");
+                }
+
+            }catch(Exception e){
+                logger.error("Caught exception when trying to initialize "+this, e);
+                closeFile();
+            }
+        }else{
+            logger.error("The output file is already initialized for "+this);
+        }
+
+        return fileCreated;
+    }
+
+    /**
+     * Write the schema header to the start of the file.
+     *
+     * @throws IOException if there was a problem writing to the file
+     */
+    private void writeHeader() throws IOException{
+
+        byte[] replacement = delimReplacement.getBytes(StandardCharsets.UTF_8);
+        List<byte[]> names = new ArrayList<>(columns.size());
+        int size = Integer.BYTES + Short.BYTES + Short.BYTES + replacement.length + Integer.BYTES;
+        for(Column column : columns){
+            byte[] name = column.label.getBytes(StandardCharsets.UTF_8);
+            names.add(name);
+            size += Short.BYTES + name.length + Byte.BYTES;
+        }
+
+        ensureCapacity(size);
+        region.putInt(MAGIC);
+        region.putShort(VERSION);
+        region.putShort((short) replacement.length);
+        region.put(replacement);
+        region.putInt(columns.size());
+        for(int index = 0; index < columns.size(); index++){
+            byte[] name = names.get(index);
+            region.putShort((short) name.length);
+            region.put(name);
+            region.put(columns.get(index).type);
+        }
+    }
+
+    @Override
+    protected void write(SensorFilterEvent sensorFilterEvent) throws IOException{
+
+        SensorFilterData data = sensorFilterEvent.getData();
+        addRow(data.getElapsedTime(), data.getSensorFilterAttributeToValue());
+    }
+
+    @Override
+    protected void write(SensorDataEvent sensorDataEvent) throws IOException{
+
+        AbstractSensorData data = sensorDataEvent.getData();
+
+        if(data instanceof SensorDataCollection){
+
+            for (SensorData sData : ((SensorDataCollection) data).getSensorDatas()) {
+                addRow(data.getElapsedTime(), sData.getSensorAttributeToValue());
+            }
+
+        }else if(data instanceof SensorData){
+            addRow(data.getElapsedTime(), ((SensorData)data).getSensorAttributeToValue());
+
+        }else{
+            logger.error("Unable to write data of type "+data);
+        }
+    }
+
+    /**
+     * Add a row of attribute values to the block being buffered, writing the block if it is full.
+     *
+     * @param time the elapsed time of the values
+     * @param values contains the sensor attribute values
+     * @throws IOException if there was a problem retrieving a value or writing to the file
+     */
+    private synchronized void addRow(long time, Map<SensorAttributeNameEnum, AbstractSensorAttributeValue> values) throws IOException{
+
+        if(values.isEmpty() || fileChannel == null){
+            return;
+        }
+
+        int row = blockRowCount;
+        blockTimes[row] = time;
+        for(Column column : columns){
+            column.setValue(row, values.get(column.attributeName));
+        }
+
+        if(blockRowCount++ == 0){
+            blockStartTime = System.currentTimeMillis();
+        }
+
+        haveWrittenSomething = true;
+
+        if(blockRowCount == BLOCK_ROWS || System.currentTimeMillis() - blockStartTime >= MAX_BLOCK_DURATION_MS){
+            writeBlock();
+        }
+    }
+
+    /**
+     * Write the rows being buffered to the file as a block.
+     *
+     * @throws IOException if there was a problem writing to the file
+     */
+    private void writeBlock() throws IOException{
+
+        if(blockRowCount == 0){
+            return;
+        }
+
+        int rows = blockRowCount;
+        int bitmapSize = (rows + 7) / 8;
+        int size = Integer.BYTES + rows * Long.BYTES;
+        for(Column column : columns){
+            size += column.getBlockSize(rows, bitmapSize);
+        }
+
+        ensureCapacity(size);
+
+        region.putInt(rows);
+        for(int row = 0; row < rows; row++){
+            region.putLong(blockTimes[row]);
+        }
+
+        for(Column column : columns){
+            column.writeBlock(region, rows, bitmapSize);
+        }
+
+        rowsWritten += rows;
+        blockRowCount = 0;
+    }
+
+    /**
+     * Make sure the mapped region has room for the number of bytes, mapping the next region of the file if needed.
+     * Room for a {@link #NEXT_CHUNK_MARKER} is always kept at the end of a region so the reader can find the next region.
+     *
+     * @param size the number of bytes that will be written
+     * @throws IOException if there was a problem mapping the file
+     */
+    private void ensureCapacity(int size) throws IOException{
+
+        int needed = size + Integer.BYTES;
+        if(region != null && region.remaining() >= needed){
+            return;
+        }
+
+        long nextRegionStart = 0;
+        if(region != null){
+
+            //tell the reader the next block starts at the next chunk boundary
+            region.putInt(NEXT_CHUNK_MARKER);
+            nextRegionStart = nextChunkBoundary(regionStart + region.position());
+            region.force();
+            unmap(region);
+        }
+
+        //regions are a multiple of the chunk size and start on a chunk boundary
+        long regionSize = nextChunkBoundary(needed);
+        region = fileChannel.map(FileChannel.MapMode.READ_WRITE, nextRegionStart, regionSize);
+        regionStart = nextRegionStart;
+    }
+
+    /**
+     * Release a mapped region now instead of when it is garbage collected, so that the file can be
+     * truncated (Windows doesn't allow truncating a file that is mapped) and the address space is freed.
+     * The region must not be used afterwards.
+     *
+     * @param buffer the region to release
+     * @return true if the region was released, false if this JVM doesn't allow it
+     */
+    private static boolean unmap(MappedByteBuffer buffer){
+
+        try{
+            //Java 9+
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            invokeCleaner.invoke(theUnsafe.get(null), buffer);
+            return true;
+        }catch(@SuppressWarnings("unused") NoSuchMethodException e){
+            //Java 8, try the cleaner of the buffer below
+        }catch(Exception e){
+            logger.debug("Unable to release a mapped region of a binary columnar sensor file.", e);
+            return false;
+        }
+
+        try{
+            Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(buffer);
+            if(cleaner != null){
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
+            }
+            return true;
+        }catch(Exception e){
+            logger.debug("Unable to release a mapped region of a binary columnar sensor file.", e);
+            return false;
+        }
+    }
+
+    /**
+     * Return the file offset of the first chunk boundary at or after the offset.
+     *
+     * @param offset a file offset
+     * @return the chunk boundary
+     */
+    static long nextChunkBoundary(long offset){
+        return ((offset + CHUNK_SIZE - 1) / CHUNK_SIZE) * CHUNK_SIZE;
+    }
+
+    /**
+     * This writer only writes sensor data values, text lines are ignored.
+     *
+     * @param str - ignored
+     */
+    @Override
+    public void write(String str){
+        logger.warn("Ignoring request to write text to the binary file of "+this+": "+str);
+    }
+
+    @Override
+    public synchronized void flushWriter(){
+
+        try{
+            writeBlock();
+            if(region != null){
+                region.force();
+            }
+        }catch(Exception e){
+            logger.error("Caught exception when trying to flush "+this, e);
+        }
+    }
+
+    @Override
+    public synchronized void close(){
+
+        if(fileChannel != null){
+
+            if(logger.isInfoEnabled()){
+                logger.info("Closing "+this);
+            }
+
+            flushWriter();
+            closeFile();
+        }
+    }
+
+    /**
+     * Close the file without writing the buffered rows.  The end of data marker is written,
+     * the mapped region is released and the unused end of the region is removed from the file.
+     */
+    private void closeFile(){
+
+        if(region != null){
+
+            //ensureCapacity always leaves room for the marker
+            region.putInt(0);
+            long dataEnd = regionStart + region.position();
+            region.force();
+
+            boolean unmapped = unmap(region);
+            region = null;
+
+            if(unmapped){
+                try{
+                    file.setLength(dataEnd);
+                }catch(Exception e){
+                    logger.warn("Unable to remove the unused end of the file for "+this+", the file will contain zero padding.", e);
+                }
+            }else{
+                logger.warn("Unable to release the mapped region of "+this+", the file will contain zero padding.");
+            }
+        }
+
+        try{
+            if(file != null){
+                file.close();
+            }
+        }catch(Exception e){
+            logger.error("Caught exception when trying to close "+this, e);
+        }
+
+        file = null;
+        fileChannel = null;
+        region = null;
+        regionStart = 0;
+        blockRowCount = 0;
+    }
+
+    @Override
+    public String toString(){
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("[BinaryColumnarSensorWriter: file name = ").append(getFullFileName());
+        sb.append(", columns = ").append(columns.size());
+        sb.append(", rows written = ").append(rowsWritten);
+        sb.append("]");
+        return sb.toString();
+    }
+
+    /**
+     * A single column of the file and the values of that column in the block being buffered.
+     *
+     * @author agent
+     *
+     */
+    private static class Column {
+
+        /** the attribute this column holds values (or a field of the values) of */
+        private final SensorAttributeNameEnum attributeName;
+
+        /** the column name used in the header of the delimited file */
+        private final String label;
+
+        /** the type of column, {@link BinaryColumnarSensorWriter#DOUBLE_COLUMN}, {@link BinaryColumnarSensorWriter#TEXT_COLUMN} or {@link BinaryColumnarSensorWriter#UNSUPPORTED_COLUMN} */
+        private final byte type;
+
+        /** the getter of a complex attribute field, null if the column holds the attribute value itself */
+        private final Method fieldGetter;
+
+        /** the index of the Tuple3dValue axis retrieved by the field getter (0 = x, 1 = y, 2 = z), -1 if not a Tuple3dValue axis */
+        private final int tupleAxis;
+
+        /** whether each row of the block has a value */
+        private final boolean[] present = new boolean[BLOCK_ROWS];
+
+        /** the values of each row of the block for a double column */
+        private final double[] doubles;
+
+        /** the UTF-8 values of each row of the block for a text column */
+        private final byte[][] texts;
+
+        /**
+         * Set attributes
+         *
+         * @param attributeName the attribute this column holds values (or a field of the values) of
+         * @param label the column name used in the header of the delimited file
+         * @param type the type of column
+         * @param fieldGetter the getter of a complex attribute field, null if the column holds the attribute value itself
+         */
+        Column(SensorAttributeNameEnum attributeName, String label, byte type, Method fieldGetter){
+            this.attributeName = attributeName;
+            this.label = label;
+            this.type = type;
+            this.fieldGetter = fieldGetter;
+            this.doubles = type == DOUBLE_COLUMN ? new double[BLOCK_ROWS] : null;
+            this.texts = type == TEXT_COLUMN ? new byte[BLOCK_ROWS][] : null;
+
+            int axis = -1;
+            if(fieldGetter != null && fieldGetter.getDeclaringClass() == Tuple3dValue.class){
+                axis = Arrays.asList("getX", "getY", "getZ").indexOf(fieldGetter.getName());
+            }
+            this.tupleAxis = axis;
+        }
+
+        /**
+         * Set the value of this column for a row of the block.
+         *
+         * @param row the row of the block
+         * @param value the attribute value, null if the attribute has no value for this row
+         * @throws IOException if the complex attribute field value could not be retrieved
+         */
+        void setValue(int row, AbstractSensorAttributeValue value) throws IOException{
+
+            if(value == null || type == UNSUPPORTED_COLUMN){
+                present[row] = false;
+                return;
+            }
+
+            present[row] = true;
+
+            if(tupleAxis != -1){
+                //avoid reflection for the most common complex attribute (e.g. Kinect skeleton joints)
+                Tuple3dValue tuple = (Tuple3dValue) value;
+                doubles[row] = tupleAxis == 0 ? tuple.getX() : tupleAxis == 1 ? tuple.getY() : tuple.getZ();
+                return;
+            }
+
+            Object fieldValue;
+            if(fieldGetter != null){
+
+                try {
+                    fieldValue = fieldGetter.invoke(value, (Object[])null);
+                } catch (Exception e) {
+                    throw new IOException("Unable to retrieve complex attribute value from getter method "+fieldGetter.getName()+" of "+value, e);
+                }
+
+            }else if(value.isNumber()){
+                fieldValue = value.getNumber();
+
+            }else{
+                fieldValue = value.toDataString();
+            }
+
+            if(type == DOUBLE_COLUMN){
+
+                if(fieldValue instanceof Number){
+                    doubles[row] = ((Number) fieldValue).doubleValue();
+                }else{
+                    present[row] = false;
+                }
+
+            }else{
+                texts[row] = String.valueOf(fieldValue).getBytes(StandardCharsets.UTF_8);
+            }
+        }
+
+        /**
+         * Return the number of bytes this column needs in a block.
+         *
+         * @param rows the number of rows in the block
+         * @param bitmapSize the number of bytes of the row bitmap
+         * @return the size of the column in the block
+         */
+        int getBlockSize(int rows, int bitmapSize){
+
+            if(type == DOUBLE_COLUMN){
+                return bitmapSize + rows * Double.BYTES;
+
+            }else if(type == TEXT_COLUMN){
+
+                int size = bitmapSize;
+                for(int row = 0; row < rows; row++){
+                    if(present[row]){
+                        size += Integer.BYTES + texts[row].length;
+                    }
+                }
+                return size;
+            }
+
+            return 0;
+        }
+
+        /**
+         * Write the values of this column for the rows of the block, then clear them.
+         *
+         * @param buffer where to write the values
+         * @param rows the number of rows in the block
+         * @param bitmapSize the number of bytes of the row bitmap
+         */
+        void writeBlock(MappedByteBuffer buffer, int rows, int bitmapSize){
+
+            if(type == UNSUPPORTED_COLUMN){
+                return;
+            }
+
+            for(int byteIndex = 0; byteIndex < bitmapSize; byteIndex++){
+
+                int bits = 0;
+                for(int bit = 0; bit < 8; bit++){
+                    int row = byteIndex * 8 + bit;
+                    if(row < rows && present[row]){
+                        bits |= 1 << bit;
+                    }
+                }
+                buffer.put((byte) bits);
+            }
+
+            for(int row = 0; row < rows; row++){
+
+                if(type == DOUBLE_COLUMN){
+                    buffer.putDouble(present[row] ? doubles[row] : Double.NaN);
+
+                }else if(present[row]){
+                    buffer.putInt(texts[row].length);
+                    buffer.put(texts[row]);
+                    texts[row] = null;
+                }
+            }
+        }
+    }
+}
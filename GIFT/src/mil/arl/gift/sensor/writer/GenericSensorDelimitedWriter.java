@@ -49,7 +49,7 @@ public class GenericSensorDelimitedWriter extends AbstractFileWriter{
 	protected generated.sensor.GenericSensorDelimitedWriter configuration;
 	
 	/** used to replace the delimiter character contained within a sensor data value to prevent false delimiters */
-	private static final String DEFAULT_DELIM_REPLACEMENT = "|";
+	static final String DEFAULT_DELIM_REPLACEMENT = "|";
 	protected String delimReplacement = DEFAULT_DELIM_REPLACEMENT;
 	
 	/**
@@ -98,25 +98,86 @@ public class GenericSensorDelimitedWriter extends AbstractFileWriter{
 	@Override
 	protected void write(SensorFilterEvent sensorFilterEvent) throws IOException{		
 
-		SensorFilterData data = sensorFilterEvent.getData();
-		
-		if(!haveWrittenSomething){	    
-		    writeHeader(eventProducerInformation);
-		}
-		
-		writeAttributes(data.getElapsedTime(), data.getSensorFilterAttributeToValue());
+		writeRows(sensorFilterEvent);
 		
 		//force written contents to file
 		flushWriter();
-		
-		if(isDebugEnabled){
-		    logger.debug("Wrote "+sensorFilterEvent+" to file "+getFileName());
-		}
 	}
 	
     @Override
     protected void write(SensorDataEvent sensorDataEvent) throws IOException{      
     
+        writeRows(sensorDataEvent);
+        
+        //force written contents to file
+        flushWriter();
+    }
+    
+    /**
+     * Write the rows of each sensor data event and then flush the file once, instead of once per event.
+     * 
+     * @param sensorDataEvents contains the sensor data to write, in the order it was produced
+     * @throws IOException if there was a problem writing the data
+     */
+    @Override
+    public void sensorDataEvents(List<SensorDataEvent> sensorDataEvents) throws IOException{
+        
+        for(SensorDataEvent sensorDataEvent : sensorDataEvents){
+            writeRows(sensorDataEvent);
+        }
+        
+        //force written contents to file
+        flushWriter();
+    }
+    
+    /**
+     * Write the rows of each sensor filter event and then flush the file once, instead of once per event.
+     * 
+     * @param sensorFilterEvents contains the filtered sensor data to write, in the order it was produced
+     * @throws IOException if there was a problem writing the data
+     */
+    @Override
+    public void sensorFilterEvents(List<SensorFilterEvent> sensorFilterEvents) throws IOException{
+        
+        for(SensorFilterEvent sensorFilterEvent : sensorFilterEvents){
+            writeRows(sensorFilterEvent);
+        }
+        
+        //force written contents to file
+        flushWriter();
+    }
+    
+    /**
+     * Write the row of the sensor filter event, and the header if nothing has been written yet, without
+     * flushing the file.
+     * 
+     * @param sensorFilterEvent contains the filtered sensor data to write
+     * @throws IOException if there was a problem writing the data
+     */
+    private void writeRows(SensorFilterEvent sensorFilterEvent) throws IOException{
+        
+        SensorFilterData data = sensorFilterEvent.getData();
+        
+        if(!haveWrittenSomething){      
+            writeHeader(eventProducerInformation);
+        }
+        
+        writeAttributes(data.getElapsedTime(), data.getSensorFilterAttributeToValue());
+        
+        if(isDebugEnabled){
+            logger.debug("Wrote "+sensorFilterEvent+" to file "+getFileName());
+        }
+    }
+    
+    /**
+     * Write the rows of the sensor data event, and the header if nothing has been written yet, without
+     * flushing the file.
+     * 
+     * @param sensorDataEvent contains the sensor data to write
+     * @throws IOException if there was a problem writing the data
+     */
+    private void writeRows(SensorDataEvent sensorDataEvent) throws IOException{
+        
         AbstractSensorData data = sensorDataEvent.getData();
 
         if(!haveWrittenSomething){      
@@ -135,10 +196,6 @@ public class GenericSensorDelimitedWriter extends AbstractFileWriter{
         }else{
             logger.error("Unable to write data of type "+data);
         }
-
-        
-        //force written contents to file
-        flushWriter();
         
         if(isDebugEnabled){
             logger.debug("Wrote "+sensorDataEvent+" to file "+getFileName());
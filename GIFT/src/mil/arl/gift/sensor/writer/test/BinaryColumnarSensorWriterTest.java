@@ -0,0 +1,182 @@
+/**
+ * Copyright Dignitas Technologies, LLC
+ *
+ * This file and its contents are governed by one or more distribution and
+ * copyright statements as described in the LICENSE.txt file distributed with
+ * this work.
+ */
+package mil.arl.gift.sensor.writer.test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import javax.vecmath.Vector3d;
+
+import mil.arl.gift.common.DomainSession;
+import mil.arl.gift.common.PackageUtil;
+import mil.arl.gift.common.enums.SensorAttributeNameEnum;
+import mil.arl.gift.common.io.FileUtil;
+import mil.arl.gift.common.sensor.AbstractSensorAttributeValue;
+import mil.arl.gift.common.sensor.DoubleValue;
+import mil.arl.gift.common.sensor.StringValue;
+import mil.arl.gift.common.sensor.Tuple3dValue;
+import mil.arl.gift.common.test.TestChecker;
+import mil.arl.gift.sensor.AbstractEventProducer.EventProducerAttribute;
+import mil.arl.gift.sensor.AbstractEventProducer.EventProducerInformation;
+import mil.arl.gift.sensor.SensorData;
+import mil.arl.gift.sensor.SensorDataEvent;
+import mil.arl.gift.sensor.writer.BinaryColumnarSensorFileConverter;
+import mil.arl.gift.sensor.writer.BinaryColumnarSensorWriter;
+import mil.arl.gift.sensor.writer.GenericSensorDelimitedWriter;
+
+/**
+ * This class tests that a file written by the binary columnar sensor writer converts to the same delimited
+ * file the generic sensor delimited writer writes for the same sensor data, and that the binary file isn't
+ * padded to the size of the memory mapped regions.
+ *
+ * @author agent
+ *
+ */
+public class BinaryColumnarSensorWriterTest {
+
+    /** the user id of the domain session folder the test files are written to */
+    private static final int USER_ID = 1;
+
+    /** the id of the domain session folder the test files are written to, unlikely to be used by a real session */
+    private static final int DOMAIN_SESSION_ID = 987654;
+
+    /** the size of the memory mapped regions of the binary file (the writer's chunk size) */
+    private static final int CHUNK_SIZE = 1024 * 1024;
+
+    /** keeps track of the checks made by this test */
+    private static final TestChecker checker = new TestChecker("Binary columnar sensor writer");
+
+    public static void main(String args[]){
+
+        System.out.println("Starting test");
+
+        File sessionFolder = new File(PackageUtil.getDomainSessions() + File.separator +
+                new DomainSession(DOMAIN_SESSION_ID, USER_ID, DomainSession.UNKNOWN_DOMAIN_NAME, DomainSession.UNKNOWN_DOMAIN_NAME).buildLogFileName());
+        try{
+            sessionFolder.mkdirs();
+
+            //a few rows in a single block, with the default and a configured delimiter replacement
+            testRoundTrip(10, null, new Random(1));
+            testRoundTrip(10, ";", new Random(2));
+
+            //many blocks spread over more than one mapped region
+            testRoundTrip(40000, "~", new Random(3));
+        }catch(Throwable t){
+            checker.error(t);
+        }
+
+        try{
+            FileUtil.deleteDirectory(sessionFolder);
+        }catch(Exception e){
+            System.out.println("Unable to delete the test folder "+sessionFolder+": "+e.getMessage());
+        }
+
+        checker.finish();
+    }
+
+    /**
+     * Write the same rows with both writers, convert the binary file and compare it line by line to the delimited file.
+     *
+     * @param rows the number of rows to write
+     * @param delimReplacement the configured delimiter replacement, null to use the writers' default
+     * @param random the source of the values
+     * @throws Exception if there was a problem writing or converting the files
+     */
+    private static void testRoundTrip(int rows, String delimReplacement, Random random) throws Exception{
+
+        String description = rows+" rows, replacement "+delimReplacement;
+
+        EventProducerInformation information = new EventProducerInformation();
+        information.addAttribute(new EventProducerAttribute(SensorAttributeNameEnum.TEMPERATURE, DoubleValue.class));
+        information.addAttribute(new EventProducerAttribute(SensorAttributeNameEnum.ACCELERATION3D, Tuple3dValue.class));
+        information.addAttribute(new EventProducerAttribute(SensorAttributeNameEnum.MOTIVATION, StringValue.class));
+
+        GenericSensorDelimitedWriter delimitedWriter = new GenericSensorDelimitedWriter(createConfiguration("delimitedTest", delimReplacement), information);
+        BinaryColumnarSensorWriter binaryWriter = new BinaryColumnarSensorWriter(createConfiguration("binaryTest", delimReplacement), information);
+        checker.check(description+", delimited writer initialized", true, delimitedWriter.initialize(USER_ID, DOMAIN_SESSION_ID, null));
+        checker.check(description+", binary writer initialized", true, binaryWriter.initialize(USER_ID, DOMAIN_SESSION_ID, null));
+
+        long time = 0, rowsWithValues = 0;
+        for(int row = 0; row < rows; row++){
+
+            time += random.nextInt(50);
+
+            //leave out some of the values so that empty columns are converted too
+            Map<SensorAttributeNameEnum, AbstractSensorAttributeValue> values = new HashMap<>();
+            if(random.nextInt(5) != 0){
+                values.put(SensorAttributeNameEnum.TEMPERATURE, new DoubleValue(SensorAttributeNameEnum.TEMPERATURE, random.nextGaussian() * 100));
+            }
+            if(random.nextInt(5) != 0){
+                values.put(SensorAttributeNameEnum.ACCELERATION3D, new Tuple3dValue(SensorAttributeNameEnum.ACCELERATION3D,
+                        new Vector3d(random.nextDouble(), -random.nextDouble() * 1000, random.nextInt(10))));
+            }
+            if(random.nextInt(5) != 0){
+                values.put(SensorAttributeNameEnum.MOTIVATION, new StringValue(SensorAttributeNameEnum.MOTIVATION, "level "+random.nextInt(3)+", trend "+row));
+            }
+
+            //a row without any values isn't written by either writer
+            if(!values.isEmpty()){
+                rowsWithValues++;
+            }
+
+            SensorDataEvent event = new SensorDataEvent(null, new SensorData(values, time));
+            delimitedWriter.sensorDataEvent(event);
+            binaryWriter.sensorDataEvent(event);
+        }
+
+        delimitedWriter.finished();
+        binaryWriter.finished();
+
+        File delimitedFile = new File(delimitedWriter.getFullFileName());
+        File binaryFile = new File(binaryWriter.getFullFileName());
+        File convertedFile = new File(binaryWriter.getFullFileName() + ".csv");
+
+        long converted = new BinaryColumnarSensorFileConverter(binaryFile).convert(convertedFile);
+        checker.check(description+", rows converted", rowsWithValues, converted);
+
+        List<String> expected = Files.readAllLines(delimitedFile.toPath(), StandardCharsets.UTF_8);
+        List<String> actual = Files.readAllLines(convertedFile.toPath(), StandardCharsets.UTF_8);
+        checker.check(description+", line count", expected.size(), actual.size());
+        for(int line = 0; line < Math.min(expected.size(), actual.size()); line++){
+            if(!expected.get(line).equals(actual.get(line))){
+                checker.check(description+", line "+line, expected.get(line), actual.get(line));
+                break;
+            }
+        }
+
+        //the unused end of the last mapped region is removed when the writer is closed
+        checker.check(description+", binary file is not padded to a chunk boundary", true, binaryFile.length() % CHUNK_SIZE != 0);
+        if(rows < 100){
+            checker.check(description+", small binary file", true, binaryFile.length() < 4096);
+        }
+
+        checker.check(description+", delete delimited file", true, delimitedFile.delete());
+        checker.check(description+", delete binary file", true, binaryFile.delete());
+        checker.check(description+", delete converted file", true, convertedFile.delete());
+    }
+
+    /**
+     * Create the writer configuration shared by both writers.
+     *
+     * @param filePrefix the prefix of the file name
+     * @param delimReplacement the delimiter replacement, null to use the writers' default
+     * @return the writer configuration
+     */
+    private static generated.sensor.GenericSensorDelimitedWriter createConfiguration(String filePrefix, String delimReplacement){
+
+        generated.sensor.GenericSensorDelimitedWriter configuration = new generated.sensor.GenericSensorDelimitedWriter();
+        configuration.setFilePrefix(filePrefix);
+        configuration.setDatumDelimReplacementChar(delimReplacement);
+        return configuration;
+    }
+}
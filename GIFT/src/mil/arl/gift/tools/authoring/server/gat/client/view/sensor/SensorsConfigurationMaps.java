@@ -209,6 +209,7 @@ public class SensorsConfigurationMaps {
 		pairWriterTypeWithImpl(WriterTypeEnum.GENERIC_WRITER, "sensor.writer.GenericSensorDelimitedWriter");
 		pairWriterTypeWithImpl(WriterTypeEnum.KINECT_SENSOR_WRITER, "sensor.writer.KinectSensorWriter");
 		pairWriterTypeWithImpl(WriterTypeEnum.SCIENTIFIC_NOTATION_WRITER, "sensor.writer.ScientificNotationSensorDelimitedWriter");
+		pairWriterTypeWithImpl(WriterTypeEnum.BINARY_COLUMNAR_WRITER, "sensor.writer.BinaryColumnarSensorWriter");
 	}
 	
 	private void pairWriterTypeWithImpl(WriterTypeEnum writerType, String writerImpl) {
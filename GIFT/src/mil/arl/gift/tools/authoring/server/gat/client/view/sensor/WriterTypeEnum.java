@@ -19,7 +19,8 @@ public enum WriterTypeEnum {
 
 	GENERIC_WRITER("Generic Delimited Writer"),
 	KINECT_SENSOR_WRITER("Kinect Writer"),
-	SCIENTIFIC_NOTATION_WRITER("Scientific Notation Delimited Writer");
+	SCIENTIFIC_NOTATION_WRITER("Scientific Notation Delimited Writer"),
+	BINARY_COLUMNAR_WRITER("Binary Columnar Writer");
 	
 	private final String displayName;
 
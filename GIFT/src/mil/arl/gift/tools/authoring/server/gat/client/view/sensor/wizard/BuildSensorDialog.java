@@ -567,6 +567,9 @@ public class BuildSensorDialog extends DialogBox {
 		
 		SensorsConfigurationMaps sensorConfigurationMaps = SensorsConfigurationMaps.getInstance();
 		WriterTypeEnum writerType = sensorConfigurationMaps.getSensorTypeToWriterTypeMap().get(sensorType);
+		if(!archiveRawSensorDataPane.isUseDefaultArchiveData() && configureSensorArchivePane.isBinaryColumnar()) {
+			writerType = WriterTypeEnum.BINARY_COLUMNAR_WRITER;
+		}
 		String writerImpl = sensorConfigurationMaps.getWriterTypeToImplMap().get(writerType);
 		writer.setWriterImpl(writerImpl);
 				
@@ -684,6 +687,9 @@ public class BuildSensorDialog extends DialogBox {
 		
 		SensorsConfigurationMaps sensorConfigurationMaps = SensorsConfigurationMaps.getInstance();
 		WriterTypeEnum writerType = sensorConfigurationMaps.getSensorTypeToWriterTypeMap().get(sensorType);
+		if(!archiveFilteredDataPane.isUseDefaultArchiveData() && configureFilteredArchivePane.isBinaryColumnar()) {
+			writerType = WriterTypeEnum.BINARY_COLUMNAR_WRITER;
+		}
 		String writerImpl = sensorConfigurationMaps.getWriterTypeToImplMap().get(writerType);
 		writer.setWriterImpl(writerImpl);
 				
@@ -11,6 +11,7 @@ import generated.sensor.ImageCompressionFormat;
 import mil.arl.gift.common.enums.SensorTypeEnum;
 import mil.arl.gift.tools.authoring.server.gat.client.view.sensor.SensorsConfigurationFactory;
 import mil.arl.gift.tools.authoring.server.gat.client.view.sensor.widgets.ImageCompressionFormatValueListBox;
+import mil.arl.gift.tools.authoring.server.gat.client.view.sensor.widgets.YesNoListBox;
 
 import com.google.gwt.core.client.GWT;
 import com.google.gwt.uibinder.client.UiBinder;
@@ -40,6 +41,7 @@ public class ConfigureArchivePane extends Composite {
 	 */
 	@UiField protected FlowPanel genericSensorDelimitedWriterPanel;
 	@UiField protected TextBox delimiterTextBox;
+	@UiField protected YesNoListBox binaryColumnarListBox;
 	
 	/**
 	 * These widgets are used for KinectSensorWriter
@@ -59,6 +61,7 @@ public class ConfigureArchivePane extends Composite {
     	outputDirectoryTextBox.setText(SensorsConfigurationFactory.DEFAULT_GENERIC_SENSOR_DELIMITED_WRITER_DIRECTORY);
     	filePrefixTextBox.setText(SensorsConfigurationFactory.DEFAULT_GENERIC_SENSOR_DELIMITED_WRITER_FILE_PREFIX);
     	delimiterTextBox.setText(SensorsConfigurationFactory.DEFAULT_GENERIC_SENSOR_DELIMITED_WRITER_REPLACEMENT_CHAR);
+    	binaryColumnarListBox.setValue(false);
     	
     	setKinectSensorWriterVisibility(false);
     	colorCompressionListBox.setValue(SensorsConfigurationFactory.DEFAULT_KINECT_SENSOR_WRITER_COLOR_COMPRESSION);
@@ -111,6 +114,14 @@ public class ConfigureArchivePane extends Composite {
     	}
     }
     
+    /**
+     * @return true if the data should be written by the BinaryColumnarSensorWriter instead
+     * of the delimited writer.  Only applies when the GenericSensorDelimitedWriter widgets are shown.
+     */
+    public boolean isBinaryColumnar() {
+    	return genericSensorDelimitedWriterPanel.isVisible() && binaryColumnarListBox.getValue();
+    }
+    
     public ImageCompressionFormat getColorCompression() {
     	return colorCompressionListBox.getValue();
     }
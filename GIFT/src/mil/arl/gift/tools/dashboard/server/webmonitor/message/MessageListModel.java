@@ -21,8 +21,8 @@ import mil.arl.gift.common.enums.MessageTypeEnum;
 import mil.arl.gift.net.api.message.DomainSessionMessage;
 import mil.arl.gift.net.api.message.Message;
 import mil.arl.gift.net.api.message.UserSessionMessage;
+import mil.arl.gift.net.api.message.codec.proto.ProtoCodecRegistry;
 import mil.arl.gift.net.api.message.codec.proto.ProtoMapper;
-import mil.arl.gift.net.proto.ProtoCodec;
 import mil.arl.gift.tools.dashboard.server.DashboardProperties;
 import mil.arl.gift.tools.dashboard.shared.messages.monitor.MessageDisplayData;
 import mil.arl.gift.tools.dashboard.shared.messages.monitor.MessageEntryMetadata;
@@ -306,15 +306,13 @@ public class MessageListModel implements FilterChangeListener {
         
         try {
             Class<?> protoClass = ProtoMapper.getInstance().getObjectClass(type);
-            Class<?> codecClass = ProtoMapper.getInstance().getCodecClass(type);
 
-            if (protoClass == null || codecClass == null) {
+            if (protoClass == null) {
                 throw new Exception(
                         "Unable to find a codec class for message of type " + type + ". Is this a new message type?");
             }
 
-            @SuppressWarnings("unchecked")
-            AbstractMessage encodedPayload = ((ProtoCodec<AbstractMessage, Object>) codecClass.getConstructor().newInstance()).map(payload);
+            AbstractMessage encodedPayload = ProtoCodecRegistry.getInstance().getCodec(type).map(payload);
             String payloadJson = JsonFormat.printer().print(encodedPayload);
         
             return new MessageDisplayData(message, fullMessage.getDestinationQueueName(), payloadJson, session);
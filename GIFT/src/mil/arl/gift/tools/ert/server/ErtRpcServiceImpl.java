@@ -16,6 +16,10 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import mil.arl.gift.common.enums.MessageTypeEnum;
 import mil.arl.gift.common.ert.EventReportColumn;
@@ -38,6 +42,7 @@ import mil.arl.gift.common.ert.event.PerformanceAssessmentEvent;
 import mil.arl.gift.common.ert.event.TimeOnTaskAggregate;
 import mil.arl.gift.common.ert.server.AbstractEventSourceParser;
 import mil.arl.gift.common.ert.server.MessageLogEventSourceParser;
+import mil.arl.gift.common.ert.server.MessageLogSummary;
 import mil.arl.gift.common.ert.server.ReportGenerationUtil;
 import mil.arl.gift.common.ert.server.ReportWriter;
 import mil.arl.gift.tools.ert.shared.EventSourceTreeNode;
@@ -63,6 +68,12 @@ public class ErtRpcServiceImpl extends RemoteServiceServlet implements ErtRpcSer
     
     /** testing writing to the report file task description for progress indicator */
     private static final String TESTING_WRITER_TASK_DESC = "Testing writer";
+    
+    /** 
+     * the number of event sources parsed in parallel ahead of the source whose events are being added to the report,
+     * bounded because every parsed source is held in memory until its events are added
+     */
+    private static final int EVENT_SOURCE_PARSE_PARALLELISM = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
 
     /** used for file queries for ERT report generation */
     private EventReportServer eventReportServer = new EventReportServer();
@@ -138,15 +149,27 @@ public class ErtRpcServiceImpl extends RemoteServiceServlet implements ErtRpcSer
                 if (eventSourceNode != null && !eventSourceNode.isFolder()) {
 
                     File file = eventReportServer.getFileForNode(eventSourceNode.getNodeId());
-                    AbstractEventSourceParser parser = EventSourceUtil.getEventParser(file, new ReportProperties());
                     
-                    if(parser == null){
-                        logger.error("Unable to find an event parser for file named "+file.getName());
-                        return null;
+                    List<EventType> parserEventTypes;
+                    List<EventReportColumn> parserEventColumns;
+                    if(EventSourceUtil.isMessageLog(file)){
+                        //use the log's summary sidecar instead of parsing the entire log again
+                        MessageLogSummary summary = MessageLogSummary.getSummary(file);
+                        parserEventTypes = summary.getTypesOfEvents();
+                        parserEventColumns = summary.getDefaultColumns();
+                    }else{
+                        AbstractEventSourceParser parser = EventSourceUtil.getEventParser(file, new ReportProperties());
+                        
+                        if(parser == null){
+                            logger.error("Unable to find an event parser for file named "+file.getName());
+                            return null;
+                        }
+                        
+                        parserEventTypes = parser.getTypesOfEvents();
+                        parserEventColumns = parser.getDefaultColumns();
                     }
 
                     //add event types for this source
-                    List<EventType> parserEventTypes = parser.getTypesOfEvents();
                     for(EventType eType : parserEventTypes){
                         
                         if(reportProperties.getEventTypeOptions().contains(eType)){
@@ -171,7 +194,6 @@ public class ErtRpcServiceImpl extends RemoteServiceServlet implements ErtRpcSer
                     }
                     
                     //add event columns for this source
-                    List<EventReportColumn> parserEventColumns = parser.getDefaultColumns();
                     for(EventReportColumn column : parserEventColumns){
                         
                         if(!eventColumns.contains(column)){
@@ -302,6 +324,9 @@ public class ErtRpcServiceImpl extends RemoteServiceServlet implements ErtRpcSer
                 public void run(){
                 
                         
+                    //parses the event sources in parallel while their events are added to the writer in the order selected
+                    ForkJoinPool parsePool = new ForkJoinPool(EVENT_SOURCE_PARSE_PARALLELISM);
+                    
                     try{
                         //
                         //Add events for each source to writer
@@ -318,24 +343,36 @@ public class ErtRpcServiceImpl extends RemoteServiceServlet implements ErtRpcSer
 //                         float percentCompletePerEventSourceId = 100/((float)reportProperties.getEventSourceIds().size());
 //                         float percentCompletePerEventType = percentCompletePerEventSourceId/reportProperties.getEventTypeOptions().size();
 
-                        int numSources = reportProperties.getEventSourceIds().size();
+                        List<Integer> eventSourceIds = reportProperties.getEventSourceIds();
+                        int numSources = eventSourceIds.size();
+                        
+                        //the parsing of each event source, started no more than the parallelism ahead of the current source
+                        List<Future<AbstractEventSourceParser>> parsers = new ArrayList<>(numSources);
+                        
                         int currentSource = 0;
-                        for(Integer eventSourceId : reportProperties.getEventSourceIds()){
+                        for(Integer eventSourceId : eventSourceIds){
                              currentSource++;
                              participantAttemptCounted = false;
                              
+                             while(parsers.size() < numSources && parsers.size() < currentSource + EVENT_SOURCE_PARSE_PARALLELISM){
+                                 parsers.add(parseEventSource(eventSourceIds.get(parsers.size()), reportProperties, parsePool));
+                             }
+                             
                              EventSourceTreeNode eventSourceNode = eventReportServer.getTreeModel().getNode(eventSourceId);
                             
                              progressIndicator.setTaskDescription("Getting events for " + eventSourceNode.getName() + ".");
                              progressIndicator.setPercentComplete(progressStart + (((progressEnd - progressStart)*currentSource)/numSources));
                              if (eventSourceNode != null && !eventSourceNode.isFolder()) {
                                  
-                                 File file = eventReportServer.getFileForNode(eventSourceNode.getNodeId());
-                                 AbstractEventSourceParser parser = EventSourceUtil.getEventParser(file, reportProperties);
-                                 
-                                 if(parser == null){
-                                     logger.error("Unable to find an event parser for "+eventSourceNode+" file named "+file.getName());
-                                     throw new Exception("Unable to find an event parser for "+eventSourceNode+" file named "+file.getName());
+                                 AbstractEventSourceParser parser;
+                                 try{
+                                     parser = parsers.get(currentSource - 1).get();
+                                 }catch(ExecutionException e){
+                                     throw e.getCause();
+                                 }finally{
+                                     //drop the list's reference now so that the parsed source can be garbage collected as soon
+                                     //as this iteration is done with it instead of when the whole report is finished
+                                     parsers.set(currentSource - 1, null);
                                  }
                                  
                                  //
@@ -521,6 +558,8 @@ public class ErtRpcServiceImpl extends RemoteServiceServlet implements ErtRpcSer
                         }
                         progressResult.setStackTraceMessage(sb.toString());
                         return;
+                    }finally{
+                        parsePool.shutdownNow();
                     }
 
                     if(logger.isInfoEnabled()){
@@ -570,6 +609,39 @@ public class ErtRpcServiceImpl extends RemoteServiceServlet implements ErtRpcSer
 		return reportProperties.getFileName();
     }
 
+    /**
+     * Start parsing the event source on the pool provided.
+     * 
+     * @param eventSourceId ERT created unique identifier of an event source found
+     * @param reportProperties contains configuration parameters and other properties for the event report
+     * @param parsePool the pool to parse the event source on
+     * @return the parsing of the event source.  The parser will be null if the event source is not a file.
+     */
+    private Future<AbstractEventSourceParser> parseEventSource(final Integer eventSourceId, final ReportProperties reportProperties, ForkJoinPool parsePool){
+        
+        return parsePool.submit(new Callable<AbstractEventSourceParser>() {
+
+            @Override
+            public AbstractEventSourceParser call() throws Exception {
+                
+                EventSourceTreeNode eventSourceNode = eventReportServer.getTreeModel().getNode(eventSourceId);
+                if (eventSourceNode == null || eventSourceNode.isFolder()) {
+                    return null;
+                }
+                
+                File file = eventReportServer.getFileForNode(eventSourceNode.getNodeId());
+                AbstractEventSourceParser parser = EventSourceUtil.getEventParser(file, reportProperties);
+                
+                if(parser == null){
+                    logger.error("Unable to find an event parser for "+eventSourceNode+" file named "+file.getName());
+                    throw new Exception("Unable to find an event parser for "+eventSourceNode+" file named "+file.getName());
+                }
+                
+                return parser;
+            }
+        });
+    }
+
     @Override
     public boolean saveReportProperties(String fileName, ReportProperties properties) throws IllegalArgumentException {
         
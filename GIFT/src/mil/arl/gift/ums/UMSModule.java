@@ -163,6 +163,20 @@ public class UMSModule extends AbstractModule {
 
                 //FYI. this is a message logger, no need to ACK/NACK message
 
+                handleLogMessage(message, null, encodingType);
+
+                return true;
+            }
+
+            @Override
+            public boolean processMessage(byte[] msg, MessageEncodingTypeEnum encodingType) {
+
+                //received message in queue, decode it
+                Message message = MessageUtil.getMessageFromBytes(msg, encodingType);
+
+                //FYI. this is a message logger, no need to ACK/NACK message
+
+                //the received bytes are logged as is instead of encoding the message again
                 handleLogMessage(message, msg, encodingType);
 
                 return true;
@@ -197,10 +211,10 @@ public class UMSModule extends AbstractModule {
      * Handle the message to be logged
      *
      * @param message - the received message which needs to be acted upon
-     * @param rawMsg - the encoding raw message
+     * @param rawMsg - the encoded message as it was received.  Can be null.
      * @param encodingType - the type of codec used on this message
      */
-    protected void handleLogMessage(Message message, String rawMsg, MessageEncodingTypeEnum encodingType) {
+    protected void handleLogMessage(Message message, byte[] rawMsg, MessageEncodingTypeEnum encodingType) {
         msgLogger.handleMessage(message, rawMsg, encodingType);
     }
 
@@ -10,6 +10,7 @@ package mil.arl.gift.ums;
 import java.io.File;
 
 import mil.arl.gift.common.module.AbstractModuleProperties;
+import mil.arl.gift.ums.logger.MessageLogWriter.FsyncPolicy;
 
 /**
  * Contains the UMS module property values.
@@ -23,10 +24,23 @@ public class UMSModuleProperties extends AbstractModuleProperties {
     private static final String PROPERTIES_FILE = "ums"+File.separator+"ums.properties";
     
     private static final String SYSTEM_MSG_LOG_DURATION = "SystemMessageLogDuration";
+    private static final String MSG_LOG_COMMIT_INTERVAL_MS = "MessageLogCommitIntervalMs";
+    private static final String MSG_LOG_COMMIT_BYTES = "MessageLogCommitBytes";
+    private static final String MSG_LOG_FSYNC_POLICY = "MessageLogFsyncPolicy";
+    private static final String MSG_LOG_MAX_PENDING_BYTES = "MessageLogMaxPendingBytes";
     
     /** default hours to use for the system message log duration if the property value is not specified correctly*/
     private static final int DEFAULT_SYSTEM_MSG_LOG_DURATION = 24;
 
+    /** default interval (ms) between group commits of a message log file */
+    private static final int DEFAULT_MSG_LOG_COMMIT_INTERVAL_MS = 250;
+
+    /** default number of pending bytes that causes a message log file group commit */
+    private static final int DEFAULT_MSG_LOG_COMMIT_BYTES = 64 * 1024;
+
+    /** default number of pending bytes at which logging a message waits for room in a message log file */
+    private static final int DEFAULT_MSG_LOG_MAX_PENDING_BYTES = 16 * 1024 * 1024;
+
     /** singleton instance of this class */
     private static UMSModuleProperties instance = null;
 
@@ -68,4 +82,76 @@ public class UMSModuleProperties extends AbstractModuleProperties {
         
         return value; 
     }
+
+    /**
+     * Return the interval between group commits of the records written to a message log file.
+     * If the property value is not specified or is less than 1, the default will be used.
+     *
+     * @return the commit interval in milliseconds
+     */
+    public int getMessageLogCommitIntervalMs(){
+
+        int value = getPropertyIntValue(MSG_LOG_COMMIT_INTERVAL_MS, DEFAULT_MSG_LOG_COMMIT_INTERVAL_MS);
+        if(value <= 0){
+            value = DEFAULT_MSG_LOG_COMMIT_INTERVAL_MS;
+        }
+
+        return value;
+    }
+
+    /**
+     * Return the number of pending bytes that causes the records to be committed to a message log file
+     * before the commit interval elapses.
+     * If the property value is not specified or is less than 1, the default will be used.
+     *
+     * @return the number of bytes
+     */
+    public int getMessageLogCommitBytes(){
+
+        int value = getPropertyIntValue(MSG_LOG_COMMIT_BYTES, DEFAULT_MSG_LOG_COMMIT_BYTES);
+        if(value <= 0){
+            value = DEFAULT_MSG_LOG_COMMIT_BYTES;
+        }
+
+        return value;
+    }
+
+    /**
+     * Return the number of bytes waiting to be written to a message log file at which logging a message
+     * waits for room instead of using more memory.
+     * If the property value is not specified or is less than the commit bytes, the larger of the default
+     * and the commit bytes will be used.
+     *
+     * @return the number of bytes
+     */
+    public int getMessageLogMaxPendingBytes(){
+
+        int value = getPropertyIntValue(MSG_LOG_MAX_PENDING_BYTES, DEFAULT_MSG_LOG_MAX_PENDING_BYTES);
+        if(value < getMessageLogCommitBytes()){
+            value = Math.max(DEFAULT_MSG_LOG_MAX_PENDING_BYTES, getMessageLogCommitBytes());
+        }
+
+        return value;
+    }
+
+    /**
+     * Return when the bytes written to a message log file are forced to the storage device.
+     * If the property value is not specified or is not valid, {@link FsyncPolicy#CLOSE} will be used.
+     *
+     * @return the fsync policy for message log files
+     */
+    public FsyncPolicy getMessageLogFsyncPolicy(){
+
+        String value = getPropertyValue(MSG_LOG_FSYNC_POLICY);
+        if(value != null){
+
+            try{
+                return FsyncPolicy.valueOf(value.trim().toUpperCase());
+            }catch(@SuppressWarnings("unused") IllegalArgumentException e){
+                //use the default
+            }
+        }
+
+        return FsyncPolicy.CLOSE;
+    }
 }
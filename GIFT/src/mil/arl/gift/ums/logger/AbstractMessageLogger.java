@@ -8,21 +8,23 @@
 package mil.arl.gift.ums.logger;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.protobuf.CodedOutputStream;
+
 import generated.proto.common.ProtobufLogMessageProto.ProtobufLogMessage;
 import mil.arl.gift.common.enums.MessageEncodingTypeEnum;
 import mil.arl.gift.common.io.TimeUtil;
 import mil.arl.gift.common.logger.ProtobufMessageLogReader;
 import mil.arl.gift.net.api.message.Message;
+import mil.arl.gift.ums.UMSModuleProperties;
 
 /**
  * This class is the base class for message loggers.  It handles creating and writing to the log file.
+ * Records are written by a {@link MessageLogWriter} which commits them to the file in groups.
  * 
  * @author mhoffman
  *
@@ -34,8 +36,8 @@ public abstract class AbstractMessageLogger {
 	
     protected static final String EXTENSION = ".log"; 
     
-	/** file writer */
-    protected OutputStream output = null;
+	/** file writer, commits the records to the log file in groups */
+    private MessageLogWriter writer = null;
 	
 	/** the log file */
 	private File file;
@@ -47,7 +49,7 @@ public abstract class AbstractMessageLogger {
     protected long systemMsgLogStart;
     
     /** The class-level lock that the file writer will synchronize on. This is 
-     *  to prevent the file writer being closed while a message is still being 
+     *  to prevent the file writer being replaced while a message is still being 
      *  written to the log file. */
     private final Object lock = new Object();
 	
@@ -76,7 +78,20 @@ public abstract class AbstractMessageLogger {
             if(logger.isInfoEnabled()){
                 logger.info("Creating message logger at " + file);
             }
-            output = new FileOutputStream(file);
+            UMSModuleProperties properties = UMSModuleProperties.getInstance();
+            MessageLogWriter newWriter = new MessageLogWriter(file, properties.getMessageLogCommitIntervalMs(),
+                    properties.getMessageLogCommitBytes(), properties.getMessageLogMaxPendingBytes(), properties.getMessageLogFsyncPolicy());
+
+            MessageLogWriter oldWriter;
+            synchronized (lock) {
+                oldWriter = writer;
+                writer = newWriter;
+            }
+
+            if(oldWriter != null){
+                //the previous log file is being replaced (e.g. the log duration was reached)
+                oldWriter.close();
+            }
 		}catch(Exception e){
 			logger.error("Caught exception when trying to create log file",e);
 		}
@@ -92,49 +107,81 @@ public abstract class AbstractMessageLogger {
     }
 	
 	/**
-     * Writes the message to the protobuf logger file. writeDelimitedTo() is
-     * used since it appends the size of the message before encoding it,
-     * allowing for multiple messages to be written to a file.
+     * Writes the message to the protobuf logger file. The message is written
+     * with its size before it (i.e. like writeDelimitedTo()), allowing for
+     * multiple messages to be written to a file.
      * 
      * @param protoMsg
      *            the protobuf log message that will be written to the file.
      */
     public void writeToFile(ProtobufLogMessage protoMsg) {
+        writeToFile(protoMsg, null);
+    }
+
+    /**
+     * Writes a log record containing the already encoded message to the protobuf logger file.
+     * The encoded message is copied as is into the message field of the log record instead of 
+     * decoding and re-encoding it, the result is the same as writing a log message that contains
+     * the decoded message.
+     * 
+     * @param protoMsg the protobuf log message containing everything but the message (e.g. the elapsed times).
+     * @param encodedMessage the encoded {@link generated.proto.common.ProtobufMessageProto.ProtobufMessage} 
+     *            to place in the message field of the log message.  Can be null if the log message is complete.
+     */
+    public void writeToFile(ProtobufLogMessage protoMsg, byte[] encodedMessage) {
         try {
+            int size = protoMsg.getSerializedSize();
+            if (encodedMessage != null) {
+                size += CodedOutputStream.computeByteArraySize(ProtobufLogMessage.MESSAGE_FIELD_NUMBER, encodedMessage);
+            }
+
+            byte[] record = new byte[CodedOutputStream.computeUInt32SizeNoTag(size) + size];
+            CodedOutputStream codedOutput = CodedOutputStream.newInstance(record);
+            codedOutput.writeUInt32NoTag(size);
+            protoMsg.writeTo(codedOutput);
+            if (encodedMessage != null) {
+                codedOutput.writeByteArray(ProtobufLogMessage.MESSAGE_FIELD_NUMBER, encodedMessage);
+            }
+            codedOutput.checkNoSpaceLeft();
+
             /* Check if the file writer is open before attempting to write messages. 
              * Synchronizing here protects against the case where the file writer 
-             * is closed before messages are finished being written to the log file. */
+             * is replaced before messages are finished being written to the log file. */
             synchronized (lock) {
-                if (output != null) {
-                    protoMsg.writeDelimitedTo(output);
-                }               
-            }            
+                if (writer != null) {
+                    writer.append(record);
+                }
+            }
         } catch (IOException e) {
             logger.error("Caught exception when trying to write data to log file", e);
         }
     }
 	
 	/**
-     * Close both writers. If the writers were closed previously, this method
-     * does nothing.
+     * Write any pending messages and close the file. If the writer was closed 
+     * previously, this method does nothing.
      * 
      * @throws IOException if there was a problem closing the writer.
      */
 	public void close() throws IOException{
+	    MessageLogWriter oldWriter;
 	    synchronized (lock) {
-            if (output != null) {
-                 output.close();
-                 output = null;
-            }
+	        oldWriter = writer;
+	        writer = null;
         }
+
+	    if (oldWriter != null) {
+	        oldWriter.close();
+	    }
 	}
 	
    /**
      * Log the provided message accordingly
      * 
      * @param message - the message to log
-     * @param rawMsg - the raw message to log
+     * @param rawMsg - the encoded message as it was received.  Can be null in which case the
+     *                 message will be encoded again.
      * @param encodingType - the type of codec used on this message
 	 */
-    public abstract void handleMessage(Message message, String rawMsg, MessageEncodingTypeEnum encodingType);
+    public abstract void handleMessage(Message message, byte[] rawMsg, MessageEncodingTypeEnum encodingType);
 }
@@ -14,7 +14,6 @@ import com.google.protobuf.DoubleValue;
 import com.google.protobuf.StringValue;
 
 import generated.proto.common.ProtobufLogMessageProto.ProtobufLogMessage;
-import generated.proto.common.ProtobufMessageProto.ProtobufMessage;
 import mil.arl.gift.common.PackageUtil;
 import mil.arl.gift.common.enums.MessageEncodingTypeEnum;
 import mil.arl.gift.common.module.ModuleStatus;
@@ -36,6 +35,9 @@ public class AdminMessageLogger extends AbstractMessageLogger {
     /** instance of the logger */
     private static Logger logger = LoggerFactory.getLogger(AdminMessageLogger.class);
 
+    /** used to encode a message that wasn't provided in its received form */
+    private static final ProtobufMessageProtoCodec CODEC = new ProtobufMessageProtoCodec();
+
     /** strings used to create file name */
     private static final String PREFIX = "system";
     
@@ -84,11 +86,15 @@ public class AdminMessageLogger extends AbstractMessageLogger {
 	}
 	
 	@Override
-    public void handleMessage(Message message, String rawMsg, MessageEncodingTypeEnum encodingType) {
+    public void handleMessage(Message message, byte[] rawMsg, MessageEncodingTypeEnum encodingType) {
         handleMsgLogDuration();
         if (MessageEncodingTypeEnum.BINARY.equals(encodingType)) {
-            ProtobufMessage protobufMessage = new ProtobufMessageProtoCodec().map(message);
-            writeToFile(ProtobufLogMessage.newBuilder().setMessage(protobufMessage).build());
+            if (rawMsg != null) {
+                // the received bytes are already the encoded message, no need to encode it again
+                writeToFile(ProtobufLogMessage.getDefaultInstance(), rawMsg);
+            } else {
+                writeToFile(ProtobufLogMessage.newBuilder().setMessage(CODEC.map(message)).build());
+            }
         } else {
             logger.error("Tried to log a message with an unsupported encoding type: " + encodingType);
         }
@@ -16,7 +16,6 @@ import org.slf4j.LoggerFactory;
 import com.google.protobuf.DoubleValue;
 
 import generated.proto.common.ProtobufLogMessageProto.ProtobufLogMessage;
-import generated.proto.common.ProtobufMessageProto.ProtobufMessage;
 import mil.arl.gift.common.DomainSession;
 import mil.arl.gift.common.PackageUtil;
 import mil.arl.gift.common.enums.MessageEncodingTypeEnum;
@@ -37,6 +36,9 @@ public class DomainSessionLogger extends AbstractMessageLogger  {
     
     /** instance of the logger */
     private static final Logger logger = LoggerFactory.getLogger(DomainSessionLogger.class);
+
+    /** used to encode a message that wasn't provided in its received form */
+    private static final ProtobufMessageProtoCodec CODEC = new ProtobufMessageProtoCodec();
     
     /** strings used to create file name */
     private static final String PREFIX = "domainSession";
@@ -125,7 +127,7 @@ public class DomainSessionLogger extends AbstractMessageLogger  {
     }
     
     @Override
-    public void handleMessage(Message message, String rawMsg, MessageEncodingTypeEnum encodingType) {
+    public void handleMessage(Message message, byte[] rawMsg, MessageEncodingTypeEnum encodingType) {
         if (message.getMessageType() == MessageTypeEnum.START_DOMAIN_SESSION) {
             domainSessionStartTime = Long.valueOf(message.getTimeStamp());
         }
@@ -145,11 +147,15 @@ public class DomainSessionLogger extends AbstractMessageLogger  {
         }
 
         if (MessageEncodingTypeEnum.BINARY.equals(encodingType)) {
-            ProtobufMessage protobufMessage = new ProtobufMessageProtoCodec().map(message);
-            ProtobufLogMessage logMessage = ProtobufLogMessage.newBuilder().setMessage(protobufMessage)
+            ProtobufLogMessage.Builder logMessage = ProtobufLogMessage.newBuilder()
                     .setElapsedDsTime(DoubleValue.of(Double.valueOf(elapsedDSTime)))
-                    .setElapsedWriteTime(DoubleValue.of(Double.valueOf(elapsedWriteTime))).build();
-            writeToFile(logMessage);
+                    .setElapsedWriteTime(DoubleValue.of(Double.valueOf(elapsedWriteTime)));
+            if (rawMsg != null) {
+                // the received bytes are already the encoded message, no need to encode it again
+                writeToFile(logMessage.build(), rawMsg);
+            } else {
+                writeToFile(logMessage.setMessage(CODEC.map(message)).build());
+            }
         } else {
             logger.error("Tried to log a message with an unsupported encoding type: " + encodingType);
         }
@@ -70,7 +70,7 @@ public class MessageLogManager {
      * @param rawMsg - the raw message to log
      * @param encodingType - the type of codec used on this message
 	 */
-    public void handleMessage(Message message, String rawMsg, MessageEncodingTypeEnum encodingType){
+    public void handleMessage(Message message, byte[] rawMsg, MessageEncodingTypeEnum encodingType){
 		
 		//determine the type of message (Admin/System or Domain)
 		if(message instanceof DomainSessionMessage){
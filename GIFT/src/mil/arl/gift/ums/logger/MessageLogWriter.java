@@ -0,0 +1,377 @@
+/**
+ * Copyright Dignitas Technologies, LLC
+ *
+ * This file and its contents are governed by one or more distribution and
+ * copyright statements as described in the LICENSE.txt file distributed with
+ * this work.
+ */
+package mil.arl.gift.ums.logger;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Appends already encoded log records to a message log file without doing any file I/O on the
+ * thread logging the message.  Records are queued and written to a buffered stream by a single shared
+ * writer thread which commits them in groups, either when the configured number of bytes is pending or
+ * when the commit interval has elapsed, whichever comes first.<br/>
+ * <br/>
+ * The bytes written are exactly the bytes appended, therefore the log file format is decided by the caller
+ * (e.g. length delimited {@link generated.proto.common.ProtobufLogMessageProto.ProtobufLogMessage} records).<br/>
+ * <br/>
+ * The records waiting to be written are bounded by the maximum pending bytes.  When reached (e.g. the disk
+ * is stalled) the thread appending a record waits until the writer thread makes room, records are never dropped.<br/>
+ * <br/>
+ * Note: records are only in memory until they are committed, therefore if the JVM crashes the records appended
+ * during the last commit interval (250 ms by default) are lost.  Unless the fsync policy is {@link FsyncPolicy#COMMIT}
+ * the committed bytes can also be lost if the operating system crashes before writing them to the storage device.
+ *
+ * @author agent
+ *
+ */
+public class MessageLogWriter {
+
+    /** instance of the logger */
+    private static Logger logger = LoggerFactory.getLogger(MessageLogWriter.class);
+
+    /**
+     * When to force the written bytes to the storage device.
+     *
+     * @author agent
+     */
+    public enum FsyncPolicy {
+
+        /** never force, leave it to the operating system */
+        NONE,
+
+        /** force after every group commit */
+        COMMIT,
+
+        /** force once when the file is closed */
+        CLOSE
+    }
+
+    /** the thread that writes and commits the records of all message log files */
+    private static final ScheduledExecutorService COMMIT_EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Message Log Writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** the size of the in memory buffer in front of the file */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** the file being written */
+    private final File file;
+
+    /** the stream to the file, used to force the written bytes to the storage device */
+    private final FileOutputStream fileStream;
+
+    /** buffered stream to the file, null once closed.  Guarded by the lock. */
+    private BufferedOutputStream output;
+
+    /** guards the output stream */
+    private final Object lock = new Object();
+
+    /** records appended but not yet written */
+    private final ConcurrentLinkedQueue<byte[]> pending = new ConcurrentLinkedQueue<>();
+
+    /** the number of bytes appended but not yet written */
+    private final AtomicLong pendingBytes = new AtomicLong();
+
+    /** the number of pending bytes at which appending threads wait for the writer thread to make room */
+    private final long maxPendingBytes;
+
+    /** used by appending threads to wait for room when the maximum pending bytes has been reached */
+    private final Object roomLock = new Object();
+
+    /** whether a commit has already been requested because the pending bytes reached the threshold */
+    private final AtomicBoolean commitRequested = new AtomicBoolean(false);
+
+    /** whether the writer is closed, records appended after this are ignored */
+    private volatile boolean closed = false;
+
+    /** the number of pending bytes that causes a commit before the commit interval elapses */
+    private final int commitBytes;
+
+    /** when to force the written bytes to the storage device */
+    private final FsyncPolicy fsyncPolicy;
+
+    /** the periodic commit */
+    private final ScheduledFuture<?> periodicCommit;
+
+    /** total number of records written to the file */
+    private final AtomicLong recordCount = new AtomicLong();
+
+    /** total number of group commits */
+    private final AtomicLong commitCount = new AtomicLong();
+
+    /** total number of times an appending thread had to wait because the maximum pending bytes was reached */
+    private final AtomicLong blockedCount = new AtomicLong();
+
+    /**
+     * Create the file and start committing records to it.
+     *
+     * @param file the file to create.  Can't be null.
+     * @param commitIntervalMs the interval (ms) between group commits.  Must be greater than zero.
+     * @param commitBytes the number of pending bytes that causes a commit before the interval elapses.  Must be greater than zero.
+     * @param maxPendingBytes the number of pending bytes at which appending threads wait for room.  Must not be less than the commit bytes.
+     * @param fsyncPolicy when to force the written bytes to the storage device.  Can't be null.
+     * @throws IOException if there was a problem creating the file
+     */
+    public MessageLogWriter(File file, long commitIntervalMs, int commitBytes, long maxPendingBytes, FsyncPolicy fsyncPolicy) throws IOException{
+
+        if(file == null){
+            throw new IllegalArgumentException("The file can't be null.");
+        }else if(commitIntervalMs <= 0){
+            throw new IllegalArgumentException("The commit interval must be greater than zero.");
+        }else if(commitBytes <= 0){
+            throw new IllegalArgumentException("The commit bytes must be greater than zero.");
+        }else if(maxPendingBytes < commitBytes){
+            throw new IllegalArgumentException("The max pending bytes can't be less than the commit bytes.");
+        }else if(fsyncPolicy == null){
+            throw new IllegalArgumentException("The fsync policy can't be null.");
+        }
+
+        this.file = file;
+        this.commitBytes = commitBytes;
+        this.maxPendingBytes = maxPendingBytes;
+        this.fsyncPolicy = fsyncPolicy;
+
+        fileStream = new FileOutputStream(file);
+        output = new BufferedOutputStream(fileStream, BUFFER_SIZE);
+
+        periodicCommit = COMMIT_EXECUTOR.scheduleWithFixedDelay(this::commitQuietly, commitIntervalMs, commitIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queue the record to be written to the file on the next group commit.  If the maximum pending bytes
+     * has been reached this waits until the writer thread makes room.
+     *
+     * @param record the encoded record to write.  Can't be null.
+     * @return true if the record was queued, false if the writer is closed
+     */
+    public boolean append(byte[] record){
+
+        if(closed){
+            return false;
+        }
+
+        if(pendingBytes.get() >= maxPendingBytes){
+            waitForRoom();
+        }
+
+        pending.add(record);
+        if(pendingBytes.addAndGet(record.length) >= commitBytes){
+            requestCommit();
+        }
+
+        return true;
+    }
+
+    /**
+     * Start a commit on the writer thread unless one has already been requested.
+     */
+    private void requestCommit(){
+
+        if(commitRequested.compareAndSet(false, true)){
+            COMMIT_EXECUTOR.execute(this::commitQuietly);
+        }
+    }
+
+    /**
+     * Wait until the pending bytes are below the maximum or the writer is closed.
+     */
+    private void waitForRoom(){
+
+        long blocked = blockedCount.incrementAndGet();
+        if(blocked == 1 || blocked % 1000 == 0){
+            logger.warn("Waiting to append to the log file "+file+" because "+pendingBytes.get()+" bytes are waiting to be written.  "+this);
+        }
+
+        requestCommit();
+
+        synchronized(roomLock){
+
+            while(pendingBytes.get() >= maxPendingBytes && !closed){
+
+                try{
+                    roomLock.wait(1000);
+                }catch(@SuppressWarnings("unused") InterruptedException e){
+                    //append the record anyway instead of losing it
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Write all pending records to the file and flush the buffer, logging any problems.
+     */
+    private void commitQuietly(){
+
+        try{
+            commit();
+        }catch(IOException e){
+            logger.error("Caught exception when trying to write data to log file "+file, e);
+        }
+    }
+
+    /**
+     * Write all pending records to the file and flush the buffer.
+     *
+     * @throws IOException if there was a problem writing to the file
+     */
+    public void commit() throws IOException{
+
+        synchronized(lock){
+
+            commitRequested.set(false);
+            if(output == null){
+                return;
+            }
+
+            if(writePending() > 0){
+
+                output.flush();
+                commitCount.incrementAndGet();
+
+                if(fsyncPolicy == FsyncPolicy.COMMIT){
+                    fileStream.getChannel().force(false);
+                }
+            }
+        }
+    }
+
+    /**
+     * Move the pending records to the buffered stream.  Must be called while holding the lock.
+     *
+     * @return the number of records written
+     * @throws IOException if there was a problem writing to the file
+     */
+    private int writePending() throws IOException{
+
+        int written = 0;
+        byte[] record;
+        while((record = pending.poll()) != null){
+
+            pendingBytes.addAndGet(-record.length);
+            output.write(record);
+            written++;
+        }
+
+        recordCount.addAndGet(written);
+
+        if(written > 0){
+            synchronized(roomLock){
+                roomLock.notifyAll();
+            }
+        }
+
+        return written;
+    }
+
+    /**
+     * Write any pending records and close the file.  If the writer was closed previously, this method
+     * does nothing.
+     *
+     * @throws IOException if there was a problem writing or closing the file
+     */
+    public void close() throws IOException{
+
+        closed = true;
+        periodicCommit.cancel(false);
+
+        synchronized(roomLock){
+            roomLock.notifyAll();
+        }
+
+        synchronized(lock){
+
+            if(output == null){
+                return;
+            }
+
+            try{
+                writePending();
+                output.flush();
+
+                if(fsyncPolicy != FsyncPolicy.NONE){
+                    fileStream.getChannel().force(false);
+                }
+            }finally{
+                output.close();
+                output = null;
+            }
+        }
+
+        if(logger.isInfoEnabled()){
+            logger.info("Closed "+this);
+        }
+    }
+
+    /**
+     * Return the file being written.
+     *
+     * @return the log file
+     */
+    public File getFile(){
+        return file;
+    }
+
+    /**
+     * Return the total number of records written to the file.
+     *
+     * @return the number of records written since the file was created
+     */
+    public long getRecordCount(){
+        return recordCount.get();
+    }
+
+    /**
+     * Return the total number of group commits.
+     *
+     * @return the number of commits since the file was created
+     */
+    public long getCommitCount(){
+        return commitCount.get();
+    }
+
+    /**
+     * Return the total number of times an appending thread had to wait because the maximum pending bytes was reached.
+     *
+     * @return the number of times backpressure was applied since the file was created
+     */
+    public long getBlockedCount(){
+        return blockedCount.get();
+    }
+
+    @Override
+    public String toString(){
+
+        StringBuilder sb = new StringBuilder("[MessageLogWriter: ");
+        sb.append("file = ").append(file);
+        sb.append(", commitBytes = ").append(commitBytes);
+        sb.append(", fsyncPolicy = ").append(fsyncPolicy);
+        sb.append(", records = ").append(getRecordCount());
+        sb.append(", commits = ").append(getCommitCount());
+        sb.append(", pendingBytes = ").append(pendingBytes.get());
+        sb.append(", maxPendingBytes = ").append(maxPendingBytes);
+        sb.append(", blocked = ").append(getBlockedCount());
+        sb.append("]");
+        return sb.toString();
+    }
+}